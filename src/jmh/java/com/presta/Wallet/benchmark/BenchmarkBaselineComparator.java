@@ -0,0 +1,129 @@
+package com.presta.Wallet.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline and prints a regression report.
+ * Exits with status 1 when any benchmark is slower than the baseline by more than the threshold
+ * percentage, so a release build can fail on it.
+ *
+ * <pre>
+ * BenchmarkBaselineComparator &lt;result.json&gt; &lt;baseline.json&gt; [thresholdPercent] [--save-baseline]
+ * </pre>
+ *
+ * With {@code --save-baseline} the result is copied over the baseline after the report is printed.
+ * A missing baseline fails the comparison (status 2) rather than silently accepting the run; record
+ * one with {@code --save-baseline} from a known build.
+ */
+public final class BenchmarkBaselineComparator {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkBaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineComparator <result.json> <baseline.json> [thresholdPercent] [--save-baseline]");
+            System.exit(2);
+        }
+
+        Path resultFile = Path.of(args[0]);
+        Path baselineFile = Path.of(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        boolean saveBaseline = args.length > 3 && "--save-baseline".equals(args[3]);
+
+        if (!Files.exists(baselineFile)) {
+            if (saveBaseline) {
+                saveBaseline(resultFile, baselineFile);
+                System.out.println("No baseline at " + baselineFile + "; saved this run as the baseline.");
+                return;
+            }
+            System.err.println("No baseline at " + baselineFile + "; record one from a known build with --save-baseline");
+            System.exit(2);
+        }
+
+        int regressions = compare(read(resultFile), read(baselineFile), threshold);
+
+        if (saveBaseline) {
+            saveBaseline(resultFile, baselineFile);
+            System.out.println("Baseline updated from " + resultFile);
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    static int compare(Map<String, Score> current, Map<String, Score> baseline, double threshold) {
+        int regressions = 0;
+
+        System.out.printf("%-90s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Status");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  NEW%n", entry.getKey(), "-", now.value(), "-");
+                continue;
+            }
+
+            // Positive change always means slower, whichever direction the mode counts in
+            double change = now.higherIsBetter()
+                    ? (before.value() - now.value()) / before.value() * 100.0
+                    : (now.value() - before.value()) / before.value() * 100.0;
+            String status = "OK";
+            if (change > threshold) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (change < -threshold) {
+                status = "IMPROVED";
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s (%s)%n",
+                    entry.getKey(), before.value(), now.value(), change, status, now.unit());
+        }
+
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s %14.3f %14s %9s  MISSING%n",
+                        key, baseline.get(key).value(), "-", "-"));
+        return regressions;
+    }
+
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : OBJECT_MAPPER.readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(
+                    metric.path("score").asDouble(),
+                    metric.path("scoreUnit").asText(),
+                    "thrpt".equals(run.path("mode").asText())));
+        }
+        return scores;
+    }
+
+    private static void saveBaseline(Path resultFile, Path baselineFile) throws IOException {
+        if (baselineFile.getParent() != null) {
+            Files.createDirectories(baselineFile.getParent());
+        }
+        Files.copy(resultFile, baselineFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.presta.Wallet.benchmark;
+
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.entity.WalletTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic data for the benchmarks. The same seed and row count always produce the
+ * same rows, so runs on different machines and releases measure identical inputs.
+ *
+ * <p>The external side mirrors the internal side with a realistic mix: 90% perfect matches,
+ * 4% amount differences, 3% missing externally and 3% provider-only rows.</p>
+ */
+public class BenchmarkDataGenerator {
+
+    public static final long DEFAULT_SEED = 20240115L;
+
+    private static final String[] SERVICE_TYPES = {"CRB", "KYC", "CREDIT_SCORING"};
+    private static final int WALLET_POOL_SIZE = 1_000;
+
+    private final long seed;
+    private final LocalDate reportDate = LocalDate.of(2024, 1, 15);
+    private final List<Wallet> wallets = new ArrayList<>(WALLET_POOL_SIZE);
+
+    public BenchmarkDataGenerator(long seed) {
+        this.seed = seed;
+        for (long id = 1; id <= WALLET_POOL_SIZE; id++) {
+            wallets.add(Wallet.builder().id(id).build());
+        }
+    }
+
+    public List<WalletTransaction> walletTransactions(int rows) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime startOfDay = reportDate.atStartOfDay();
+        List<WalletTransaction> transactions = new ArrayList<>(rows);
+
+        for (int i = 0; i < rows; i++) {
+            BigDecimal amount = amount(random);
+            BigDecimal balanceBefore = amount(random).add(amount);
+            transactions.add(WalletTransaction.builder()
+                    .id((long) i + 1)
+                    .wallet(wallets.get(random.nextInt(WALLET_POOL_SIZE)))
+                    .transactionType(WalletTransaction.TransactionType.CONSUMPTION)
+                    .amount(amount)
+                    .referenceId("REF_" + i)
+                    .description("Service consumption")
+                    .status(WalletTransaction.TransactionStatus.COMPLETED)
+                    .balanceBefore(balanceBefore)
+                    .balanceAfter(balanceBefore.subtract(amount))
+                    .serviceType(SERVICE_TYPES[random.nextInt(SERVICE_TYPES.length)])
+                    .createdAt(startOfDay.plusSeconds(random.nextInt(86_400)))
+                    .build());
+        }
+        return transactions;
+    }
+
+    public List<ExternalTransaction> externalTransactions(List<WalletTransaction> internal) {
+        SplittableRandom random = new SplittableRandom(seed + 1);
+        List<ExternalTransaction> transactions = new ArrayList<>(internal.size());
+        long id = 1;
+
+        for (WalletTransaction transaction : internal) {
+            int roll = random.nextInt(100);
+            if (roll < 3) {
+                continue; // missing on the provider side
+            }
+            BigDecimal amount = roll < 7 ? transaction.getAmount().add(BigDecimal.ONE) : transaction.getAmount();
+            transactions.add(externalTransaction(id++, transaction.getReferenceId(), amount, transaction.getServiceType()));
+            if (roll >= 97) {
+                transactions.add(externalTransaction(id++, "EXT_ONLY_" + id, amount(random), transaction.getServiceType()));
+            }
+        }
+        return transactions;
+    }
+
+    public List<ReconciliationItem> reconciliationItems(int rows) {
+        SplittableRandom random = new SplittableRandom(seed + 2);
+        ReconciliationReport report = ReconciliationReport.builder().id(1L).reconciliationDate(reportDate).build();
+        List<ReconciliationItem> items = new ArrayList<>(rows);
+
+        for (int i = 0; i < rows; i++) {
+            BigDecimal internalAmount = amount(random);
+            int roll = random.nextInt(100);
+            ReconciliationItem.ReconciliationItemBuilder item = ReconciliationItem.builder()
+                    .id((long) i + 1)
+                    .reconciliationReport(report)
+                    .referenceId("REF_" + i);
+
+            if (roll < 90) {
+                item.matchType(ReconciliationItem.MatchType.PERFECT_MATCH)
+                        .discrepancyType(ReconciliationItem.DiscrepancyType.NONE)
+                        .internalTransactionId((long) i).externalTransactionId((long) i)
+                        .internalAmount(internalAmount).externalAmount(internalAmount)
+                        .amountDifference(BigDecimal.ZERO)
+                        .notes("Perfect match on reference and amount");
+            } else if (roll < 95) {
+                BigDecimal externalAmount = internalAmount.add(amount(random));
+                item.matchType(ReconciliationItem.MatchType.REFERENCE_MATCH)
+                        .discrepancyType(ReconciliationItem.DiscrepancyType.AMOUNT_DIFFERENCE)
+                        .internalTransactionId((long) i).externalTransactionId((long) i)
+                        .internalAmount(internalAmount).externalAmount(externalAmount)
+                        .amountDifference(internalAmount.subtract(externalAmount))
+                        .notes("Reference match but amount differs, \"review\"");
+            } else {
+                item.matchType(ReconciliationItem.MatchType.NO_MATCH)
+                        .discrepancyType(ReconciliationItem.DiscrepancyType.MISSING_EXTERNAL)
+                        .internalTransactionId((long) i)
+                        .internalAmount(internalAmount)
+                        .notes("Internal transaction with no external match");
+            }
+            items.add(item.build());
+        }
+        return items;
+    }
+
+    /**
+     * Provider CSV lines in the upload format, roughly one in ten with a quoted description.
+     */
+    public List<String> csvLines(int rows) {
+        SplittableRandom random = new SplittableRandom(seed + 3);
+        List<String> lines = new ArrayList<>(rows);
+
+        for (int i = 0; i < rows; i++) {
+            String description = random.nextInt(10) == 0
+                    ? "\"Consumption, " + SERVICE_TYPES[random.nextInt(SERVICE_TYPES.length)] + " lookup\""
+                    : "Service consumption";
+            lines.add("EXT_" + i + "," + reportDate + "," + amount(random) + ",REF_" + i
+                    + ",DEBIT,CUST_" + random.nextInt(100_000)
+                    + "," + SERVICE_TYPES[random.nextInt(SERVICE_TYPES.length)] + "," + description);
+        }
+        return lines;
+    }
+
+    private ExternalTransaction externalTransaction(long id, String referenceId, BigDecimal amount, String serviceType) {
+        return ExternalTransaction.builder()
+                .id(id)
+                .externalTransactionId("EXT_" + id)
+                .transactionDate(reportDate)
+                .amount(amount)
+                .referenceId(referenceId)
+                .transactionType("DEBIT")
+                .serviceType(serviceType)
+                .providerName("BENCHMARK_PROVIDER")
+                .build();
+    }
+
+    private BigDecimal amount(SplittableRandom random) {
+        return BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+    }
+}
@@ -0,0 +1,81 @@
+package com.presta.Wallet.benchmark;
+
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.money.Money;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic on the transaction hot path: the long-backed {@link Wallet} methods against
+ * the equivalent {@link BigDecimal} sequence they replaced. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} to see bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private final BigDecimal[] decimalAmounts = new BigDecimal[AMOUNTS];
+    private final Money[] moneyAmounts = new Money[AMOUNTS];
+    private BigDecimal decimalBalance;
+    private Wallet wallet;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(BenchmarkDataGenerator.DEFAULT_SEED);
+        for (int i = 0; i < AMOUNTS; i++) {
+            decimalAmounts[i] = BigDecimal.valueOf(random.nextLong(1, 1_000_000), Money.SCALE);
+            moneyAmounts[i] = Money.of(decimalAmounts[i], "KSH");
+        }
+        decimalBalance = BigDecimal.valueOf(1_000_000_000_00L, Money.SCALE);
+        wallet = Wallet.builder().balance(decimalBalance).currency("KSH").build();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalDebitThenCredit() {
+        BigDecimal amount = decimalAmounts[cursor++ & (AMOUNTS - 1)];
+        if (amount.compareTo(BigDecimal.ZERO) > 0 && decimalBalance.compareTo(amount) >= 0) {
+            decimalBalance = decimalBalance.subtract(amount);
+        }
+        decimalBalance = decimalBalance.add(amount);
+        return decimalBalance;
+    }
+
+    @Benchmark
+    public long moneyDebitThenCredit() {
+        Money amount = moneyAmounts[cursor++ & (AMOUNTS - 1)];
+        if (wallet.hasSufficientBalance(amount)) {
+            wallet.debit(amount);
+        }
+        wallet.credit(amount);
+        return wallet.getBalanceMinorUnits();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalSum() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal minorUnitSum() {
+        long total = 0;
+        for (BigDecimal amount : decimalAmounts) {
+            total = Math.addExact(total, Money.toMinorUnits(amount));
+        }
+        return Money.toDecimal(total);
+    }
+}
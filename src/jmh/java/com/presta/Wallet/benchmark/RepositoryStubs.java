@@ -0,0 +1,45 @@
+package com.presta.Wallet.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * No-op repository implementations so benchmarks measure the service code rather than a
+ * mocking framework or a database. {@code save}/{@code saveAll} hand their argument back;
+ * everything else returns an empty value.
+ */
+public final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    public static <T> T stub(Class<T> repositoryType) {
+        Object proxy = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (instance, method, args) -> {
+                    switch (method.getName()) {
+                        case "save", "saveAll", "saveAndFlush":
+                            return args[0];
+                        case "toString":
+                            return repositoryType.getSimpleName() + "Stub";
+                        case "hashCode":
+                            return System.identityHashCode(instance);
+                        case "equals":
+                            return instance == args[0];
+                        default:
+                            return emptyValue(method.getReturnType());
+                    }
+                });
+        return repositoryType.cast(proxy);
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (type == Optional.class) return Optional.empty();
+        if (List.class.isAssignableFrom(type)) return Collections.emptyList();
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == int.class) return 0;
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.presta.Wallet.benchmark;
+
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.mapper.WalletTransactionMapper;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping a page of ledger entries to API responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalletTransactionMapperBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private final WalletTransactionMapper mapper = new WalletTransactionMapper();
+    private List<WalletTransaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactions = new BenchmarkDataGenerator(BenchmarkDataGenerator.DEFAULT_SEED).walletTransactions(rows);
+    }
+
+    @Benchmark
+    public void toDTO(Blackhole blackhole) {
+        for (WalletTransaction transaction : transactions) {
+            blackhole.consume(mapper.toDTO(transaction));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.benchmark.BenchmarkDataGenerator;
+import com.presta.Wallet.benchmark.RepositoryStubs;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.AggregateWatermarkRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+import com.presta.Wallet.repository.WalletDailyAggregateRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding the detailed item section of a reconciliation export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvExportBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private CsvExportService csvExportService;
+    private List<ReconciliationItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        csvExportService = new CsvExportService(
+                RepositoryStubs.stub(ReconciliationReportRepository.class),
+                RepositoryStubs.stub(ReconciliationItemRepository.class),
+                new ActivityAggregateService(
+                        RepositoryStubs.stub(WalletTransactionRepository.class),
+                        RepositoryStubs.stub(WalletDailyAggregateRepository.class),
+                        RepositoryStubs.stub(AggregateWatermarkRepository.class),
+                        RepositoryStubs.stub(PlatformTransactionManager.class),
+                        new WalletMetrics(new SimpleMeterRegistry())));
+        items = new BenchmarkDataGenerator(BenchmarkDataGenerator.DEFAULT_SEED).reconciliationItems(rows);
+    }
+
+    @Benchmark
+    public int writeItemRows() {
+        StringWriter csvWriter = new StringWriter();
+        for (ReconciliationItem item : items) {
+            csvExportService.writeItemRow(csvWriter, item);
+        }
+        return csvWriter.getBuffer().length();
+    }
+}
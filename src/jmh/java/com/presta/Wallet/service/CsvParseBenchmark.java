@@ -0,0 +1,59 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.benchmark.BenchmarkDataGenerator;
+import com.presta.Wallet.benchmark.RepositoryStubs;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of splitting every line of a provider CSV into fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvParseBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private FileProcessingService fileProcessingService;
+    private List<String> lines;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExternalTransactionRepository externalTransactionRepository =
+                RepositoryStubs.stub(ExternalTransactionRepository.class);
+        WalletMetrics walletMetrics = new WalletMetrics(new SimpleMeterRegistry());
+        fileProcessingService = new FileProcessingService(externalTransactionRepository,
+                new IngestDeduplicationService(RepositoryStubs.stub(IngestedFileRepository.class),
+                        externalTransactionRepository),
+                walletMetrics,
+                new StreamingReconciliationService(
+                        RepositoryStubs.stub(ReconciliationReportRepository.class),
+                        RepositoryStubs.stub(ReconciliationItemRepository.class),
+                        RepositoryStubs.stub(PlatformTransactionManager.class),
+                        walletMetrics));
+        lines = new BenchmarkDataGenerator(BenchmarkDataGenerator.DEFAULT_SEED).csvLines(rows);
+    }
+
+    @Benchmark
+    public void parseCsvLines(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(fileProcessingService.parseCsvLine(line));
+        }
+    }
+}
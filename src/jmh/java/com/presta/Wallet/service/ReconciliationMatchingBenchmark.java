@@ -0,0 +1,67 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.benchmark.BenchmarkDataGenerator;
+import com.presta.Wallet.benchmark.RepositoryStubs;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of matching one day's internal ledger against a provider report of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReconciliationMatchingBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private ReconciliationService reconciliationService;
+    private List<WalletTransaction> internal;
+    private List<ExternalTransaction> external;
+    private ReconciliationReport report;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WalletMetrics walletMetrics = new WalletMetrics(new SimpleMeterRegistry());
+        reconciliationService = new ReconciliationService(
+                RepositoryStubs.stub(WalletTransactionRepository.class),
+                RepositoryStubs.stub(ExternalTransactionRepository.class),
+                RepositoryStubs.stub(ReconciliationReportRepository.class),
+                RepositoryStubs.stub(ReconciliationItemRepository.class),
+                walletMetrics,
+                new StreamingReconciliationService(
+                        RepositoryStubs.stub(ReconciliationReportRepository.class),
+                        RepositoryStubs.stub(ReconciliationItemRepository.class),
+                        RepositoryStubs.stub(PlatformTransactionManager.class),
+                        walletMetrics));
+
+        BenchmarkDataGenerator generator = new BenchmarkDataGenerator(BenchmarkDataGenerator.DEFAULT_SEED);
+        internal = generator.walletTransactions(rows);
+        external = generator.externalTransactions(internal);
+        report = ReconciliationReport.builder().id(1L).reconciliationDate(LocalDate.of(2024, 1, 15)).build();
+    }
+
+    @Benchmark
+    public List<ReconciliationItem> performMatching() {
+        return reconciliationService.performMatching(internal, external, report);
+    }
+}
@@ -0,0 +1,68 @@
+package com.presta.Wallet.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters for one endpoint. Latency is measured from the
+ * request's scheduled send time, not the actual send time, so a stalled server shows up as
+ * queueing delay instead of being hidden by the generator slowing down.
+ */
+class EndpointStats {
+
+    private static final long MAX_TRACKED_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_TRACKED_NANOS, 3);
+    private final LongAdder success = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    void record(long latencyNanos, int status) {
+        latency.recordValue(Math.min(latencyNanos, MAX_TRACKED_NANOS));
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            success.increment();
+        }
+    }
+
+    void recordFailure(long latencyNanos) {
+        latency.recordValue(Math.min(latencyNanos, MAX_TRACKED_NANOS));
+        failures.increment();
+    }
+
+    long total() {
+        return latency.getTotalCount();
+    }
+
+    Map<String, Object> summary(double elapsedSeconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", total());
+        summary.put("throughputPerSecond", round(total() / elapsedSeconds));
+        summary.put("success", success.sum());
+        summary.put("clientErrors", clientErrors.sum());
+        summary.put("serverErrors", serverErrors.sum());
+        summary.put("connectionFailures", failures.sum());
+        summary.put("p50Ms", millis(latency.getValueAtPercentile(50.0)));
+        summary.put("p99Ms", millis(latency.getValueAtPercentile(99.0)));
+        summary.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latency.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
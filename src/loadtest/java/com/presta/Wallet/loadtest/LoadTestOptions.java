@@ -0,0 +1,72 @@
+package com.presta.Wallet.loadtest;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options for {@link LoadTestRunner}, given as {@code --name=value}.
+ *
+ * <pre>
+ * --base-url          target API, e.g. http://localhost:9191/api/v1 (default: start the app in-process on H2)
+ * --customers         customers and wallets to create before the run (default 100)
+ * --rate              target requests per second across all endpoints (default 200)
+ * --duration          measured seconds (default 60)
+ * --warmup            seconds of load before measuring starts (default 10)
+ * --mix               endpoint weights (default topup=40,consume=40,consume-service=20)
+ * --max-in-flight     cap on outstanding requests (default 256)
+ * --seed              workload seed (default 42)
+ * --report            JSON report path (default target/loadtest-report.json)
+ * --profiles          extra Spring profiles for the in-process app, e.g. virtual (ignored with --base-url)
+ * </pre>
+ */
+record LoadTestOptions(String baseUrl, int customers, int rate, int durationSeconds, int warmupSeconds,
+                       Map<Operation, Integer> mix, int maxInFlight, long seed, Path report, String[] profiles) {
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.get("base-url"),
+                Integer.parseInt(values.getOrDefault("customers", "100")),
+                Integer.parseInt(values.getOrDefault("rate", "200")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                parseMix(values.getOrDefault("mix", "topup=40,consume=40,consume-service=20")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "256")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json")),
+                values.getOrDefault("profiles", "").isBlank() ? new String[0] : values.get("profiles").split(","));
+
+        if (options.customers() < 1 || options.rate() < 1 || options.durationSeconds() < 1 || options.maxInFlight() < 1) {
+            throw new IllegalArgumentException("customers, rate, duration and max-in-flight must be positive");
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromPath(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix must give at least one endpoint a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,255 @@
+package com.presta.Wallet.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.presta.Wallet.WalletCreationMicroserviceApplication;
+import com.presta.Wallet.dto.CreateCustomerRequest;
+import com.presta.Wallet.dto.CreateWalletRequest;
+import com.presta.Wallet.dto.TopupRequest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Open-model load generator for the transaction API. Creates a pool of customers and funded
+ * wallets, then issues a weighted mix of {@code /topup}, {@code /consume} and
+ * {@code /consume-service} calls at a fixed arrival rate and reports p50/p99/p999 latency
+ * and throughput per endpoint.
+ *
+ * <p>Without {@code --base-url} the service is started in this JVM with the {@code loadtest}
+ * profile (H2, event publishing off) on a random port. See {@link LoadTestOptions}.</p>
+ */
+public final class LoadTestRunner {
+
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    private LoadTestRunner(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        options.mix().keySet().forEach(operation -> stats.put(operation, new EndpointStats()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.baseUrl();
+        if (baseUrl == null) {
+            context = new SpringApplicationBuilder(WalletCreationMicroserviceApplication.class)
+                    .profiles("loadtest")
+                    .profiles(options.profiles())
+                    .initializers(applicationContext -> applicationContext.getBeanFactory()
+                            .registerSingleton("testClassesExcludeFilter", new TestClassesExcludeFilter()))
+                    .run("--server.port=0");
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+        }
+
+        try {
+            new LoadTestRunner(options, baseUrl).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Creating %d customers and wallets against %s%n", options.customers(), baseUrl);
+        List<Long> walletIds = createWallets();
+
+        System.out.printf("Running %d req/s for %ds (+%ds warmup), mix %s%n",
+                options.rate(), options.durationSeconds(), options.warmupSeconds(), options.mix());
+        generateLoad(walletIds);
+
+        writeReport();
+    }
+
+    private List<Long> createWallets() {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        return IntStream.range(0, options.customers()).parallel()
+                .mapToObj(i -> {
+                    JsonNode customer = post("/customers", CreateCustomerRequest.builder()
+                            .name("Load Test " + i)
+                            .email("loadtest-" + runId + "-" + i + "@example.com")
+                            .phoneNumber("2547" + String.format("%08d", i))
+                            .build());
+                    JsonNode wallet = post("/wallets", CreateWalletRequest.builder()
+                            .customerId(customer.path("data").path("id").asLong())
+                            .currency("KSH")
+                            .walletType("CREDITS")
+                            .build());
+                    long walletId = wallet.path("data").path("id").asLong();
+                    post("/wallets/" + walletId + "/topup", TopupRequest.builder()
+                            .amount(OPENING_BALANCE)
+                            .referenceId("LT-OPEN-" + runId + "-" + i)
+                            .source("LOAD_TEST")
+                            .build());
+                    return walletId;
+                })
+                .toList();
+    }
+
+    private void generateLoad(List<Long> walletIds) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        Operation[] operations = options.mix().keySet().toArray(new Operation[0]);
+        int[] cumulativeWeights = new int[operations.length];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += options.mix().get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+
+        for (long sequence = 0; ; sequence++) {
+            long scheduledAt = start + sequence * intervalNanos;
+            if (scheduledAt >= end) {
+                break;
+            }
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int roll = random.nextInt(totalWeight);
+            int index = 0;
+            while (roll >= cumulativeWeights[index]) {
+                index++;
+            }
+            Operation operation = operations[index];
+            long walletId = walletIds.get(random.nextInt(walletIds.size()));
+            HttpRequest request = jsonRequest("/wallets/" + walletId + "/" + operation.path(),
+                    operation.body("LT-" + runId + "-" + sequence, random));
+
+            // Blocking here delays later sends, which shows up as latency from scheduledAt
+            inFlight.acquire();
+            EndpointStats endpointStats = scheduledAt >= measureFrom ? stats.get(operation) : null;
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (endpointStats == null) {
+                            return;
+                        }
+                        long latency = System.nanoTime() - scheduledAt;
+                        if (error != null) {
+                            endpointStats.recordFailure(latency);
+                        } else {
+                            endpointStats.record(latency, response.statusCode());
+                        }
+                    });
+        }
+
+        if (!inFlight.tryAcquire(options.maxInFlight(), 60, TimeUnit.SECONDS)) {
+            System.out.println("Gave up waiting for outstanding requests after 60s");
+        }
+    }
+
+    private void writeReport() throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long totalRequests = 0;
+        System.out.printf("%n%-18s %9s %10s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Req/s", "Errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, EndpointStats> entry : stats.entrySet()) {
+            Map<String, Object> summary = entry.getValue().summary(options.durationSeconds());
+            endpoints.put(entry.getKey().path(), summary);
+            totalRequests += entry.getValue().total();
+            long errors = (long) summary.get("clientErrors") + (long) summary.get("serverErrors")
+                    + (long) summary.get("connectionFailures");
+            System.out.printf("%-18s %9d %10.2f %9d %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().path(),
+                    summary.get("requests"), summary.get("throughputPerSecond"), errors,
+                    summary.get("p50Ms"), summary.get("p99Ms"), summary.get("p999Ms"), summary.get("maxMs"));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("targetRate", options.rate());
+        report.put("durationSeconds", options.durationSeconds());
+        report.put("warmupSeconds", options.warmupSeconds());
+        report.put("customers", options.customers());
+        report.put("seed", options.seed());
+        report.put("profiles", List.of(options.profiles()));
+        report.put("totalRequests", totalRequests);
+        report.put("achievedRate", Math.round(totalRequests * 100.0 / options.durationSeconds()) / 100.0);
+        report.put("endpoints", endpoints);
+
+        if (options.report().getParent() != null) {
+            Files.createDirectories(options.report().getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.report().toFile(), report);
+        System.out.printf("%nReport written to %s%n", options.report().toAbsolutePath());
+    }
+
+    /**
+     * The test classpath is on the exec classpath; keep its classes out of component scanning.
+     */
+    private static final class TestClassesExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getClassMetadata().getClassName().startsWith("com.presta.Wallet.creation.");
+        }
+    }
+
+    private JsonNode post(String path, Object body) {
+        try {
+            HttpResponse<String> response = httpClient.send(jsonRequest(path, body), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+            }
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException("POST " + path + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during setup", e);
+        }
+    }
+
+    private HttpRequest jsonRequest(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialise request body", e);
+        }
+    }
+}
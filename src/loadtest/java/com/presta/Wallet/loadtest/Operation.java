@@ -0,0 +1,72 @@
+package com.presta.Wallet.loadtest;
+
+import com.presta.Wallet.dto.ConsumeRequest;
+import com.presta.Wallet.dto.ServiceConsumeRequest;
+import com.presta.Wallet.dto.TopupRequest;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * The transaction endpoints the harness drives, each with a request body generator.
+ */
+enum Operation {
+
+    TOPUP("topup") {
+        @Override
+        Object body(String referenceId, SplittableRandom random) {
+            return TopupRequest.builder()
+                    .amount(BigDecimal.valueOf(1_000 + random.nextInt(50_000), 2))
+                    .referenceId(referenceId)
+                    .source("LOAD_TEST")
+                    .build();
+        }
+    },
+
+    CONSUME("consume") {
+        @Override
+        Object body(String referenceId, SplittableRandom random) {
+            return ConsumeRequest.builder()
+                    .amount(BigDecimal.valueOf(100 + random.nextInt(5_000), 2))
+                    .referenceId(referenceId)
+                    .serviceType(SERVICE_TYPES[random.nextInt(SERVICE_TYPES.length)])
+                    .build();
+        }
+    },
+
+    CONSUME_SERVICE("consume-service") {
+        @Override
+        Object body(String referenceId, SplittableRandom random) {
+            return ServiceConsumeRequest.builder()
+                    .serviceType(SERVICE_TYPES[random.nextInt(SERVICE_TYPES.length)])
+                    .referenceId(referenceId)
+                    .customerId("LT_CUST_" + random.nextInt(1_000_000))
+                    .nationalId(String.valueOf(10_000_000 + random.nextInt(90_000_000)))
+                    .phoneNumber("2547" + (10_000_000 + random.nextInt(90_000_000)))
+                    .build();
+        }
+    };
+
+    private static final String[] SERVICE_TYPES = {"CRB", "KYC", "CREDIT_SCORING"};
+
+    private final String path;
+
+    Operation(String path) {
+        this.path = path;
+    }
+
+    String path() {
+        return path;
+    }
+
+    abstract Object body(String referenceId, SplittableRandom random);
+
+    static Operation fromPath(String path) {
+        for (Operation operation : values()) {
+            if (operation.path.equals(path)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint: " + path);
+    }
+}
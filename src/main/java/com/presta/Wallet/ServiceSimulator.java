@@ -3,14 +3,21 @@ package com.presta.Wallet;
 
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.presta.Wallet.config.SimulatorProperties;
 import com.presta.Wallet.dto.ServiceResponse;
 
 import java.math.BigDecimal;
-import java.util.Random;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
 
 @Slf4j
 @Service
@@ -25,58 +32,45 @@ public class ServiceSimulator {
     @Value("${wallet.services.credit-scoring.cost}")
     private BigDecimal creditScoringCost;
 
-    private final Random random = new Random();
+    @Value("${wallet.services.crb.enabled:true}")
+    private boolean crbEnabled = true;
+
+    @Value("${wallet.services.kyc.enabled:true}")
+    private boolean kycEnabled = true;
+
+    @Value("${wallet.services.credit-scoring.enabled:true}")
+    private boolean creditScoringEnabled = true;
+
+    private final SimulatorProperties properties;
+
+    public ServiceSimulator() {
+        this(new SimulatorProperties());
+    }
+
+    @Autowired
+    public ServiceSimulator(SimulatorProperties properties) {
+        this.properties = properties;
+    }
 
     public ServiceResponse callCRBService(String nationalId, String phoneNumber, String referenceId) {
         log.info("Simulating CRB service call for nationalId: {}, reference: {}", nationalId, referenceId);
-        
-        simulateDelay(500, 1500);
-        
-        boolean success = random.nextDouble() < 0.90;
-        
-        return ServiceResponse.builder()
-                .serviceType("CRB")
-                .status(success ? "SUCCESS" : "FAILED")
-                .message(success ? "CRB check completed successfully" : "CRB service temporarily unavailable")
-                .externalReference(UUID.randomUUID().toString())
-                .cost(crbCost)
-                .result(success ? generateCRBResult() : null)
-                .build();
+
+        return simulate("CRB", referenceId, crbCost, "CRB check completed successfully",
+                "CRB service temporarily unavailable", this::generateCRBResult);
     }
 
     public ServiceResponse callKYCService(String nationalId, String phoneNumber, String referenceId) {
         log.info("Simulating KYC service call for nationalId: {}, reference: {}", nationalId, referenceId);
-        
-        simulateDelay(300, 1000);
-        
-        boolean success = random.nextDouble() < 0.95;
-        
-        return ServiceResponse.builder()
-                .serviceType("KYC")
-                .status(success ? "SUCCESS" : "FAILED")
-                .message(success ? "KYC verification completed" : "KYC verification failed")
-                .externalReference(UUID.randomUUID().toString())
-                .cost(kycCost)
-                .result(success ? generateKYCResult() : null)
-                .build();
+
+        return simulate("KYC", referenceId, kycCost, "KYC verification completed",
+                "KYC verification failed", this::generateKYCResult);
     }
 
     public ServiceResponse callCreditScoringService(String nationalId, String phoneNumber, String referenceId) {
         log.info("Simulating Credit Scoring service call for nationalId: {}, reference: {}", nationalId, referenceId);
-        
-        simulateDelay(800, 2000);
-        
-        // 85% success rate
-        boolean success = random.nextDouble() < 0.85;
-        
-        return ServiceResponse.builder()
-                .serviceType("CREDIT_SCORING")
-                .status(success ? "SUCCESS" : "FAILED")
-                .message(success ? "Credit score calculated" : "Credit scoring service error")
-                .externalReference(UUID.randomUUID().toString())
-                .cost(creditScoringCost)
-                .result(success ? generateCreditScoringResult() : null)
-                .build();
+
+        return simulate("CREDIT_SCORING", referenceId, creditScoringCost, "Credit score calculated",
+                "Credit scoring service error", this::generateCreditScoringResult);
     }
 
     public BigDecimal getServiceCost(String serviceType) {
@@ -89,21 +83,96 @@ public class ServiceSimulator {
     }
 
     public boolean isServiceEnabled(String serviceType) {
-       
-        return true;
+        return switch (serviceType.toUpperCase()) {
+            case "CRB" -> crbEnabled;
+            case "KYC" -> kycEnabled;
+            case "CREDIT_SCORING" -> creditScoringEnabled;
+            default -> false;
+        };
+    }
+
+    private ServiceResponse simulate(String serviceType, String referenceId, BigDecimal cost, String successMessage,
+                                     String failureMessage, Function<RandomGenerator, String> result) {
+        if (!isServiceEnabled(serviceType)) {
+            return ServiceResponse.builder()
+                    .serviceType(serviceType)
+                    .status("FAILED")
+                    .message(serviceType + " service is disabled")
+                    .cost(cost)
+                    .build();
+        }
+
+        SimulatorProperties.Profile profile = properties.forServiceType(serviceType);
+        RandomGenerator random = randomFor(serviceType, profile, referenceId);
+
+        simulateDelay(sampleDelayMs(profile, random));
+
+        boolean success = random.nextDouble() >= profile.getErrorRate();
+
+        return ServiceResponse.builder()
+                .serviceType(serviceType)
+                .status(success ? "SUCCESS" : "FAILED")
+                .message(success ? successMessage : failureMessage)
+                .externalReference(UUID.randomUUID().toString())
+                .cost(cost)
+                .result(success ? result.apply(random) : null)
+                .build();
+    }
+
+    // Seeded runs draw from a generator of their own per call so the outcome depends only on the seed and
+    // the reference id, never on which thread got there first; unseeded runs share nothing at all
+    private RandomGenerator randomFor(String serviceType, SimulatorProperties.Profile profile, String referenceId) {
+        Long seed = profile.getSeed() != null ? profile.getSeed() : properties.getSeed();
+        if (seed == null) {
+            return ThreadLocalRandom.current();
+        }
+        return new SplittableRandom(seed * 31 + Objects.hash(serviceType, referenceId));
+    }
+
+    private static long sampleDelayMs(SimulatorProperties.Profile profile, RandomGenerator random) {
+        return switch (profile.getDistribution()) {
+            case FIXED -> profile.getFixedMs();
+            case UNIFORM -> profile.getMaxMs() > profile.getMinMs()
+                    ? random.nextLong(profile.getMinMs(), profile.getMaxMs())
+                    : profile.getMinMs();
+            case LOG_NORMAL -> Math.min(profile.getMaxMs(),
+                    Math.round(profile.getMedianMs() * Math.exp(profile.getSigma() * random.nextGaussian())));
+            case HISTOGRAM -> sampleHistogram(profile.getHistogram(), random, profile.getMinMs());
+        };
     }
 
-    private void simulateDelay(int minMs, int maxMs) {
+    // Picks a bucket in proportion to its recorded count, then a point inside it; buckets are listed in ascending order
+    private static long sampleHistogram(List<SimulatorProperties.HistogramBucket> buckets, RandomGenerator random,
+                                        long fallbackMs) {
+        long total = buckets.stream().mapToLong(SimulatorProperties.HistogramBucket::getCount).sum();
+        if (total <= 0) {
+            return fallbackMs;
+        }
+        long pick = random.nextLong(total);
+        long lowerMs = 0;
+        for (SimulatorProperties.HistogramBucket bucket : buckets) {
+            if (pick < bucket.getCount()) {
+                return bucket.getUpToMs() > lowerMs ? random.nextLong(lowerMs, bucket.getUpToMs() + 1) : bucket.getUpToMs();
+            }
+            pick -= bucket.getCount();
+            lowerMs = bucket.getUpToMs();
+        }
+        return lowerMs;
+    }
+
+    private void simulateDelay(long delayMs) {
+        if (delayMs <= 0) {
+            return;
+        }
         try {
-            int delay = random.nextInt(maxMs - minMs) + minMs;
-            Thread.sleep(delay);
+            Thread.sleep(delayMs);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.warn("Service simulation interrupted", e);
         }
     }
 
-    private String generateCRBResult() {
+    private String generateCRBResult(RandomGenerator random) {
         String[] statuses = {"CLEAN", "LISTED", "WATCH_LIST"};
         String status = statuses[random.nextInt(statuses.length)];
         
@@ -117,7 +186,7 @@ public class ServiceSimulator {
             """, status, random.nextInt(800) + 200, java.time.LocalDateTime.now());
     }
 
-    private String generateKYCResult() {
+    private String generateKYCResult(RandomGenerator random) {
         boolean verified = random.nextBoolean();
         
         return String.format("""
@@ -130,7 +199,7 @@ public class ServiceSimulator {
             """, verified, random.nextDouble() * 0.3 + 0.7, java.time.LocalDateTime.now());
     }
 
-    private String generateCreditScoringResult() {
+    private String generateCreditScoringResult(RandomGenerator random) {
         int score = random.nextInt(650) + 350; //let used Score between 350-1000
         String grade = getGradeFromScore(score);
         
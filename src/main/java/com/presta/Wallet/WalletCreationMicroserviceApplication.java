@@ -3,11 +3,13 @@ package com.presta.Wallet;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EnableTransactionManagement
 @EnableJpaRepositories
+@EnableScheduling
 public class WalletCreationMicroserviceApplication {
 
 	public static void main(String[] args) {
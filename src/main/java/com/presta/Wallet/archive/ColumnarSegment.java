@@ -0,0 +1,400 @@
+package com.presta.Wallet.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An immutable, column-oriented archive file. Each column is stored as its own deflate-compressed
+ * chunk, so a reader decompresses only the columns it asks for, and the footer keeps min/max stats
+ * for every numeric, date and timestamp column so whole segments can be skipped without reading
+ * any data.
+ *
+ * <pre>
+ * "WSEG" version | column chunk ... | footer | footer length (int) | "WSEG"
+ * </pre>
+ *
+ * Inside a chunk, nulls are a bitmap and the remaining values follow in row order: numbers as
+ * zig-zag varint deltas from the previous value (ids and timestamps archived in id order are
+ * nearly sorted, so most deltas fit in a byte or two), strings as a varint length and UTF-8 bytes.
+ */
+public final class ColumnarSegment {
+
+    public static final String EXTENSION = ".wseg";
+
+    private static final byte[] MAGIC = "WSEG".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+
+    public enum Type {
+        LONG, DECIMAL, TIMESTAMP, DATE, STRING
+    }
+
+    /**
+     * Footer entry for one column; {@code min} and {@code max} are in the column's encoded form and
+     * null when the column has no stats (strings) or no non-null values.
+     */
+    public record Column(String name, Type type, int scale, long offset, int length, Long min, Long max) {
+    }
+
+    private final Path file;
+    private final int rowCount;
+    private final Map<String, Column> columns;
+
+    private ColumnarSegment(Path file, int rowCount, Map<String, Column> columns) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    public static Writer writer(int rowCount) {
+        return new Writer(rowCount);
+    }
+
+    /**
+     * Reads the footer only; column data is read on demand.
+     */
+    public static ColumnarSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer tail = ByteBuffer.allocate(Integer.BYTES + MAGIC.length);
+            channel.read(tail, size - tail.capacity());
+            tail.flip();
+            int footerLength = tail.getInt();
+            byte[] magic = new byte[MAGIC.length];
+            tail.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(footerLength);
+            channel.read(footer, size - tail.capacity() - footerLength);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+            int rowCount = in.readInt();
+            int columnCount = in.readInt();
+            Map<String, Column> columns = new LinkedHashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                Type type = Type.values()[in.readByte()];
+                int scale = in.readByte();
+                long offset = in.readLong();
+                int length = in.readInt();
+                Long min = in.readBoolean() ? in.readLong() : null;
+                Long max = min != null ? in.readLong() : null;
+                columns.put(name, new Column(name, type, scale, offset, length, min, max));
+            }
+            return new ColumnarSegment(file, rowCount, Collections.unmodifiableMap(columns));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public Map<String, Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * False only when the footer stats prove no row's {@code column} lies in {@code [from, to]};
+     * a null bound is open.
+     */
+    public boolean mayContain(String column, Object from, Object to) {
+        Column meta = columns.get(column);
+        if (meta == null || meta.min() == null) {
+            return meta != null && meta.type() == Type.STRING;
+        }
+        return (from == null || encode(meta, from) <= meta.max()) && (to == null || encode(meta, to) >= meta.min());
+    }
+
+    public List<Long> readLongs(String column) throws IOException {
+        return readNumbers(column, Type.LONG, value -> value);
+    }
+
+    public List<BigDecimal> readDecimals(String column) throws IOException {
+        int scale = column(column, Type.DECIMAL).scale();
+        return readNumbers(column, Type.DECIMAL, value -> BigDecimal.valueOf(value, scale));
+    }
+
+    public List<LocalDateTime> readTimestamps(String column) throws IOException {
+        return readNumbers(column, Type.TIMESTAMP, ColumnarSegment::toTimestamp);
+    }
+
+    public List<LocalDate> readDates(String column) throws IOException {
+        return readNumbers(column, Type.DATE, LocalDate::ofEpochDay);
+    }
+
+    public List<String> readStrings(String column) throws IOException {
+        try (DataInputStream in = chunk(column(column, Type.STRING))) {
+            BitSet nulls = readNulls(in);
+            List<String> values = new ArrayList<>(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                if (nulls.get(row)) {
+                    values.add(null);
+                    continue;
+                }
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.readFully(bytes);
+                values.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return values;
+        }
+    }
+
+    private <T> List<T> readNumbers(String column, Type type, Function<Long, T> decode) throws IOException {
+        try (DataInputStream in = chunk(column(column, type))) {
+            BitSet nulls = readNulls(in);
+            List<T> values = new ArrayList<>(rowCount);
+            long previous = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (nulls.get(row)) {
+                    values.add(null);
+                    continue;
+                }
+                previous += unzigzag(readVarLong(in));
+                values.add(decode.apply(previous));
+            }
+            return values;
+        }
+    }
+
+    private Column column(String name, Type type) {
+        Column column = columns.get(name);
+        if (column == null || column.type() != type) {
+            throw new IllegalArgumentException("No " + type + " column '" + name + "' in " + file);
+        }
+        return column;
+    }
+
+    private DataInputStream chunk(Column column) throws IOException {
+        byte[] compressed = new byte[column.length()];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, column.offset() + buffer.position()) < 0) {
+                    throw new IOException("Truncated column '" + column.name() + "' in " + file);
+                }
+            }
+        }
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private BitSet readNulls(DataInputStream in) throws IOException {
+        byte[] bitmap = new byte[(int) readVarLong(in)];
+        in.readFully(bitmap);
+        return BitSet.valueOf(bitmap);
+    }
+
+    static long encode(Column column, Object value) {
+        return switch (column.type()) {
+            case LONG -> ((Number) value).longValue();
+            case DECIMAL -> ((BigDecimal) value).setScale(column.scale(), RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            case TIMESTAMP -> toMicros((LocalDateTime) value);
+            case DATE -> ((LocalDate) value).toEpochDay();
+            case STRING -> throw new IllegalArgumentException("String columns have no numeric encoding");
+        };
+    }
+
+    private static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    private static LocalDateTime toTimestamp(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of column chunk");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in column chunk");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Collects columns of equal length and writes them as one segment. The file is written under a
+     * temporary name and moved into place, so readers never see a partial segment.
+     */
+    public static final class Writer {
+
+        private final int rowCount;
+        private final List<Column> pending = new ArrayList<>();
+        private final List<List<?>> values = new ArrayList<>();
+
+        private Writer(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        public Writer longs(String name, List<Long> column) {
+            return add(name, Type.LONG, 0, column);
+        }
+
+        public Writer decimals(String name, int scale, List<BigDecimal> column) {
+            return add(name, Type.DECIMAL, scale, column);
+        }
+
+        public Writer timestamps(String name, List<LocalDateTime> column) {
+            return add(name, Type.TIMESTAMP, 0, column);
+        }
+
+        public Writer dates(String name, List<LocalDate> column) {
+            return add(name, Type.DATE, 0, column);
+        }
+
+        public Writer strings(String name, List<String> column) {
+            return add(name, Type.STRING, 0, column);
+        }
+
+        private Writer add(String name, Type type, int scale, List<?> column) {
+            if (column.size() != rowCount) {
+                throw new IllegalArgumentException("Column '" + name + "' has " + column.size() + " values, expected " + rowCount);
+            }
+            pending.add(new Column(name, type, scale, 0, 0, null, null));
+            values.add(column);
+            return this;
+        }
+
+        /**
+         * Writes the segment and returns its size in bytes.
+         */
+        public long writeTo(Path target) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            body.write(MAGIC);
+            body.write(VERSION);
+
+            List<Column> written = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                Column column = pending.get(i);
+                long offset = body.size();
+                long[] stats = encodeChunk(column, values.get(i), body);
+                written.add(new Column(column.name(), column.type(), column.scale(), offset, (int) (body.size() - offset),
+                        stats == null ? null : stats[0], stats == null ? null : stats[1]));
+            }
+
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(rowCount);
+            footer.writeInt(written.size());
+            for (Column column : written) {
+                footer.writeUTF(column.name());
+                footer.writeByte(column.type().ordinal());
+                footer.writeByte(column.scale());
+                footer.writeLong(column.offset());
+                footer.writeInt(column.length());
+                footer.writeBoolean(column.min() != null);
+                if (column.min() != null) {
+                    footer.writeLong(column.min());
+                    footer.writeLong(column.max());
+                }
+            }
+            footer.flush();
+            footerBytes.writeTo(body);
+            new DataOutputStream(body).writeInt(footerBytes.size());
+            body.write(MAGIC);
+
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(body.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return body.size();
+        }
+
+        private long[] encodeChunk(Column column, List<?> columnValues, ByteArrayOutputStream body) throws IOException {
+            BitSet nulls = new BitSet(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                if (columnValues.get(row) == null) {
+                    nulls.set(row);
+                }
+            }
+
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            boolean numeric = false;
+            DeflaterOutputStream out = new DeflaterOutputStream(body);
+            byte[] bitmap = nulls.toByteArray();
+            writeVarLong(out, bitmap.length);
+            out.write(bitmap);
+
+            long previous = 0;
+            for (Object value : columnValues) {
+                if (value == null) {
+                    continue;
+                }
+                if (column.type() == Type.STRING) {
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, bytes.length);
+                    out.write(bytes);
+                    continue;
+                }
+                long encoded = encode(column, value);
+                writeVarLong(out, zigzag(encoded - previous));
+                previous = encoded;
+                min = Math.min(min, encoded);
+                max = Math.max(max, encoded);
+                numeric = true;
+            }
+            out.finish();
+            return numeric ? new long[] {min, max} : null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cold-storage archival settings, bound from {@code wallet.archive}. Dataset keys follow table names
+ * with '-' in place of '_' ({@code wallet-transactions}); a dataset without its own entry uses
+ * {@code defaults}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = false;
+    private String directory = "data/archive";
+    private int batchSize = 10_000; // rows per segment file
+    private Dataset defaults = new Dataset();
+    private Map<String, Dataset> datasets = new HashMap<>();
+
+    public Dataset forDataset(String dataset) {
+        Dataset settings = datasets.get(dataset.toLowerCase().replace('_', '-'));
+        return settings != null ? settings : defaults;
+    }
+
+    @Data
+    public static class Dataset {
+        private int retentionDays = 365; // rows older than this leave the hot tables
+    }
+}
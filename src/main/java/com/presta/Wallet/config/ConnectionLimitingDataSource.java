@@ -0,0 +1,129 @@
+package com.presta.Wallet.config;
+
+import com.presta.Wallet.exception.ServiceOverloadedException;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many connections request threads hold at once, so requests only queue while they need the
+ * database. A permit is taken when a request thread opens a connection and returned when it closes it,
+ * which with open-in-view off is the span of one transaction; a provider call between two transactions
+ * holds nothing. Threads outside a request (scheduled jobs, shard and reversal workers) are not limited
+ * and keep the remaining connections. Nested connections on a thread that already holds a permit, such
+ * as a {@code REQUIRES_NEW} transaction, ride on it rather than waiting on themselves.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final WalletMetrics walletMetrics;
+    private final Semaphore permits;
+    private final int limit;
+    private final long maxWaitMs;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ConnectionLimitingDataSource(DataSource target, WalletMetrics walletMetrics, int limit, long maxWaitMs) {
+        super(target);
+        this.walletMetrics = walletMetrics;
+        this.limit = limit;
+        this.permits = new Semaphore(limit, true);
+        this.maxWaitMs = maxWaitMs;
+        walletMetrics.registerConcurrencyLimiter(() -> limit - permits.availablePermits(), waiting::get);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return limited(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return limited(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection limited(ConnectionSource source) throws SQLException {
+        int[] depth = held.get();
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return source.open();
+        }
+        if (depth[0] == 0) {
+            acquire();
+        }
+        depth[0]++;
+        try {
+            return releasingOnClose(source.open(), depth);
+        } catch (SQLException | RuntimeException e) {
+            release(depth);
+            throw e;
+        }
+    }
+
+    private void acquire() {
+        Timer.Sample sample = walletMetrics.startTimer();
+        boolean admitted;
+        waiting.incrementAndGet();
+        try {
+            admitted = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        walletMetrics.recordLimiterWait(sample, admitted);
+        if (!admitted) {
+            throw new ServiceOverloadedException("No database connection available within " + maxWaitMs + " ms");
+        }
+    }
+
+    private void release(int[] depth) {
+        if (--depth[0] == 0) {
+            permits.release();
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, int[] depth) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        // Closed on the thread that opened it; transactions do not hop threads
+                        release(depth);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+}
@@ -0,0 +1,49 @@
+package com.presta.Wallet.config;
+
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a {@link ConnectionLimitingDataSource} when
+ * {@code wallet.execution.limiter.enabled} is set. On platform threads Tomcat's pool bounds how many
+ * requests want a connection; on virtual threads nothing does, and requests beyond the pool size would
+ * pile up inside Hikari and fail after its connection timeout. They wait on the limiter instead and get
+ * a 503 after {@code max-wait-ms}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.execution.limiter", name = "enabled", havingValue = "true")
+public class ConnectionPoolLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPoolLimiter(ObjectProvider<WalletMetrics> walletMetrics,
+                                                          Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConcurrent = environment.getProperty("wallet.execution.limiter.max-concurrent", Integer.class, 0);
+        int reserved = environment.getProperty("wallet.execution.limiter.reserved-connections", Integer.class, 2);
+        long maxWaitMs = environment.getProperty("wallet.execution.limiter.max-wait-ms", Long.class, 5000L);
+        // Scheduled jobs (rollups, reconciliation drain, reversal workers) share the pool with requests
+        int limit = maxConcurrent > 0 ? maxConcurrent : Math.max(1, poolSize - reserved);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The primary "dataSource" bean: Hikari itself, or the lazy proxy in front of the read/write router
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                log.info("Request threads limited to {} database connections (connection pool size {})", limit, poolSize);
+                return new ConnectionLimitingDataSource(dataSource, walletMetrics.getObject(), limit, maxWaitMs);
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.presta.Wallet.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reports which threads serve requests. {@code spring.threads.virtual.enabled} moves Tomcat request
+ * handling, the application task executor and Rabbit listener containers onto virtual threads, but
+ * Spring Boot silently ignores it below JDK 21; this makes that fallback visible at startup.
+ */
+@Slf4j
+@Configuration
+public class ExecutionModeConfig {
+
+    static final int VIRTUAL_THREADS_MIN_JDK = 21;
+
+    public ExecutionModeConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                               @Value("${wallet.execution.limiter.enabled:false}") boolean limiterEnabled) {
+        int jdk = Runtime.version().feature();
+        if (!virtualThreads) {
+            log.info("Serving requests on platform threads");
+        } else if (jdk < VIRTUAL_THREADS_MIN_JDK) {
+            log.warn("Virtual threads requested but the JVM is JDK {}; they need JDK {}. Serving requests on platform threads",
+                    jdk, VIRTUAL_THREADS_MIN_JDK);
+        } else {
+            log.info("Serving requests, async tasks and Rabbit listeners on virtual threads");
+            if (!limiterEnabled) {
+                log.warn("Virtual threads are on without wallet.execution.limiter; request threads queue for connections inside Hikari");
+            }
+        }
+    }
+}
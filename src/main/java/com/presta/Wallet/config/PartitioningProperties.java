@@ -0,0 +1,41 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Partition maintenance settings for the range-partitioned transaction tables, bound from
+ * {@code wallet.partitioning}. Table keys use '-' in place of '_' ({@code wallet-transactions});
+ * a table without its own entry uses {@code defaults}. Only applies on PostgreSQL once
+ * {@code db/changelog/005-partition-transaction-tables.sql} has been run.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.partitioning")
+public class PartitioningProperties {
+
+    private boolean enabled = false;
+    private String archiveSchema = "archive"; // detached partitions are moved here, not dropped
+    private Table defaults = new Table();
+    private Map<String, Table> tables = new HashMap<>();
+
+    public Table forTable(String table) {
+        Table settings = tables.get(table.toLowerCase().replace('_', '-'));
+        return settings != null ? settings : defaults;
+    }
+
+    public enum Granularity {
+        DAY, MONTH
+    }
+
+    @Data
+    public static class Table {
+        private Granularity granularity = Granularity.MONTH;
+        private int createAhead = 3;       // future partitions kept ready beyond the current one
+        private int retainPartitions = 24; // past partitions kept attached before the current one
+    }
+}
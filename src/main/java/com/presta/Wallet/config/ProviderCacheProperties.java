@@ -0,0 +1,33 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Result cache settings for the external service providers, bound from {@code wallet.cache}.
+ * Provider keys follow {@code wallet.services} naming; a provider without its own entry uses {@code defaults}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.cache")
+public class ProviderCacheProperties {
+
+    private boolean enabled = true;
+    private Provider defaults = new Provider();
+    private Map<String, Provider> providers = new HashMap<>();
+
+    public Provider forServiceType(String serviceType) {
+        return providers.getOrDefault(serviceType.toLowerCase().replace('_', '-'), defaults);
+    }
+
+    @Data
+    public static class Provider {
+        private long ttlSeconds = 300; // 0 turns caching off for the provider
+        private long maxEntries = 10_000;
+        private int cachedChargePercent = 100; // share of the service cost billed for a cached result
+    }
+}
@@ -0,0 +1,45 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resilience settings for the external service providers, bound from {@code wallet.resilience}.
+ * Provider keys follow {@code wallet.services} naming ({@code crb}, {@code kyc}, {@code credit-scoring});
+ * a provider without its own entry uses {@code defaults}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.resilience")
+public class ProviderResilienceProperties {
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Provider defaults = new Provider();
+    private Map<String, Provider> providers = new HashMap<>();
+
+    public Provider forServiceType(String serviceType) {
+        return providers.getOrDefault(serviceType.toLowerCase().replace('_', '-'), defaults);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private long openDurationMs = 10_000;
+        private int permittedCallsInHalfOpenState = 3;
+    }
+
+    @Data
+    public static class Provider {
+        private int maxConcurrentCalls = 10; // bulkhead threads dedicated to this provider
+        private int queueCapacity = 20;
+        private long timeoutMs = 2_000;
+        private long slowCallMs = 1_500;
+    }
+}
@@ -0,0 +1,72 @@
+package com.presta.Wallet.config;
+
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with a read/write router when
+ * {@code wallet.datasource.routing.enabled} is set. The primary keeps its {@code spring.datasource}
+ * settings; each replica gets its own Hikari pool, with pool metrics tagged by pool name.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.datasource.routing", name = "enabled", havingValue = "true")
+public class ReadReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("wallet-primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                        ReplicaRoutingProperties properties,
+                                                        WalletMetrics walletMetrics,
+                                                        MeterRegistry meterRegistry) {
+        List<ReadWriteRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica settings = properties.getReplicas().get(i);
+            String name = "replica-" + i;
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("wallet-" + name);
+            config.setJdbcUrl(settings.getUrl());
+            config.setUsername(settings.getUsername());
+            config.setPassword(settings.getPassword());
+            if (settings.getDriverClassName() != null) {
+                config.setDriverClassName(settings.getDriverClassName());
+            }
+            config.setMaximumPoolSize(settings.getMaximumPoolSize());
+            config.setReadOnly(true);
+            // Let the app start while a replica is down; the lag check keeps it out of rotation until it answers
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReadWriteRoutingDataSource.Replica(name, new HikariDataSource(config)));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, properties.getMaxLagMs(),
+                properties.getLagCheckIntervalMs(), properties.getLagQuery(), walletMetrics);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
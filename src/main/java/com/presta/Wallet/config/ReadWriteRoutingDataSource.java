@@ -0,0 +1,155 @@
+package com.presta.Wallet.config;
+
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica, round robin, and everything else to the primary.
+ * Replica lag is polled in the background; a replica that is unreachable or further behind than
+ * {@code maxLagMs} is skipped, and with none left reads fall back to the primary.
+ *
+ * <p>The read-only flag is only known once the transaction has started, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final WalletMetrics walletMetrics;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long lagMs = -1;
+        private volatile boolean healthy;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLagMs() {
+            return lagMs;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMs,
+                                      long lagCheckIntervalMs, String lagQuery, WalletMetrics walletMetrics) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        this.walletMetrics = walletMetrics;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.name, replica.dataSource);
+            walletMetrics.registerReplica(replica.name, replica::getLagMs, replica::isHealthy);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        checkReplicas();
+        if (lagCheckIntervalMs > 0) {
+            lagChecker.scheduleWithFixedDelay(this::checkReplicas, lagCheckIntervalMs, lagCheckIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            walletMetrics.recordDataSourceRoute(PRIMARY, "write");
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                walletMetrics.recordDataSourceRoute(replica.name, "read");
+                return replica.name;
+            }
+        }
+        walletMetrics.recordDataSourceRoute(PRIMARY, "read_fallback");
+        return PRIMARY;
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                replica.lagMs = resultSet.next() ? Math.round(resultSet.getDouble(1)) : 0;
+                replica.healthy = replica.lagMs <= maxLagMs;
+            } catch (Exception e) {
+                replica.lagMs = -1;
+                replica.healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} is unreachable, routing its reads elsewhere: {}", replica.name, e.getMessage());
+                }
+                continue;
+            }
+            if (replica.healthy && !wasHealthy) {
+                log.info("Replica {} is in rotation (lag {} ms)", replica.name, replica.lagMs);
+            } else if (!replica.healthy && wasHealthy) {
+                log.warn("Replica {} is {} ms behind, over the {} ms limit; routing its reads elsewhere",
+                        replica.name, replica.lagMs, maxLagMs);
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-replica routing settings, bound from {@code wallet.datasource.routing}. The primary is still
+ * configured under {@code spring.datasource}; with routing disabled the replicas are ignored.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+    private long maxLagMs = 5_000; // replicas further behind than this are skipped until they catch up
+    private long lagCheckIntervalMs = 1_000;
+    // Lag in milliseconds as seen on the replica; 0 once it has replayed everything it received
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
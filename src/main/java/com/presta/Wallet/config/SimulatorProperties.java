@@ -0,0 +1,77 @@
+package com.presta.Wallet.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency and fault profiles for {@link com.presta.Wallet.ServiceSimulator}, bound from {@code wallet.simulator}.
+ * Provider keys follow {@code wallet.services} naming; a provider without its own entry keeps the built-in profile.
+ * With a seed set, every call's latency and outcome is derived from the seed and the call's reference id,
+ * so a load test replays identically however its requests interleave.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.simulator")
+public class SimulatorProperties {
+
+    private Long seed; // null: unseeded
+    private Map<String, Profile> profiles = new HashMap<>();
+
+    public Profile forServiceType(String serviceType) {
+        Profile profile = profiles.get(serviceType.toLowerCase().replace('_', '-'));
+        return profile != null ? profile : Profile.builtIn(serviceType);
+    }
+
+    public enum Distribution {
+        FIXED, UNIFORM, LOG_NORMAL, HISTOGRAM
+    }
+
+    @Data
+    public static class Profile {
+        private Distribution distribution = Distribution.UNIFORM;
+        private long fixedMs = 500;
+        private long minMs = 300;
+        private long maxMs = 1_000; // upper bound for UNIFORM, cap for LOG_NORMAL
+        private long medianMs = 500;
+        private double sigma = 0.5;
+        private List<HistogramBucket> histogram = new ArrayList<>();
+        private double errorRate = 0.05;
+        private Long seed; // overrides wallet.simulator.seed for this provider
+
+        static Profile builtIn(String serviceType) {
+            Profile profile = new Profile();
+            switch (serviceType.toUpperCase()) {
+                case "CRB" -> profile.range(500, 1_500, 0.10);
+                case "KYC" -> profile.range(300, 1_000, 0.05);
+                case "CREDIT_SCORING" -> profile.range(800, 2_000, 0.15);
+                default -> { }
+            }
+            return profile;
+        }
+
+        private void range(long min, long max, double errors) {
+            minMs = min;
+            maxMs = max;
+            errorRate = errors;
+        }
+    }
+
+    /**
+     * One bucket of a recorded latency histogram: {@code count} calls took up to {@code upToMs}.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramBucket {
+        private long upToMs;
+        private long count;
+    }
+}
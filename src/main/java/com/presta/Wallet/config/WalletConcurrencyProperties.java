@@ -0,0 +1,59 @@
+package com.presta.Wallet.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.presta.Wallet.entity.Wallet;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How concurrent balance changes on one wallet are coordinated, bound from {@code wallet.concurrency}.
+ * Each wallet type picks a {@link Mode}; types not listed under {@code modes} use {@code default-mode}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wallet.concurrency")
+public class WalletConcurrencyProperties {
+
+    private Mode defaultMode = Mode.OPTIMISTIC;
+    private Map<Wallet.WalletType, Mode> modes = new EnumMap<>(Wallet.WalletType.class);
+    private int maxAttempts = 3; // per request, counting the first try; retried only on version conflicts
+    private long backoffMs = 10; // grows with each attempt, plus up to the same again in jitter
+    private int queueStripes = 1024; // QUEUED: wallets hash onto this many in-process locks
+    private long queueWaitMs = 5_000; // QUEUED: how long a request waits its turn before giving up
+    private Shards shards = new Shards();
+
+    public Mode modeFor(Wallet.WalletType walletType) {
+        return walletType == null ? defaultMode : modes.getOrDefault(walletType, defaultMode);
+    }
+
+    public boolean uses(Mode mode) {
+        return defaultMode == mode || modes.containsValue(mode);
+    }
+
+    @Data
+    public static class Shards {
+        private int count = 0; // 0 = one per available processor
+        private int queueCapacity = 10_000; // per shard; a full shard rejects with WALLET_BUSY
+        private int batchSize = 200; // commands applied and committed in one transaction
+        private long responseTimeoutMs = 10_000;
+        private int cachedWallets = 100_000; // balances held in memory, across all shards
+    }
+
+    public enum Mode {
+        /** Read without locking and let {@code @Version} reject the loser, which is retried. */
+        OPTIMISTIC,
+        /** Lock the wallet row with {@code SELECT ... FOR UPDATE} before reading its balance. */
+        PESSIMISTIC,
+        /** Queue requests per wallet on this instance so they never conflict with each other. */
+        QUEUED,
+        /**
+         * Hand top-ups and consumes to the single worker that owns the wallet, which applies them in
+         * order against an in-memory balance and commits them in batches.
+         */
+        SHARDED
+    }
+}
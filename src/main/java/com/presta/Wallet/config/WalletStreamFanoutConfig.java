@@ -0,0 +1,49 @@
+package com.presta.Wallet.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.presta.Wallet.service.WalletStreamService;
+
+/**
+ * Relays wallet stream events between instances: each instance publishes to a fanout exchange and
+ * consumes through its own auto-deleted queue, so a subscriber sees updates committed anywhere.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.stream.fanout", name = "enabled", havingValue = "true")
+public class WalletStreamFanoutConfig {
+
+    private final WalletStreamService walletStreamService;
+
+    public WalletStreamFanoutConfig(WalletStreamService walletStreamService) {
+        this.walletStreamService = walletStreamService;
+    }
+
+    @Bean
+    public FanoutExchange walletStreamExchange(@Value("${wallet.stream.fanout.exchange:wallet.events}") String name) {
+        return new FanoutExchange(name, false, true);
+    }
+
+    @Bean
+    public Queue walletStreamQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding walletStreamBinding(Queue walletStreamQueue, FanoutExchange walletStreamExchange) {
+        return BindingBuilder.bind(walletStreamQueue).to(walletStreamExchange);
+    }
+
+    @RabbitListener(queues = "#{walletStreamQueue.name}")
+    public void onWalletEvent(TransactionMessage message) {
+        walletStreamService.deliver(message);
+    }
+}
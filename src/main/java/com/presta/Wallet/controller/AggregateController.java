@@ -0,0 +1,62 @@
+package com.presta.Wallet.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.dto.DailyActivityAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.service.ActivityAggregateService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/aggregates")
+@RequiredArgsConstructor
+public class AggregateController {
+
+    private final ActivityAggregateService activityAggregateService;
+
+    @GetMapping("/daily")
+    public ResponseEntity<ApiResponse<List<DailyActivityAggregate>>> getDailyActivity(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "walletId", required = false) Long walletId,
+            @RequestParam(value = "serviceType", required = false) String serviceType,
+            @RequestParam(value = "transactionType", required = false) WalletTransaction.TransactionType transactionType) {
+
+        log.info("Received daily activity request from {} to {} (wallet={}, service={}, type={})",
+                startDate, endDate, walletId, serviceType, transactionType);
+
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("endDate must not be before startDate"));
+        }
+        List<DailyActivityAggregate> activity = activityAggregateService.findDaily(startDate, endDate,
+                new ActivityAggregateService.Filter(walletId, serviceType, transactionType));
+        return ResponseEntity.ok(ApiResponse.success(activity));
+    }
+
+    @GetMapping("/wallets/{walletId}/daily")
+    public ResponseEntity<ApiResponse<List<DailyActivityAggregate>>> getWalletDailyActivity(
+            @PathVariable Long walletId,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        return getDailyActivity(startDate, endDate, walletId, null, null);
+    }
+
+    @PostMapping("/rollup")
+    public ResponseEntity<ApiResponse<Integer>> rollUp() {
+        log.info("Received request to roll up daily activity aggregates");
+
+        int folded = activityAggregateService.rollUp();
+        return ResponseEntity.ok(ApiResponse.success("Folded " + folded + " transactions", folded));
+    }
+}
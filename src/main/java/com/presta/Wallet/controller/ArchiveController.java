@@ -0,0 +1,78 @@
+package com.presta.Wallet.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.dto.ArchiveRunReport;
+import com.presta.Wallet.dto.ExternalTransactionDTO;
+import com.presta.Wallet.dto.ReconciliationItemResponse;
+import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.service.ArchiveService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/archive")
+@RequiredArgsConstructor
+public class ArchiveController {
+
+    private final ArchiveService archiveService;
+
+    @PostMapping("/run")
+    public ResponseEntity<ApiResponse<ArchiveRunReport>> runArchive() {
+        log.info("Received request to archive rows past retention");
+
+        ArchiveRunReport report = archiveService.archiveAll();
+        return ResponseEntity.ok(ApiResponse.success("Archive run completed", report));
+    }
+
+    @GetMapping("/wallets/{walletId}/transactions")
+    public ResponseEntity<ApiResponse<List<TransactionResponse>>> getArchivedTransactions(
+            @PathVariable Long walletId,
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        log.info("Received archived transaction history request for wallet: {}", walletId);
+
+        List<TransactionResponse> transactions = archiveService.findWalletTransactions(walletId, startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success(transactions));
+    }
+
+    @GetMapping("/transactions/reference/{referenceId}")
+    public ResponseEntity<ApiResponse<TransactionResponse>> getArchivedTransactionByReference(
+            @PathVariable String referenceId) {
+
+        log.info("Received archived transaction lookup request for reference: {}", referenceId);
+
+        return archiveService.findWalletTransactionByReference(referenceId)
+                .map(transaction -> ResponseEntity.ok(ApiResponse.success(transaction)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No archived transaction with reference: " + referenceId)));
+    }
+
+    @GetMapping("/external-transactions")
+    public ResponseEntity<ApiResponse<List<ExternalTransactionDTO>>> getArchivedExternalTransactions(
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        log.info("Received archived external transactions request for date: {}", date);
+
+        return ResponseEntity.ok(ApiResponse.success(archiveService.findExternalTransactions(date)));
+    }
+
+    @GetMapping("/reconciliation/items")
+    public ResponseEntity<ApiResponse<List<ReconciliationItemResponse>>> getArchivedReconciliationItems(
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        log.info("Received archived reconciliation items request for date: {}", date);
+
+        return ResponseEntity.ok(ApiResponse.success(archiveService.findReconciliationItems(date)));
+    }
+}
@@ -12,15 +12,22 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.dto.IngestResult;
+import com.presta.Wallet.dto.QuarantineRowResponse;
 import com.presta.Wallet.dto.ReconciliationReportResponse;
 import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.IngestedFile;
 import com.presta.Wallet.service.CsvExportService;
 import com.presta.Wallet.service.FileProcessingService;
+import com.presta.Wallet.service.IngestDeduplicationService;
+import com.presta.Wallet.service.IngestQuarantineService;
 import com.presta.Wallet.service.ReconciliationService;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -31,15 +38,19 @@ public class ReconciliationController {
     private final ReconciliationService reconciliationService;
     private final FileProcessingService fileProcessingService;
     private final CsvExportService csvExportService;
+    private final IngestQuarantineService ingestQuarantineService;
+    private final IngestDeduplicationService ingestDeduplicationService;
 
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse<Map<String, Object>>> uploadExternalReport(
             @RequestParam("file") MultipartFile file,
             @RequestParam("providerName") String providerName,
-            @RequestParam("reportDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate reportDate) {
+            @RequestParam("reportDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate reportDate,
+            @RequestParam(value = "streaming", defaultValue = "false") boolean streaming,
+            @RequestParam(value = "quarantine", defaultValue = "false") boolean quarantine) {
         
-        log.info("Received file upload request: file={}, provider={}, date={}", 
-                file.getOriginalFilename(), providerName, reportDate);
+        log.info("Received file upload request: file={}, provider={}, date={}, streaming={}, quarantine={}", 
+                file.getOriginalFilename(), providerName, reportDate, streaming, quarantine);
 
         try {
             if (file.isEmpty()) {
@@ -47,13 +58,43 @@ public class ReconciliationController {
                         .body(ApiResponse.error("File cannot be empty"));
             }
 
-            List<ExternalTransaction> transactions = fileProcessingService.processFile(file, providerName, reportDate);
+            String contentHash;
+            try (InputStream in = file.getInputStream()) {
+                contentHash = ingestDeduplicationService.hashContent(in);
+            }
+            Optional<IngestedFile> previous = ingestDeduplicationService.findIngestedFile(providerName, contentHash);
+            if (previous.isPresent()) {
+                log.info("File {} matches already ingested file {}, skipping", file.getOriginalFilename(), previous.get().getFileName());
+                Map<String, Object> result = Map.of(
+                    "fileName", file.getOriginalFilename(),
+                    "providerName", providerName,
+                    "reportDate", reportDate,
+                    "transactionsProcessed", 0,
+                    "previousFileName", previous.get().getFileName(),
+                    "status", "DUPLICATE"
+                );
+                return ResponseEntity.ok(ApiResponse.success("File was already ingested", result));
+            }
+
+            if (quarantine) {
+                IngestResult ingestResult = ingestQuarantineService.ingestCsv(file, providerName, reportDate);
+                ingestDeduplicationService.recordIngestedFile(contentHash, file.getOriginalFilename(), providerName,
+                        reportDate, ingestResult.getAccepted());
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success("File ingested with quarantine", toResultMap(ingestResult)));
+            }
+
+            int processed = streaming
+                    ? fileProcessingService.ingestJsonStream(file, providerName, reportDate)
+                    : fileProcessingService.processFile(file, providerName, reportDate).size();
+            ingestDeduplicationService.recordIngestedFile(contentHash, file.getOriginalFilename(), providerName,
+                    reportDate, processed);
             
             Map<String, Object> result = Map.of(
                 "fileName", file.getOriginalFilename(),
                 "providerName", providerName,
                 "reportDate", reportDate,
-                "transactionsProcessed", transactions.size(),
+                "transactionsProcessed", processed,
                 "status", "SUCCESS"
             );
 
@@ -67,6 +108,48 @@ public class ReconciliationController {
         }
     }
 
+    @GetMapping("/quarantine")
+    public ResponseEntity<ApiResponse<List<QuarantineRowResponse>>> getQuarantinedRows(
+            @RequestParam("fileName") String fileName) {
+        
+        log.info("Received request for quarantined rows of file: {}", fileName);
+
+        List<QuarantineRowResponse> rows = ingestQuarantineService.getQuarantinedRows(fileName);
+        return ResponseEntity.ok(ApiResponse.success(rows));
+    }
+
+    @PostMapping("/quarantine/reprocess")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> reprocessQuarantinedRows(
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "providerName", required = false) String providerName,
+            @RequestParam(value = "reportDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate reportDate) {
+        
+        log.info("Received request to reprocess quarantined rows of file: {}, provider: {}, date: {}",
+                fileName, providerName, reportDate);
+
+        try {
+            IngestResult ingestResult = ingestQuarantineService.reprocessQuarantined(fileName, providerName, reportDate);
+            return ResponseEntity.ok(ApiResponse.success("Quarantined rows reprocessed", toResultMap(ingestResult)));
+
+        } catch (Exception e) {
+            log.error("Failed to reprocess quarantined rows for file: {} - Error: {}", fileName, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Quarantine reprocessing failed: " + e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> toResultMap(IngestResult ingestResult) {
+        return Map.of(
+            "fileName", ingestResult.getFileName(),
+            "providerName", ingestResult.getProviderName() != null ? ingestResult.getProviderName() : "N/A",
+            "transactionsProcessed", ingestResult.getAccepted(),
+            "rowsQuarantined", ingestResult.getQuarantined(),
+            "duplicatesSkipped", ingestResult.getDuplicatesSkipped(),
+            "chunksCommitted", ingestResult.getChunksCommitted(),
+            "status", ingestResult.getQuarantined() == 0 ? "SUCCESS" : "PARTIAL"
+        );
+    }
+
     @PostMapping("/process")
     public ResponseEntity<ApiResponse<ReconciliationReportResponse>> processReconciliation(
             @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
@@ -186,6 +269,32 @@ public class ReconciliationController {
         }
     }
 
+    @GetMapping("/export/activity")
+    public ResponseEntity<String> exportWalletActivitySummary(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        log.info("Received request to export wallet activity summary from {} to {}", startDate, endDate);
+
+        try {
+            String csvContent = csvExportService.exportWalletActivitySummary(startDate, endDate);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.TEXT_PLAIN);
+            headers.setContentDispositionFormData("attachment",
+                "wallet_activity_" + startDate + "_to_" + endDate + ".csv");
+
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(csvContent);
+
+        } catch (Exception e) {
+            log.error("Activity export failed for period {} to {} - Error: {}", startDate, endDate, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Activity export failed: " + e.getMessage());
+        }
+    }
+
     // Utility endpoints for testing and development
 
     @PostMapping("/generate-sample-data")
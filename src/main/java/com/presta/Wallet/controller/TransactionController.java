@@ -11,7 +11,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.dto.BulkReversalRequest;
 import com.presta.Wallet.dto.ConsumeRequest;
+import com.presta.Wallet.dto.ReversalResult;
 import com.presta.Wallet.dto.ServiceConsumeRequest;
 import com.presta.Wallet.dto.ServiceInfo;
 import com.presta.Wallet.dto.ServiceInfoResponse;
@@ -19,7 +21,10 @@ import com.presta.Wallet.dto.ServiceResponse;
 import com.presta.Wallet.dto.TopupRequest;
 import com.presta.Wallet.dto.TransactionHistoryRequest;
 import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.service.ReversalService;
 import com.presta.Wallet.service.TransactionService;
+import com.presta.Wallet.service.WalletConcurrencyService;
+import com.presta.Wallet.service.WalletShardService;
 
 import java.util.List;
 
@@ -30,6 +35,9 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final ReversalService reversalService;
+    private final WalletConcurrencyService walletConcurrencyService;
+    private final WalletShardService walletShardService;
 
     @PostMapping("/{walletId}/topup")
     public ResponseEntity<ApiResponse<TransactionResponse>> topup(
@@ -38,7 +46,9 @@ public class TransactionController {
         
         log.info("Received top-up request for wallet: {}, amount: {}", walletId, request.getAmount());
         
-        TransactionResponse response = transactionService.topup(walletId, request);
+        TransactionResponse response = walletConcurrencyService.isSharded(walletId)
+                ? walletShardService.topup(walletId, request)
+                : walletConcurrencyService.execute(walletId, () -> transactionService.topup(walletId, request));
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Top-up completed successfully", response));
@@ -52,7 +62,9 @@ public class TransactionController {
         log.info("Received consumption request for wallet: {}, amount: {}, service: {}", 
                 walletId, request.getAmount(), request.getServiceType());
         
-        TransactionResponse response = transactionService.consume(walletId, request);
+        TransactionResponse response = walletConcurrencyService.isSharded(walletId)
+                ? walletShardService.consume(walletId, request)
+                : walletConcurrencyService.execute(walletId, () -> transactionService.consume(walletId, request));
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Consumption completed successfully", response));
@@ -95,6 +107,51 @@ public class TransactionController {
         return ResponseEntity.ok(ApiResponse.success(transaction));
     }
 
+    @PostMapping("/transactions/reference/{referenceId}/reversal")
+    public ResponseEntity<ApiResponse<ReversalResult>> reverseTransaction(
+            @PathVariable String referenceId,
+            @RequestParam(required = false) String reason) {
+        
+        log.info("Received reversal request for reference: {}", referenceId);
+        
+        ReversalResult result = reversalService.reverse(referenceId, reason);
+        
+        return switch (result.getOutcome()) {
+            case REVERSED -> ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Transaction reversed successfully", result));
+            case ALREADY_REVERSED -> ResponseEntity.ok(ApiResponse.success(result.getMessage(), result));
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(result.getMessage(), "TRANSACTION_NOT_FOUND"));
+            case NOT_REVERSIBLE, INSUFFICIENT_BALANCE -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(result.getMessage(), result.getOutcome().name()));
+            case FAILED -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(result.getMessage(), "REVERSAL_FAILED"));
+        };
+    }
+
+    @PostMapping("/transactions/reversals")
+    public ResponseEntity<ApiResponse<List<ReversalResult>>> reverseTransactions(
+            @Valid @RequestBody BulkReversalRequest request) {
+        
+        log.info("Received bulk reversal request for {} references", request.getReferenceIds().size());
+        
+        List<ReversalResult> results = reversalService.reverseAll(request.getReferenceIds(), request.getReason());
+        
+        return ResponseEntity.ok(ApiResponse.success("Bulk reversal processed", results));
+    }
+
+    @PostMapping("/transactions/reversals/queue")
+    public ResponseEntity<ApiResponse<Integer>> queueReversals(
+            @Valid @RequestBody BulkReversalRequest request) {
+        
+        log.info("Received request to queue {} reversals", request.getReferenceIds().size());
+        
+        int queued = reversalService.enqueueAll(request.getReferenceIds(), request.getReason());
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Reversals queued", queued));
+    }
+
     // Utility endpoints for service information
     @GetMapping("/services")
     public ResponseEntity<ApiResponse<ServiceInfoResponse>> getServiceInfo() {
@@ -6,14 +6,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.presta.Wallet.dto.ApiResponse;
 import com.presta.Wallet.dto.BalanceResponse;
+import com.presta.Wallet.dto.BalanceVerificationReport;
+import com.presta.Wallet.dto.BalanceVerificationResult;
 import com.presta.Wallet.dto.CreateWalletRequest;
 import com.presta.Wallet.dto.WalletDTO;
+import com.presta.Wallet.service.BalanceVerificationService;
 import com.presta.Wallet.service.WalletService;
+import com.presta.Wallet.service.WalletStreamService;
 
 import java.util.List;
 
@@ -24,6 +30,8 @@ import java.util.List;
 public class WalletController {
 
     private final WalletService walletService;
+    private final BalanceVerificationService balanceVerificationService;
+    private final WalletStreamService walletStreamService;
 
     @PostMapping
     public ResponseEntity<ApiResponse<WalletDTO>> createWallet(@Valid @RequestBody CreateWalletRequest request) {
@@ -50,6 +58,40 @@ public class WalletController {
         return ResponseEntity.ok(ApiResponse.success(balance));
     }
 
+    @GetMapping(value = "/{walletId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamWallet(@PathVariable Long walletId) {
+        log.info("Received stream subscription for wallet ID: {}", walletId);
+
+        BalanceResponse balance = walletService.getWalletBalance(walletId);
+        return walletStreamService.subscribe(balance)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @GetMapping("/{walletId}/balance/verification")
+    public ResponseEntity<ApiResponse<BalanceVerificationResult>> verifyWalletBalance(@PathVariable Long walletId) {
+        log.info("Received request to verify balance for wallet ID: {}", walletId);
+        
+        BalanceVerificationResult result = balanceVerificationService.verifyWallet(walletId);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    @PostMapping("/balance/verification")
+    public ResponseEntity<ApiResponse<BalanceVerificationReport>> verifyAllBalances() {
+        log.info("Received request to verify all wallet balances");
+        
+        BalanceVerificationReport report = balanceVerificationService.verifyAll();
+        return ResponseEntity.ok(ApiResponse.success("Balance verification completed", report));
+    }
+
+    @PostMapping("/balance/snapshots")
+    public ResponseEntity<ApiResponse<Integer>> snapshotBalances() {
+        log.info("Received request to snapshot wallet balances");
+        
+        int written = balanceVerificationService.snapshotAll();
+        return ResponseEntity.ok(ApiResponse.success("Balance snapshots written", written));
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<WalletDTO>>> getAllWallets() {
         log.info("Received request to fetch all wallets");
@@ -2,12 +2,14 @@ package com.presta.Wallet.dto;
 
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -22,6 +24,10 @@ public class ApiResponse<T> {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
     @Builder.Default
     private LocalDateTime timestamp = LocalDateTime.now();
+
+    // Diagnostics such as stage timings; only present when requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> metadata;
     
     public static <T> ApiResponse<T> success(T data) {
         return ApiResponse.<T>builder()
@@ -0,0 +1,21 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveRunReport {
+    private Map<String, Long> rowsArchived;
+    private int segmentsWritten;
+    private long bytesWritten;
+    private long durationMs;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,22 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceVerificationReport {
+    private int walletsChecked;
+    private int walletsWithDrift;
+    private long transactionsReplayed;
+    private long durationMs;
+    private LocalDateTime completedAt;
+    private List<BalanceVerificationResult> drifted;
+}
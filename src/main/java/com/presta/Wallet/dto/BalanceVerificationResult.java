@@ -0,0 +1,22 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceVerificationResult {
+    private Long walletId;
+    private BigDecimal walletBalance;
+    private BigDecimal ledgerBalance;
+    private BigDecimal drift; // walletBalance - ledgerBalance
+    private Long snapshotTransactionId; // null when replayed from the start of the ledger
+    private long transactionsReplayed;
+    private boolean consistent;
+}
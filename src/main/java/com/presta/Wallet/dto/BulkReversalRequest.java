@@ -0,0 +1,23 @@
+package com.presta.Wallet.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReversalRequest {
+
+    @NotEmpty(message = "At least one reference ID is required")
+    @Size(max = 10000, message = "At most 10000 references per request")
+    private List<String> referenceIds;
+
+    private String reason;
+}
@@ -0,0 +1,24 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.presta.Wallet.entity.WalletTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyActivityAggregate {
+    private LocalDate activityDate;
+    private Long walletId;
+    private String serviceType;
+    private WalletTransaction.TransactionType transactionType;
+    private long transactionCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,19 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestResult {
+    private String fileName;
+    private String providerName;
+    private int accepted;
+    private int quarantined;
+    private int duplicatesSkipped;
+    private int chunksCommitted;
+}
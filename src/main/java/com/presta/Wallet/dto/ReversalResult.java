@@ -0,0 +1,28 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReversalResult {
+    private String referenceId;
+    private Outcome outcome;
+    private Long walletId;
+    private Long customerId;
+    private Long reversalTransactionId;
+    private String reversalReferenceId;
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+    private String message;
+
+    public enum Outcome {
+        REVERSED, ALREADY_REVERSED, NOT_FOUND, NOT_REVERSIBLE, INSUFFICIENT_BALANCE, FAILED
+    }
+}
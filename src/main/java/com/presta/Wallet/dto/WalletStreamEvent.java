@@ -0,0 +1,25 @@
+package com.presta.Wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletStreamEvent {
+    private Long walletId;
+    private Long transactionId;
+    private String transactionType;
+    private String status;
+    private BigDecimal amount;
+    private String referenceId;
+    private String serviceType;
+    private BigDecimal balance;
+    private LocalDateTime timestamp;
+}
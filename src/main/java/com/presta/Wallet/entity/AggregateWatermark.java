@@ -0,0 +1,32 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest transaction id already folded into an aggregate store. Everything at or below it is
+ * counted; everything above it is not yet.
+ */
+@Entity
+@Table(name = "aggregate_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateWatermark {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_transaction_id", nullable = false)
+    private Long lastTransactionId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -17,6 +17,10 @@ import java.time.LocalDateTime;
            @Index(name = "idx_external_transaction_id", columnList = "external_transaction_id"),
            @Index(name = "idx_external_transaction_date", columnList = "transaction_date"),
            @Index(name = "idx_external_reference_id", columnList = "reference_id")
+       },
+       uniqueConstraints = {
+           // A provider sends each transaction once; re-sent rows are rejected here
+           @UniqueConstraint(name = "uk_external_provider_txn", columnNames = {"provider_name", "external_transaction_id"})
        })
 @Data
 @Builder
@@ -0,0 +1,72 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingest_quarantine_rows",
+       indexes = {
+           @Index(name = "idx_quarantine_file_status", columnList = "file_name, provider_name, report_date, status")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestQuarantineRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "provider_name")
+    private String providerName;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "report_date")
+    private LocalDate reportDate;
+
+    @Column(name = "line_number", nullable = false)
+    private Integer lineNumber;
+
+    // Kept whole: a row is re-parsed from these, so a cut-off line would come back wrong
+    @Column(name = "header_line", columnDefinition = "TEXT")
+    private String headerLine; // needed to re-parse the row on its own
+
+    @Column(name = "raw_text", columnDefinition = "TEXT")
+    private String rawText;
+
+    @Column(length = 1000)
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private QuarantineStatus status = QuarantineStatus.QUARANTINED;
+
+    @Builder.Default
+    private Integer attempts = 1;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "reprocessed_at")
+    private LocalDateTime reprocessedAt;
+
+    public enum QuarantineStatus {
+        QUARANTINED, REPROCESSED
+    }
+
+    public void markReprocessed() {
+        this.status = QuarantineStatus.REPROCESSED;
+        this.reprocessedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,46 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingested_files",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_ingested_file_provider_hash", columnNames = {"provider_name", "content_hash"})
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestedFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash; // SHA-256 of the file bytes, hex encoded
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "provider_name")
+    private String providerName;
+
+    @Column(name = "report_date")
+    private LocalDate reportDate;
+
+    @Column(name = "row_count")
+    private Integer rowCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
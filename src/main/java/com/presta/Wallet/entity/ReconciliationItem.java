@@ -10,7 +10,10 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "reconciliation_items")
+@Table(name = "reconciliation_items",
+       indexes = {
+           @Index(name = "idx_reconciliation_item_report_reference", columnList = "reconciliation_report_id, reference_id")
+       })
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,59 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reversal_queue",
+       indexes = {
+           @Index(name = "idx_reversal_queue_status_id", columnList = "status, id")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReversalRequest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reference_id", unique = true, nullable = false)
+    private String referenceId; // reference of the transaction to reverse
+
+    @Column(length = 500)
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private RequestStatus status = RequestStatus.PENDING;
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum RequestStatus {
+        PENDING, COMPLETED, SKIPPED, FAILED
+    }
+
+    public void markProcessed(RequestStatus status, String error) {
+        this.status = status;
+        this.lastError = error;
+        this.processedAt = LocalDateTime.now();
+    }
+}
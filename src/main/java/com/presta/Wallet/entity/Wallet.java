@@ -2,8 +2,10 @@ package com.presta.Wallet.entity;
 
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import com.presta.Wallet.money.MinorUnitsConverter;
+import com.presta.Wallet.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -32,10 +34,11 @@ public class Wallet {
     @NotNull(message = "Customer is required")
     private Customer customer;
     
-    @DecimalMin(value = "0.0", inclusive = true, message = "Balance cannot be negative")
-    @Column(precision = 19, scale = 2, nullable = false)
-    @Builder.Default
-    private BigDecimal balance = BigDecimal.ZERO;
+    // Held in minor units; getBalance()/setBalance() convert at the API boundary
+    @Min(value = 0, message = "Balance cannot be negative")
+    @Convert(converter = MinorUnitsConverter.class)
+    @Column(name = "balance", precision = 19, scale = 2, nullable = false)
+    private long balanceMinorUnits;
     
     @Column(length = 3)
     @Builder.Default
@@ -72,25 +75,44 @@ public class Wallet {
         CREDITS, CASH, POINTS
     }
     
+    public BigDecimal getBalance() {
+        return Money.toDecimal(balanceMinorUnits);
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balanceMinorUnits = Money.toMinorUnits(balance);
+    }
+
+    public Money getBalanceMoney() {
+        return new Money(balanceMinorUnits, currency);
+    }
+
     // here is methods of businesss
-    public void credit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void credit(Money amount) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Credit amount must be positive");
         }
-        this.balance = this.balance.add(amount);
+        this.balanceMinorUnits = getBalanceMoney().plus(amount).minorUnits();
     }
     
-    public void debit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void debit(Money amount) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Debit amount must be positive");
         }
-        if (this.balance.compareTo(amount) < 0) {
+        if (!hasSufficientBalance(amount)) {
             throw new IllegalArgumentException("Insufficient balance");
         }
-        this.balance = this.balance.subtract(amount);
+        this.balanceMinorUnits = getBalanceMoney().minus(amount).minorUnits();
     }
     
-    public boolean hasSufficientBalance(BigDecimal amount) {
-        return this.balance.compareTo(amount) >= 0;
+    public boolean hasSufficientBalance(Money amount) {
+        return !getBalanceMoney().isLessThan(amount);
+    }
+
+    public static class WalletBuilder {
+        public WalletBuilder balance(BigDecimal balance) {
+            this.balanceMinorUnits = Money.toMinorUnits(balance);
+            return this;
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Count and sum of one wallet's transactions of one type and service on one day. Rows are maintained
+ * by {@link com.presta.Wallet.service.ActivityAggregateService}; transactions without a service type
+ * are kept under {@code NONE}.
+ */
+@Entity
+@Table(name = "wallet_daily_aggregates",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_wallet_daily_aggregate",
+                   columnNames = {"activity_date", "wallet_id", "service_type", "transaction_type"})
+       },
+       indexes = {
+           @Index(name = "idx_daily_aggregate_date", columnList = "activity_date"),
+           @Index(name = "idx_daily_aggregate_wallet_date", columnList = "wallet_id, activity_date")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletDailyAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "service_type", nullable = false)
+    private String serviceType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private WalletTransaction.TransactionType transactionType;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
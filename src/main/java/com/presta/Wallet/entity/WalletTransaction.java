@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
            @Index(name = "idx_wallet_id", columnList = "wallet_id"),
            @Index(name = "idx_reference_id", columnList = "reference_id"),
            @Index(name = "idx_transaction_type", columnList = "transaction_type"),
-           @Index(name = "idx_created_at", columnList = "created_at")
+           @Index(name = "idx_created_at", columnList = "created_at"),
+           @Index(name = "idx_wallet_txn_wallet_id_id", columnList = "wallet_id, id")
        })
 @Data
 @Builder
@@ -40,7 +41,7 @@ public class WalletTransaction {
     @NotNull(message = "Transaction type is required")
     private TransactionType transactionType;
     
-    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @DecimalMin(value = "0.00", message = "Amount must not be negative") // zero for a cached result billed at nothing
     @Column(precision = 19, scale = 2, nullable = false)
     @NotNull(message = "Amount is required")
     private BigDecimal amount;
@@ -0,0 +1,23 @@
+package com.presta.Wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A reference id claimed by a wallet transaction that may no longer be in the hot table. Archiving
+ * records every reference it moves out, so a replayed reference is still refused as a duplicate. On a
+ * partitioned PostgreSQL schema the insert trigger also claims live references here.
+ */
+@Entity
+@Table(name = "wallet_transaction_references")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTransactionReference {
+
+    @Id
+    @Column(name = "reference_id")
+    private String referenceId;
+}
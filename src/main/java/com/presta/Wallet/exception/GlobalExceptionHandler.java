@@ -1,23 +1,32 @@
 package com.presta.Wallet.exception;
 
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.metrics.WalletMetrics;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final WalletMetrics walletMetrics;
+
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<ApiResponse<Object>> handleCustomerNotFound(CustomerNotFoundException ex) {
         log.error("Customer not found: {}", ex.getMessage());
@@ -46,6 +55,21 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage(), ex.getErrorCode()));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        walletMetrics.recordOptimisticLockConflict();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The wallet was modified by another request, please retry", "CONCURRENT_MODIFICATION"));
+    }
+
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handlePessimisticLockingFailure(PessimisticLockingFailureException ex) {
+        log.warn("Wallet lock not acquired: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("The wallet is busy with other requests, please retry", "WALLET_BUSY"));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -67,6 +91,44 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage(), "INVALID_ARGUMENT"));
     }
 
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleProviderUnavailable(ProviderUnavailableException ex) {
+        log.warn("Provider unavailable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(ex.getMessage(), ex.getErrorCode()));
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceOverloaded(ServiceOverloadedException ex) {
+        log.warn("Request shed: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(ApiResponse.error("Service is at capacity, retry shortly", "OVERLOADED"));
+    }
+
+    // The connection limiter usually trips while a transaction is being opened, which wraps its exception
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCannotCreateTransaction(CannotCreateTransactionException ex) {
+        if (ex.getCause() instanceof ServiceOverloadedException overloaded) {
+            return handleServiceOverloaded(overloaded);
+        }
+        return handleGenericException(ex);
+    }
+
+    // Not an error: the command was accepted and may yet commit, so point the caller at where to look it up
+    @ExceptionHandler(TransactionPendingException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTransactionPending(TransactionPendingException ex) {
+        log.warn("Transaction still pending: {}", ex.getReferenceId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/wallets/transactions/reference/" + ex.getReferenceId()))
+                .body(ApiResponse.builder()
+                        .success(false)
+                        .message(ex.getMessage())
+                        .errorCode(ex.getErrorCode())
+                        .data(Map.of("referenceId", ex.getReferenceId()))
+                        .build());
+    }
+
     @ExceptionHandler(WalletException.class)
     public ResponseEntity<ApiResponse<Object>> handleWalletException(WalletException ex) {
         log.error("Wallet exception: {}", ex.getMessage(), ex);
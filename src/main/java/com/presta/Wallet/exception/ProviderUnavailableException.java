@@ -0,0 +1,13 @@
+package com.presta.Wallet.exception;
+
+// Provider circuit is open or the service is switched off; the wallet has not been charged
+public class ProviderUnavailableException extends WalletException {
+    public ProviderUnavailableException(String serviceType) {
+        super(String.format("%s provider is temporarily unavailable, please retry later", serviceType),
+              "PROVIDER_UNAVAILABLE");
+    }
+
+    public ProviderUnavailableException(String message, String errorCode) {
+        super(message, errorCode);
+    }
+}
@@ -0,0 +1,10 @@
+package com.presta.Wallet.exception;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+// No database connection could be taken in time; nothing has been written, so the request can be retried as is
+public class ServiceOverloadedException extends TransientDataAccessResourceException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.presta.Wallet.exception;
+
+// Accepted but not yet applied when the caller stopped waiting; it may still commit, so it is not a failure
+public class TransactionPendingException extends WalletException {
+    private final String referenceId;
+
+    public TransactionPendingException(String referenceId) {
+        super("Transaction " + referenceId + " is still being processed; look it up by reference", "TRANSACTION_PENDING");
+        this.referenceId = referenceId;
+    }
+
+    public String getReferenceId() {
+        return referenceId;
+    }
+}
@@ -3,9 +3,14 @@ package com.presta.Wallet.mapper;
 
 import org.springframework.stereotype.Component;
 
+import com.presta.Wallet.config.TransactionMessage;
 import com.presta.Wallet.dto.TransactionResponse;
 import com.presta.Wallet.dto.WalletTransactionDTO;
 import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Component
 public class WalletTransactionMapper {
@@ -33,6 +38,28 @@ public class WalletTransactionMapper {
     }
 
 
+    public TransactionResponse toDTO(WalletTransactionRepository.TransactionView view) {
+        if (view == null) {
+            return null;
+        }
+
+        return TransactionResponse.builder()
+                .transactionId(view.getId())
+                .walletId(view.getWalletId())
+                .transactionType(view.getTransactionType().name())
+                .amount(view.getAmount())
+                .referenceId(view.getReferenceId())
+                .description(view.getDescription())
+                .status(view.getStatus().name())
+                .balanceBefore(view.getBalanceBefore())
+                .balanceAfter(view.getBalanceAfter())
+                .serviceType(view.getServiceType())
+                .createdAt(view.getCreatedAt())
+                .processedAt(view.getProcessedAt())
+                .build();
+    }
+
+
     public WalletTransactionDTO toWalletTransactionDTO(WalletTransaction transaction) {
         if (transaction == null) {
             return null;
@@ -53,4 +80,25 @@ public class WalletTransactionMapper {
                 .processedAt(transaction.getProcessedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    // Event published for a saved transaction; the customer id is passed in so callers holding only a wallet reference need not load it
+    public TransactionMessage toMessage(WalletTransaction transaction, Long customerId) {
+        return TransactionMessage.builder()
+                .transactionId(transaction.getId())
+                .walletId(transaction.getWallet().getId())
+                .customerId(customerId)
+                .transactionType(transaction.getTransactionType().name())
+                .amount(transaction.getAmount())
+                .referenceId(transaction.getReferenceId())
+                .serviceType(transaction.getServiceType())
+                .status(transaction.getStatus().name())
+                .balanceBefore(transaction.getBalanceBefore())
+                .balanceAfter(transaction.getBalanceAfter())
+                .timestamp(transaction.getCreatedAt())
+                .description(transaction.getDescription())
+                .messageId(UUID.randomUUID().toString())
+                .retryCount(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.presta.Wallet.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records {@code wallet.http.db.statements} per request, tagged with the matched URI template
+ * so wallet ids do not blow up the tag cardinality.
+ */
+@Component
+@RequiredArgsConstructor
+public class DbStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final WalletMetrics walletMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCountingInspector.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = StatementCountingInspector.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            walletMetrics.recordDbStatements(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN", statements);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.presta.Wallet.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in per-request stage timing. Code on the request thread calls {@link #mark(String)}
+ * after each stage; the time since the previous mark is recorded under that name and also
+ * closed as a {@code wallet.request.stage} observation, so stages show up as spans when a
+ * tracing bridge is present and as timers otherwise.
+ *
+ * <p>When the request did not ask for a trace, {@link #mark(String)} is a thread-local read
+ * and nothing else.</p>
+ */
+public final class RequestTrace {
+
+    public static final String HEADER = "X-Trace-Stages";
+
+    private static final String OBSERVATION_NAME = "wallet.request.stage";
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final ObservationRegistry observationRegistry;
+    private final String requestId;
+    private final long startNanos;
+    private final List<Map<String, Object>> stages = new ArrayList<>();
+
+    private long lapStartNanos;
+    private Observation lap;
+
+    private RequestTrace(ObservationRegistry observationRegistry, String requestId) {
+        this.observationRegistry = observationRegistry;
+        this.requestId = requestId;
+        this.startNanos = System.nanoTime();
+        this.lapStartNanos = startNanos;
+        this.lap = startLap();
+    }
+
+    public static void mark(String stage) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.lap(stage);
+        }
+    }
+
+    static RequestTrace begin(ObservationRegistry observationRegistry, String requestId) {
+        RequestTrace trace = new RequestTrace(observationRegistry, requestId);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Closes the trailing stage under {@code finalStage} and detaches the trace from the thread.
+     */
+    static void end(String finalStage) {
+        RequestTrace trace = CURRENT.get();
+        CURRENT.remove();
+        if (trace != null && trace.lap != null) {
+            trace.closeLap(finalStage);
+            trace.lap = null;
+        }
+    }
+
+    Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requestId", requestId);
+        summary.put("totalMs", millis(lapStartNanos - startNanos));
+        summary.put("stages", List.copyOf(stages));
+        return summary;
+    }
+
+    private void lap(String stage) {
+        long now = closeLap(stage);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("stage", stage);
+        entry.put("ms", millis(now - lapStartNanos));
+        stages.add(entry);
+        lapStartNanos = now;
+        lap = startLap();
+    }
+
+    private long closeLap(String stage) {
+        lap.contextualName(stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .stop();
+        return System.nanoTime();
+    }
+
+    private Observation startLap() {
+        return Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .highCardinalityKeyValue("request.id", requestId)
+                .start();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
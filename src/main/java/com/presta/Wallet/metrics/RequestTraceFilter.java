@@ -0,0 +1,45 @@
+package com.presta.Wallet.metrics;
+
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Starts a {@link RequestTrace} for requests carrying {@code X-Trace-Stages: true}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${wallet.diagnostics.stage-timing.enabled:true}")
+    private boolean enabled = true;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"true".equalsIgnoreCase(request.getHeader(RequestTrace.HEADER));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = UUID.randomUUID().toString();
+        response.setHeader(RequestTrace.HEADER + "-Id", requestId);
+        RequestTrace.begin(observationRegistry, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTrace.end("response-write");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.presta.Wallet.metrics;
+
+import com.presta.Wallet.dto.ApiResponse;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds the stage breakdown of a traced request to the {@code metadata} block of its
+ * {@link ApiResponse}. The time between the last service stage and this point (transaction
+ * commit and controller work) is reported as {@code commit-and-response}.
+ */
+@RestControllerAdvice
+public class RequestTraceResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null || !(body instanceof ApiResponse<?> apiResponse)) {
+            return body;
+        }
+
+        RequestTrace.mark("commit-and-response");
+        Map<String, Object> metadata = apiResponse.getMetadata() != null
+                ? new HashMap<>(apiResponse.getMetadata())
+                : new HashMap<>();
+        metadata.put("stageTiming", trace.summary());
+        apiResponse.setMetadata(metadata);
+        return body;
+    }
+}
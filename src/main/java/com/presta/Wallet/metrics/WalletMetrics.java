@@ -0,0 +1,242 @@
+package com.presta.Wallet.metrics;
+
+import com.presta.Wallet.entity.ReconciliationItem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Domain metrics for the wallet, reconciliation and ingest paths. Operation latencies of the
+ * transaction API are recorded with {@code @Timed}; this class covers what an annotation
+ * cannot see: row counts and throughput, match outcomes, publish failures that are swallowed,
+ * optimistic-lock conflicts and SQL statements per request.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordOptimisticLockConflict() {
+        meterRegistry.counter("wallet.transaction.optimistic.lock.conflicts").increment();
+    }
+
+    public void recordMatching(long elapsedNanos, int rows, List<ReconciliationItem> items) {
+        Timer.builder("wallet.reconciliation.matching.duration")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("wallet.reconciliation.matching.rows").increment(rows);
+        recordThroughput("wallet.reconciliation.matching.throughput", rows, elapsedNanos);
+
+        Map<ReconciliationItem.MatchType, Integer> byMatchType = new EnumMap<>(ReconciliationItem.MatchType.class);
+        for (ReconciliationItem item : items) {
+            byMatchType.merge(item.getMatchType(), 1, Integer::sum);
+        }
+        byMatchType.forEach((matchType, count) ->
+                meterRegistry.counter("wallet.reconciliation.items", "match_type", matchType.name()).increment(count));
+    }
+
+    /**
+     * Records one file ingest. {@code path} names the entry point (upload, stream, mapped, quarantine).
+     */
+    public void recordIngest(String path, Timer.Sample sample, int accepted, int duplicates, int rejected) {
+        long elapsedNanos = sample.stop(Timer.builder("wallet.ingest.duration")
+                .tag("path", path)
+                .tag("outcome", OUTCOME_SUCCESS)
+                .register(meterRegistry));
+        ingestRows(path, "accepted").increment(accepted);
+        ingestRows(path, "duplicate").increment(duplicates);
+        ingestRows(path, "rejected").increment(rejected);
+        recordThroughput("wallet.ingest.throughput", accepted + duplicates + rejected, elapsedNanos, "path", path);
+    }
+
+    public void recordIngestFailure(String path, Timer.Sample sample) {
+        sample.stop(Timer.builder("wallet.ingest.duration")
+                .tag("path", path)
+                .tag("outcome", OUTCOME_FAILURE)
+                .register(meterRegistry));
+    }
+
+    public void recordPublish(Timer.Sample sample, boolean success) {
+        sample.stop(Timer.builder("wallet.notification.publish.duration")
+                .tag("outcome", success ? OUTCOME_SUCCESS : OUTCOME_FAILURE)
+                .register(meterRegistry));
+        if (!success) {
+            meterRegistry.counter("wallet.notification.publish.failures").increment();
+        }
+    }
+
+    public void recordBalanceVerification(int walletsChecked, int walletsWithDrift) {
+        meterRegistry.counter("wallet.balance.verification.wallets").increment(walletsChecked);
+        meterRegistry.counter("wallet.balance.drift.detected").increment(walletsWithDrift);
+    }
+
+    /**
+     * Records one provider call. {@code sample} is null for requests rejected before any call was made.
+     */
+    public void recordProviderCall(String serviceType, String outcome, Timer.Sample sample) {
+        if (sample == null) {
+            meterRegistry.counter("wallet.provider.rejections", "service", serviceType, "outcome", outcome).increment();
+            return;
+        }
+        sample.stop(Timer.builder("wallet.provider.call")
+                .tag("service", serviceType)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    public void recordProviderCacheLookup(String serviceType, String outcome) {
+        meterRegistry.counter("wallet.provider.cache.lookups", "service", serviceType, "outcome", outcome).increment();
+    }
+
+    public void recordArchived(String dataset, int rows, long bytes) {
+        meterRegistry.counter("wallet.archive.rows", "dataset", dataset).increment(rows);
+        meterRegistry.counter("wallet.archive.bytes", "dataset", dataset).increment(bytes);
+    }
+
+    public void recordAggregatesRolledUp(int transactions) {
+        meterRegistry.counter("wallet.aggregates.rollup.transactions").increment(transactions);
+    }
+
+    /**
+     * Counts events handled by the streaming matcher. {@code outcome} is matched, late_matched,
+     * timed_out, closed (the day was already finalized) or dropped (queue full).
+     */
+    public void recordStreamingReconciliation(String outcome, int events) {
+        meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", outcome).increment(events);
+    }
+
+    public void registerStreamSubscribers(IntSupplier subscribers) {
+        Gauge.builder("wallet.stream.subscribers", subscribers, IntSupplier::getAsInt)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts wallet stream events per subscriber. {@code outcome} is sent, dropped (buffer overflow,
+     * replaced by a resync) or rejected (subscriber limit reached).
+     */
+    public void recordStreamEvents(String outcome, int events) {
+        meterRegistry.counter("wallet.stream.events", "outcome", outcome).increment(events);
+    }
+
+    public void registerShardQueue(IntSupplier queued) {
+        Gauge.builder("wallet.shards.queued", queued, IntSupplier::getAsInt)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    public void recordShardBatch(String outcome, int commands) {
+        DistributionSummary.builder("wallet.shards.batch.size")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(commands);
+    }
+
+    public void registerConcurrencyLimiter(IntSupplier inFlight, IntSupplier waiting) {
+        Gauge.builder("wallet.execution.limiter.in_flight", inFlight, IntSupplier::getAsInt)
+                .strongReference(true)
+                .register(meterRegistry);
+        Gauge.builder("wallet.execution.limiter.waiting", waiting, IntSupplier::getAsInt)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    public void recordLimiterWait(Timer.Sample sample, boolean admitted) {
+        sample.stop(Timer.builder("wallet.execution.limiter.wait")
+                .tag("outcome", admitted ? "admitted" : "rejected")
+                .register(meterRegistry));
+    }
+
+    public void recordWalletWrite(String walletType, String mode, String outcome, int attempts) {
+        meterRegistry.counter("wallet.concurrency.operations",
+                "wallet_type", walletType, "mode", mode, "outcome", outcome).increment();
+        DistributionSummary.builder("wallet.concurrency.attempts")
+                .tag("wallet_type", walletType)
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(attempts);
+    }
+
+    public void recordWalletConflict(String walletType, String mode) {
+        meterRegistry.counter("wallet.concurrency.conflicts", "wallet_type", walletType, "mode", mode).increment();
+    }
+
+    public void recordWalletLockWait(String walletType, String mode, Timer.Sample sample) {
+        sample.stop(Timer.builder("wallet.concurrency.wait")
+                .tag("wallet_type", walletType)
+                .tag("mode", mode)
+                .register(meterRegistry));
+    }
+
+    public void recordReversal(String source, String outcome) {
+        meterRegistry.counter("wallet.reversals", "source", source, "outcome", outcome).increment();
+    }
+
+    public void recordReversalBatch(int processed, long elapsedNanos) {
+        recordThroughput("wallet.reversal.throughput", processed, elapsedNanos);
+    }
+
+    /**
+     * Counts connections handed out by the read/write router. {@code route} is write, read or read_fallback.
+     */
+    public void recordDataSourceRoute(String target, String route) {
+        meterRegistry.counter("wallet.datasource.routed", "target", target, "route", route).increment();
+    }
+
+    public void registerReplica(String replica, LongSupplier lagMs, BooleanSupplier healthy) {
+        Gauge.builder("wallet.datasource.replica.lag", lagMs, LongSupplier::getAsLong)
+                .baseUnit("milliseconds")
+                .tag("replica", replica)
+                .strongReference(true)
+                .register(meterRegistry);
+        Gauge.builder("wallet.datasource.replica.healthy", healthy, supplier -> supplier.getAsBoolean() ? 1 : 0)
+                .tag("replica", replica)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    public void recordDbStatements(String method, String uri, int statements) {
+        DistributionSummary.builder("wallet.http.db.statements")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+    }
+
+    private Counter ingestRows(String path, String outcome) {
+        return meterRegistry.counter("wallet.ingest.rows", "path", path, "outcome", outcome);
+    }
+
+    private void recordThroughput(String name, int rows, long elapsedNanos, String... tags) {
+        if (rows == 0 || elapsedNanos <= 0) {
+            return;
+        }
+        DistributionSummary.builder(name)
+                .baseUnit("rows.per.second")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(rows * 1_000_000_000.0 / elapsedNanos);
+    }
+}
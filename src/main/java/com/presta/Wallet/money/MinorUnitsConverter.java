@@ -0,0 +1,24 @@
+package com.presta.Wallet.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps a minor-unit {@code long} attribute onto an existing {@code NUMERIC(19,2)} column, so
+ * the schema keeps decimal amounts while the entity works in whole cents.
+ */
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minorUnits) {
+        return minorUnits != null ? Money.toDecimal(minorUnits) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount != null ? Money.toMinorUnits(amount) : null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.presta.Wallet.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Fixed-point amount held as a {@code long} of minor units (cents) plus its currency code.
+ * Arithmetic and comparisons never allocate, so the transaction and reconciliation paths work
+ * in {@code Money} or raw minor units and only go through {@link BigDecimal} at the API and
+ * JPA boundaries. Every amount column in the schema is {@code scale = 2}, which is the scale
+ * used for every currency here.
+ */
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(toMinorUnits(amount), currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0L, currency);
+    }
+
+    /**
+     * Converts a decimal amount to minor units. Amounts with more than two decimal places are
+     * rejected rather than rounded so no fraction of a cent is silently dropped.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        Objects.requireNonNull(amount, "amount");
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString()
+                    + " must have at most " + SCALE + " decimal places and fit in 19 digits");
+        }
+    }
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toDecimal(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!Objects.equals(currency, other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + (currency != null ? " " + currency : "");
+    }
+}
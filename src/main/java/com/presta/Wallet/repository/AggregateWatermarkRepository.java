@@ -0,0 +1,25 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.AggregateWatermark;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AggregateWatermarkRepository extends JpaRepository<AggregateWatermark, String> {
+
+    /**
+     * Moves the watermark from {@code previous} to {@code next}. Returns 0 when another instance moved
+     * it first, in which case the caller's batch must roll back.
+     */
+    @Modifying
+    @Query("UPDATE AggregateWatermark w SET w.lastTransactionId = :next, w.updatedAt = :now " +
+           "WHERE w.name = :name AND w.lastTransactionId = :previous")
+    int advance(@Param("name") String name, @Param("previous") Long previous, @Param("next") Long next,
+                @Param("now") LocalDateTime now);
+}
@@ -1,5 +1,6 @@
 package com.presta.Wallet.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import com.presta.Wallet.entity.ExternalTransaction;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +17,9 @@ import java.util.Optional;
 public interface ExternalTransactionRepository extends JpaRepository<ExternalTransaction, Long> {
     
     List<ExternalTransaction> findByTransactionDate(LocalDate transactionDate);
+
+    @Query("SELECT e.id FROM ExternalTransaction e WHERE e.transactionDate = :date")
+    List<Long> findIdsByTransactionDate(@Param("date") LocalDate date);
     
     List<ExternalTransaction> findByTransactionDateBetween(LocalDate startDate, LocalDate endDate);
     
@@ -37,6 +42,14 @@ public interface ExternalTransactionRepository extends JpaRepository<ExternalTra
     
     boolean existsByReferenceIdAndTransactionDate(String referenceId, LocalDate transactionDate);
     
+    @Query("SELECT e.externalTransactionId FROM ExternalTransaction e " +
+           "WHERE e.providerName = :providerName AND e.externalTransactionId IN :ids")
+    List<String> findStoredExternalTransactionIds(@Param("providerName") String providerName,
+                                                  @Param("ids") Collection<String> ids);
+    
+    List<ExternalTransaction> findByTransactionDateBeforeAndIdGreaterThanOrderByIdAsc(LocalDate before, Long afterId,
+                                                                                    Pageable pageable);
+    
     @Query("SELECT DISTINCT e.transactionDate FROM ExternalTransaction e ORDER BY e.transactionDate DESC")
     List<LocalDate> findDistinctTransactionDates();
 }
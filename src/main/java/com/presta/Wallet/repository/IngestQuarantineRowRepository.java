@@ -0,0 +1,30 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.IngestQuarantineRow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IngestQuarantineRowRepository extends JpaRepository<IngestQuarantineRow, Long> {
+
+    List<IngestQuarantineRow> findByFileNameOrderByLineNumber(String fileName);
+
+    // Rows of one file name may come from several providers or report dates; null matches any
+    @Query("SELECT q FROM IngestQuarantineRow q WHERE q.fileName = :fileName AND q.status = :status " +
+           "AND (:providerName IS NULL OR q.providerName = :providerName) " +
+           "AND (:reportDate IS NULL OR q.reportDate = :reportDate) " +
+           "ORDER BY q.providerName, q.reportDate, q.lineNumber")
+    List<IngestQuarantineRow> findForReprocessing(@Param("fileName") String fileName,
+                                                  @Param("providerName") String providerName,
+                                                  @Param("reportDate") LocalDate reportDate,
+                                                  @Param("status") IngestQuarantineRow.QuarantineStatus status);
+
+    @Query("SELECT COUNT(q) FROM IngestQuarantineRow q WHERE q.fileName = :fileName AND q.status = 'QUARANTINED'")
+    long countQuarantinedByFileName(@Param("fileName") String fileName);
+}
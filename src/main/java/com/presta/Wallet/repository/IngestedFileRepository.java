@@ -0,0 +1,14 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.IngestedFile;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestedFileRepository extends JpaRepository<IngestedFile, Long> {
+
+    Optional<IngestedFile> findByProviderNameAndContentHash(String providerName, String contentHash);
+}
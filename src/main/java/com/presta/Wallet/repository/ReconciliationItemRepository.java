@@ -1,5 +1,6 @@
 package com.presta.Wallet.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -7,7 +8,9 @@ import org.springframework.stereotype.Repository;
 
 import com.presta.Wallet.entity.ReconciliationItem;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReconciliationItemRepository extends JpaRepository<ReconciliationItem, Long> {
@@ -30,4 +33,27 @@ public interface ReconciliationItemRepository extends JpaRepository<Reconciliati
     
     @Query("SELECT COUNT(ri) FROM ReconciliationItem ri WHERE ri.reconciliationReport.id = :reportId AND ri.discrepancyType != 'NONE'")
     long countDiscrepanciesByReportId(@Param("reportId") Long reportId);
-}
\ No newline at end of file
+    
+    @Query("SELECT ri FROM ReconciliationItem ri WHERE ri.reconciliationReport.id = :reportId " +
+           "AND ri.referenceId = :referenceId AND ri.matchType = 'NO_MATCH' AND ri.internalTransactionId IS NULL")
+    Optional<ReconciliationItem> findOpenMissingInternal(@Param("reportId") Long reportId,
+                                                         @Param("referenceId") String referenceId);
+
+    @Query("SELECT ri FROM ReconciliationItem ri WHERE ri.reconciliationReport.id = :reportId " +
+           "AND ri.referenceId = :referenceId AND ri.matchType = 'NO_MATCH' AND ri.externalTransactionId IS NULL")
+    Optional<ReconciliationItem> findOpenMissingExternal(@Param("reportId") Long reportId,
+                                                         @Param("referenceId") String referenceId);
+
+    @Query("SELECT ri.internalTransactionId FROM ReconciliationItem ri WHERE ri.reconciliationReport.id = :reportId " +
+           "AND ri.internalTransactionId IS NOT NULL")
+    List<Long> findInternalTransactionIds(@Param("reportId") Long reportId);
+
+    @Query("SELECT ri.externalTransactionId FROM ReconciliationItem ri WHERE ri.reconciliationReport.id = :reportId " +
+           "AND ri.externalTransactionId IS NOT NULL")
+    List<Long> findExternalTransactionIds(@Param("reportId") Long reportId);
+
+    @Query("SELECT ri FROM ReconciliationItem ri JOIN FETCH ri.reconciliationReport r " +
+           "WHERE r.reconciliationDate < :before AND ri.id > :afterId ORDER BY ri.id")
+    List<ReconciliationItem> findArchivable(@Param("before") LocalDate before, @Param("afterId") Long afterId,
+                                            Pageable pageable);
+}
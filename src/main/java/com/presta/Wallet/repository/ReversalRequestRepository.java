@@ -0,0 +1,20 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.ReversalRequest;
+
+import java.util.List;
+
+@Repository
+public interface ReversalRequestRepository extends JpaRepository<ReversalRequest, Long> {
+
+    List<ReversalRequest> findByStatusAndIdGreaterThanOrderByIdAsc(ReversalRequest.RequestStatus status, Long id,
+                                                                   Pageable pageable);
+
+    boolean existsByReferenceId(String referenceId);
+
+    long countByStatus(ReversalRequest.RequestStatus status);
+}
@@ -0,0 +1,20 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.WalletBalanceSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WalletBalanceSnapshotRepository extends JpaRepository<WalletBalanceSnapshot, Long> {
+
+    @Query("SELECT s FROM WalletBalanceSnapshot s WHERE s.walletId IN :walletIds " +
+           "AND s.lastTransactionId = (SELECT MAX(s2.lastTransactionId) FROM WalletBalanceSnapshot s2 " +
+           "WHERE s2.walletId = s.walletId)")
+    List<WalletBalanceSnapshot> findLatestByWalletIdIn(@Param("walletIds") Collection<Long> walletIds);
+}
@@ -0,0 +1,30 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.WalletDailyAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WalletDailyAggregateRepository extends JpaRepository<WalletDailyAggregate, Long> {
+
+    @Query("SELECT a FROM WalletDailyAggregate a WHERE a.activityDate BETWEEN :startDate AND :endDate " +
+           "AND (:walletId IS NULL OR a.walletId = :walletId) " +
+           "AND (:serviceType IS NULL OR a.serviceType = :serviceType) " +
+           "AND (:transactionType IS NULL OR a.transactionType = :transactionType)")
+    List<WalletDailyAggregate> findInRange(@Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate,
+                                           @Param("walletId") Long walletId,
+                                           @Param("serviceType") String serviceType,
+                                           @Param("transactionType") WalletTransaction.TransactionType transactionType);
+
+    List<WalletDailyAggregate> findByActivityDateInAndWalletIdIn(Collection<LocalDate> activityDates,
+                                                                 Collection<Long> walletIds);
+}
@@ -1,20 +1,38 @@
 package com.presta.Wallet.repository;
 
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.presta.Wallet.entity.Wallet;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
     
+    // WalletDTO carries the customer name, so list and lookup reads fetch the customer in the same query
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByCustomerId(Long customerId);
+
+    @EntityGraph(attributePaths = "customer")
+    @Query("SELECT w FROM Wallet w ORDER BY w.id")
+    List<Wallet> findAllWithCustomer();
+
+    @EntityGraph(attributePaths = "customer")
+    @Query("SELECT w FROM Wallet w WHERE w.id = :walletId")
+    Optional<Wallet> findWithCustomerById(@Param("walletId") Long walletId);
     
     @Query("SELECT w FROM Wallet w WHERE w.customer.id = :customerId AND w.status = :status")
     List<Wallet> findByCustomerIdAndStatus(@Param("customerId") Long customerId, 
@@ -24,5 +42,53 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByCustomerIdAndWalletType(@Param("customerId") Long customerId, 
                                                    @Param("type") Wallet.WalletType type);
     
+    @Query("SELECT w.id FROM Wallet w ORDER BY w.id")
+    List<Long> findAllIds();
+
+    /**
+     * Loads the wallet with {@code SELECT ... FOR UPDATE}, so concurrent writers wait for this
+     * transaction instead of failing its version check at commit.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("SELECT w FROM Wallet w WHERE w.id = :walletId")
+    Optional<Wallet> findByIdForUpdate(@Param("walletId") Long walletId);
+
+    @Query("SELECT w.walletType FROM Wallet w WHERE w.id = :walletId")
+    Optional<Wallet.WalletType> findWalletTypeById(@Param("walletId") Long walletId);
+
+    /**
+     * Applies a balance change in place, without loading the wallet, and holds the row lock only
+     * until the surrounding transaction commits. The version is bumped so stale entity copies fail
+     * their optimistic check. Returns 0 when the result would go negative.
+     */
+    @Modifying
+    @Query(value = "UPDATE wallets SET balance = balance + :delta, version = version + 1, updated_at = :now " +
+                   "WHERE id = :walletId AND balance + :delta >= 0", nativeQuery = true)
+    int adjustBalance(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Writes a balance computed elsewhere, only if nobody has changed the wallet since {@code version}
+     * was read. Returns 0 when the wallet moved on, so the caller can reload and recompute.
+     */
+    @Modifying
+    @Query(value = "UPDATE wallets SET balance = :balance, version = version + 1, updated_at = :now " +
+                   "WHERE id = :walletId AND version = :version", nativeQuery = true)
+    int writeBalance(@Param("walletId") Long walletId, @Param("balance") BigDecimal balance,
+                     @Param("version") long version, @Param("now") LocalDateTime now);
+
+    @Query("SELECT w.version FROM Wallet w WHERE w.id = :walletId")
+    Optional<Long> findVersionById(@Param("walletId") Long walletId);
+
+    @Query(value = "SELECT balance AS balance, customer_id AS customerId FROM wallets WHERE id = :walletId",
+           nativeQuery = true)
+    BalanceView findBalanceViewById(@Param("walletId") Long walletId);
+
+    interface BalanceView {
+        BigDecimal getBalance();
+        Long getCustomerId();
+    }
+
     boolean existsByCustomerIdAndWalletType(Long customerId, Wallet.WalletType walletType);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.presta.Wallet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.presta.Wallet.entity.WalletTransactionReference;
+
+import java.util.Collection;
+
+@Repository
+public interface WalletTransactionReferenceRepository extends JpaRepository<WalletTransactionReference, String> {
+
+    /**
+     * Keeps the references of the given transactions before they are archived. References already
+     * claimed, by the partitioning trigger or an earlier run that rolled back its delete, are skipped.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallet_transaction_references (reference_id) " +
+                   "SELECT t.reference_id FROM wallet_transactions t WHERE t.id IN (:ids) " +
+                   "AND NOT EXISTS (SELECT 1 FROM wallet_transaction_references r WHERE r.reference_id = t.reference_id)",
+           nativeQuery = true)
+    int claimForArchive(@Param("ids") Collection<Long> ids);
+}
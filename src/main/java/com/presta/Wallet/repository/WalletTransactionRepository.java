@@ -3,13 +3,17 @@ package com.presta.Wallet.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.presta.Wallet.entity.WalletTransaction;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +22,17 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     
     Optional<WalletTransaction> findByReferenceId(String referenceId);
     
-    boolean existsByReferenceId(String referenceId);
+    // References of archived transactions stay claimed in wallet_transaction_references
+    @Query(value = "SELECT (EXISTS (SELECT 1 FROM wallet_transactions WHERE reference_id = :referenceId) " +
+                   "OR EXISTS (SELECT 1 FROM wallet_transaction_references WHERE reference_id = :referenceId))",
+           nativeQuery = true)
+    boolean existsByReferenceId(@Param("referenceId") String referenceId);
+
+    // Batched duplicate check for the wallet shards: one query per batch instead of one per command
+    @Query(value = "SELECT reference_id FROM wallet_transactions WHERE reference_id IN (:referenceIds) " +
+                   "UNION SELECT reference_id FROM wallet_transaction_references WHERE reference_id IN (:referenceIds)",
+           nativeQuery = true)
+    List<String> findExistingReferenceIds(@Param("referenceIds") Collection<String> referenceIds);
     
     List<WalletTransaction> findByWalletIdOrderByCreatedAtDesc(Long walletId);
     
@@ -31,10 +45,136 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
                                                       @Param("startDate") LocalDateTime startDate,
                                                       @Param("endDate") LocalDateTime endDate);
     
+    /**
+     * All transactions created in {@code [start, end)}. The half-open bound on {@code created_at} alone
+     * lets PostgreSQL prune to the partitions covering the range.
+     */
+    @Query("SELECT t FROM WalletTransaction t WHERE t.createdAt >= :start AND t.createdAt < :end")
+    List<WalletTransaction> findByCreatedAtRange(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end);
+
+    @Query("SELECT t.id FROM WalletTransaction t WHERE t.createdAt >= :start AND t.createdAt < :end")
+    List<Long> findIdsByCreatedAtRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    String TRANSACTION_VIEW = "SELECT t.id AS id, t.wallet.id AS walletId, t.transactionType AS transactionType, " +
+            "t.amount AS amount, t.referenceId AS referenceId, t.description AS description, t.status AS status, " +
+            "t.balanceBefore AS balanceBefore, t.balanceAfter AS balanceAfter, t.serviceType AS serviceType, " +
+            "t.createdAt AS createdAt, t.processedAt AS processedAt FROM WalletTransaction t ";
+
+    // Read paths select the transaction columns only: t.wallet.id is the foreign key, so no wallet or
+    // customer is joined or loaded and nothing lands in the persistence context
+    @Query(TRANSACTION_VIEW + "WHERE t.wallet.id = :walletId ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionView> findViewsByWalletId(@Param("walletId") Long walletId, Pageable pageable);
+
+    @Query(TRANSACTION_VIEW + "WHERE t.wallet.id = :walletId AND t.createdAt BETWEEN :startDate AND :endDate " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionView> findViewsByWalletIdAndDateRange(@Param("walletId") Long walletId,
+                                                          @Param("startDate") LocalDateTime startDate,
+                                                          @Param("endDate") LocalDateTime endDate);
+
+    @Query(TRANSACTION_VIEW + "WHERE t.id > :afterId ORDER BY t.id")
+    List<TransactionView> findViewsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Transactions past {@code afterId} in {@code [startTime, endTime)}, counted and summed per day, wallet,
+     * service type and transaction type. A null filter matches everything; {@code noService} stands in for a
+     * missing service type when filtering.
+     */
+    @Query("SELECT CAST(t.createdAt AS LocalDate) AS activityDate, t.wallet.id AS walletId, " +
+           "t.serviceType AS serviceType, t.transactionType AS transactionType, " +
+           "COUNT(t) AS transactionCount, SUM(t.amount) AS totalAmount " +
+           "FROM WalletTransaction t " +
+           "WHERE t.id > :afterId AND t.status IN :statuses " +
+           "AND t.createdAt >= :startTime AND t.createdAt < :endTime " +
+           "AND (:walletId IS NULL OR t.wallet.id = :walletId) " +
+           "AND (:serviceType IS NULL OR COALESCE(t.serviceType, :noService) = :serviceType) " +
+           "AND (:transactionType IS NULL OR t.transactionType = :transactionType) " +
+           "GROUP BY CAST(t.createdAt AS LocalDate), t.wallet.id, t.serviceType, t.transactionType")
+    List<DailyActivityView> sumDailyAfterId(@Param("afterId") Long afterId,
+                                            @Param("statuses") Collection<WalletTransaction.TransactionStatus> statuses,
+                                            @Param("startTime") LocalDateTime startTime,
+                                            @Param("endTime") LocalDateTime endTime,
+                                            @Param("walletId") Long walletId,
+                                            @Param("serviceType") String serviceType,
+                                            @Param("noService") String noService,
+                                            @Param("transactionType") WalletTransaction.TransactionType transactionType);
+
+    /**
+     * Transactions created before {@code before} that their wallet's latest balance snapshot already
+     * covers, in id order. Archiving only these keeps ledger replay from the snapshot exact.
+     */
+    @Query(TRANSACTION_VIEW + "WHERE t.createdAt < :before AND t.id > :afterId AND t.id <= " +
+           "(SELECT MAX(s.lastTransactionId) FROM WalletBalanceSnapshot s WHERE s.walletId = t.wallet.id) " +
+           "ORDER BY t.id")
+    List<TransactionView> findArchivableViews(@Param("before") LocalDateTime before, @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
+    @Query(TRANSACTION_VIEW + "WHERE t.referenceId = :referenceId")
+    Optional<TransactionView> findViewByReferenceId(@Param("referenceId") String referenceId);
+
     @Query("SELECT t FROM WalletTransaction t WHERE t.status = :status")
     List<WalletTransaction> findByStatus(@Param("status") WalletTransaction.TransactionStatus status);
     
     @Query("SELECT COUNT(t) FROM WalletTransaction t WHERE t.wallet.id = :walletId AND t.status = :status")
     long countByWalletIdAndStatus(@Param("walletId") Long walletId, 
                                  @Param("status") WalletTransaction.TransactionStatus status);
+
+    /**
+     * Claims a completed transaction for reversal. Only one caller can move it out of
+     * COMPLETED, so concurrent or repeated reversals of the same reference are no-ops.
+     */
+    @Modifying
+    @Query("UPDATE WalletTransaction t SET t.status = :reversed, t.processedAt = :now " +
+           "WHERE t.id = :id AND t.status = :completed")
+    int claimForReversal(@Param("id") Long id, @Param("completed") WalletTransaction.TransactionStatus completed,
+                         @Param("reversed") WalletTransaction.TransactionStatus reversed,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Net balance movement of a wallet's posted transactions after {@code afterId}, created
+     * before {@code createdBefore}. Credits add, debits subtract, anything else contributes
+     * its recorded before/after difference.
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.transactionType IN :creditTypes THEN t.amount " +
+           "WHEN t.transactionType IN :debitTypes THEN -t.amount " +
+           "ELSE COALESCE(t.balanceAfter - t.balanceBefore, 0) END), 0) AS delta, " +
+           "COUNT(t) AS transactionCount, MAX(t.id) AS lastTransactionId " +
+           "FROM WalletTransaction t WHERE t.wallet.id = :walletId AND t.id > :afterId " +
+           "AND t.status IN :statuses AND t.createdAt < :createdBefore")
+    LedgerDelta sumLedgerSince(@Param("walletId") Long walletId,
+                               @Param("afterId") Long afterId,
+                               @Param("createdBefore") LocalDateTime createdBefore,
+                               @Param("statuses") Collection<WalletTransaction.TransactionStatus> statuses,
+                               @Param("creditTypes") Collection<WalletTransaction.TransactionType> creditTypes,
+                               @Param("debitTypes") Collection<WalletTransaction.TransactionType> debitTypes);
+
+    interface DailyActivityView {
+        LocalDate getActivityDate();
+        Long getWalletId();
+        String getServiceType();
+        WalletTransaction.TransactionType getTransactionType();
+        Long getTransactionCount();
+        BigDecimal getTotalAmount();
+    }
+
+    interface TransactionView {
+        Long getId();
+        Long getWalletId();
+        WalletTransaction.TransactionType getTransactionType();
+        BigDecimal getAmount();
+        String getReferenceId();
+        String getDescription();
+        WalletTransaction.TransactionStatus getStatus();
+        BigDecimal getBalanceBefore();
+        BigDecimal getBalanceAfter();
+        String getServiceType();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getProcessedAt();
+    }
+
+    interface LedgerDelta {
+        BigDecimal getDelta();
+        Long getTransactionCount();
+        Long getLastTransactionId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.dto.DailyActivityAggregate;
+import com.presta.Wallet.entity.AggregateWatermark;
+import com.presta.Wallet.entity.WalletDailyAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.AggregateWatermarkRepository;
+import com.presta.Wallet.repository.WalletDailyAggregateRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository.DailyActivityView;
+import com.presta.Wallet.repository.WalletTransactionRepository.TransactionView;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps per-day counts and sums of posted transactions by wallet, service type and transaction type
+ * in {@code wallet_daily_aggregates}, so dashboards and summary exports never scan
+ * {@code wallet_transactions}. A scheduled rollup folds settled transactions past the
+ * {@code wallet_daily_aggregates} watermark, in id order, moving the watermark in the same database
+ * transaction. Queries read the aggregate rows and add the few transactions past the watermark, so
+ * answers include activity committed a moment ago.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActivityAggregateService {
+
+    public static final String WATERMARK = "wallet_daily_aggregates";
+    public static final String NO_SERVICE = "NONE";
+
+    private final WalletTransactionRepository transactionRepository;
+    private final WalletDailyAggregateRepository aggregateRepository;
+    private final AggregateWatermarkRepository watermarkRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final WalletMetrics walletMetrics;
+
+    @Value("${wallet.aggregates.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wallet.aggregates.batch-size:5000}")
+    private int batchSize = 5000;
+
+    // Transactions younger than this stay in the live tail so a late commit with a lower id is not skipped
+    @Value("${wallet.aggregates.settle-seconds:30}")
+    private long settleSeconds = 30;
+
+    private record Key(LocalDate activityDate, Long walletId, String serviceType,
+                       WalletTransaction.TransactionType transactionType) {
+
+        static Key of(TransactionView view) {
+            return new Key(view.getCreatedAt().toLocalDate(), view.getWalletId(), serviceOf(view.getServiceType()),
+                    view.getTransactionType());
+        }
+
+        static Key of(DailyActivityView view) {
+            return new Key(view.getActivityDate(), view.getWalletId(), serviceOf(view.getServiceType()),
+                    view.getTransactionType());
+        }
+
+        static Key of(WalletDailyAggregate aggregate) {
+            return new Key(aggregate.getActivityDate(), aggregate.getWalletId(), aggregate.getServiceType(),
+                    aggregate.getTransactionType());
+        }
+    }
+
+    /**
+     * Optional filters for {@link #findDaily}; a null field matches everything.
+     */
+    public record Filter(Long walletId, String serviceType, WalletTransaction.TransactionType transactionType) {
+
+        public static final Filter ALL = new Filter(null, null, null);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.aggregates.rollup-interval-ms:10000}")
+    public void scheduledRollup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rollUp();
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Daily aggregate rollup skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Folds every settled transaction past the watermark into the daily aggregates, one batch per
+     * database transaction. Returns the number of transactions folded.
+     */
+    public int rollUp() {
+        LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(settleSeconds);
+        int total = 0;
+        while (true) {
+            Integer folded = new TransactionTemplate(transactionManager).execute(status -> rollUpBatch(settledBefore));
+            total += folded;
+            if (folded < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Folded {} transactions into daily aggregates", total);
+        }
+        return total;
+    }
+
+    private int rollUpBatch(LocalDateTime settledBefore) {
+        long watermark = currentWatermark();
+        List<TransactionView> batch = transactionRepository.findViewsAfterId(watermark, PageRequest.of(0, batchSize));
+
+        // Stop at the first unsettled row: everything after it waits for the next run
+        List<TransactionView> settled = new ArrayList<>(batch.size());
+        for (TransactionView view : batch) {
+            if (!view.getCreatedAt().isBefore(settledBefore)) {
+                break;
+            }
+            settled.add(view);
+        }
+        if (settled.isEmpty()) {
+            return 0;
+        }
+
+        Map<Key, DailyActivityAggregate> deltas = aggregate(settled);
+        if (!deltas.isEmpty()) {
+            applyDeltas(deltas);
+        }
+
+        long next = settled.get(settled.size() - 1).getId();
+        if (watermarkRepository.advance(WATERMARK, watermark, next, LocalDateTime.now()) == 0) {
+            throw new OptimisticLockingFailureException("Watermark " + WATERMARK + " moved past " + watermark
+                    + " concurrently");
+        }
+        walletMetrics.recordAggregatesRolledUp(settled.size());
+        return settled.size();
+    }
+
+    private void applyDeltas(Map<Key, DailyActivityAggregate> deltas) {
+        Set<LocalDate> dates = deltas.keySet().stream().map(Key::activityDate).collect(Collectors.toSet());
+        Set<Long> walletIds = deltas.keySet().stream().map(Key::walletId).collect(Collectors.toSet());
+        Map<Key, WalletDailyAggregate> existing = aggregateRepository.findByActivityDateInAndWalletIdIn(dates, walletIds)
+                .stream()
+                .collect(Collectors.toMap(Key::of, aggregate -> aggregate));
+
+        List<WalletDailyAggregate> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            WalletDailyAggregate row = existing.get(key);
+            if (row == null) {
+                row = WalletDailyAggregate.builder()
+                        .activityDate(key.activityDate())
+                        .walletId(key.walletId())
+                        .serviceType(key.serviceType())
+                        .transactionType(key.transactionType())
+                        .totalAmount(BigDecimal.ZERO)
+                        .build();
+            }
+            row.setTransactionCount(row.getTransactionCount() + delta.getTransactionCount());
+            row.setTotalAmount(row.getTotalAmount().add(delta.getTotalAmount()));
+            changed.add(row);
+        });
+        aggregateRepository.saveAll(changed);
+    }
+
+    private long currentWatermark() {
+        return watermarkRepository.findById(WATERMARK)
+                .orElseGet(() -> watermarkRepository.saveAndFlush(AggregateWatermark.builder()
+                        .name(WATERMARK)
+                        .lastTransactionId(0L)
+                        .updatedAt(LocalDateTime.now())
+                        .build()))
+                .getLastTransactionId();
+    }
+
+    /**
+     * Daily activity between {@code startDate} and {@code endDate} inclusive, ordered by day, wallet,
+     * service type and transaction type.
+     */
+    public List<DailyActivityAggregate> findDaily(LocalDate startDate, LocalDate endDate, Filter filter) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> {
+            long watermark = watermarkRepository.findById(WATERMARK)
+                    .map(AggregateWatermark::getLastTransactionId)
+                    .orElse(0L);
+
+            Map<Key, DailyActivityAggregate> result = new HashMap<>();
+            for (WalletDailyAggregate row : aggregateRepository.findInRange(startDate, endDate, filter.walletId(),
+                    filter.serviceType(), filter.transactionType())) {
+                result.put(Key.of(row), toDto(Key.of(row), row.getTransactionCount(), row.getTotalAmount()));
+            }
+
+            // The tail past the watermark is summed by the database, so a lagging rollup costs one grouped scan
+            for (DailyActivityView tail : transactionRepository.sumDailyAfterId(watermark,
+                    BalanceVerificationService.POSTED_STATUSES, startDate.atStartOfDay(),
+                    endDate.plusDays(1).atStartOfDay(), filter.walletId(), filter.serviceType(), NO_SERVICE,
+                    filter.transactionType())) {
+                Key key = Key.of(tail);
+                result.merge(key, toDto(key, tail.getTransactionCount(), tail.getTotalAmount()), (a, b) ->
+                        toDto(key, a.getTransactionCount() + b.getTransactionCount(), a.getTotalAmount().add(b.getTotalAmount())));
+            }
+
+            return result.values().stream()
+                    .sorted(Comparator.comparing(DailyActivityAggregate::getActivityDate)
+                            .thenComparing(DailyActivityAggregate::getWalletId)
+                            .thenComparing(DailyActivityAggregate::getServiceType)
+                            .thenComparing(DailyActivityAggregate::getTransactionType))
+                    .toList();
+        });
+    }
+
+    private static Map<Key, DailyActivityAggregate> aggregate(List<TransactionView> views) {
+        Map<Key, DailyActivityAggregate> deltas = new HashMap<>();
+        for (TransactionView view : views) {
+            // Failed and pending rows never moved money; REVERSED originals stay counted next to their REVERSAL
+            if (!BalanceVerificationService.POSTED_STATUSES.contains(view.getStatus())) {
+                continue;
+            }
+            Key key = Key.of(view);
+            deltas.merge(key, toDto(key, 1, view.getAmount()), (a, b) ->
+                    toDto(key, a.getTransactionCount() + 1, a.getTotalAmount().add(b.getTotalAmount())));
+        }
+        return deltas;
+    }
+
+    private static DailyActivityAggregate toDto(Key key, long count, BigDecimal amount) {
+        return DailyActivityAggregate.builder()
+                .activityDate(key.activityDate())
+                .walletId(key.walletId())
+                .serviceType(key.serviceType())
+                .transactionType(key.transactionType())
+                .transactionCount(count)
+                .totalAmount(amount)
+                .build();
+    }
+
+    static String serviceOf(String serviceType) {
+        return Objects.requireNonNullElse(serviceType, NO_SERVICE);
+    }
+}
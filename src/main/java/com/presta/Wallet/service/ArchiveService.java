@@ -0,0 +1,456 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.archive.ColumnarSegment;
+import com.presta.Wallet.config.ArchiveProperties;
+import com.presta.Wallet.dto.ArchiveRunReport;
+import com.presta.Wallet.dto.ExternalTransactionDTO;
+import com.presta.Wallet.dto.ReconciliationItemResponse;
+import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.WalletTransactionReferenceRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository.TransactionView;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Moves rows past their retention window out of the hot tables into {@link ColumnarSegment} files under
+ * {@code wallet.archive.directory}, one directory per dataset, and answers history and audit lookups
+ * from those files.
+ *
+ * <p>Each batch is written and synced before its rows are deleted; if the delete fails the segment is
+ * removed again. A crash between the two can leave a row in both places, so reads de-duplicate by id.
+ * Wallet transactions are only archived once their wallet's latest balance snapshot covers them, and
+ * their reference ids are kept in {@code wallet_transaction_references} so they can never be reused.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchiveService {
+
+    public static final String WALLET_TRANSACTIONS = "wallet_transactions";
+    public static final String EXTERNAL_TRANSACTIONS = "external_transactions";
+    public static final String RECONCILIATION_ITEMS = "reconciliation_items";
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private final ArchiveProperties properties;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final WalletTransactionReferenceRepository walletTransactionReferenceRepository;
+    private final ExternalTransactionRepository externalTransactionRepository;
+    private final ReconciliationItemRepository reconciliationItemRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final WalletMetrics walletMetrics;
+
+    // Segments never change once written, so their footers are read once
+    private final Map<Path, ColumnarSegment> segments = new ConcurrentHashMap<>();
+
+    private interface SegmentReader<T> {
+        T read(ColumnarSegment segment) throws IOException;
+    }
+
+    private interface RowReader<T> {
+        Map<Long, T> read(ColumnarSegment segment, BitSet rows) throws IOException;
+    }
+
+    private record Totals(long rows, int segments, long bytes) {
+    }
+
+    @Scheduled(cron = "${wallet.archive.cron:0 45 2 * * *}")
+    public void scheduledArchive() {
+        if (properties.isEnabled()) {
+            archiveAll();
+        }
+    }
+
+    public ArchiveRunReport archiveAll() {
+        return archiveAll(LocalDate.now());
+    }
+
+    public ArchiveRunReport archiveAll(LocalDate today) {
+        long start = System.currentTimeMillis();
+        Map<String, Totals> totals = new LinkedHashMap<>();
+
+        LocalDateTime transactionsBefore = today.minusDays(retentionDays(WALLET_TRANSACTIONS)).atStartOfDay();
+        totals.put(WALLET_TRANSACTIONS, archive(WALLET_TRANSACTIONS,
+                afterId -> walletTransactionRepository.findArchivableViews(transactionsBefore, afterId, firstBatch()),
+                TransactionView::getId,
+                this::walletTransactionSegment,
+                ids -> {
+                    // Keep the references claimed, or replays of them would pass the duplicate checks
+                    walletTransactionReferenceRepository.claimForArchive(ids);
+                    walletTransactionRepository.deleteAllByIdInBatch(ids);
+                }));
+
+        LocalDate externalBefore = today.minusDays(retentionDays(EXTERNAL_TRANSACTIONS));
+        totals.put(EXTERNAL_TRANSACTIONS, archive(EXTERNAL_TRANSACTIONS,
+                afterId -> externalTransactionRepository.findByTransactionDateBeforeAndIdGreaterThanOrderByIdAsc(
+                        externalBefore, afterId, firstBatch()),
+                ExternalTransaction::getId,
+                this::externalTransactionSegment,
+                externalTransactionRepository::deleteAllByIdInBatch));
+
+        LocalDate itemsBefore = today.minusDays(retentionDays(RECONCILIATION_ITEMS));
+        totals.put(RECONCILIATION_ITEMS, archive(RECONCILIATION_ITEMS,
+                afterId -> reconciliationItemRepository.findArchivable(itemsBefore, afterId, firstBatch()),
+                ReconciliationItem::getId,
+                this::reconciliationItemSegment,
+                reconciliationItemRepository::deleteAllByIdInBatch));
+
+        Map<String, Long> rows = new LinkedHashMap<>();
+        totals.forEach((dataset, total) -> rows.put(dataset, total.rows()));
+        ArchiveRunReport report = ArchiveRunReport.builder()
+                .rowsArchived(rows)
+                .segmentsWritten(totals.values().stream().mapToInt(Totals::segments).sum())
+                .bytesWritten(totals.values().stream().mapToLong(Totals::bytes).sum())
+                .durationMs(System.currentTimeMillis() - start)
+                .completedAt(LocalDateTime.now())
+                .build();
+        log.info("Archived {} into {} segments ({} bytes) in {} ms",
+                rows, report.getSegmentsWritten(), report.getBytesWritten(), report.getDurationMs());
+        return report;
+    }
+
+    private int retentionDays(String dataset) {
+        return properties.forDataset(dataset).getRetentionDays();
+    }
+
+    private PageRequest firstBatch() {
+        return PageRequest.of(0, properties.getBatchSize());
+    }
+
+    private <T> Totals archive(String dataset, Function<Long, List<T>> nextBatch, ToLongFunction<T> idOf,
+                               Function<List<T>, ColumnarSegment.Writer> toSegment, Consumer<List<Long>> delete) {
+        long afterId = 0;
+        long rows = 0;
+        int written = 0;
+        long bytes = 0;
+        while (true) {
+            List<T> batch = nextBatch.apply(afterId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = batch.stream().map(idOf::applyAsLong).toList();
+            Path file = datasetDirectory(dataset)
+                    .resolve(dataset + "-" + ids.get(0) + "-" + ids.get(ids.size() - 1) + ColumnarSegment.EXTENSION);
+            long size;
+            try {
+                size = toSegment.apply(batch).writeTo(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write archive segment " + file, e);
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> delete.accept(ids));
+            } catch (RuntimeException e) {
+                deleteSegment(file);
+                throw e;
+            }
+            segments.remove(file);
+
+            walletMetrics.recordArchived(dataset, batch.size(), size);
+            rows += batch.size();
+            written++;
+            bytes += size;
+            afterId = ids.get(ids.size() - 1);
+        }
+        return new Totals(rows, written, bytes);
+    }
+
+    private void deleteSegment(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to remove archive segment {} after its delete was rolled back", file, e);
+        }
+    }
+
+    private ColumnarSegment.Writer walletTransactionSegment(List<TransactionView> rows) {
+        return ColumnarSegment.writer(rows.size())
+                .longs("id", column(rows, TransactionView::getId))
+                .longs("wallet_id", column(rows, TransactionView::getWalletId))
+                .strings("transaction_type", column(rows, view -> view.getTransactionType().name()))
+                .decimals("amount", AMOUNT_SCALE, column(rows, TransactionView::getAmount))
+                .strings("reference_id", column(rows, TransactionView::getReferenceId))
+                .strings("description", column(rows, TransactionView::getDescription))
+                .strings("status", column(rows, view -> view.getStatus() != null ? view.getStatus().name() : null))
+                .decimals("balance_before", AMOUNT_SCALE, column(rows, TransactionView::getBalanceBefore))
+                .decimals("balance_after", AMOUNT_SCALE, column(rows, TransactionView::getBalanceAfter))
+                .strings("service_type", column(rows, TransactionView::getServiceType))
+                .timestamps("created_at", column(rows, TransactionView::getCreatedAt))
+                .timestamps("processed_at", column(rows, TransactionView::getProcessedAt));
+    }
+
+    private ColumnarSegment.Writer externalTransactionSegment(List<ExternalTransaction> rows) {
+        return ColumnarSegment.writer(rows.size())
+                .longs("id", column(rows, ExternalTransaction::getId))
+                .strings("external_transaction_id", column(rows, ExternalTransaction::getExternalTransactionId))
+                .dates("transaction_date", column(rows, ExternalTransaction::getTransactionDate))
+                .decimals("amount", AMOUNT_SCALE, column(rows, ExternalTransaction::getAmount))
+                .strings("reference_id", column(rows, ExternalTransaction::getReferenceId))
+                .strings("transaction_type", column(rows, ExternalTransaction::getTransactionType))
+                .strings("customer_id", column(rows, ExternalTransaction::getCustomerId))
+                .strings("service_type", column(rows, ExternalTransaction::getServiceType))
+                .strings("description", column(rows, ExternalTransaction::getDescription))
+                .strings("provider_name", column(rows, ExternalTransaction::getProviderName))
+                .strings("file_name", column(rows, ExternalTransaction::getFileName))
+                .strings("status", column(rows, e -> e.getStatus() != null ? e.getStatus().name() : null))
+                .timestamps("created_at", column(rows, ExternalTransaction::getCreatedAt))
+                .timestamps("processed_at", column(rows, ExternalTransaction::getProcessedAt));
+    }
+
+    private ColumnarSegment.Writer reconciliationItemSegment(List<ReconciliationItem> rows) {
+        return ColumnarSegment.writer(rows.size())
+                .longs("id", column(rows, ReconciliationItem::getId))
+                .longs("reconciliation_report_id", column(rows, item -> item.getReconciliationReport().getId()))
+                .dates("reconciliation_date", column(rows, item -> item.getReconciliationReport().getReconciliationDate()))
+                .longs("internal_transaction_id", column(rows, ReconciliationItem::getInternalTransactionId))
+                .longs("external_transaction_id", column(rows, ReconciliationItem::getExternalTransactionId))
+                .strings("reference_id", column(rows, ReconciliationItem::getReferenceId))
+                .strings("match_type", column(rows, item -> item.getMatchType() != null ? item.getMatchType().name() : null))
+                .strings("discrepancy_type", column(rows,
+                        item -> item.getDiscrepancyType() != null ? item.getDiscrepancyType().name() : null))
+                .decimals("internal_amount", AMOUNT_SCALE, column(rows, ReconciliationItem::getInternalAmount))
+                .decimals("external_amount", AMOUNT_SCALE, column(rows, ReconciliationItem::getExternalAmount))
+                .decimals("amount_difference", AMOUNT_SCALE, column(rows, ReconciliationItem::getAmountDifference))
+                .strings("notes", column(rows, ReconciliationItem::getNotes));
+    }
+
+    private static <T, V> List<V> column(List<T> rows, Function<T, V> getter) {
+        List<V> values = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            values.add(getter.apply(row));
+        }
+        return values;
+    }
+
+    /**
+     * Archived transactions of a wallet created in {@code [from, to]}, newest first; null bounds are open.
+     */
+    public List<TransactionResponse> findWalletTransactions(Long walletId, LocalDateTime from, LocalDateTime to) {
+        List<TransactionResponse> transactions = read(WALLET_TRANSACTIONS,
+                segment -> segment.mayContain("wallet_id", walletId, walletId) && segment.mayContain("created_at", from, to),
+                segment -> {
+                    List<Long> walletIds = segment.readLongs("wallet_id");
+                    List<LocalDateTime> createdAt = segment.readTimestamps("created_at");
+                    return rows(segment, row -> walletId.equals(walletIds.get(row)) && within(createdAt.get(row), from, to));
+                },
+                this::transactionResponses);
+        transactions.sort(Comparator.comparing(TransactionResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(TransactionResponse::getTransactionId, Comparator.reverseOrder()));
+        return transactions;
+    }
+
+    public Optional<TransactionResponse> findWalletTransactionByReference(String referenceId) {
+        return read(WALLET_TRANSACTIONS,
+                segment -> true,
+                segment -> {
+                    List<String> references = segment.readStrings("reference_id");
+                    return rows(segment, row -> referenceId.equals(references.get(row)));
+                },
+                this::transactionResponses).stream().findFirst();
+    }
+
+    public List<ExternalTransactionDTO> findExternalTransactions(LocalDate transactionDate) {
+        return read(EXTERNAL_TRANSACTIONS,
+                segment -> segment.mayContain("transaction_date", transactionDate, transactionDate),
+                segment -> {
+                    List<LocalDate> dates = segment.readDates("transaction_date");
+                    return rows(segment, row -> transactionDate.equals(dates.get(row)));
+                },
+                this::externalTransactions);
+    }
+
+    public List<ReconciliationItemResponse> findReconciliationItems(LocalDate reconciliationDate) {
+        return read(RECONCILIATION_ITEMS,
+                segment -> segment.mayContain("reconciliation_date", reconciliationDate, reconciliationDate),
+                segment -> {
+                    List<LocalDate> dates = segment.readDates("reconciliation_date");
+                    return rows(segment, row -> reconciliationDate.equals(dates.get(row)));
+                },
+                this::reconciliationItems);
+    }
+
+    private <T> List<T> read(String dataset, Predicate<ColumnarSegment> mayMatch, SegmentReader<BitSet> matchingRows,
+                             RowReader<T> toRows) {
+        Map<Long, T> results = new LinkedHashMap<>();
+        try {
+            for (ColumnarSegment segment : segments(dataset)) {
+                if (!mayMatch.test(segment)) {
+                    continue;
+                }
+                BitSet rows = matchingRows.read(segment);
+                if (!rows.isEmpty()) {
+                    toRows.read(segment, rows).forEach(results::putIfAbsent);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived " + dataset, e);
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private List<ColumnarSegment> segments(String dataset) throws IOException {
+        Path directory = datasetDirectory(dataset);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(ColumnarSegment.EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+        List<ColumnarSegment> opened = new ArrayList<>(files.size());
+        for (Path file : files) {
+            ColumnarSegment segment = segments.get(file);
+            if (segment == null) {
+                segment = ColumnarSegment.open(file);
+                segments.put(file, segment);
+            }
+            opened.add(segment);
+        }
+        return opened;
+    }
+
+    private Path datasetDirectory(String dataset) {
+        return Paths.get(properties.getDirectory(), dataset);
+    }
+
+    private static BitSet rows(ColumnarSegment segment, IntPredicate match) {
+        BitSet rows = new BitSet(segment.getRowCount());
+        for (int row = 0; row < segment.getRowCount(); row++) {
+            if (match.test(row)) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    private static boolean within(LocalDateTime value, LocalDateTime from, LocalDateTime to) {
+        return value != null && (from == null || !value.isBefore(from)) && (to == null || !value.isAfter(to));
+    }
+
+    private Map<Long, TransactionResponse> transactionResponses(ColumnarSegment segment, BitSet rows) throws IOException {
+        List<Long> ids = segment.readLongs("id");
+        List<Long> walletIds = segment.readLongs("wallet_id");
+        List<String> types = segment.readStrings("transaction_type");
+        List<BigDecimal> amounts = segment.readDecimals("amount");
+        List<String> references = segment.readStrings("reference_id");
+        List<String> descriptions = segment.readStrings("description");
+        List<String> statuses = segment.readStrings("status");
+        List<BigDecimal> balancesBefore = segment.readDecimals("balance_before");
+        List<BigDecimal> balancesAfter = segment.readDecimals("balance_after");
+        List<String> serviceTypes = segment.readStrings("service_type");
+        List<LocalDateTime> createdAt = segment.readTimestamps("created_at");
+        List<LocalDateTime> processedAt = segment.readTimestamps("processed_at");
+
+        Map<Long, TransactionResponse> transactions = new LinkedHashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            transactions.put(ids.get(row), TransactionResponse.builder()
+                    .transactionId(ids.get(row))
+                    .walletId(walletIds.get(row))
+                    .transactionType(types.get(row))
+                    .amount(amounts.get(row))
+                    .referenceId(references.get(row))
+                    .description(descriptions.get(row))
+                    .status(statuses.get(row))
+                    .balanceBefore(balancesBefore.get(row))
+                    .balanceAfter(balancesAfter.get(row))
+                    .serviceType(serviceTypes.get(row))
+                    .createdAt(createdAt.get(row))
+                    .processedAt(processedAt.get(row))
+                    .build());
+        }
+        return transactions;
+    }
+
+    private Map<Long, ExternalTransactionDTO> externalTransactions(ColumnarSegment segment, BitSet rows) throws IOException {
+        List<Long> ids = segment.readLongs("id");
+        List<String> externalIds = segment.readStrings("external_transaction_id");
+        List<LocalDate> dates = segment.readDates("transaction_date");
+        List<BigDecimal> amounts = segment.readDecimals("amount");
+        List<String> references = segment.readStrings("reference_id");
+        List<String> types = segment.readStrings("transaction_type");
+        List<String> customerIds = segment.readStrings("customer_id");
+        List<String> serviceTypes = segment.readStrings("service_type");
+        List<String> descriptions = segment.readStrings("description");
+
+        Map<Long, ExternalTransactionDTO> transactions = new LinkedHashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            transactions.put(ids.get(row), ExternalTransactionDTO.builder()
+                    .transactionId(externalIds.get(row))
+                    .transactionDate(dates.get(row))
+                    .amount(amounts.get(row))
+                    .referenceId(references.get(row))
+                    .transactionType(types.get(row))
+                    .customerId(customerIds.get(row))
+                    .serviceType(serviceTypes.get(row))
+                    .description(descriptions.get(row))
+                    .build());
+        }
+        return transactions;
+    }
+
+    private Map<Long, ReconciliationItemResponse> reconciliationItems(ColumnarSegment segment, BitSet rows) throws IOException {
+        List<Long> ids = segment.readLongs("id");
+        List<String> references = segment.readStrings("reference_id");
+        List<String> matchTypes = segment.readStrings("match_type");
+        List<String> discrepancyTypes = segment.readStrings("discrepancy_type");
+        List<Long> internalIds = segment.readLongs("internal_transaction_id");
+        List<Long> externalIds = segment.readLongs("external_transaction_id");
+        List<BigDecimal> internalAmounts = segment.readDecimals("internal_amount");
+        List<BigDecimal> externalAmounts = segment.readDecimals("external_amount");
+        List<BigDecimal> differences = segment.readDecimals("amount_difference");
+        List<String> notes = segment.readStrings("notes");
+
+        Map<Long, ReconciliationItemResponse> items = new LinkedHashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            items.put(ids.get(row), ReconciliationItemResponse.builder()
+                    .itemId(ids.get(row))
+                    .referenceId(references.get(row))
+                    .matchType(matchTypes.get(row))
+                    .discrepancyType(discrepancyTypes.get(row))
+                    .internalTransactionId(internalIds.get(row))
+                    .externalTransactionId(externalIds.get(row))
+                    .internalAmount(internalAmounts.get(row))
+                    .externalAmount(externalAmounts.get(row))
+                    .amountDifference(differences.get(row))
+                    .notes(notes.get(row))
+                    .build());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,117 @@
+package com.presta.Wallet.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Date parser for the transaction date column of a provider file. The layout is detected
+ * once from a sample of rows and then locked in for the rest of the file; every layout is
+ * parsed by hand from fixed character positions, so a row never costs a formatter lookup
+ * or a thrown {@code DateTimeParseException}.
+ */
+final class CsvDateParser {
+
+    static final int SAMPLE_ROWS = 20;
+
+    /** Parser that tries each layout per value, used when nothing could be sampled. */
+    static final CsvDateParser AUTO = new CsvDateParser(null);
+
+    // Same precedence the old formatter list used
+    enum DateLayout {
+        ISO("yyyy-MM-dd", 0, 5, 8, '-'),
+        DAY_MONTH_SLASH("dd/MM/yyyy", 6, 3, 0, '/'),
+        MONTH_DAY_SLASH("MM/dd/yyyy", 6, 0, 3, '/'),
+        DAY_MONTH_DASH("dd-MM-yyyy", 6, 3, 0, '-'),
+        YEAR_SLASH("yyyy/MM/dd", 0, 5, 8, '/');
+
+        private final String pattern;
+        private final int yearAt;
+        private final int monthAt;
+        private final int dayAt;
+        private final char separator;
+
+        DateLayout(String pattern, int yearAt, int monthAt, int dayAt, char separator) {
+            this.pattern = pattern;
+            this.yearAt = yearAt;
+            this.monthAt = monthAt;
+            this.dayAt = dayAt;
+            this.separator = separator;
+        }
+
+        String getPattern() {
+            return pattern;
+        }
+
+        LocalDate parse(String value) {
+            if (value.length() != 10) return null;
+            for (int i = 0; i < 10; i++) {
+                char c = value.charAt(i);
+                boolean separatorSlot = pattern.charAt(i) == '-' || pattern.charAt(i) == '/';
+                if (separatorSlot ? c != separator : (c < '0' || c > '9')) return null;
+            }
+
+            int year = digits(value, yearAt, 4);
+            int month = digits(value, monthAt, 2);
+            int day = digits(value, dayAt, 2);
+            if (month < 1 || month > 12 || day < 1 || day > 31) return null;
+
+            // Past-the-end days clamp to the month's last day, as the SMART resolver did
+            int lastDay = YearMonth.of(year, month).lengthOfMonth();
+            return LocalDate.of(year, month, Math.min(day, lastDay));
+        }
+
+        private static int digits(String value, int from, int count) {
+            int result = 0;
+            for (int i = from; i < from + count; i++) {
+                result = result * 10 + (value.charAt(i) - '0');
+            }
+            return result;
+        }
+    }
+
+    private final DateLayout locked;
+
+    private CsvDateParser(DateLayout locked) {
+        this.locked = locked;
+    }
+
+    /**
+     * Locks in the first layout that parses every sampled value, which also settles
+     * day/month ambiguity whenever any sample has a day above 12.
+     */
+    static CsvDateParser detect(List<String> samples) {
+        if (samples.isEmpty()) {
+            return AUTO;
+        }
+        for (DateLayout layout : DateLayout.values()) {
+            boolean parsesAll = true;
+            for (String sample : samples) {
+                if (layout.parse(sample) == null) {
+                    parsesAll = false;
+                    break;
+                }
+            }
+            if (parsesAll) {
+                return new CsvDateParser(layout);
+            }
+        }
+        return AUTO;
+    }
+
+    DateLayout getLayout() {
+        return locked;
+    }
+
+    LocalDate parse(String value) {
+        if (locked != null) {
+            LocalDate date = locked.parse(value);
+            if (date != null) return date;
+        }
+        for (DateLayout layout : DateLayout.values()) {
+            LocalDate date = layout.parse(value);
+            if (date != null) return date;
+        }
+        return null;
+    }
+}
@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import com.presta.Wallet.dto.DailyActivityAggregate;
 import com.presta.Wallet.entity.ReconciliationItem;
 import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.money.Money;
 import com.presta.Wallet.repository.ReconciliationItemRepository;
 import com.presta.Wallet.repository.ReconciliationReportRepository;
 
@@ -19,8 +21,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CsvExportService {
 
+    // Severity thresholds for amount differences: above 100.00 is HIGH, above 10.00 is MEDIUM
+    private static final long HIGH_SEVERITY_MINOR_UNITS = 100_00;
+    private static final long MEDIUM_SEVERITY_MINOR_UNITS = 10_00;
+
     private final ReconciliationReportRepository reconciliationReportRepository;
     private final ReconciliationItemRepository reconciliationItemRepository;
+    private final ActivityAggregateService activityAggregateService;
 
     public String exportReconciliationReport(LocalDate date) {
         log.info("Exporting reconciliation report to CSV for date: {}", date);
@@ -61,17 +68,7 @@ public class CsvExportService {
                  .append("Internal Amount,External Amount,Amount Difference,Severity,Notes\n");
 
         for (ReconciliationItem item : items) {
-            csvWriter.append(String.valueOf(item.getId())).append(",");
-            csvWriter.append(escapeCsv(item.getReferenceId())).append(",");
-            csvWriter.append(item.getMatchType().name()).append(",");
-            csvWriter.append(item.getDiscrepancyType().name()).append(",");
-            csvWriter.append(item.getInternalTransactionId() != null ? item.getInternalTransactionId().toString() : "").append(",");
-            csvWriter.append(item.getExternalTransactionId() != null ? item.getExternalTransactionId().toString() : "").append(",");
-            csvWriter.append(item.getInternalAmount() != null ? item.getInternalAmount().toString() : "").append(",");
-            csvWriter.append(item.getExternalAmount() != null ? item.getExternalAmount().toString() : "").append(",");
-            csvWriter.append(item.getAmountDifference() != null ? item.getAmountDifference().toString() : "").append(",");
-            csvWriter.append(getSeverity(item)).append(",");
-            csvWriter.append(escapeCsv(item.getNotes())).append("\n");
+            writeItemRow(csvWriter, item);
         }
 
         String csvContent = csvWriter.toString();
@@ -121,6 +118,52 @@ public class CsvExportService {
         return csvContent;
     }
 
+    public String exportWalletActivitySummary(LocalDate startDate, LocalDate endDate) {
+        log.info("Exporting wallet activity summary from {} to {}", startDate, endDate);
+
+        List<DailyActivityAggregate> activity = activityAggregateService.findDaily(startDate, endDate,
+                ActivityAggregateService.Filter.ALL);
+
+        StringWriter csvWriter = new StringWriter();
+
+        // header
+        csvWriter.append("Wallet Activity Summary\n");
+        csvWriter.append("Period: ").append(startDate.toString()).append(" to ").append(endDate.toString()).append("\n");
+        csvWriter.append("Generated on: ").append(java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+        csvWriter.append("\n");
+
+        // column headers
+        csvWriter.append("Date,Wallet ID,Service Type,Transaction Type,Transactions,Total Amount\n");
+
+        for (DailyActivityAggregate row : activity) {
+            csvWriter.append(row.getActivityDate().toString()).append(",");
+            csvWriter.append(String.valueOf(row.getWalletId())).append(",");
+            csvWriter.append(escapeCsv(row.getServiceType())).append(",");
+            csvWriter.append(row.getTransactionType().name()).append(",");
+            csvWriter.append(String.valueOf(row.getTransactionCount())).append(",");
+            csvWriter.append(row.getTotalAmount().toString()).append("\n");
+        }
+
+        String csvContent = csvWriter.toString();
+        log.info("Wallet activity summary export completed, {} rows exported", activity.size());
+
+        return csvContent;
+    }
+
+    void writeItemRow(StringWriter csvWriter, ReconciliationItem item) {
+        csvWriter.append(String.valueOf(item.getId())).append(",");
+        csvWriter.append(escapeCsv(item.getReferenceId())).append(",");
+        csvWriter.append(item.getMatchType().name()).append(",");
+        csvWriter.append(item.getDiscrepancyType().name()).append(",");
+        csvWriter.append(item.getInternalTransactionId() != null ? item.getInternalTransactionId().toString() : "").append(",");
+        csvWriter.append(item.getExternalTransactionId() != null ? item.getExternalTransactionId().toString() : "").append(",");
+        csvWriter.append(item.getInternalAmount() != null ? item.getInternalAmount().toString() : "").append(",");
+        csvWriter.append(item.getExternalAmount() != null ? item.getExternalAmount().toString() : "").append(",");
+        csvWriter.append(item.getAmountDifference() != null ? item.getAmountDifference().toString() : "").append(",");
+        csvWriter.append(getSeverity(item)).append(",");
+        csvWriter.append(escapeCsv(item.getNotes())).append("\n");
+    }
+
     private String escapeCsv(String value) {
         if (value == null) {
             return "";
@@ -142,11 +185,11 @@ public class CsvExportService {
         return switch (item.getDiscrepancyType()) {
             case MISSING_INTERNAL, MISSING_EXTERNAL -> "HIGH";
             case AMOUNT_DIFFERENCE -> {
-                if (item.getAmountDifference() != null && 
-                    item.getAmountDifference().abs().compareTo(java.math.BigDecimal.valueOf(100)) > 0) {
+                long difference = item.getAmountDifference() != null
+                        ? Math.abs(Money.toMinorUnits(item.getAmountDifference())) : 0;
+                if (difference > HIGH_SEVERITY_MINOR_UNITS) {
                     yield "HIGH";
-                } else if (item.getAmountDifference() != null && 
-                          item.getAmountDifference().abs().compareTo(java.math.BigDecimal.valueOf(10)) > 0) {
+                } else if (difference > MEDIUM_SEVERITY_MINOR_UNITS) {
                     yield "MEDIUM";
                 } else {
                     yield "LOW";
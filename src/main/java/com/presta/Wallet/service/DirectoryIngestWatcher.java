@@ -0,0 +1,114 @@
+package com.presta.Wallet.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Polls the SFTP drop directory and hands settled CSV files to {@link MappedFileIngestService}.
+ * Files are expected as {@code PROVIDER_yyyy-MM-dd.csv}; anything else falls back to the
+ * default provider and today's date. Finished files move to {@code processed/} or {@code failed/}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wallet.ingest.directory.enabled", havingValue = "true")
+public class DirectoryIngestWatcher {
+
+    private static final Pattern DROP_FILE_NAME = Pattern.compile("^(.+)_(\\d{4}-\\d{2}-\\d{2})\\.csv$", Pattern.CASE_INSENSITIVE);
+
+    private final MappedFileIngestService mappedFileIngestService;
+
+    @Value("${wallet.ingest.directory.path:data/inbox}")
+    private String inboxPath;
+
+    @Value("${wallet.ingest.directory.default-provider:SFTP_PROVIDER}")
+    private String defaultProvider;
+
+    @Value("${wallet.ingest.directory.settle-millis:5000}")
+    private long settleMillis;
+
+    @Scheduled(fixedDelayString = "${wallet.ingest.directory.poll-interval-ms:10000}")
+    public void pollInbox() {
+        Path inbox = Paths.get(inboxPath);
+        if (!Files.isDirectory(inbox)) {
+            return;
+        }
+
+        List<Path> candidates;
+        try (Stream<Path> files = Files.list(inbox)) {
+            candidates = files
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".csv"))
+                    .filter(this::isSettled)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Failed to list ingest directory: {}", inbox, e);
+            return;
+        }
+
+        for (Path file : candidates) {
+            processDropFile(inbox, file);
+        }
+    }
+
+    private void processDropFile(Path inbox, Path file) {
+        String fileName = file.getFileName().toString();
+        String providerName = defaultProvider;
+        LocalDate reportDate = LocalDate.now();
+
+        Matcher matcher = DROP_FILE_NAME.matcher(fileName);
+        if (matcher.matches()) {
+            try {
+                reportDate = LocalDate.parse(matcher.group(2));
+                providerName = matcher.group(1);
+            } catch (DateTimeParseException e) {
+                log.warn("Drop file {} has an invalid date, using defaults", fileName);
+            }
+        }
+
+        try {
+            int ingested = mappedFileIngestService.ingest(file, providerName, reportDate);
+            log.info("Directory ingest completed: file={}, provider={}, rows={}", fileName, providerName, ingested);
+            moveTo(inbox.resolve("processed"), file);
+        } catch (Exception e) {
+            log.error("Directory ingest failed for file: {}", fileName, e);
+            moveTo(inbox.resolve("failed"), file);
+        }
+    }
+
+    private boolean isSettled(Path file) {
+        try {
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+            return age >= settleMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void moveTo(Path directory, Path file) {
+        try {
+            Files.createDirectories(directory);
+            Files.move(file, directory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to move {} to {}", file, directory, e);
+        }
+    }
+}
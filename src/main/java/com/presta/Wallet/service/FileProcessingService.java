@@ -1,37 +1,51 @@
 package com.presta.Wallet.service;
 
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.presta.Wallet.dto.ExternalTransactionDTO;
 import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
 import com.presta.Wallet.repository.ExternalTransactionRepository;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileProcessingService {
 
+    private static final Set<String> DATE_HEADERS = Set.of("transaction_date", "date", "transactiondate");
+
     private final ExternalTransactionRepository externalTransactionRepository;
+    private final IngestDeduplicationService ingestDeduplicationService;
+    private final WalletMetrics walletMetrics;
+    private final StreamingReconciliationService streamingReconciliationService;
+
     private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
-    @Transactional
+    @Value("${wallet.ingest.batch-size:1000}")
+    private int batchSize = 1000;
+
     public List<ExternalTransaction> processFile(MultipartFile file, String providerName, LocalDate reportDate) {
         log.info("Processing file: {} for provider: {} and date: {}", file.getOriginalFilename(), providerName, reportDate);
 
@@ -40,30 +54,44 @@ public class FileProcessingService {
             throw new IllegalArgumentException("File name cannot be null");
         }
 
+        Timer.Sample sample = walletMetrics.startTimer();
+        List<String> claimedIds = new ArrayList<>();
         try {
             List<ExternalTransactionDTO> transactionDTOs;
             
             if (fileName.toLowerCase().endsWith(".csv")) {
                 transactionDTOs = processCsvFile(file);
-            } else if (fileName.toLowerCase().endsWith(".json")) {
+            } else if (isJsonFile(fileName)) {
                 transactionDTOs = processJsonFile(file);
             } else {
-                throw new IllegalArgumentException("Unsupported file type. Only CSV and JSON files are supported.");
+                throw new IllegalArgumentException("Unsupported file type. Only CSV, JSON and NDJSON files are supported.");
             }
 
             List<ExternalTransaction> externalTransactions = new ArrayList<>();
+            int duplicates = 0;
             
             for (ExternalTransactionDTO dto : transactionDTOs) {
                 ExternalTransaction transaction = mapToEntity(dto, providerName, fileName, reportDate);
+                if (!ingestDeduplicationService.claimRow(providerName, transaction.getExternalTransactionId())) {
+                    duplicates++;
+                    continue;
+                }
+                claimedIds.add(transaction.getExternalTransactionId());
                 externalTransactions.add(transaction);
             }
 
-            List<ExternalTransaction> savedTransactions = externalTransactionRepository.saveAll(externalTransactions);
-            log.info("Successfully processed {} external transactions from file: {}", savedTransactions.size(), fileName);
+            List<ExternalTransaction> savedTransactions = saveNew(externalTransactions, providerName);
+            duplicates += externalTransactions.size() - savedTransactions.size();
+            log.info("Successfully processed {} external transactions from file: {} ({} duplicates skipped)", 
+                    savedTransactions.size(), fileName, duplicates);
+            walletMetrics.recordIngest("upload", sample, savedTransactions.size(), duplicates, 0);
+            streamingReconciliationService.submitExternal(savedTransactions);
             
             return savedTransactions;
 
         } catch (Exception e) {
+            ingestDeduplicationService.releaseRows(providerName, claimedIds);
+            walletMetrics.recordIngestFailure("upload", sample);
             log.error("Failed to process file: {} for provider: {}", fileName, providerName, e);
             throw new RuntimeException("File processing failed: " + e.getMessage(), e);
         }
@@ -74,8 +102,10 @@ public class FileProcessingService {
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
             String line;
-            boolean isFirstLine = true;
             String[] headers = null;
+            CsvDateParser dateParser = null;
+            // rows held back until the date layout has been sampled
+            List<String[]> sampleRows = new ArrayList<>();
             
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
@@ -83,25 +113,36 @@ public class FileProcessingService {
                 
                 String[] values = parseCsvLine(line);
                 
-                if (isFirstLine) {
+                if (headers == null) {
                     headers = values;
-                    isFirstLine = false;
                     log.debug("CSV Headers: {}", String.join(", ", headers));
                     continue;
                 }
                 
-                if (headers == null || values.length < headers.length) {
+                if (values.length < headers.length) {
                     log.warn("Skipping invalid CSV line: {}", line);
                     continue;
                 }
-                
-                try {
-                    ExternalTransactionDTO transaction = parseCsvRecord(headers, values);
-                    if (transaction != null) {
-                        transactions.add(transaction);
+
+                if (dateParser == null) {
+                    sampleRows.add(values);
+                    if (sampleRows.size() < CsvDateParser.SAMPLE_ROWS) continue;
+
+                    dateParser = detectDateParser(headers, sampleRows);
+                    for (String[] row : sampleRows) {
+                        addCsvRecord(transactions, headers, row, dateParser);
                     }
-                } catch (Exception e) {
-                    log.warn("Failed to parse CSV record: {} - Error: {}", line, e.getMessage());
+                    sampleRows.clear();
+                    continue;
+                }
+                
+                addCsvRecord(transactions, headers, values, dateParser);
+            }
+
+            if (dateParser == null && !sampleRows.isEmpty()) {
+                dateParser = detectDateParser(headers, sampleRows);
+                for (String[] row : sampleRows) {
+                    addCsvRecord(transactions, headers, row, dateParser);
                 }
             }
         }
@@ -110,12 +151,50 @@ public class FileProcessingService {
         return transactions;
     }
 
+    private void addCsvRecord(List<ExternalTransactionDTO> transactions, String[] headers, String[] values,
+                              CsvDateParser dateParser) {
+        try {
+            ExternalTransactionDTO transaction = parseCsvRecord(headers, values, dateParser);
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse CSV record: {} - Error: {}", String.join(",", values), e.getMessage());
+        }
+    }
+
+    /**
+     * Samples the date column of the first rows and locks in one layout for the file.
+     */
+    CsvDateParser detectDateParser(String[] headers, List<String[]> sampleRows) {
+        int dateColumn = -1;
+        for (int i = 0; i < headers.length; i++) {
+            if (DATE_HEADERS.contains(headers[i].toLowerCase().trim())) {
+                dateColumn = i;
+                break;
+            }
+        }
+        if (dateColumn < 0) {
+            return CsvDateParser.AUTO;
+        }
+
+        List<String> samples = new ArrayList<>();
+        for (String[] row : sampleRows) {
+            if (dateColumn < row.length && !row[dateColumn].trim().isEmpty()) {
+                samples.add(row[dateColumn].trim());
+            }
+        }
+
+        CsvDateParser dateParser = CsvDateParser.detect(samples);
+        log.debug("Detected date layout {} from {} sampled rows",
+                dateParser.getLayout() != null ? dateParser.getLayout().getPattern() : "AUTO", samples.size());
+        return dateParser;
+    }
+
     private List<ExternalTransactionDTO> processJsonFile(MultipartFile file) throws Exception {
         try {
-            List<ExternalTransactionDTO> transactions = objectMapper.readValue(
-                file.getInputStream(), 
-                new TypeReference<List<ExternalTransactionDTO>>() {}
-            );
+            List<ExternalTransactionDTO> transactions = new ArrayList<>();
+            readJsonRecords(file.getInputStream(), transactions::add);
             
             log.info("Parsed {} transactions from JSON file", transactions.size());
             return transactions;
@@ -126,7 +205,134 @@ public class FileProcessingService {
         }
     }
 
-    private String[] parseCsvLine(String line) {
+    /**
+     * Streams a JSON array or NDJSON upload straight into the database. Records are mapped
+     * as the parser reaches them and flushed every {@code wallet.ingest.batch-size} rows,
+     * each flush in its own transaction, so memory stays flat whatever the file size.
+     */
+    public int ingestJsonStream(MultipartFile file, String providerName, LocalDate reportDate) {
+        String fileName = file.getOriginalFilename();
+        if (fileName == null) {
+            throw new IllegalArgumentException("File name cannot be null");
+        }
+        if (!isJsonFile(fileName)) {
+            throw new IllegalArgumentException("Streaming ingest only supports JSON and NDJSON files.");
+        }
+
+        try (InputStream in = file.getInputStream()) {
+            return ingestJsonStream(in, providerName, fileName, reportDate);
+        } catch (IOException e) {
+            log.error("Failed to stream JSON file: {} for provider: {}", fileName, providerName, e);
+            throw new RuntimeException("Invalid JSON format: " + e.getMessage(), e);
+        }
+    }
+
+    public int ingestJsonStream(InputStream in, String providerName, String fileName, LocalDate reportDate) throws IOException {
+        log.info("Streaming JSON ingest: {} for provider: {} and date: {}", fileName, providerName, reportDate);
+
+        Timer.Sample sample = walletMetrics.startTimer();
+        List<ExternalTransaction> batch = new ArrayList<>(Math.max(1, batchSize));
+        int[] counts = {0, 0}; // saved, duplicates
+
+        try {
+            readJsonRecords(in, dto -> {
+                ExternalTransaction transaction = mapToEntity(dto, providerName, fileName, reportDate);
+                if (!ingestDeduplicationService.claimRow(providerName, transaction.getExternalTransactionId())) {
+                    counts[1]++;
+                    return;
+                }
+                batch.add(transaction);
+                if (batch.size() >= batchSize) {
+                    saveBatch(batch, providerName, counts);
+                }
+            });
+
+            saveBatch(batch, providerName, counts);
+        } catch (IOException | RuntimeException e) {
+            walletMetrics.recordIngestFailure("stream", sample);
+            throw e;
+        }
+        walletMetrics.recordIngest("stream", sample, counts[0], counts[1], 0);
+
+        log.info("Streamed {} external transactions from file: {} ({} duplicates skipped)", counts[0], fileName, counts[1]);
+        return counts[0];
+    }
+
+    /**
+     * Saves and clears one batch, adding to {@code counts} (saved, duplicates) and handing its
+     * rows back to the dedup index if the write fails.
+     */
+    void saveBatch(List<ExternalTransaction> batch, String providerName, int[] counts) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            List<ExternalTransaction> saved = saveNew(batch, providerName);
+            streamingReconciliationService.submitExternal(saved);
+            counts[0] += saved.size();
+            counts[1] += batch.size() - saved.size();
+            batch.clear();
+        } catch (RuntimeException e) {
+            ingestDeduplicationService.releaseRows(providerName,
+                    batch.stream().map(ExternalTransaction::getExternalTransactionId).toList());
+            batch.clear();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes rows in one transaction. If the unique key rejects some because the provider sent
+     * them before and the dedup cache no longer remembered them, those rows are dropped and the
+     * rest written again; the rows returned are the ones stored by this call.
+     */
+    private List<ExternalTransaction> saveNew(List<ExternalTransaction> rows, String providerName) {
+        try {
+            return externalTransactionRepository.saveAll(rows);
+        } catch (DataIntegrityViolationException e) {
+            Set<String> stored = ingestDeduplicationService.findStoredRows(providerName,
+                    rows.stream().map(ExternalTransaction::getExternalTransactionId).toList());
+            if (stored.isEmpty()) {
+                throw e;
+            }
+            log.info("Skipping {} rows already stored for provider: {}", stored.size(), providerName);
+            List<ExternalTransaction> remaining = new ArrayList<>(rows.size());
+            for (ExternalTransaction row : rows) {
+                if (!stored.contains(row.getExternalTransactionId())) {
+                    row.setId(null); // the identity may have been assigned before the rollback
+                    remaining.add(row);
+                }
+            }
+            return remaining.isEmpty() ? List.of() : saveNew(remaining, providerName);
+        }
+    }
+
+    /**
+     * Walks a top-level JSON array, or a sequence of root objects (NDJSON), token by token
+     * and binds one element at a time.
+     */
+    private void readJsonRecords(InputStream in, Consumer<ExternalTransactionDTO> sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected a JSON object at " + parser.getCurrentLocation());
+                }
+                sink.accept(objectMapper.readValue(parser, ExternalTransactionDTO.class));
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    private boolean isJsonFile(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".json") || lower.endsWith(".ndjson");
+    }
+
+    String[] parseCsvLine(String line) {
         // Simple CSV parser - handles basic cases
         // In production, you might want to use a more robust CSV library
         List<String> values = new ArrayList<>();
@@ -148,7 +354,20 @@ public class FileProcessingService {
         return values.toArray(new String[0]);
     }
 
-    private ExternalTransactionDTO parseCsvRecord(String[] headers, String[] values) {
+    ExternalTransactionDTO parseCsvRecord(String[] headers, String[] values) {
+        return parseCsvRecord(headers, values, CsvDateParser.AUTO);
+    }
+
+    ExternalTransactionDTO parseCsvRecord(String[] headers, String[] values, CsvDateParser dateParser) {
+        return parseCsvRecord(headers, values, dateParser, null);
+    }
+
+    /**
+     * When {@code fieldErrors} is given, field problems are collected there instead of logged,
+     * so the caller can reject the whole row.
+     */
+    ExternalTransactionDTO parseCsvRecord(String[] headers, String[] values, CsvDateParser dateParser,
+                                          List<String> fieldErrors) {
         ExternalTransactionDTO.ExternalTransactionDTOBuilder builder = ExternalTransactionDTO.builder();
         
         for (int i = 0; i < headers.length && i < values.length; i++) {
@@ -161,8 +380,14 @@ public class FileProcessingService {
                 switch (header) {
                     case "transaction_id", "transactionid", "id" -> builder.transactionId(value);
                     case "transaction_date", "date", "transactiondate" -> {
-                        LocalDate date = parseDate(value);
-                        if (date != null) builder.transactionDate(date);
+                        LocalDate date = dateParser.parse(value);
+                        if (date != null) {
+                            builder.transactionDate(date);
+                        } else if (fieldErrors != null) {
+                            fieldErrors.add("Unparseable date '" + value + "'");
+                        } else {
+                            log.warn("Could not parse date: {}", value);
+                        }
                     }
                     case "amount" -> {
                         BigDecimal amount = new BigDecimal(value);
@@ -175,35 +400,18 @@ public class FileProcessingService {
                     case "description" -> builder.description(value);
                 }
             } catch (Exception e) {
-                log.warn("Failed to parse field '{}' with value '{}': {}", header, value, e.getMessage());
+                if (fieldErrors != null) {
+                    fieldErrors.add("Invalid " + header + " '" + value + "'");
+                } else {
+                    log.warn("Failed to parse field '{}' with value '{}': {}", header, value, e.getMessage());
+                }
             }
         }
         
         return builder.build();
     }
 
-    private LocalDate parseDate(String dateStr) {
-        DateTimeFormatter[] formatters = {
-            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
-            DateTimeFormatter.ofPattern("yyyy/MM/dd")
-        };
-        
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException e) {
-                //my format
-            }
-        }
-        
-        log.warn("Could not parse date: {}", dateStr);
-        return null;
-    }
-
-    private ExternalTransaction mapToEntity(ExternalTransactionDTO dto, String providerName, String fileName, LocalDate reportDate) {
+    ExternalTransaction mapToEntity(ExternalTransactionDTO dto, String providerName, String fileName, LocalDate reportDate) {
         return ExternalTransaction.builder()
                 .externalTransactionId(dto.getTransactionId())
                 .transactionDate(dto.getTransactionDate() != null ? dto.getTransactionDate() : reportDate)
@@ -0,0 +1,156 @@
+package com.presta.Wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.presta.Wallet.entity.IngestedFile;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps provider re-uploads idempotent. Whole files are recognised per provider by a SHA-256
+ * of their bytes; individual rows by {@code (providerName, externalTransactionId)}. Rows are
+ * claimed in a bounded cache of recently seen ids; the unique key on external_transactions
+ * catches anything the cache has evicted or never saw, and the ingest paths treat that
+ * violation as a duplicate via {@link #findStoredRows}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestDeduplicationService {
+
+    private final IngestedFileRepository ingestedFileRepository;
+    private final ExternalTransactionRepository externalTransactionRepository;
+
+    private static final int CLAIMED_ROWS_CACHE_SIZE = 500_000;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final Cache<ProviderRow, Boolean> claimedRows = Caffeine.newBuilder()
+            .maximumSize(CLAIMED_ROWS_CACHE_SIZE)
+            .build();
+
+    @Value("${wallet.ingest.dedup.enabled:true}")
+    private boolean enabled = true;
+
+    public String hashContent(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public String hashContent(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<IngestedFile> findIngestedFile(String providerName, String contentHash) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return ingestedFileRepository.findByProviderNameAndContentHash(providerName, contentHash);
+    }
+
+    public void recordIngestedFile(String contentHash, String fileName, String providerName,
+                                   LocalDate reportDate, int rowCount) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ingestedFileRepository.save(IngestedFile.builder()
+                    .contentHash(contentHash)
+                    .fileName(fileName)
+                    .providerName(providerName)
+                    .reportDate(reportDate)
+                    .rowCount(rowCount)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same file got there first
+            log.info("File {} already recorded for provider {} with hash {}", fileName, providerName, contentHash);
+        }
+    }
+
+    /**
+     * Returns true if the row has not been seen recently and reserves it, false if the provider
+     * already sent it. A row the cache no longer remembers is accepted here and rejected by the
+     * unique key on insert. Rows without an external id cannot be deduplicated and are always accepted.
+     */
+    public boolean claimRow(String providerName, String externalTransactionId) {
+        if (!enabled || externalTransactionId == null) {
+            return true;
+        }
+        return claimedRows.asMap().putIfAbsent(new ProviderRow(providerName, externalTransactionId), Boolean.TRUE) == null;
+    }
+
+    /**
+     * Gives back rows claimed for a write that did not commit.
+     */
+    public void releaseRows(String providerName, Collection<String> externalTransactionIds) {
+        if (!enabled) {
+            return;
+        }
+        externalTransactionIds.forEach(id -> {
+            if (id != null) claimedRows.invalidate(new ProviderRow(providerName, id));
+        });
+    }
+
+    /**
+     * Returns the ids among {@code externalTransactionIds} that are already stored for the
+     * provider. Called after a write hits the unique key, to tell duplicates from bad rows.
+     */
+    public Set<String> findStoredRows(String providerName, Collection<String> externalTransactionIds) {
+        List<String> ids = externalTransactionIds.stream().filter(Objects::nonNull).distinct().toList();
+        Set<String> stored = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = new ArrayList<>(ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE)));
+            stored.addAll(externalTransactionRepository.findStoredExternalTransactionIds(providerName, chunk));
+        }
+        stored.forEach(id -> claimedRows.put(new ProviderRow(providerName, id), Boolean.TRUE));
+        return stored;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record ProviderRow(String providerName, String externalTransactionId) {
+    }
+}
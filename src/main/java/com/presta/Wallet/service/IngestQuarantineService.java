@@ -0,0 +1,381 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.dto.ExternalTransactionDTO;
+import com.presta.Wallet.dto.IngestResult;
+import com.presta.Wallet.dto.QuarantineRowResponse;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.IngestQuarantineRow;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestQuarantineRowRepository;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * CSV ingest that never drops a row silently. Valid rows are committed in chunks of
+ * {@code wallet.ingest.batch-size}; rows that fail to parse, or whose chunk fails to
+ * persist, are written to {@code ingest_quarantine_rows} with their line number, raw text
+ * and reason so only those rows need re-ingesting later.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestQuarantineService {
+
+    private final FileProcessingService fileProcessingService;
+    private final ExternalTransactionRepository externalTransactionRepository;
+    private final IngestQuarantineRowRepository quarantineRepository;
+    private final IngestDeduplicationService ingestDeduplicationService;
+    private final WalletMetrics walletMetrics;
+    private final StreamingReconciliationService streamingReconciliationService;
+
+    @Value("${wallet.ingest.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public IngestResult ingestCsv(MultipartFile file, String providerName, LocalDate reportDate) {
+        String fileName = file.getOriginalFilename();
+        if (fileName == null) {
+            throw new IllegalArgumentException("File name cannot be null");
+        }
+        if (!fileName.toLowerCase().endsWith(".csv")) {
+            throw new IllegalArgumentException("Quarantine ingest only supports CSV files.");
+        }
+
+        log.info("Quarantine ingest: {} for provider: {} and date: {}", fileName, providerName, reportDate);
+
+        Timer.Sample sample = walletMetrics.startTimer();
+        IngestRun run = new IngestRun(providerName, fileName, reportDate);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            List<CsvRow> sampleRows = new ArrayList<>();
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                if (run.headers == null) {
+                    run.setHeader(line);
+                    continue;
+                }
+
+                CsvRow row = new CsvRow(lineNumber, line, fileProcessingService.parseCsvLine(line), null);
+                if (run.dateParser == null) {
+                    sampleRows.add(row);
+                    if (sampleRows.size() < CsvDateParser.SAMPLE_ROWS) continue;
+                    run.acceptAll(sampleRows);
+                    sampleRows.clear();
+                    continue;
+                }
+                run.accept(row);
+            }
+
+            if (!sampleRows.isEmpty()) {
+                run.acceptAll(sampleRows);
+            }
+            run.finish();
+
+        } catch (IOException e) {
+            walletMetrics.recordIngestFailure("quarantine", sample);
+            log.error("Failed to read file: {} for provider: {}", fileName, providerName, e);
+            throw new RuntimeException("File processing failed: " + e.getMessage(), e);
+        }
+
+        IngestResult result = run.result();
+        walletMetrics.recordIngest("quarantine", sample, result.getAccepted(), result.getDuplicatesSkipped(),
+                result.getQuarantined());
+        log.info("Quarantine ingest completed for {}: accepted={}, quarantined={}, duplicates={}, chunks={}",
+                fileName, result.getAccepted(), result.getQuarantined(), result.getDuplicatesSkipped(),
+                result.getChunksCommitted());
+        return result;
+    }
+
+    /**
+     * Re-parses the rows still quarantined for a file. Rows that now pass are ingested and
+     * marked REPROCESSED; the rest keep their place with an updated reason. The same file name
+     * can arrive from several providers or for several report dates, so each (provider, report
+     * date, header) group is re-run on its own; a null provider or date selects every group.
+     */
+    public IngestResult reprocessQuarantined(String fileName, String providerName, LocalDate reportDate) {
+        List<IngestQuarantineRow> rows = quarantineRepository.findForReprocessing(
+                fileName, providerName, reportDate, IngestQuarantineRow.QuarantineStatus.QUARANTINED);
+
+        if (rows.isEmpty()) {
+            log.info("No quarantined rows to reprocess for file: {}", fileName);
+            return IngestResult.builder().fileName(fileName).providerName(providerName).build();
+        }
+
+        Map<QuarantineGroup, List<IngestQuarantineRow>> groups = new LinkedHashMap<>();
+        for (IngestQuarantineRow row : rows) {
+            groups.computeIfAbsent(new QuarantineGroup(row.getProviderName(), row.getReportDate(), row.getHeaderLine()),
+                    group -> new ArrayList<>()).add(row);
+        }
+        log.info("Reprocessing {} quarantined rows in {} groups for file: {}", rows.size(), groups.size(), fileName);
+
+        Timer.Sample sample = walletMetrics.startTimer();
+        List<IngestResult> results = new ArrayList<>(groups.size());
+        for (Map.Entry<QuarantineGroup, List<IngestQuarantineRow>> group : groups.entrySet()) {
+            IngestRun run = new IngestRun(group.getKey().providerName(), fileName, group.getKey().reportDate());
+            run.setHeader(group.getKey().headerLine());
+
+            List<CsvRow> csvRows = new ArrayList<>(group.getValue().size());
+            for (IngestQuarantineRow row : group.getValue()) {
+                csvRows.add(new CsvRow(row.getLineNumber(), row.getRawText(),
+                        fileProcessingService.parseCsvLine(row.getRawText()), row));
+            }
+            run.acceptAll(csvRows);
+            run.finish();
+            results.add(run.result());
+        }
+
+        Set<String> providers = results.stream().map(IngestResult::getProviderName).collect(Collectors.toSet());
+        IngestResult result = IngestResult.builder()
+                .fileName(fileName)
+                .providerName(providers.size() == 1 ? providers.iterator().next() : null)
+                .accepted(results.stream().mapToInt(IngestResult::getAccepted).sum())
+                .quarantined(results.stream().mapToInt(IngestResult::getQuarantined).sum())
+                .duplicatesSkipped(results.stream().mapToInt(IngestResult::getDuplicatesSkipped).sum())
+                .chunksCommitted(results.stream().mapToInt(IngestResult::getChunksCommitted).sum())
+                .build();
+        walletMetrics.recordIngest("reprocess", sample, result.getAccepted(), result.getDuplicatesSkipped(),
+                result.getQuarantined());
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<QuarantineRowResponse> getQuarantinedRows(String fileName) {
+        return quarantineRepository.findByFileNameOrderByLineNumber(fileName).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    private QuarantineRowResponse mapToResponse(IngestQuarantineRow row) {
+        return QuarantineRowResponse.builder()
+                .id(row.getId())
+                .fileName(row.getFileName())
+                .providerName(row.getProviderName())
+                .lineNumber(row.getLineNumber())
+                .rawText(row.getRawText())
+                .reason(row.getReason())
+                .status(row.getStatus().name())
+                .attempts(row.getAttempts())
+                .createdAt(row.getCreatedAt())
+                .reprocessedAt(row.getReprocessedAt())
+                .build();
+    }
+
+    private record CsvRow(int lineNumber, String raw, String[] values, IngestQuarantineRow source) {
+    }
+
+    private record QuarantineGroup(String providerName, LocalDate reportDate, String headerLine) {
+    }
+
+    /**
+     * State for one pass over a file: the pending chunk of accepted rows and the pending
+     * batch of rejected rows, each flushed when it reaches the batch size.
+     */
+    private class IngestRun {
+
+        private final String providerName;
+        private final String fileName;
+        private final LocalDate reportDate;
+
+        private String headerLine;
+        private String[] headers;
+        private CsvDateParser dateParser;
+
+        private final List<ExternalTransaction> acceptedChunk = new ArrayList<>();
+        private final List<CsvRow> acceptedRows = new ArrayList<>();
+        private final List<IngestQuarantineRow> rejected = new ArrayList<>();
+
+        private int accepted;
+        private int quarantined;
+        private int duplicates;
+        private int chunks;
+
+        IngestRun(String providerName, String fileName, LocalDate reportDate) {
+            this.providerName = providerName;
+            this.fileName = fileName;
+            this.reportDate = reportDate;
+        }
+
+        void setHeader(String line) {
+            this.headerLine = line;
+            this.headers = fileProcessingService.parseCsvLine(line);
+        }
+
+        void acceptAll(List<CsvRow> rows) {
+            if (dateParser == null) {
+                List<String[]> sample = new ArrayList<>();
+                for (CsvRow row : rows) {
+                    if (row.values().length >= headers.length) {
+                        sample.add(row.values());
+                    }
+                }
+                dateParser = fileProcessingService.detectDateParser(headers, sample);
+            }
+            for (CsvRow row : rows) {
+                accept(row);
+            }
+        }
+
+        void accept(CsvRow row) {
+            if (row.values().length < headers.length) {
+                reject(row, "Expected " + headers.length + " columns but found " + row.values().length);
+                return;
+            }
+
+            List<String> errors = new ArrayList<>();
+            ExternalTransactionDTO dto = fileProcessingService.parseCsvRecord(headers, row.values(), dateParser, errors);
+            if (dto.getTransactionId() == null) {
+                errors.add("Missing transaction id");
+            }
+            if (dto.getAmount() == null && errors.stream().noneMatch(e -> e.startsWith("Invalid amount"))) {
+                errors.add("Missing amount");
+            }
+
+            if (!errors.isEmpty()) {
+                reject(row, String.join("; ", errors));
+                return;
+            }
+
+            ExternalTransaction transaction = fileProcessingService.mapToEntity(dto, providerName, fileName, reportDate);
+            if (!ingestDeduplicationService.claimRow(providerName, transaction.getExternalTransactionId())) {
+                duplicates++;
+                markReprocessed(row);
+                return;
+            }
+
+            acceptedChunk.add(transaction);
+            acceptedRows.add(row);
+            if (acceptedChunk.size() >= batchSize) {
+                flushAccepted();
+            }
+        }
+
+        void finish() {
+            flushAccepted();
+            flushRejected();
+        }
+
+        IngestResult result() {
+            return IngestResult.builder()
+                    .fileName(fileName)
+                    .providerName(providerName)
+                    .accepted(accepted)
+                    .quarantined(quarantined)
+                    .duplicatesSkipped(duplicates)
+                    .chunksCommitted(chunks)
+                    .build();
+        }
+
+        private void flushAccepted() {
+            if (acceptedChunk.isEmpty()) {
+                return;
+            }
+
+            try {
+                streamingReconciliationService.submitExternal(externalTransactionRepository.saveAll(acceptedChunk));
+                accepted += acceptedChunk.size();
+                chunks++;
+                acceptedRows.forEach(this::markReprocessed);
+            } catch (Exception e) {
+                // One bad row should not cost the whole chunk: retry row by row
+                log.warn("Chunk of {} rows failed to persist for {}, retrying individually: {}",
+                        acceptedChunk.size(), fileName, e.getMessage());
+                // Rows the unique key rejected because the provider sent them before are duplicates
+                Set<String> stored = e instanceof DataIntegrityViolationException
+                        ? ingestDeduplicationService.findStoredRows(providerName,
+                                acceptedChunk.stream().map(ExternalTransaction::getExternalTransactionId).toList())
+                        : Set.of();
+                for (int i = 0; i < acceptedChunk.size(); i++) {
+                    CsvRow row = acceptedRows.get(i);
+                    ExternalTransaction transaction = acceptedChunk.get(i);
+                    if (stored.contains(transaction.getExternalTransactionId())) {
+                        duplicates++;
+                        markReprocessed(row);
+                        continue;
+                    }
+                    transaction.setId(null); // the identity may have been assigned before the rollback
+                    try {
+                        streamingReconciliationService.submitExternal(List.of(externalTransactionRepository.save(transaction)));
+                        accepted++;
+                        markReprocessed(row);
+                    } catch (Exception rowError) {
+                        ingestDeduplicationService.releaseRows(providerName, List.of(transaction.getExternalTransactionId()));
+                        reject(row, "Persistence failed: " + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                    }
+                }
+            }
+
+            acceptedChunk.clear();
+            acceptedRows.clear();
+        }
+
+        private void markReprocessed(CsvRow row) {
+            if (row.source() != null) {
+                row.source().markReprocessed();
+                rejected.add(row.source());
+                if (rejected.size() >= batchSize) {
+                    flushRejected();
+                }
+            }
+        }
+
+        private void reject(CsvRow row, String reason) {
+            IngestQuarantineRow quarantineRow = row.source();
+            if (quarantineRow == null) {
+                quarantineRow = IngestQuarantineRow.builder()
+                        .providerName(providerName)
+                        .fileName(fileName)
+                        .reportDate(reportDate)
+                        .lineNumber(row.lineNumber())
+                        .headerLine(headerLine)
+                        .rawText(row.raw())
+                        .build();
+            } else {
+                quarantineRow.setAttempts(quarantineRow.getAttempts() + 1);
+            }
+            quarantineRow.setReason(truncate(reason, 1000));
+
+            rejected.add(quarantineRow);
+            quarantined++;
+            if (rejected.size() >= batchSize) {
+                flushRejected();
+            }
+        }
+
+        private void flushRejected() {
+            if (rejected.isEmpty()) {
+                return;
+            }
+            quarantineRepository.saveAll(rejected);
+            rejected.clear();
+        }
+
+        private String truncate(String value, int max) {
+            return value != null && value.length() > max ? value.substring(0, max) : value;
+        }
+    }
+}
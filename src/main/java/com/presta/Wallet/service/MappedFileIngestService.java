@@ -0,0 +1,333 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.dto.ExternalTransactionDTO;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests provider CSV files that already sit on local disk. The file is memory mapped,
+ * cut into segments on line boundaries and each segment is parsed on its own worker,
+ * so large drops skip the multipart copy and the single-threaded reader.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MappedFileIngestService {
+
+    private static final int BOUNDARY_PROBE_BYTES = 8 * 1024;
+    private static final int SAMPLE_PROBE_BYTES = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private final FileProcessingService fileProcessingService;
+    private final IngestDeduplicationService ingestDeduplicationService;
+    private final WalletMetrics walletMetrics;
+
+    @Value("${wallet.ingest.mapped.parallelism:4}")
+    private int parallelism;
+
+    @Value("${wallet.ingest.mapped.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${wallet.ingest.batch-size:1000}")
+    private int batchSize;
+
+    // Shared by every file being ingested; created on first use, once parallelism has been injected
+    private ExecutorService workers;
+
+    public int ingest(Path file, String providerName, LocalDate reportDate) {
+        String fileName = file.getFileName().toString();
+        log.info("Ingesting mapped file: {} for provider: {} and date: {}", fileName, providerName, reportDate);
+
+        String contentHash;
+        try {
+            contentHash = ingestDeduplicationService.hashContent(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Mapped file ingest failed: " + e.getMessage(), e);
+        }
+        if (ingestDeduplicationService.findIngestedFile(providerName, contentHash).isPresent()) {
+            log.info("Skipping {}: identical content was already ingested", fileName);
+            return 0;
+        }
+
+        Timer.Sample sample = walletMetrics.startTimer();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                log.warn("Skipping empty file: {}", fileName);
+                return 0;
+            }
+
+            long headerEnd = headerEnd(channel, size, fileName);
+            String[] headers = fileProcessingService.parseCsvLine(readHeader(channel, headerEnd));
+            log.debug("CSV Headers: {}", String.join(", ", headers));
+            CsvDateParser dateParser = fileProcessingService.detectDateParser(headers,
+                    readSampleRows(channel, headerEnd, size, headers.length));
+
+            List<long[]> segments = splitSegments(channel, headerEnd, size);
+            log.info("Split {} ({} bytes) into {} segments", fileName, size, segments.size());
+
+            AtomicBoolean aborted = new AtomicBoolean();
+            AtomicInteger committed = new AtomicInteger();
+            List<Future<int[]>> results = new ArrayList<>();
+            for (long[] segment : segments) {
+                results.add(workers().submit(() -> {
+                    try {
+                        return ingestSegment(channel, segment[0], segment[1], headers, dateParser,
+                                providerName, fileName, reportDate, aborted, committed);
+                    } catch (IOException | RuntimeException e) {
+                        aborted.set(true); // the other segments stop at their next line
+                        throw e;
+                    }
+                }));
+            }
+
+            int total = 0;
+            int duplicates = 0;
+            Throwable failure = null;
+            // Every segment is waited for, even after one fails, so the count of rows already committed is final
+            for (Future<int[]> result : results) {
+                try {
+                    int[] counts = result.get();
+                    total += counts[0];
+                    duplicates += counts[1];
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    aborted.set(true);
+                    walletMetrics.recordIngestFailure("mapped", sample);
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Mapped file ingest interrupted: " + fileName, e);
+                }
+            }
+
+            if (failure != null) {
+                walletMetrics.recordIngestFailure("mapped", sample);
+                log.error("Failed to ingest mapped file: {} for provider: {}; {} rows were committed before the failure "
+                        + "and will be reported as duplicates when the file is retried", fileName, providerName,
+                        committed.get(), failure);
+                throw new RuntimeException("Mapped file ingest failed after committing " + committed.get() + " rows: "
+                        + failure.getMessage(), failure);
+            }
+
+            ingestDeduplicationService.recordIngestedFile(contentHash, fileName, providerName, reportDate, total);
+            log.info("Successfully ingested {} external transactions from mapped file: {} ({} duplicates skipped)",
+                    total, fileName, duplicates);
+            walletMetrics.recordIngest("mapped", sample, total, duplicates, 0);
+            return total;
+
+        } catch (IllegalArgumentException e) {
+            walletMetrics.recordIngestFailure("mapped", sample);
+            log.warn("Rejected mapped file: {}: {}", fileName, e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            walletMetrics.recordIngestFailure("mapped", sample);
+            log.error("Failed to read mapped file: {}", fileName, e);
+            throw new RuntimeException("Mapped file ingest failed: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+                Thread thread = new Thread(runnable, "mapped-ingest-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Parses and stores one segment. Stops at the next line once another segment of the file has
+     * failed, handing the rows it had claimed but not stored back to the dedup cache.
+     */
+    private int[] ingestSegment(FileChannel channel, long start, long end, String[] headers, CsvDateParser dateParser,
+                                String providerName, String fileName, LocalDate reportDate,
+                                AtomicBoolean aborted, AtomicInteger committed) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        List<ExternalTransaction> batch = new ArrayList<>(batchSize);
+        byte[] lineBytes = new byte[256];
+        int lineLength = 0;
+        int[] counts = {0, 0}; // saved, duplicates
+
+        while (buffer.hasRemaining()) {
+            if (aborted.get()) {
+                ingestDeduplicationService.releaseRows(providerName,
+                        batch.stream().map(ExternalTransaction::getExternalTransactionId).toList());
+                return counts;
+            }
+            byte b = buffer.get();
+            if (b != '\n') {
+                if (lineLength == lineBytes.length) {
+                    byte[] grown = new byte[lineBytes.length * 2];
+                    System.arraycopy(lineBytes, 0, grown, 0, lineLength);
+                    lineBytes = grown;
+                }
+                lineBytes[lineLength++] = b;
+                if (buffer.hasRemaining()) continue;
+            }
+
+            String line = new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8).trim();
+            lineLength = 0;
+            if (line.isEmpty()) continue;
+
+            ExternalTransaction transaction = parseLine(headers, dateParser, line, providerName, fileName, reportDate);
+            if (transaction != null) {
+                if (ingestDeduplicationService.claimRow(providerName, transaction.getExternalTransactionId())) {
+                    batch.add(transaction);
+                } else {
+                    counts[1]++;
+                }
+            }
+
+            if (batch.size() >= batchSize) {
+                saveBatch(batch, providerName, counts, committed);
+            }
+        }
+
+        saveBatch(batch, providerName, counts, committed);
+        return counts;
+    }
+
+    private void saveBatch(List<ExternalTransaction> batch, String providerName, int[] counts, AtomicInteger committed) {
+        int savedBefore = counts[0];
+        fileProcessingService.saveBatch(batch, providerName, counts);
+        committed.addAndGet(counts[0] - savedBefore);
+    }
+
+    private ExternalTransaction parseLine(String[] headers, CsvDateParser dateParser, String line, String providerName,
+                                          String fileName, LocalDate reportDate) {
+        String[] values = fileProcessingService.parseCsvLine(line);
+        if (values.length < headers.length) {
+            log.warn("Skipping invalid CSV line: {}", line);
+            return null;
+        }
+
+        try {
+            ExternalTransactionDTO dto = fileProcessingService.parseCsvRecord(headers, values, dateParser);
+            return fileProcessingService.mapToEntity(dto, providerName, fileName, reportDate);
+        } catch (Exception e) {
+            log.warn("Failed to parse CSV record: {} - Error: {}", line, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cuts [from, size) into segments of roughly the configured size, moving every cut
+     * forward to the start of the next line so no record is split across workers.
+     */
+    private List<long[]> splitSegments(FileChannel channel, long from, long size) throws IOException {
+        long targetSize = Math.max(1L, Math.min((long) segmentSizeMb * 1024 * 1024,
+                (size - from + parallelism - 1) / Math.max(1, parallelism)));
+
+        List<long[]> segments = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = start + targetSize >= size ? size : nextLineStart(channel, start + targetSize, size);
+            segments.add(new long[]{start, end});
+            start = end;
+        }
+        return segments;
+    }
+
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        long offset = position;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the first complete rows after the header so the date layout can be locked in
+     * once, before the segments fan out.
+     */
+    private List<String[]> readSampleRows(FileChannel channel, long from, long size, int columns) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate((int) Math.min(SAMPLE_PROBE_BYTES, size - from));
+        channel.read(probe, from);
+        String text = new String(probe.array(), 0, probe.position(), StandardCharsets.UTF_8);
+        boolean truncated = from + probe.position() < size;
+
+        String[] lines = text.split("\n");
+        int complete = truncated ? lines.length - 1 : lines.length;
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < complete && rows.size() < CsvDateParser.SAMPLE_ROWS; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty()) continue;
+            String[] values = fileProcessingService.parseCsvLine(line);
+            if (values.length >= columns) {
+                rows.add(values);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Finds the end of the header line within the first {@code MAX_HEADER_BYTES}. A file that has
+     * no line break there is not a CSV this service can split, and is rejected before anything
+     * larger is read.
+     */
+    private long headerEnd(FileChannel channel, long size, String fileName) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate((int) Math.min(size, MAX_HEADER_BYTES));
+        channel.read(probe, 0);
+        for (int i = 0; i < probe.position(); i++) {
+            if (probe.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        if (size <= MAX_HEADER_BYTES) {
+            return size; // a header with no rows and no trailing newline
+        }
+        throw new IllegalArgumentException("No line break in the first " + MAX_HEADER_BYTES / 1024
+                + " KiB of " + fileName + "; the header line is too long or the file is not CSV");
+    }
+
+    private String readHeader(FileChannel channel, long headerEnd) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+        channel.read(header, 0);
+        return new String(header.array(), 0, header.position(), StandardCharsets.UTF_8).trim();
+    }
+}
@@ -9,6 +9,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.Timer;
 
 @Slf4j
 @Service
@@ -16,23 +19,39 @@ import com.presta.Wallet.config.TransactionMessage;
 public class NotificationService {
 
     private final RabbitTemplate rabbitTemplate;
+    private final WalletMetrics walletMetrics;
+    private final StreamingReconciliationService streamingReconciliationService;
+    private final WalletStreamService walletStreamService;
 
     @Value("${wallet.queue.transaction-queue}")
     private String transactionQueue;
 
+    @Value("${wallet.queue.enabled:true}")
+    private boolean queueEnabled = true;
+
     public void publishTransactionEvent(TransactionMessage message) {
+        streamingReconciliationService.submitInternal(message);
+        walletStreamService.publish(message);
+
+        if (!queueEnabled) {
+            log.debug("Queue disabled, not publishing transaction event: transactionId={}", message.getTransactionId());
+            return;
+        }
+
+        Timer.Sample sample = walletMetrics.startTimer();
         try {
             log.info("Publishing transaction event: transactionId={}, type={}, amount={}", 
                     message.getTransactionId(), message.getTransactionType(), message.getAmount());
 
             rabbitTemplate.convertAndSend(transactionQueue, message);
-            
+            walletMetrics.recordPublish(sample, true);
+
             log.debug("Transaction event published successfully: messageId={}", message.getMessageId());
             
         } catch (Exception e) {
             log.error("Failed to publish transaction event: transactionId={}, error={}", 
                      message.getTransactionId(), e.getMessage(), e);
-        
+            walletMetrics.recordPublish(sample, false);
         }
     }
 
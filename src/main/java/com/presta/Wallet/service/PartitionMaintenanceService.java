@@ -0,0 +1,202 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.PartitioningProperties;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the range-partitioned transaction tables ready on PostgreSQL: partitions for the current
+ * period and the next {@code createAhead} ones exist before rows arrive, and partitions that end
+ * more than {@code retainPartitions} periods ago are detached and moved to the archive schema.
+ * Runs at startup and daily; with partitioning disabled, or on any other database, it does nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PartitionMaintenanceService {
+
+    public static final List<String> PARTITIONED_TABLES = List.of("wallet_transactions", "external_transactions");
+
+    private static final String PARTITIONED_PARENT_SQL =
+            "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND relkind = 'p' " +
+            "AND relnamespace = current_schema()::regnamespace";
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace";
+    private static final Pattern RANGE_BOUND =
+            Pattern.compile("FROM \\((?:MINVALUE|'([^']+)')\\) TO \\((?:MAXVALUE|'([^']+)')\\)");
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PartitioningProperties properties;
+
+    private volatile Boolean postgres;
+
+    /**
+     * An attached range partition; a null bound is MINVALUE or MAXVALUE.
+     */
+    public record Partition(String name, LocalDate from, LocalDate to) {
+
+        boolean overlaps(LocalDate start, LocalDate end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    public record MaintenanceResult(List<String> created, List<String> archived) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        scheduledMaintenance();
+    }
+
+    @Scheduled(cron = "${wallet.partitioning.cron:0 15 0 * * *}")
+    public void scheduledMaintenance() {
+        if (!properties.isEnabled() || !isPostgres()) {
+            return;
+        }
+        try {
+            maintain(LocalDate.now());
+        } catch (DataAccessException e) {
+            log.error("Partition maintenance failed", e);
+        }
+    }
+
+    public MaintenanceResult maintain(LocalDate today) {
+        List<String> created = new ArrayList<>();
+        List<String> archived = new ArrayList<>();
+        for (String table : PARTITIONED_TABLES) {
+            if (!isPartitioned(table)) {
+                log.warn("{} is not partitioned yet; run db/changelog/005-partition-transaction-tables.sql", table);
+                continue;
+            }
+            PartitioningProperties.Table settings = properties.forTable(table);
+            List<Partition> partitions = listPartitions(table);
+            created.addAll(createAhead(table, settings, partitions, today));
+            archived.addAll(archiveExpired(table, settings, partitions, today));
+        }
+        if (!created.isEmpty() || !archived.isEmpty()) {
+            log.info("Partition maintenance created {} and archived {} to schema {}",
+                    created, archived, properties.getArchiveSchema());
+        }
+        return new MaintenanceResult(created, archived);
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(PARTITIONED_PARENT_SQL, Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    public List<Partition> listPartitions(String table) {
+        return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> parseBound(rs.getString(1), rs.getString(2)), table)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Reads a {@code pg_get_expr} range bound; the DEFAULT partition has none and yields null.
+     */
+    public static Partition parseBound(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            return null;
+        }
+        return new Partition(name, boundDate(matcher.group(1)), boundDate(matcher.group(2)));
+    }
+
+    private static LocalDate boundDate(String value) {
+        // Timestamp bounds print as '2026-10-01 00:00:00'; partitions always start at midnight
+        return value == null ? null : LocalDate.parse(value.substring(0, 10));
+    }
+
+    public static String partitionName(String table, PartitioningProperties.Granularity granularity, LocalDate from) {
+        return table + "_p" + from.format(granularity == PartitioningProperties.Granularity.DAY ? DAY_SUFFIX : MONTH_SUFFIX);
+    }
+
+    static LocalDate periodStart(LocalDate date, PartitioningProperties.Granularity granularity) {
+        return granularity == PartitioningProperties.Granularity.DAY ? date : date.withDayOfMonth(1);
+    }
+
+    static LocalDate advance(LocalDate start, PartitioningProperties.Granularity granularity, long periods) {
+        return granularity == PartitioningProperties.Granularity.DAY ? start.plusDays(periods) : start.plusMonths(periods);
+    }
+
+    private List<String> createAhead(String table, PartitioningProperties.Table settings,
+                                     List<Partition> partitions, LocalDate today) {
+        List<String> created = new ArrayList<>();
+        LocalDate current = periodStart(today, settings.getGranularity());
+        for (int i = 0; i <= settings.getCreateAhead(); i++) {
+            LocalDate from = advance(current, settings.getGranularity(), i);
+            LocalDate to = advance(from, settings.getGranularity(), 1);
+            // Already covered, e.g. by the legacy partition the migration attached
+            if (partitions.stream().anyMatch(p -> p.overlaps(from, to))) {
+                continue;
+            }
+            String name = partitionName(table, settings.getGranularity(), from);
+            jdbcTemplate.execute(String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    quote(name), quote(table), from, to));
+            created.add(name);
+        }
+        return created;
+    }
+
+    private List<String> archiveExpired(String table, PartitioningProperties.Table settings,
+                                        List<Partition> partitions, LocalDate today) {
+        LocalDate cutoff = advance(periodStart(today, settings.getGranularity()), settings.getGranularity(),
+                -settings.getRetainPartitions());
+        List<String> archived = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.to() == null || partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            // Detach and move together so a failure never leaves an orphaned table in the live schema
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + quote(properties.getArchiveSchema()));
+                jdbcTemplate.execute("ALTER TABLE " + quote(table) + " DETACH PARTITION " + quote(partition.name()));
+                jdbcTemplate.execute("ALTER TABLE " + quote(partition.name()) + " SET SCHEMA "
+                        + quote(properties.getArchiveSchema()));
+            });
+            archived.add(partition.name());
+        }
+        return archived;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+            if (!postgres) {
+                log.warn("wallet.partitioning is enabled but the database is {}; partitions are only maintained on PostgreSQL",
+                        product);
+            }
+        }
+        return postgres;
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,192 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.ProviderResilienceProperties;
+import com.presta.Wallet.dto.ServiceResponse;
+import com.presta.Wallet.exception.ProviderUnavailableException;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedThreadPoolBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Isolates the external providers from each other and from the request threads. Every service
+ * type gets its own bulkhead thread pool, call timeout and circuit breaker, so a slow or failing
+ * CRB provider can only exhaust CRB capacity. Calls that are rejected, time out or hit an open
+ * circuit come back immediately as a FAILED {@link ServiceResponse}.
+ */
+@Slf4j
+@Service
+public class ProviderGateway {
+
+    public static final List<String> SERVICE_TYPES = List.of("CRB", "KYC", "CREDIT_SCORING");
+
+    private final Map<String, Provider> providers;
+    private final ScheduledExecutorService timeoutScheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "provider-timeouts");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final WalletMetrics walletMetrics;
+
+    private record Provider(CircuitBreaker circuitBreaker, ThreadPoolBulkhead bulkhead, TimeLimiter timeLimiter) {
+    }
+
+    public ProviderGateway(ProviderResilienceProperties properties, MeterRegistry meterRegistry,
+                           WalletMetrics walletMetrics) {
+        this.walletMetrics = walletMetrics;
+
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        ThreadPoolBulkheadRegistry bulkheads = ThreadPoolBulkheadRegistry.ofDefaults();
+        TimeLimiterRegistry timeLimiters = TimeLimiterRegistry.ofDefaults();
+
+        this.providers = SERVICE_TYPES.stream().collect(Collectors.toUnmodifiableMap(Function.identity(), type -> {
+            ProviderResilienceProperties.Provider settings = properties.forServiceType(type);
+            return new Provider(
+                    circuitBreakers.circuitBreaker(type, circuitBreakerConfig(properties.getCircuitBreaker(), settings)),
+                    bulkheads.bulkhead(type, ThreadPoolBulkheadConfig.custom()
+                            .coreThreadPoolSize(settings.getMaxConcurrentCalls())
+                            .maxThreadPoolSize(settings.getMaxConcurrentCalls())
+                            .queueCapacity(settings.getQueueCapacity())
+                            .build()),
+                    timeLimiters.timeLimiter(type, TimeLimiterConfig.custom()
+                            .timeoutDuration(Duration.ofMillis(settings.getTimeoutMs()))
+                            .cancelRunningFuture(true)
+                            .build()));
+        }));
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedThreadPoolBulkheadMetrics.ofThreadPoolBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(timeLimiters).bindTo(meterRegistry);
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(ProviderResilienceProperties.CircuitBreaker breaker,
+                                                             ProviderResilienceProperties.Provider settings) {
+        return CircuitBreakerConfig.custom()
+                .slidingWindowSize(breaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(breaker.getMinimumNumberOfCalls())
+                .failureRateThreshold(breaker.getFailureRateThreshold())
+                .slowCallRateThreshold(breaker.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(settings.getSlowCallMs()))
+                .waitDurationInOpenState(Duration.ofMillis(breaker.getOpenDurationMs()))
+                .permittedNumberOfCallsInHalfOpenState(breaker.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // A provider that answers FAILED is as unhealthy as one that throws
+                .recordResult(result -> result instanceof ServiceResponse response && "FAILED".equals(response.getStatus()))
+                // A full bulkhead is our own back-pressure, not a provider fault
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+    }
+
+    /**
+     * Rejects a request up front while the provider's circuit is open, before the wallet is charged.
+     */
+    public void ensureAvailable(String serviceType) {
+        CircuitBreaker.State state = provider(serviceType).circuitBreaker().getState();
+        if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+            walletMetrics.recordProviderCall(serviceType, "circuit_open", null);
+            throw new ProviderUnavailableException(serviceType);
+        }
+    }
+
+    public ServiceResponse call(String serviceType, Supplier<ServiceResponse> call) {
+        Provider provider = provider(serviceType);
+        Timer.Sample sample = walletMetrics.startTimer();
+        try {
+            ServiceResponse response = provider.circuitBreaker().executeCompletionStage(() ->
+                    provider.timeLimiter().executeCompletionStage(timeoutScheduler, () ->
+                            provider.bulkhead().executeSupplier(call)))
+                    .toCompletableFuture()
+                    .join();
+            walletMetrics.recordProviderCall(serviceType,
+                    "FAILED".equals(response.getStatus()) ? "failed" : "success", sample);
+            return response;
+        } catch (RuntimeException e) {
+            Throwable cause = unwrap(e);
+            String outcome;
+            String message;
+            if (cause instanceof CallNotPermittedException) {
+                outcome = "circuit_open";
+                message = serviceType + " provider is temporarily unavailable";
+            } else if (cause instanceof BulkheadFullException) {
+                outcome = "rejected";
+                message = serviceType + " provider is at capacity";
+            } else if (cause instanceof TimeoutException) {
+                outcome = "timeout";
+                message = serviceType + " provider did not respond in time";
+            } else {
+                outcome = "error";
+                message = serviceType + " provider call failed: " + cause.getMessage();
+                log.error("{} provider call failed", serviceType, cause);
+            }
+            walletMetrics.recordProviderCall(serviceType, outcome, sample);
+            return ServiceResponse.builder()
+                    .serviceType(serviceType)
+                    .status("FAILED")
+                    .message(message)
+                    .build();
+        }
+    }
+
+    public CircuitBreaker.State circuitState(String serviceType) {
+        return provider(serviceType).circuitBreaker().getState();
+    }
+
+    private Provider provider(String serviceType) {
+        Provider provider = providers.get(serviceType.toUpperCase());
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown service type: " + serviceType);
+        }
+        return provider;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timeoutScheduler.shutdownNow();
+        providers.values().forEach(provider -> {
+            try {
+                provider.bulkhead().close();
+            } catch (Exception e) {
+                log.warn("Failed to close bulkhead", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.presta.Wallet.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.presta.Wallet.config.ProviderCacheProperties;
+import com.presta.Wallet.dto.ServiceResponse;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * TTL cache of successful provider results, keyed by service type and the customer the lookup
+ * is for. Concurrent lookups for the same key share one in-flight provider call. Failed results
+ * are never cached, and callers always get their own copy of the response.
+ */
+@Service
+public class ProviderResultCache {
+
+    public static final String OUTCOME_HIT = "hit";
+    public static final String OUTCOME_MISS = "miss";
+    public static final String OUTCOME_COALESCED = "coalesced";
+
+    private final ProviderCacheProperties properties;
+    private final WalletMetrics walletMetrics;
+    private final Map<String, AsyncCache<String, ServiceResponse>> caches = new HashMap<>();
+
+    @Autowired
+    public ProviderResultCache(ProviderCacheProperties properties, MeterRegistry meterRegistry,
+                               WalletMetrics walletMetrics) {
+        this(properties, meterRegistry, walletMetrics, Ticker.systemTicker());
+    }
+
+    public ProviderResultCache(ProviderCacheProperties properties, MeterRegistry meterRegistry,
+                               WalletMetrics walletMetrics, Ticker ticker) {
+        this.properties = properties;
+        this.walletMetrics = walletMetrics;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String serviceType : ProviderGateway.SERVICE_TYPES) {
+            ProviderCacheProperties.Provider settings = properties.forServiceType(serviceType);
+            if (settings.getTtlSeconds() <= 0) {
+                continue;
+            }
+            AsyncCache<String, ServiceResponse> cache = Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(settings.getTtlSeconds()))
+                    .maximumSize(settings.getMaxEntries())
+                    .ticker(ticker)
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "provider.results", "service", serviceType);
+            caches.put(serviceType, cache);
+        }
+    }
+
+    /**
+     * Returns a fresh, already completed result without calling the provider or waiting on one in flight.
+     */
+    public Optional<ServiceResponse> getIfFresh(String serviceType, String subject) {
+        AsyncCache<String, ServiceResponse> cache = cacheFor(serviceType, subject);
+        if (cache == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<ServiceResponse> cached = cache.getIfPresent(subject);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        walletMetrics.recordProviderCacheLookup(serviceType, OUTCOME_HIT);
+        return Optional.of(copy(cached.join()));
+    }
+
+    /**
+     * Returns the cached result for the subject, or calls the provider once for all concurrent callers.
+     */
+    public ServiceResponse lookup(String serviceType, String subject, Supplier<ServiceResponse> call) {
+        AsyncCache<String, ServiceResponse> cache = cacheFor(serviceType, subject);
+        if (cache == null) {
+            return call.get();
+        }
+
+        CompletableFuture<ServiceResponse> pending = new CompletableFuture<>();
+        CompletableFuture<ServiceResponse> existing = cache.asMap().putIfAbsent(subject, pending);
+        if (existing != null) {
+            walletMetrics.recordProviderCacheLookup(serviceType,
+                    existing.isDone() ? OUTCOME_HIT : OUTCOME_COALESCED);
+            try {
+                return copy(existing.join());
+            } catch (CompletionException e) {
+                // The shared call blew up; let this caller try on its own rather than fail with someone else's error
+                return call.get();
+            }
+        }
+
+        walletMetrics.recordProviderCacheLookup(serviceType, OUTCOME_MISS);
+        ServiceResponse response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            cache.asMap().remove(subject, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        if (!"SUCCESS".equals(response.getStatus())) {
+            cache.asMap().remove(subject, pending);
+        }
+        pending.complete(response);
+        return copy(response);
+    }
+
+    /**
+     * The amount billed for a result served from the cache.
+     */
+    public BigDecimal cachedCharge(String serviceType, BigDecimal serviceCost) {
+        int percent = properties.forServiceType(serviceType).getCachedChargePercent();
+        return serviceCost.multiply(BigDecimal.valueOf(percent))
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+
+    private AsyncCache<String, ServiceResponse> cacheFor(String serviceType, String subject) {
+        if (subject == null || subject.isBlank()) {
+            return null;
+        }
+        return caches.get(serviceType.toUpperCase());
+    }
+
+    private static ServiceResponse copy(ServiceResponse response) {
+        return ServiceResponse.builder()
+                .serviceType(response.getServiceType())
+                .status(response.getStatus())
+                .message(response.getMessage())
+                .externalReference(response.getExternalReference())
+                .cost(response.getCost())
+                .result(response.getResult())
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.presta.Wallet.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,9 @@ import com.presta.Wallet.entity.ExternalTransaction;
 import com.presta.Wallet.entity.ReconciliationItem;
 import com.presta.Wallet.entity.ReconciliationReport;
 import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.RequestTrace;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.money.Money;
 import com.presta.Wallet.repository.ExternalTransactionRepository;
 import com.presta.Wallet.repository.ReconciliationItemRepository;
 import com.presta.Wallet.repository.ReconciliationReportRepository;
@@ -19,7 +23,6 @@ import com.presta.Wallet.repository.WalletTransactionRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,20 +35,32 @@ public class ReconciliationService {
     private final ExternalTransactionRepository externalTransactionRepository;
     private final ReconciliationReportRepository reconciliationReportRepository;
     private final ReconciliationItemRepository reconciliationItemRepository;
+    private final WalletMetrics walletMetrics;
+    private final StreamingReconciliationService streamingReconciliationService;
 
+    @Timed(value = "wallet.reconciliation")
     @Transactional
     public ReconciliationReportResponse performReconciliation(LocalDate date) {
         log.info("Starting reconciliation process for date: {}", date);
 
+        // Stop the streaming matcher writing into this date before looking at its report
+        streamingReconciliationService.closeDate(date);
+
         // Check if reconciliation already exists for this date
         Optional<ReconciliationReport> existingReport = reconciliationReportRepository.findByReconciliationDate(date);
         if (existingReport.isPresent()) {
+            if (existingReport.get().getStatus() == ReconciliationReport.ReconciliationStatus.IN_PROGRESS) {
+                return mapToResponse(finalizeStreamedReport(existingReport.get()));
+            }
             log.info("Reconciliation already exists for date: {}, returning existing report", date);
             return mapToResponse(existingReport.get());
         }
+        RequestTrace.mark("existing-report-check");
 
         List<WalletTransaction> internalTransactions = getInternalTransactionsForDate(date);
+        RequestTrace.mark("load-internal");
         List<ExternalTransaction> externalTransactions = externalTransactionRepository.findByTransactionDate(date);
+        RequestTrace.mark("load-external");
 
         log.info("Found {} internal transactions and {} external transactions for date: {}", 
                 internalTransactions.size(), externalTransactions.size(), date);
@@ -69,32 +84,83 @@ public class ReconciliationService {
         );
 
         ReconciliationReport savedReport = reconciliationReportRepository.save(report);
+        RequestTrace.mark("save-report");
 
-        
+        long matchingStart = System.nanoTime();
         List<ReconciliationItem> reconciliationItems = performMatching(
             internalTransactions, externalTransactions, savedReport
         );
+        walletMetrics.recordMatching(System.nanoTime() - matchingStart,
+                internalTransactions.size() + externalTransactions.size(), reconciliationItems);
+        RequestTrace.mark("matching");
 
     
         updateReportStatistics(savedReport, reconciliationItems);
         savedReport.markCompleted();
         reconciliationReportRepository.save(savedReport);
+        RequestTrace.mark("statistics");
 
         log.info("Reconciliation completed for date: {} with {} items", date, reconciliationItems.size());
         return mapToResponse(savedReport);
     }
 
+    /**
+     * Completes a report the streaming matcher has been filling during the day. Its matched items
+     * stand; only transactions the stream never saw and its NO_MATCH items are matched again, so
+     * the cost tracks the leftovers rather than the day's volume.
+     */
+    private ReconciliationReport finalizeStreamedReport(ReconciliationReport report) {
+        LocalDate date = report.getReconciliationDate();
+        Set<Long> seenInternal = new HashSet<>(reconciliationItemRepository.findInternalTransactionIds(report.getId()));
+        Set<Long> seenExternal = new HashSet<>(reconciliationItemRepository.findExternalTransactionIds(report.getId()));
+        List<ReconciliationItem> open = reconciliationItemRepository
+                .findByReconciliationReportIdAndMatchType(report.getId(), ReconciliationItem.MatchType.NO_MATCH);
+
+        Set<Long> internalIds = new HashSet<>();
+        Set<Long> externalIds = new HashSet<>();
+        for (Long id : walletTransactionRepository.findIdsByCreatedAtRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            if (!seenInternal.contains(id)) {
+                internalIds.add(id);
+            }
+        }
+        for (Long id : externalTransactionRepository.findIdsByTransactionDate(date)) {
+            if (!seenExternal.contains(id)) {
+                externalIds.add(id);
+            }
+        }
+        for (ReconciliationItem item : open) {
+            if (item.getInternalTransactionId() != null) {
+                internalIds.add(item.getInternalTransactionId());
+            }
+            if (item.getExternalTransactionId() != null) {
+                externalIds.add(item.getExternalTransactionId());
+            }
+            StreamingReconciliationService.tally(report, item, -1);
+        }
+        reconciliationItemRepository.deleteAllInBatch(open);
+        RequestTrace.mark("load-leftovers");
+
+        List<WalletTransaction> internalTransactions = walletTransactionRepository.findAllById(internalIds);
+        List<ExternalTransaction> externalTransactions = externalTransactionRepository.findAllById(externalIds);
+        long matchingStart = System.nanoTime();
+        List<ReconciliationItem> items = performMatching(internalTransactions, externalTransactions, report);
+        walletMetrics.recordMatching(System.nanoTime() - matchingStart,
+                internalTransactions.size() + externalTransactions.size(), items);
+        items.forEach(item -> StreamingReconciliationService.tally(report, item, 1));
+        RequestTrace.mark("matching");
+
+        report.markCompleted();
+        reconciliationReportRepository.save(report);
+        log.info("Finalized streamed reconciliation for date: {}: {} leftover internal and {} external rows, {} items rewritten",
+                date, internalTransactions.size(), externalTransactions.size(), items.size());
+        return report;
+    }
+
     private List<WalletTransaction> getInternalTransactionsForDate(LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(23, 59, 59);
-        
-        return walletTransactionRepository.findByWalletIdAndDateRange(null, startOfDay, endOfDay)
-                .stream()
-                .filter(t -> t.getCreatedAt().toLocalDate().equals(date))
-                .collect(Collectors.toList());
+        return walletTransactionRepository.findByCreatedAtRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
-    private List<ReconciliationItem> performMatching(
+    List<ReconciliationItem> performMatching(
             List<WalletTransaction> internalTransactions,
             List<ExternalTransaction> externalTransactions,
             ReconciliationReport report) {
@@ -119,8 +185,9 @@ public class ReconciliationService {
                 List<ExternalTransaction> externalTxns = externalByReference.get(referenceId);
 
                 for (WalletTransaction internal : internalTxns) {
+                    long internalAmount = Money.toMinorUnits(internal.getAmount());
                     for (ExternalTransaction external : externalTxns) {
-                        if (internal.getAmount().compareTo(external.getAmount()) == 0 &&
+                        if (internalAmount == Money.toMinorUnits(external.getAmount()) &&
                             !matchedInternalIds.contains(internal.getId()) &&
                             !matchedExternalIds.contains(external.getId())) {
 
@@ -157,8 +224,8 @@ public class ReconciliationService {
                             report, internal, external,
                             ReconciliationItem.MatchType.REFERENCE_MATCH,
                             ReconciliationItem.DiscrepancyType.AMOUNT_DIFFERENCE,
-                            String.format("Reference match but amount differs by %s", 
-                                internal.getAmount().subtract(external.getAmount()))
+                            "Reference match but amount differs by "
+                                + Money.toDecimal(amountDifference(internal, external)).toPlainString()
                         );
                         items.add(item);
 
@@ -229,7 +296,7 @@ public class ReconciliationService {
         }
 
         if (internal != null && external != null) {
-            builder.amountDifference(internal.getAmount().subtract(external.getAmount()));
+            builder.amountDifference(Money.toDecimal(amountDifference(internal, external)));
         }
 
         return builder.build();
@@ -263,16 +330,25 @@ public class ReconciliationService {
         report.setAmountDifferences(amountDifferences);
     }
 
+    private long amountDifference(WalletTransaction internal, ExternalTransaction external) {
+        return Math.subtractExact(Money.toMinorUnits(internal.getAmount()), Money.toMinorUnits(external.getAmount()));
+    }
+
+    // Totals are summed in minor units and converted once, instead of one BigDecimal per row
     private BigDecimal calculateTotalAmount(List<WalletTransaction> transactions) {
-        return transactions.stream()
-                .map(WalletTransaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (WalletTransaction transaction : transactions) {
+            total = Math.addExact(total, Money.toMinorUnits(transaction.getAmount()));
+        }
+        return Money.toDecimal(total);
     }
 
     private BigDecimal calculateExternalTotalAmount(List<ExternalTransaction> transactions) {
-        return transactions.stream()
-                .map(ExternalTransaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (ExternalTransaction transaction : transactions) {
+            total = Math.addExact(total, Money.toMinorUnits(transaction.getAmount()));
+        }
+        return Money.toDecimal(total);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,340 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.dto.ReversalResult;
+import com.presta.Wallet.entity.ReversalRequest;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ReversalRequestRepository;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reverses completed transactions with a compensating REVERSAL entry. Each reversal runs in its
+ * own short transaction: the original is claimed with a conditional status update, the wallet
+ * balance is adjusted in place, and the compensating entry is inserted. No wallet entity is
+ * loaded, so the wallet row is locked only for those three statements.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReversalService {
+
+    public static final String REFERENCE_PREFIX = "REV-";
+    static final String SOURCE_API = "api";
+    static final String SOURCE_QUEUE = "queue";
+
+    private final WalletTransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final ReversalRequestRepository reversalRequestRepository;
+    private final NotificationService notificationService;
+    private final PlatformTransactionManager transactionManager;
+    private final WalletMetrics walletMetrics;
+
+    @Value("${wallet.reversal.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${wallet.reversal.queue.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${wallet.reversal.queue.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    // Created on first use, once parallelism has been injected
+    private ExecutorService workers;
+
+    public ReversalResult reverse(String referenceId, String reason) {
+        return reverse(referenceId, reason, SOURCE_API);
+    }
+
+    /**
+     * Reverses many references at once. Each reference gets its own transaction, so one bad
+     * reference never rolls back the others; references are spread across a small worker pool.
+     */
+    public List<ReversalResult> reverseAll(List<String> referenceIds, String reason) {
+        return reverseAll(referenceIds, reason, SOURCE_API);
+    }
+
+    /**
+     * Queues a reversal to be applied by {@link #processQueue()}. Joins the caller's transaction
+     * when there is one, so a compensation requested alongside a debit commits or rolls back with
+     * that debit. Called with none, as after a service debit that has already committed, it commits
+     * on its own and the caller has to handle its failure.
+     */
+    @Transactional
+    public boolean enqueue(String referenceId, String reason) {
+        if (reversalRequestRepository.existsByReferenceId(referenceId)) {
+            log.debug("Reversal already queued for reference: {}", referenceId);
+            return false;
+        }
+        reversalRequestRepository.save(ReversalRequest.builder()
+                .referenceId(referenceId)
+                .reason(reason)
+                .build());
+        log.info("Queued reversal for reference: {} ({})", referenceId, reason);
+        return true;
+    }
+
+    public int enqueueAll(List<String> referenceIds, String reason) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        int queued = 0;
+        for (String referenceId : referenceIds) {
+            try {
+                if (Boolean.TRUE.equals(template.execute(status -> enqueue(referenceId, reason)))) {
+                    queued++;
+                }
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Reversal already queued for reference: {}", referenceId);
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Drains pending reversal requests in batches until the queue is empty. Requests whose
+     * reversal fails for a transient reason stay pending until {@code max-attempts} is reached,
+     * retried once per run: a run pages forward by id, so it never picks the same request up twice.
+     */
+    @Scheduled(fixedDelayString = "${wallet.reversal.queue.poll-interval-ms:1000}")
+    public int processQueue() {
+        int processed = 0;
+        long lastSeenId = 0;
+        List<ReversalRequest> batch;
+        do {
+            batch = reversalRequestRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                    ReversalRequest.RequestStatus.PENDING, lastSeenId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastSeenId = batch.get(batch.size() - 1).getId();
+
+            List<ReversalResult> results = reverseAll(
+                    batch.stream().map(ReversalRequest::getReferenceId).toList(), null, SOURCE_QUEUE);
+            for (int i = 0; i < batch.size(); i++) {
+                applyOutcome(batch.get(i), results.get(i));
+            }
+            reversalRequestRepository.saveAll(batch);
+            processed += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (processed > 0) {
+            log.info("Processed {} queued reversals", processed);
+        }
+        return processed;
+    }
+
+    private List<ReversalResult> reverseAll(List<String> referenceIds, String reason, String source) {
+        long start = System.nanoTime();
+        List<ReversalResult> results;
+        if (referenceIds.size() <= 1 || parallelism <= 1) {
+            results = new ArrayList<>(referenceIds.size());
+            for (String referenceId : referenceIds) {
+                results.add(reverse(referenceId, reason, source));
+            }
+        } else {
+            results = reverseInParallel(referenceIds, reason, source);
+        }
+        walletMetrics.recordReversalBatch(results.size(), System.nanoTime() - start);
+        return results;
+    }
+
+    private List<ReversalResult> reverseInParallel(List<String> referenceIds, String reason, String source) {
+        int sliceSize = (referenceIds.size() + parallelism - 1) / parallelism;
+        ExecutorService executor = workers();
+        List<Future<List<ReversalResult>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < referenceIds.size(); i += sliceSize) {
+                List<String> slice = referenceIds.subList(i, Math.min(i + sliceSize, referenceIds.size()));
+                futures.add(executor.submit(() -> {
+                    List<ReversalResult> sliceResults = new ArrayList<>(slice.size());
+                    for (String referenceId : slice) {
+                        sliceResults.add(reverse(referenceId, reason, source));
+                    }
+                    return sliceResults;
+                }));
+            }
+
+            List<ReversalResult> results = new ArrayList<>(referenceIds.size());
+            for (Future<List<ReversalResult>> future : futures) {
+                results.addAll(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Bulk reversal failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bulk reversal interrupted", e);
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "reversal-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private ReversalResult reverse(String referenceId, String reason, String source) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        ReversalResult result;
+        try {
+            result = template.execute(status -> {
+                ReversalResult attempt = reverseInTransaction(referenceId, reason);
+                if (attempt.getOutcome() == ReversalResult.Outcome.INSUFFICIENT_BALANCE) {
+                    status.setRollbackOnly(); // release the claim on the original
+                }
+                return attempt;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent reversal inserted the compensating entry first
+            result = outcome(referenceId, ReversalResult.Outcome.ALREADY_REVERSED, "Transaction already reversed");
+        } catch (RuntimeException e) {
+            log.error("Reversal failed for reference: {}", referenceId, e);
+            result = outcome(referenceId, ReversalResult.Outcome.FAILED, e.getMessage());
+        }
+
+        walletMetrics.recordReversal(source, result.getOutcome().name().toLowerCase());
+        if (result.getOutcome() == ReversalResult.Outcome.REVERSED) {
+            publish(result);
+        }
+        return result;
+    }
+
+    private ReversalResult reverseInTransaction(String referenceId, String reason) {
+        WalletTransaction original = transactionRepository.findByReferenceId(referenceId).orElse(null);
+        if (original == null) {
+            return outcome(referenceId, ReversalResult.Outcome.NOT_FOUND, "Transaction not found");
+        }
+        if (original.getStatus() == WalletTransaction.TransactionStatus.REVERSED) {
+            return outcome(referenceId, ReversalResult.Outcome.ALREADY_REVERSED, "Transaction already reversed");
+        }
+        if (!(original.isCredit() || original.isDebit())
+                || original.getStatus() != WalletTransaction.TransactionStatus.COMPLETED) {
+            return outcome(referenceId, ReversalResult.Outcome.NOT_REVERSIBLE,
+                    "Only completed credits and debits can be reversed (status " + original.getStatus()
+                            + ", type " + original.getTransactionType() + ")");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (transactionRepository.claimForReversal(original.getId(), WalletTransaction.TransactionStatus.COMPLETED,
+                WalletTransaction.TransactionStatus.REVERSED, now) == 0) {
+            return outcome(referenceId, ReversalResult.Outcome.ALREADY_REVERSED, "Transaction already reversed");
+        }
+
+        // Undo the original movement: debits are refunded, credits are taken back
+        Long walletId = original.getWallet().getId();
+        BigDecimal delta = original.isCredit() ? original.getAmount().negate() : original.getAmount();
+        if (walletRepository.adjustBalance(walletId, delta, now) == 0) {
+            return outcome(referenceId, ReversalResult.Outcome.INSUFFICIENT_BALANCE,
+                    "Wallet balance is too low to take back " + original.getAmount());
+        }
+        WalletRepository.BalanceView balance = walletRepository.findBalanceViewById(walletId);
+
+        WalletTransaction reversal = WalletTransaction.builder()
+                .wallet(walletRepository.getReferenceById(walletId))
+                .transactionType(WalletTransaction.TransactionType.REVERSAL)
+                .amount(original.getAmount())
+                .referenceId(REFERENCE_PREFIX + referenceId)
+                .description(reason != null ? reason : "Reversal of " + referenceId)
+                .balanceBefore(balance.getBalance().subtract(delta))
+                .balanceAfter(balance.getBalance())
+                .serviceType(original.getServiceType())
+                .build();
+        reversal.markCompleted();
+        reversal = transactionRepository.save(reversal);
+
+        return ReversalResult.builder()
+                .referenceId(referenceId)
+                .outcome(ReversalResult.Outcome.REVERSED)
+                .walletId(walletId)
+                .customerId(balance.getCustomerId())
+                .reversalTransactionId(reversal.getId())
+                .reversalReferenceId(reversal.getReferenceId())
+                .amount(reversal.getAmount())
+                .balanceAfter(reversal.getBalanceAfter())
+                .message("Transaction reversed")
+                .build();
+    }
+
+    private void applyOutcome(ReversalRequest request, ReversalResult result) {
+        request.setAttempts(request.getAttempts() + 1);
+        switch (result.getOutcome()) {
+            case REVERSED, ALREADY_REVERSED -> request.markProcessed(ReversalRequest.RequestStatus.COMPLETED, null);
+            case NOT_FOUND, NOT_REVERSIBLE -> request.markProcessed(ReversalRequest.RequestStatus.SKIPPED, result.getMessage());
+            default -> {
+                if (request.getAttempts() >= maxAttempts) {
+                    request.markProcessed(ReversalRequest.RequestStatus.FAILED, result.getMessage());
+                } else {
+                    request.setLastError(result.getMessage());
+                }
+            }
+        }
+    }
+
+    // Published after the reversal has committed, so consumers never see a rolled-back reversal
+    private void publish(ReversalResult result) {
+        notificationService.publishTransactionEvent(TransactionMessage.builder()
+                .transactionId(result.getReversalTransactionId())
+                .walletId(result.getWalletId())
+                .customerId(result.getCustomerId())
+                .transactionType(WalletTransaction.TransactionType.REVERSAL.name())
+                .amount(result.getAmount())
+                .referenceId(result.getReversalReferenceId())
+                .status(WalletTransaction.TransactionStatus.COMPLETED.name())
+                .balanceAfter(result.getBalanceAfter())
+                .timestamp(LocalDateTime.now())
+                .description("Reversal of " + result.getReferenceId())
+                .messageId(UUID.randomUUID().toString())
+                .retryCount(0)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private ReversalResult outcome(String referenceId, ReversalResult.Outcome outcome, String message) {
+        return ReversalResult.builder()
+                .referenceId(referenceId)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,597 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.money.Money;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Reconciles continuously instead of only after the day ends. Completed internal transaction events
+ * and ingested external rows are queued after their commit and matched by a single drain thread in an
+ * in-memory window keyed by date and reference id. A pair becomes a reconciliation item on the day's
+ * IN_PROGRESS report as soon as both sides are seen. A side still alone after
+ * {@code match-window-minutes} is written as a NO_MATCH item, and that item is upgraded in place if
+ * its partner turns up later. {@link ReconciliationService#performReconciliation} then only has to
+ * match what the stream missed; see {@link #closeDate}.
+ * <p>
+ * A drain stages its window changes and applies them only once its items have committed, so a drain
+ * that rolls back leaves the window as it was.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StreamingReconciliationService {
+
+    public static final String OUTCOME_MATCHED = "matched";
+    public static final String OUTCOME_LATE_MATCHED = "late_matched";
+    public static final String OUTCOME_TIMED_OUT = "timed_out";
+    public static final String OUTCOME_CLOSED = "closed";
+    public static final String OUTCOME_DROPPED = "dropped";
+
+    private final ReconciliationReportRepository reconciliationReportRepository;
+    private final ReconciliationItemRepository reconciliationItemRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final WalletMetrics walletMetrics;
+
+    @Value("${wallet.reconciliation.streaming.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wallet.reconciliation.streaming.match-window-minutes:60}")
+    private long matchWindowMinutes = 60;
+
+    @Value("${wallet.reconciliation.streaming.queue-capacity:100000}")
+    private int queueCapacity = 100000;
+
+    @Value("${wallet.reconciliation.streaming.max-pending:200000}")
+    private int maxPending = 200000;
+
+    @Value("${wallet.reconciliation.streaming.retention-days:7}")
+    private int retentionDays = 7;
+
+    // Overridable so tests can move time forward
+    LongSupplier clock = System::currentTimeMillis;
+
+    // Created on first use, once queue-capacity has been injected
+    private volatile LinkedBlockingQueue<Event> inbox;
+    private final Object inboxLock = new Object();
+
+    // Only touched while holding this service's monitor, by a committed drain or by closeDate
+    private final LinkedHashMap<Key, Pending> window = new LinkedHashMap<>();
+    // Dates older than retention-days count as closed, so each drain evicts them from these two
+    private final Map<LocalDate, Set<String>> timedOut = new HashMap<>();
+    private final Set<LocalDate> closedDates = new HashSet<>();
+
+    enum Side { INTERNAL, EXTERNAL }
+
+    record Event(Side side, Long id, String referenceId, BigDecimal amount, LocalDate date, long arrivedAt) {
+    }
+
+    private record Key(LocalDate date, String referenceId) {
+    }
+
+    private static final class Pending {
+        final long firstArrival;
+        final List<Event> internal = new ArrayList<>(1);
+        final List<Event> external = new ArrayList<>(1);
+
+        Pending(long firstArrival) {
+            this.firstArrival = firstArrival;
+        }
+
+        Pending copy() {
+            Pending copy = new Pending(firstArrival);
+            copy.internal.addAll(internal);
+            copy.external.addAll(external);
+            return copy;
+        }
+
+        List<Event> side(Side side) {
+            return side == Side.INTERNAL ? internal : external;
+        }
+
+        boolean isEmpty() {
+            return internal.isEmpty() && external.isEmpty();
+        }
+    }
+
+    /**
+     * Queues a completed internal transaction once the surrounding transaction commits.
+     */
+    public void submitInternal(TransactionMessage message) {
+        if (!enabled || !WalletTransaction.TransactionStatus.COMPLETED.name().equals(message.getStatus())
+                || message.getTransactionId() == null || message.getTimestamp() == null) {
+            return;
+        }
+        afterCommit(List.of(new Event(Side.INTERNAL, message.getTransactionId(), message.getReferenceId(),
+                normalize(message.getAmount()), message.getTimestamp().toLocalDate(), 0)));
+    }
+
+    /**
+     * Queues freshly ingested external rows once the surrounding transaction commits.
+     */
+    public void submitExternal(List<ExternalTransaction> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(transactions.size());
+        for (ExternalTransaction transaction : transactions) {
+            events.add(new Event(Side.EXTERNAL, transaction.getId(), transaction.getReferenceId(),
+                    normalize(transaction.getAmount()), transaction.getTransactionDate(), 0));
+        }
+        afterCommit(events);
+    }
+
+    // Parsed amounts can carry more decimals than the column keeps; match on what the database stores
+    private static BigDecimal normalize(BigDecimal amount) {
+        return amount == null ? null : amount.setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private void afterCommit(List<Event> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(events);
+                }
+            });
+        } else {
+            enqueue(events);
+        }
+    }
+
+    private void enqueue(List<Event> events) {
+        int dropped = 0;
+        long now = clock.getAsLong();
+        for (Event event : events) {
+            // A dropped event is not lost: end-of-day finalization matches everything the stream missed
+            if (!inbox().offer(withArrival(event, now))) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            walletMetrics.recordStreamingReconciliation(OUTCOME_DROPPED, dropped);
+        }
+    }
+
+    private LinkedBlockingQueue<Event> inbox() {
+        LinkedBlockingQueue<Event> queue = inbox;
+        if (queue == null) {
+            synchronized (inboxLock) {
+                if (inbox == null) {
+                    inbox = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+                }
+                queue = inbox;
+            }
+        }
+        return queue;
+    }
+
+    private static Event withArrival(Event event, long arrivedAt) {
+        return new Event(event.side(), event.id(), event.referenceId(), event.amount(), event.date(), arrivedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.reconciliation.streaming.drain-interval-ms:1000}")
+    public void scheduledDrain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Streaming reconciliation drain failed", e);
+        }
+    }
+
+    /**
+     * Matches everything queued so far and times out window entries older than the match window.
+     */
+    public synchronized void drain() {
+        evictPastRetention();
+        List<Event> events = new ArrayList<>();
+        inbox().drainTo(events);
+        long expireBefore = clock.getAsLong() - matchWindowMinutes * 60_000;
+        if (events.isEmpty() && (window.isEmpty() || window.values().iterator().next().firstArrival > expireBefore)) {
+            return;
+        }
+        try {
+            inTransaction(batch -> {
+                for (Event event : events) {
+                    accept(batch, event);
+                }
+                expire(batch, key -> true, expireBefore);
+            });
+        } catch (RuntimeException e) {
+            // The window is unchanged; these events are left to end-of-day finalization like any dropped one
+            walletMetrics.recordStreamingReconciliation(OUTCOME_DROPPED, events.size());
+            throw e;
+        }
+    }
+
+    /**
+     * Stops streaming into {@code date}'s report: drains the queue, writes whatever is still waiting
+     * in the window for that date as NO_MATCH and ignores later events for it. Called before the
+     * report is finalized, so the finalizer has the report to itself.
+     */
+    public synchronized void closeDate(LocalDate date) {
+        if (!enabled) {
+            return;
+        }
+        drain();
+        inTransaction(batch -> expire(batch, key -> key.date().equals(date), Long.MAX_VALUE));
+        closedDates.add(date);
+        timedOut.remove(date);
+    }
+
+    private void evictPastRetention() {
+        LocalDate cutoff = retentionCutoff();
+        timedOut.keySet().removeIf(date -> date.isBefore(cutoff));
+        closedDates.removeIf(date -> date.isBefore(cutoff));
+    }
+
+    private LocalDate retentionCutoff() {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault()).minusDays(retentionDays);
+    }
+
+    synchronized int pendingCount() {
+        return window.size();
+    }
+
+    /**
+     * Reports and items touched by one drain, written together when it commits, and the window as the
+     * drain sees it. Window entries the drain changes are copied into {@code staged} (a null value
+     * removes the key) and only replace the live ones in {@link #commit}.
+     */
+    private final class Batch {
+        final Map<LocalDate, Optional<ReconciliationReport>> reports = new HashMap<>();
+        final List<ReconciliationItem> items = new ArrayList<>();
+        final Map<String, Integer> outcomes = new HashMap<>();
+        final LinkedHashMap<Key, Pending> staged = new LinkedHashMap<>();
+        final Set<Key> recreated = new HashSet<>();
+        final Map<LocalDate, Set<String>> newlyTimedOut = new HashMap<>();
+        int sizeDelta;
+
+        Pending pending(Key key) {
+            if (staged.containsKey(key)) {
+                return staged.get(key);
+            }
+            Pending current = window.get(key);
+            if (current == null) {
+                return null;
+            }
+            Pending copy = current.copy();
+            staged.put(key, copy);
+            return copy;
+        }
+
+        // Only for keys the drain currently has no entry for; a re-added key goes to the back like a new one
+        void add(Key key, Pending pending) {
+            staged.remove(key);
+            if (window.containsKey(key)) {
+                recreated.add(key);
+            }
+            staged.put(key, pending);
+            sizeDelta++;
+        }
+
+        void remove(Key key) {
+            staged.put(key, null);
+            sizeDelta--;
+        }
+
+        int windowSize() {
+            return window.size() + sizeDelta;
+        }
+
+        // Visits entries oldest first until the visitor returns false; the visitor may remove the entry it is given
+        void forEachOldest(BiPredicate<Key, Pending> visitor) {
+            for (Map.Entry<Key, Pending> entry : window.entrySet()) {
+                Key key = entry.getKey();
+                if (recreated.contains(key)) {
+                    continue;
+                }
+                Pending pending = staged.containsKey(key) ? staged.get(key) : entry.getValue();
+                if (pending != null && !visitor.test(key, pending)) {
+                    return;
+                }
+            }
+            for (Key key : new ArrayList<>(staged.keySet())) {
+                Pending pending = staged.get(key);
+                if (pending != null && (recreated.contains(key) || !window.containsKey(key)) && !visitor.test(key, pending)) {
+                    return;
+                }
+            }
+        }
+
+        boolean isTimedOut(Key key) {
+            return timedOut.getOrDefault(key.date(), Set.of()).contains(key.referenceId())
+                    || newlyTimedOut.getOrDefault(key.date(), Set.of()).contains(key.referenceId());
+        }
+
+        void commit() {
+            staged.forEach((key, pending) -> {
+                if (pending == null || recreated.contains(key)) {
+                    window.remove(key);
+                }
+                if (pending != null) {
+                    window.put(key, pending);
+                }
+            });
+            newlyTimedOut.forEach((date, referenceIds) ->
+                    timedOut.computeIfAbsent(date, d -> new HashSet<>()).addAll(referenceIds));
+        }
+
+        Optional<ReconciliationReport> report(LocalDate date) {
+            return reports.computeIfAbsent(date, this::loadReport);
+        }
+
+        private Optional<ReconciliationReport> loadReport(LocalDate date) {
+            if (closedDates.contains(date) || date.isBefore(retentionCutoff())) {
+                return Optional.empty();
+            }
+            Optional<ReconciliationReport> existing = reconciliationReportRepository.findByReconciliationDate(date);
+            if (existing.isPresent()) {
+                if (existing.get().getStatus() != ReconciliationReport.ReconciliationStatus.IN_PROGRESS) {
+                    closedDates.add(date);
+                    return Optional.empty();
+                }
+                return existing;
+            }
+            return Optional.of(reconciliationReportRepository.save(openReport(date)));
+        }
+
+        void emit(ReconciliationReport report, ReconciliationItem item, String outcome) {
+            tally(report, item, 1);
+            items.add(item);
+            count(outcome, 1);
+        }
+
+        void count(String outcome, int count) {
+            outcomes.merge(outcome, count, Integer::sum);
+        }
+    }
+
+    private void inTransaction(Consumer<Batch> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Batch batch = new Batch();
+        template.executeWithoutResult(status -> {
+            work.accept(batch);
+            reconciliationItemRepository.saveAll(batch.items);
+            batch.reports.values().forEach(report -> report.ifPresent(reconciliationReportRepository::save));
+        });
+        batch.commit();
+        batch.outcomes.forEach(walletMetrics::recordStreamingReconciliation);
+    }
+
+    private void accept(Batch batch, Event event) {
+        Optional<ReconciliationReport> report = batch.report(event.date());
+        if (report.isEmpty()) {
+            batch.count(OUTCOME_CLOSED, 1);
+            return;
+        }
+        if (event.referenceId() == null) {
+            batch.emit(report.get(), unmatched(report.get(), event), OUTCOME_TIMED_OUT);
+            return;
+        }
+
+        Key key = new Key(event.date(), event.referenceId());
+        Side other = event.side() == Side.INTERNAL ? Side.EXTERNAL : Side.INTERNAL;
+        Pending pending = batch.pending(key);
+        if (pending != null && !pending.side(other).isEmpty()) {
+            Event partner = takePartner(pending.side(other), event);
+            if (pending.isEmpty()) {
+                batch.remove(key);
+            }
+            Event internal = event.side() == Side.INTERNAL ? event : partner;
+            Event external = event.side() == Side.INTERNAL ? partner : event;
+            batch.emit(report.get(), matched(report.get(), internal, external), OUTCOME_MATCHED);
+            return;
+        }
+
+        if (batch.isTimedOut(key) && upgradeTimedOut(batch, report.get(), event)) {
+            return;
+        }
+
+        if (pending == null) {
+            pending = new Pending(event.arrivedAt());
+            batch.add(key, pending);
+        }
+        pending.side(event.side()).add(event);
+        if (batch.windowSize() > maxPending) {
+            batch.forEachOldest((oldestKey, oldest) -> {
+                expireEntry(batch, oldestKey, oldest);
+                batch.remove(oldestKey);
+                return false;
+            });
+        }
+    }
+
+    // Same preference as the batch matcher: an equal amount first, otherwise the earliest arrival
+    private static Event takePartner(List<Event> candidates, Event event) {
+        long amount = Money.toMinorUnits(event.amount());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (Money.toMinorUnits(candidates.get(i).amount()) == amount) {
+                return candidates.remove(i);
+            }
+        }
+        return candidates.remove(0);
+    }
+
+    private boolean upgradeTimedOut(Batch batch, ReconciliationReport report, Event event) {
+        Optional<ReconciliationItem> open = event.side() == Side.INTERNAL
+                ? reconciliationItemRepository.findOpenMissingInternal(report.getId(), event.referenceId())
+                : reconciliationItemRepository.findOpenMissingExternal(report.getId(), event.referenceId());
+        if (open.isEmpty()) {
+            return false;
+        }
+        ReconciliationItem item = open.get();
+        tally(report, item, -1);
+        if (event.side() == Side.INTERNAL) {
+            item.setInternalTransactionId(event.id());
+            item.setInternalAmount(event.amount());
+        } else {
+            item.setExternalTransactionId(event.id());
+            item.setExternalAmount(event.amount());
+        }
+        describeMatch(item);
+        batch.emit(report, item, OUTCOME_LATE_MATCHED);
+        return true;
+    }
+
+    private void expire(Batch batch, Predicate<Key> selected, long expireBefore) {
+        batch.forEachOldest((key, pending) -> {
+            if (pending.firstArrival > expireBefore) {
+                // Entries are kept in arrival order, so nothing after this one has expired either
+                return false;
+            }
+            if (selected.test(key)) {
+                expireEntry(batch, key, pending);
+                batch.remove(key);
+            }
+            return true;
+        });
+    }
+
+    private void expireEntry(Batch batch, Key key, Pending pending) {
+        Optional<ReconciliationReport> report = batch.report(key.date());
+        if (report.isEmpty()) {
+            batch.count(OUTCOME_CLOSED, pending.internal.size() + pending.external.size());
+            return;
+        }
+        for (Event event : pending.internal) {
+            batch.emit(report.get(), unmatched(report.get(), event), OUTCOME_TIMED_OUT);
+        }
+        for (Event event : pending.external) {
+            batch.emit(report.get(), unmatched(report.get(), event), OUTCOME_TIMED_OUT);
+        }
+        batch.newlyTimedOut.computeIfAbsent(key.date(), date -> new HashSet<>()).add(key.referenceId());
+    }
+
+    private static ReconciliationReport openReport(LocalDate date) {
+        return ReconciliationReport.builder()
+                .reconciliationDate(date)
+                .totalInternalTransactions(0)
+                .totalExternalTransactions(0)
+                .matchedTransactions(0)
+                .unmatchedInternal(0)
+                .unmatchedExternal(0)
+                .amountDifferences(0)
+                .totalInternalAmount(BigDecimal.ZERO)
+                .totalExternalAmount(BigDecimal.ZERO)
+                .differenceAmount(BigDecimal.ZERO)
+                .status(ReconciliationReport.ReconciliationStatus.IN_PROGRESS)
+                .build();
+    }
+
+    private static ReconciliationItem matched(ReconciliationReport report, Event internal, Event external) {
+        ReconciliationItem item = ReconciliationItem.builder()
+                .reconciliationReport(report)
+                .referenceId(internal.referenceId())
+                .internalTransactionId(internal.id())
+                .internalAmount(internal.amount())
+                .externalTransactionId(external.id())
+                .externalAmount(external.amount())
+                .build();
+        describeMatch(item);
+        return item;
+    }
+
+    private static void describeMatch(ReconciliationItem item) {
+        long difference = Math.subtractExact(Money.toMinorUnits(item.getInternalAmount()),
+                Money.toMinorUnits(item.getExternalAmount()));
+        item.setAmountDifference(Money.toDecimal(difference));
+        if (difference == 0) {
+            item.setMatchType(ReconciliationItem.MatchType.PERFECT_MATCH);
+            item.setDiscrepancyType(ReconciliationItem.DiscrepancyType.NONE);
+            item.setNotes("Perfect match on reference and amount");
+        } else {
+            item.setMatchType(ReconciliationItem.MatchType.REFERENCE_MATCH);
+            item.setDiscrepancyType(ReconciliationItem.DiscrepancyType.AMOUNT_DIFFERENCE);
+            item.setNotes("Reference match but amount differs by " + Money.toDecimal(difference).toPlainString());
+        }
+    }
+
+    private static ReconciliationItem unmatched(ReconciliationReport report, Event event) {
+        boolean internal = event.side() == Side.INTERNAL;
+        return ReconciliationItem.builder()
+                .reconciliationReport(report)
+                .referenceId(event.referenceId())
+                .matchType(ReconciliationItem.MatchType.NO_MATCH)
+                .discrepancyType(internal ? ReconciliationItem.DiscrepancyType.MISSING_EXTERNAL
+                        : ReconciliationItem.DiscrepancyType.MISSING_INTERNAL)
+                .internalTransactionId(internal ? event.id() : null)
+                .internalAmount(internal ? event.amount() : null)
+                .externalTransactionId(internal ? null : event.id())
+                .externalAmount(internal ? null : event.amount())
+                .notes(internal ? "Internal transaction with no external match"
+                        : "External transaction with no internal match")
+                .build();
+    }
+
+    /**
+     * Adds ({@code sign} 1) or removes ({@code sign} -1) one item's share of the report's counters
+     * and totals, so an open report stays current without re-reading its items.
+     */
+    static void tally(ReconciliationReport report, ReconciliationItem item, int sign) {
+        switch (item.getMatchType()) {
+            case PERFECT_MATCH -> report.setMatchedTransactions(report.getMatchedTransactions() + sign);
+            case REFERENCE_MATCH -> report.setAmountDifferences(report.getAmountDifferences() + sign);
+            case NO_MATCH -> {
+                if (item.getInternalTransactionId() != null && item.getExternalTransactionId() == null) {
+                    report.setUnmatchedInternal(report.getUnmatchedInternal() + sign);
+                } else if (item.getInternalTransactionId() == null && item.getExternalTransactionId() != null) {
+                    report.setUnmatchedExternal(report.getUnmatchedExternal() + sign);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unexpected value: " + item.getMatchType());
+        }
+        if (item.getInternalTransactionId() != null) {
+            report.setTotalInternalTransactions(report.getTotalInternalTransactions() + sign);
+            report.setTotalInternalAmount(add(report.getTotalInternalAmount(), item.getInternalAmount(), sign));
+        }
+        if (item.getExternalTransactionId() != null) {
+            report.setTotalExternalTransactions(report.getTotalExternalTransactions() + sign);
+            report.setTotalExternalAmount(add(report.getTotalExternalAmount(), item.getExternalAmount(), sign));
+        }
+        report.setDifferenceAmount(report.getTotalInternalAmount().subtract(report.getTotalExternalAmount()));
+    }
+
+    private static BigDecimal add(BigDecimal total, BigDecimal amount, int sign) {
+        return Money.toDecimal(Math.addExact(Money.toMinorUnits(total), sign * Money.toMinorUnits(amount)));
+    }
+}
@@ -1,14 +1,16 @@
 package com.presta.Wallet.service;
 
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.presta.Wallet.ServiceSimulator;
 import com.presta.Wallet.config.TransactionMessage;
@@ -21,14 +23,17 @@ import com.presta.Wallet.dto.TransactionResponse;
 import com.presta.Wallet.entity.Wallet;
 import com.presta.Wallet.entity.WalletTransaction;
 import com.presta.Wallet.exception.InsufficientBalanceException;
+import com.presta.Wallet.exception.ProviderUnavailableException;
 import com.presta.Wallet.exception.WalletException;
 import com.presta.Wallet.mapper.WalletTransactionMapper;
+import com.presta.Wallet.metrics.RequestTrace;
+import com.presta.Wallet.money.Money;
 import com.presta.Wallet.repository.WalletTransactionRepository;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,12 +41,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TransactionService {
 
+    private static final int REFUND_ENQUEUE_ATTEMPTS = 3;
+
     private final WalletService walletService;
     private final WalletTransactionRepository transactionRepository;
     private final WalletTransactionMapper transactionMapper;
     private final NotificationService notificationService;
     private final ServiceSimulator serviceSimulator;
+    private final ReversalService reversalService;
+    private final ProviderGateway providerGateway;
+    private final ProviderResultCache providerResultCache;
+    private final WalletConcurrencyService walletConcurrencyService;
+    private final PlatformTransactionManager transactionManager;
 
+    @Timed(value = "wallet.transaction", extraTags = {"operation", "topup"})
     @Transactional
     public TransactionResponse topup(Long walletId, TopupRequest request) {
         log.info("Processing top-up for wallet: {}, amount: {}, reference: {}", 
@@ -51,16 +64,19 @@ public class TransactionService {
         if (transactionRepository.existsByReferenceId(request.getReferenceId())) {
             throw new WalletException("Duplicate transaction reference: " + request.getReferenceId(), "DUPLICATE_TRANSACTION");
         }
+        RequestTrace.mark("duplicate-check");
 
-        // Get my wallet
-        Wallet wallet = walletService.getWalletEntityById(walletId);
+        // Get my wallet, row-locked first if its type is configured for pessimistic locking
+        Wallet wallet = walletConcurrencyService.loadForWrite(walletId);
+        Money amount = Money.of(request.getAmount(), wallet.getCurrency());
         BigDecimal balanceBefore = wallet.getBalance();
+        RequestTrace.mark("wallet-load");
 
         // Create my transaction record
         WalletTransaction transaction = WalletTransaction.builder()
                 .wallet(wallet)
                 .transactionType(WalletTransaction.TransactionType.TOPUP)
-                .amount(request.getAmount())
+                .amount(amount.toBigDecimal())
                 .referenceId(request.getReferenceId())
                 .description(request.getDescription() != null ? request.getDescription() : "Wallet top-up")
                 .status(WalletTransaction.TransactionStatus.PENDING)
@@ -70,22 +86,26 @@ public class TransactionService {
 
         try {
             // Credit my wallet balance
-            wallet.credit(request.getAmount());
+            wallet.credit(amount);
             transaction.setBalanceAfter(wallet.getBalance());
             
         
             WalletTransaction savedTransaction = transactionRepository.save(transaction);
+            RequestTrace.mark("transaction-save");
             walletService.saveWallet(wallet); // We need to add this method
+            RequestTrace.mark("wallet-save");
 
             // done
             savedTransaction.markCompleted();
             savedTransaction = transactionRepository.save(savedTransaction);
+            RequestTrace.mark("transaction-complete");
 
             log.info("Top-up completed successfully for wallet: {}, new balance: {}", 
                     walletId, wallet.getBalance());
 
             // Sending to queue asynchronously
             notificationService.publishTransactionEvent(createTransactionMessage(savedTransaction));
+            RequestTrace.mark("publish");
 
             return transactionMapper.toDTO(savedTransaction);
 
@@ -97,6 +117,7 @@ public class TransactionService {
         }
     }
 
+    @Timed(value = "wallet.transaction", extraTags = {"operation", "consume"})
     @Transactional
     public TransactionResponse consume(Long walletId, ConsumeRequest request) {
         log.info("Processing consumption for wallet: {}, amount: {}, service: {}, reference: {}", 
@@ -106,12 +127,15 @@ public class TransactionService {
         if (transactionRepository.existsByReferenceId(request.getReferenceId())) {
             throw new WalletException("Duplicate transaction reference: " + request.getReferenceId(), "DUPLICATE_TRANSACTION");
         }
+        RequestTrace.mark("duplicate-check");
 
-        Wallet wallet = walletService.getWalletEntityById(walletId);
+        Wallet wallet = walletConcurrencyService.loadForWrite(walletId);
+        Money amount = Money.of(request.getAmount(), wallet.getCurrency());
         BigDecimal balanceBefore = wallet.getBalance();
+        RequestTrace.mark("wallet-load");
 
         // Check sufficient balance
-        if (!wallet.hasSufficientBalance(request.getAmount())) {
+        if (!wallet.hasSufficientBalance(amount)) {
             throw new InsufficientBalanceException(request.getAmount(), wallet.getBalance());
         }
 
@@ -119,7 +143,7 @@ public class TransactionService {
         WalletTransaction transaction = WalletTransaction.builder()
                 .wallet(wallet)
                 .transactionType(WalletTransaction.TransactionType.CONSUMPTION)
-                .amount(request.getAmount())
+                .amount(amount.toBigDecimal())
                 .referenceId(request.getReferenceId())
                 .description(request.getDescription() != null ? request.getDescription() : 
                            "Service consumption: " + request.getServiceType())
@@ -130,22 +154,26 @@ public class TransactionService {
 
         try {
             // Debit wallet balance
-            wallet.debit(request.getAmount());
+            wallet.debit(amount);
             transaction.setBalanceAfter(wallet.getBalance());
             
         
             WalletTransaction savedTransaction = transactionRepository.save(transaction);
+            RequestTrace.mark("transaction-save");
             walletService.saveWallet(wallet);
+            RequestTrace.mark("wallet-save");
 
             // Mark completed
             savedTransaction.markCompleted();
             savedTransaction = transactionRepository.save(savedTransaction);
+            RequestTrace.mark("transaction-complete");
 
             log.info("Consumption completed successfully for wallet: {}, new balance: {}", 
                     walletId, wallet.getBalance());
 
             // Send to queue asynchronously
             notificationService.publishTransactionEvent(createTransactionMessage(savedTransaction));
+            RequestTrace.mark("publish");
 
             return transactionMapper.toDTO(savedTransaction);
 
@@ -157,13 +185,43 @@ public class TransactionService {
         }
     }
 
-    @Transactional
+    /**
+     * Charges the wallet for a provider call and makes the call. The debit commits in its own short
+     * transaction before the provider is called, so the wallet row is never locked, nor a connection
+     * held, for the length of the call; if the call then fails, the charge is refunded through the
+     * reversal queue. The debit alone runs under the wallet's concurrency mode, so a queued wallet's
+     * stripe is not held while the provider answers.
+     */
+    @Timed(value = "wallet.transaction", extraTags = {"operation", "consume-service"})
     public ServiceResponse consumeService(Long walletId, ServiceConsumeRequest request) {
         log.info("Processing service consumption for wallet: {}, service: {}, reference: {}", 
                 walletId, request.getServiceType(), request.getReferenceId());
 
+        if (!serviceSimulator.isServiceEnabled(request.getServiceType())) {
+            throw new ProviderUnavailableException(request.getServiceType() + " service is currently disabled", "SERVICE_DISABLED");
+        }
+
+        Long ownerId = walletService.getWalletEntityById(walletId).getCustomer().getId();
+        String subject = providerSubject(ownerId, request);
+        Optional<ServiceResponse> cached = providerResultCache.getIfFresh(request.getServiceType(), subject);
+        if (cached.isEmpty()) {
+            // Don't charge for a call the provider's open circuit would reject anyway
+            providerGateway.ensureAvailable(request.getServiceType());
+        }
+
         // lets get the service cost
-        BigDecimal serviceCost = serviceSimulator.getServiceCost(request.getServiceType());
+        BigDecimal serviceCost = cached.isPresent()
+                ? providerResultCache.cachedCharge(request.getServiceType(), serviceSimulator.getServiceCost(request.getServiceType()))
+                : serviceSimulator.getServiceCost(request.getServiceType());
+
+        if (cached.isPresent() && serviceCost.signum() == 0) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> recordFreeUse(walletId, request));
+            log.info("Served cached {} result free of charge: wallet: {}, reference: {}",
+                    request.getServiceType(), walletId, request.getReferenceId());
+            ServiceResponse response = cached.get();
+            response.setCost(serviceCost);
+            return response;
+        }
 
         // Create consumption request
         ConsumeRequest consumeRequest = ConsumeRequest.builder()
@@ -175,38 +233,61 @@ public class TransactionService {
                 .build();
 
         try {
-            // Deduct from my wallet first
-            TransactionResponse transaction = consume(walletId, consumeRequest);
-
-            // Call external service
-            ServiceResponse serviceResponse = callExternalService(request);
-
-            log.info("Service consumption completed: wallet: {}, service: {}, status: {}", 
-                    walletId, request.getServiceType(), serviceResponse.getStatus());
-
-            return serviceResponse;
-
+            // Deduct from my wallet first; consume() is called directly, so its transaction comes from here.
+            // Only the debit waits its turn under the wallet's concurrency mode, the provider call below does not
+            walletConcurrencyService.execute(walletId,
+                    () -> new TransactionTemplate(transactionManager).execute(status -> consume(walletId, consumeRequest)));
+            RequestTrace.mark("debit-commit");
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            // Lost the wallet to a concurrent writer, or got no connection, before anything committed; safe to retry as a whole
+            throw e;
         } catch (Exception e) {
             log.error("Service consumption failed: wallet: {}, service: {}", walletId, request.getServiceType(), e);
             throw new WalletException("Service consumption failed: " + e.getMessage());
         }
+
+        ServiceResponse serviceResponse;
+        try {
+            // Call external service, unless a fresh result for this customer is already cached
+            if (cached.isPresent()) {
+                serviceResponse = cached.get();
+                serviceResponse.setCost(serviceCost);
+                RequestTrace.mark("cached-result");
+            } else {
+                serviceResponse = providerResultCache.lookup(request.getServiceType(), subject,
+                        () -> callExternalService(request));
+                RequestTrace.mark("external-service");
+            }
+        } catch (Exception e) {
+            // The debit has committed and no result came back: refund it like a rejected call
+            log.error("Service call failed after charging: wallet: {}, service: {}", walletId, request.getServiceType(), e);
+            throw new WalletException("Service consumption failed: " + e.getMessage() + "; " + queueRefund(walletId, request));
+        }
+
+        // The provider rejected the call after we charged for it: queue a refund for the debit
+        if ("FAILED".equals(serviceResponse.getStatus())) {
+            serviceResponse.setMessage(serviceResponse.getMessage() + "; " + queueRefund(walletId, request));
+        }
+
+        log.info("Service consumption completed: wallet: {}, service: {}, status: {}", 
+                walletId, request.getServiceType(), serviceResponse.getStatus());
+
+        return serviceResponse;
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getTransactionHistory(Long walletId, TransactionHistoryRequest request) {
         log.info("Fetching transaction history for wallet: {}", walletId);
 
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), 
-                Sort.by(Sort.Direction.DESC, "createdAt"));
-
-        List<WalletTransaction> transactions;
+        List<WalletTransactionRepository.TransactionView> transactions;
 
         if (request.getStartDate() != null && request.getEndDate() != null) {
-            transactions = transactionRepository.findByWalletIdAndDateRange(
+            transactions = transactionRepository.findViewsByWalletIdAndDateRange(
                     walletId, request.getStartDate(), request.getEndDate());
         } else {
-            Page<WalletTransaction> page = transactionRepository.findByWalletIdOrderByCreatedAtDesc(walletId, pageable);
-            transactions = page.getContent();
+            // The API returns a plain list, so skip the count query a Page would run
+            transactions = transactionRepository.findViewsByWalletId(walletId,
+                    PageRequest.of(request.getPage(), request.getSize()));
         }
 
         return transactions.stream()
@@ -218,49 +299,88 @@ public class TransactionService {
     public TransactionResponse getTransactionByReference(String referenceId) {
         log.info("Fetching transaction by reference: {}", referenceId);
 
-        WalletTransaction transaction = transactionRepository.findByReferenceId(referenceId)
+        WalletTransactionRepository.TransactionView transaction = transactionRepository.findViewByReferenceId(referenceId)
                 .orElseThrow(() -> new WalletException("Transaction not found with reference: " + referenceId, 
                                                       "TRANSACTION_NOT_FOUND"));
 
         return transactionMapper.toDTO(transaction);
     }
 
+    // The debit has already committed, so a failure here must neither escape nor hide the provider's
+    // error: the enqueue commits on its own and is retried, and a refund that still cannot be queued
+    // is logged with its reference for a manual reversal
+    private String queueRefund(Long walletId, ServiceConsumeRequest request) {
+        String reason = "Refund for failed " + request.getServiceType() + " call";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                reversalService.enqueue(request.getReferenceId(), reason);
+                return "the charge will be refunded";
+            } catch (RuntimeException e) {
+                if (attempt >= REFUND_ENQUEUE_ATTEMPTS) {
+                    log.error("Could not queue refund after {} attempts, reverse it manually: wallet: {}, reference: {}",
+                            attempt, walletId, request.getReferenceId(), e);
+                    return "the refund could not be queued, quote reference " + request.getReferenceId() + " to support";
+                }
+                log.warn("Queueing refund failed on attempt {} of {}: reference: {}: {}",
+                        attempt, REFUND_ENQUEUE_ATTEMPTS, request.getReferenceId(), e.getMessage());
+            }
+        }
+    }
+
+    // The identity each provider is queried with, which is also what its results are cached under
+    // Cached results are scoped to the wallet owner, so one customer's paid lookup is never served to
+    // another's wallet, and to the phone number the provider was asked about
+    private String providerSubject(Long ownerId, ServiceConsumeRequest request) {
+        String subject = "CRB".equalsIgnoreCase(request.getServiceType()) ? request.getCustomerId() : request.getNationalId();
+        if (subject == null || subject.isBlank()) {
+            return null;
+        }
+        return ownerId + ":" + subject + ":" + Objects.toString(request.getPhoneNumber(), "");
+    }
+
+    // A cached result billed at nothing still claims its reference and gets a ledger entry, like a charged one
+    private void recordFreeUse(Long walletId, ServiceConsumeRequest request) {
+        if (transactionRepository.existsByReferenceId(request.getReferenceId())) {
+            throw new WalletException("Duplicate transaction reference: " + request.getReferenceId(), "DUPLICATE_TRANSACTION");
+        }
+        Wallet wallet = walletService.getWalletEntityById(walletId);
+        WalletTransaction transaction = WalletTransaction.builder()
+                .wallet(wallet)
+                .transactionType(WalletTransaction.TransactionType.CONSUMPTION)
+                .amount(Money.toDecimal(0))
+                .referenceId(request.getReferenceId())
+                .description("Service consumption: " + request.getServiceType() + " (cached result)")
+                .status(WalletTransaction.TransactionStatus.PENDING)
+                .balanceBefore(wallet.getBalance())
+                .balanceAfter(wallet.getBalance())
+                .serviceType(request.getServiceType())
+                .build();
+        transaction.markCompleted();
+        WalletTransaction saved = transactionRepository.save(transaction);
+        notificationService.publishTransactionEvent(createTransactionMessage(saved));
+    }
+
     private ServiceResponse callExternalService(ServiceConsumeRequest request) {
-        return switch (request.getServiceType().toUpperCase()) {
-            case "CRB" -> serviceSimulator.callCRBService(
+        String serviceType = request.getServiceType().toUpperCase();
+        return switch (serviceType) {
+            case "CRB" -> providerGateway.call(serviceType, () -> serviceSimulator.callCRBService(
                     request.getCustomerId(), 
                     request.getPhoneNumber(), 
-                    request.getReferenceId());
-            case "KYC" -> serviceSimulator.callKYCService(
+                    request.getReferenceId()));
+            case "KYC" -> providerGateway.call(serviceType, () -> serviceSimulator.callKYCService(
                     request.getNationalId(), 
                     request.getPhoneNumber(), 
-                    request.getReferenceId());
-            case "CREDIT_SCORING" -> serviceSimulator.callCreditScoringService(
+                    request.getReferenceId()));
+            case "CREDIT_SCORING" -> providerGateway.call(serviceType, () -> serviceSimulator.callCreditScoringService(
                     request.getNationalId(), 
                     request.getPhoneNumber(), 
-                    request.getReferenceId());
+                    request.getReferenceId()));
             default -> throw new WalletException("Unknown service type: " + request.getServiceType(), 
                                                 "UNKNOWN_SERVICE_TYPE");
         };
     }
 
     private TransactionMessage createTransactionMessage(WalletTransaction transaction) {
-        return TransactionMessage.builder()
-                .transactionId(transaction.getId())
-                .walletId(transaction.getWallet().getId())
-                .customerId(transaction.getWallet().getCustomer().getId())
-                .transactionType(transaction.getTransactionType().name())
-                .amount(transaction.getAmount())
-                .referenceId(transaction.getReferenceId())
-                .serviceType(transaction.getServiceType())
-                .status(transaction.getStatus().name())
-                .balanceBefore(transaction.getBalanceBefore())
-                .balanceAfter(transaction.getBalanceAfter())
-                .timestamp(transaction.getCreatedAt())
-                .description(transaction.getDescription())
-                .messageId(UUID.randomUUID().toString())
-                .retryCount(0)
-                .createdAt(LocalDateTime.now())
-                .build();
+        return transactionMapper.toMessage(transaction, transaction.getWallet().getCustomer().getId());
     }
 }
\ No newline at end of file
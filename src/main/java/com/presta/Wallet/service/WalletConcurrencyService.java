@@ -0,0 +1,179 @@
+package com.presta.Wallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.presta.Wallet.config.WalletConcurrencyProperties;
+import com.presta.Wallet.config.WalletConcurrencyProperties.Mode;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.exception.WalletNotFoundException;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.WalletRepository;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Applies the concurrency mode configured for a wallet's type to balance-changing requests.
+ * {@link #execute} wraps the whole transactional operation, so it can queue the request before the
+ * transaction starts and retry it in a fresh one after a version conflict; {@link #loadForWrite}
+ * is called inside the transaction and takes the row lock when the mode is pessimistic.
+ */
+@Slf4j
+@Service
+public class WalletConcurrencyService {
+
+    public static final String OUTCOME_COMMITTED = "committed";
+    public static final String OUTCOME_CONFLICT = "conflict";
+    public static final String OUTCOME_LOCK_TIMEOUT = "lock_timeout";
+
+    private static final String UNKNOWN_TYPE = "UNKNOWN";
+
+    private final WalletConcurrencyProperties properties;
+    private final WalletRepository walletRepository;
+    private final WalletMetrics walletMetrics;
+    private final ReentrantLock[] stripes;
+
+    // A wallet's type is fixed at creation, so it is safe to remember
+    private final Cache<Long, Wallet.WalletType> walletTypes = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    public WalletConcurrencyService(WalletConcurrencyProperties properties, WalletRepository walletRepository,
+                                    WalletMetrics walletMetrics) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.walletMetrics = walletMetrics;
+        this.stripes = new ReentrantLock[Math.max(1, properties.getQueueStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    /**
+     * Runs a balance-changing operation on the wallet under its type's mode. The operation must open
+     * its own transaction; when called inside one already, it runs once, unqueued.
+     */
+    public <T> T execute(Long walletId, Supplier<T> operation) {
+        Wallet.WalletType walletType = walletType(walletId);
+        Mode mode = properties.modeFor(walletType);
+        String typeTag = typeTag(walletType);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+
+        ReentrantLock stripe = mode == Mode.QUEUED ? stripes[Math.floorMod(walletId.hashCode(), stripes.length)] : null;
+        if (stripe != null) {
+            awaitTurn(walletId, stripe, typeTag, mode);
+        }
+        try {
+            return withRetry(operation, typeTag, mode);
+        } finally {
+            if (stripe != null) {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads the wallet a balance change is about to modify, taking its row lock first under
+     * {@link Mode#PESSIMISTIC}.
+     */
+    public Wallet loadForWrite(Long walletId) {
+        Wallet.WalletType walletType = walletType(walletId);
+        Mode mode = properties.modeFor(walletType);
+        if (mode != Mode.PESSIMISTIC) {
+            return walletRepository.findById(walletId).orElseThrow(() -> new WalletNotFoundException(walletId));
+        }
+
+        Timer.Sample sample = walletMetrics.startTimer();
+        try {
+            return walletRepository.findByIdForUpdate(walletId).orElseThrow(() -> new WalletNotFoundException(walletId));
+        } finally {
+            walletMetrics.recordWalletLockWait(typeTag(walletType), mode.name(), sample);
+        }
+    }
+
+    /** Whether the wallet's type hands its top-ups and consumes to {@link WalletShardService}. */
+    public boolean isSharded(Long walletId) {
+        return properties.modeFor(walletType(walletId)) == Mode.SHARDED;
+    }
+
+    private <T> T withRetry(Supplier<T> operation, String typeTag, Mode mode) {
+        int maxAttempts = Math.max(1, properties.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = operation.get();
+                walletMetrics.recordWalletWrite(typeTag, mode.name(), OUTCOME_COMMITTED, attempt);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                walletMetrics.recordWalletConflict(typeTag, mode.name());
+                if (attempt >= maxAttempts) {
+                    walletMetrics.recordWalletWrite(typeTag, mode.name(), OUTCOME_CONFLICT, attempt);
+                    throw e;
+                }
+                log.debug("Version conflict on attempt {} of {}, retrying", attempt, maxAttempts);
+                backOff(attempt);
+            } catch (PessimisticLockingFailureException e) {
+                walletMetrics.recordWalletWrite(typeTag, mode.name(), OUTCOME_LOCK_TIMEOUT, attempt);
+                throw e;
+            }
+        }
+    }
+
+    private void awaitTurn(Long walletId, ReentrantLock stripe, String typeTag, Mode mode) {
+        Timer.Sample sample = walletMetrics.startTimer();
+        boolean acquired;
+        try {
+            acquired = stripe.tryLock(properties.getQueueWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        walletMetrics.recordWalletLockWait(typeTag, mode.name(), sample);
+        if (!acquired) {
+            walletMetrics.recordWalletWrite(typeTag, mode.name(), OUTCOME_LOCK_TIMEOUT, 0);
+            throw new CannotAcquireLockException("Wallet " + walletId + " is busy, please retry");
+        }
+    }
+
+    // Spread retries out so requests that collided once do not collide again in lockstep
+    private void backOff(int attempt) {
+        long base = properties.getBackoffMs() * attempt;
+        if (base <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a wallet update", e);
+        }
+    }
+
+    private static String typeTag(Wallet.WalletType walletType) {
+        return walletType != null ? walletType.name() : UNKNOWN_TYPE;
+    }
+
+    private Wallet.WalletType walletType(Long walletId) {
+        Wallet.WalletType cached = walletTypes.getIfPresent(walletId);
+        if (cached != null) {
+            return cached;
+        }
+        // Unknown wallets are not remembered; the operation itself reports them as not found
+        Wallet.WalletType walletType = walletRepository.findWalletTypeById(walletId).orElse(null);
+        if (walletType != null) {
+            walletTypes.put(walletId, walletType);
+        }
+        return walletType;
+    }
+}
@@ -53,7 +53,8 @@ public class WalletService {
     public WalletDTO getWalletById(Long walletId) {
         log.info("Fetching wallet with ID: {}", walletId);
         
-        Wallet wallet = getWalletEntityById(walletId);
+        Wallet wallet = walletRepository.findWithCustomerById(walletId)
+                .orElseThrow(() -> new WalletNotFoundException(walletId));
         return walletMapper.toDTO(wallet);
     }
 
@@ -99,7 +100,7 @@ public class WalletService {
     public List<WalletDTO> getAllWallets() {
         log.info("Fetching all wallets");
         
-        return walletRepository.findAll().stream()
+        return walletRepository.findAllWithCustomer().stream()
                 .map(walletMapper::toDTO)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,365 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.config.WalletConcurrencyProperties;
+import com.presta.Wallet.dto.ConsumeRequest;
+import com.presta.Wallet.dto.TopupRequest;
+import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.exception.InsufficientBalanceException;
+import com.presta.Wallet.exception.TransactionPendingException;
+import com.presta.Wallet.exception.WalletException;
+import com.presta.Wallet.exception.WalletNotFoundException;
+import com.presta.Wallet.mapper.WalletTransactionMapper;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.money.Money;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Single-writer execution for wallets whose type uses {@link WalletConcurrencyProperties.Mode#SHARDED}.
+ * Every wallet id hashes to one of N shards, each a queue drained by one thread, so a wallet's top-ups
+ * and consumes are applied strictly in arrival order without any lock contention between them.
+ * <p>
+ * A shard keeps the balances of its wallets in memory and applies up to {@code batch-size} queued
+ * commands per database transaction: one duplicate-reference query, the transaction inserts, and one
+ * version-checked balance write per wallet. If another writer (a reversal, a service consumption,
+ * another instance) changed a wallet in the meantime, that write matches no row; the shard drops its
+ * cached balances and re-applies the commands one at a time against fresh rows.
+ */
+@Slf4j
+@Service
+public class WalletShardService {
+
+    public static final String BATCH_COMMITTED = "committed";
+    public static final String BATCH_SPLIT = "split";
+
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository transactionRepository;
+    private final WalletTransactionMapper transactionMapper;
+    private final NotificationService notificationService;
+    private final WalletMetrics walletMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletConcurrencyProperties.Shards settings;
+    private final Shard[] shards;
+
+    public WalletShardService(WalletConcurrencyProperties properties, WalletRepository walletRepository,
+                              WalletTransactionRepository transactionRepository, WalletTransactionMapper transactionMapper,
+                              NotificationService notificationService, WalletMetrics walletMetrics,
+                              PlatformTransactionManager transactionManager) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.notificationService = notificationService;
+        this.walletMetrics = walletMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = properties.getShards();
+
+        // Workers only exist when some wallet type is actually sharded
+        int count = !properties.uses(WalletConcurrencyProperties.Mode.SHARDED) ? 0
+                : settings.getCount() > 0 ? settings.getCount() : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i, Math.max(1, settings.getCachedWallets() / count));
+            shards[i].thread.start();
+        }
+        walletMetrics.registerShardQueue(() -> {
+            int queued = 0;
+            for (Shard shard : shards) {
+                queued += shard.queue.size();
+            }
+            return queued;
+        });
+    }
+
+    public TransactionResponse topup(Long walletId, TopupRequest request) {
+        return submit(new Command(walletId, WalletTransaction.TransactionType.TOPUP, request.getAmount(),
+                request.getReferenceId(),
+                request.getDescription() != null ? request.getDescription() : "Wallet top-up",
+                request.getSource()));
+    }
+
+    public TransactionResponse consume(Long walletId, ConsumeRequest request) {
+        return submit(new Command(walletId, WalletTransaction.TransactionType.CONSUMPTION, request.getAmount(),
+                request.getReferenceId(),
+                request.getDescription() != null ? request.getDescription() : "Service consumption: " + request.getServiceType(),
+                request.getServiceType()));
+    }
+
+    private TransactionResponse submit(Command command) {
+        if (shards.length == 0) {
+            throw new IllegalStateException("No wallet type is configured for SHARDED execution");
+        }
+        Shard shard = shards[Math.floorMod(Long.hashCode(command.walletId), shards.length)];
+        if (!shard.queue.offer(command)) {
+            throw new CannotAcquireLockException("Wallet shard " + shard.index + " is full, please retry");
+        }
+        try {
+            return command.result.get(settings.getResponseTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Still queued or being applied: it may yet commit, so the caller must not treat it as failed
+            throw new TransactionPendingException(command.referenceId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WalletException("Interrupted while waiting for transaction " + command.referenceId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new WalletException("Transaction " + command.referenceId + " failed: " + e.getCause().getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+    }
+
+    private record Command(Long walletId, WalletTransaction.TransactionType type, BigDecimal amount,
+                           String referenceId, String description, String serviceType,
+                           CompletableFuture<TransactionResponse> result) {
+        Command(Long walletId, WalletTransaction.TransactionType type, BigDecimal amount, String referenceId,
+                String description, String serviceType) {
+            this(walletId, type, amount, referenceId, description, serviceType, new CompletableFuture<>());
+        }
+    }
+
+    // What the shard knows about a wallet between batches; version is the row version its balance was read at
+    private record WalletState(Long walletId, Long customerId, String walletType, String currency,
+                               long balanceMinorUnits, long version) {
+        WalletState withBalance(long minorUnits) {
+            return new WalletState(walletId, customerId, walletType, currency, minorUnits, version);
+        }
+    }
+
+    private record Applied(Command command, TransactionResponse response, RuntimeException failure) {
+    }
+
+    private final class Shard {
+        private final int index;
+        private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        private final Map<Long, WalletState> wallets;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Shard(int index, int cachedWallets) {
+            this.index = index;
+            this.wallets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, WalletState> eldest) {
+                    return size() > cachedWallets;
+                }
+            };
+            this.thread = new Thread(this::run, "wallet-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            List<Command> batch = new ArrayList<>();
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, Math.max(1, settings.getBatchSize()) - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Wallet shard {} failed a batch of {}", index, batch.size(), e);
+                    batch.forEach(command -> command.result.completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+            queue.forEach(command -> command.result.completeExceptionally(
+                    new WalletException("Wallet shard " + index + " stopped before applying " + command.referenceId)));
+        }
+
+        private void process(List<Command> batch) {
+            try {
+                complete(applyInTransaction(batch), BATCH_COMMITTED);
+            } catch (RuntimeException e) {
+                // Something in the batch clashed with another writer; retry each command on its own against fresh rows
+                batch.forEach(command -> wallets.remove(command.walletId));
+                walletMetrics.recordShardBatch(BATCH_SPLIT, batch.size());
+                log.debug("Wallet shard {} re-applying {} commands singly: {}", index, batch.size(), e.getMessage());
+                for (Command command : batch) {
+                    try {
+                        complete(applyInTransaction(List.of(command)), BATCH_COMMITTED);
+                    } catch (RuntimeException single) {
+                        wallets.remove(command.walletId);
+                        if (single instanceof OptimisticLockingFailureException) {
+                            walletMetrics.recordWalletWrite(typeOf(command), WalletConcurrencyProperties.Mode.SHARDED.name(),
+                                    WalletConcurrencyService.OUTCOME_CONFLICT, 1);
+                        }
+                        command.result.completeExceptionally(single);
+                    }
+                }
+            }
+        }
+
+        private List<Applied> applyInTransaction(List<Command> batch) {
+            Map<Long, WalletState> working = new HashMap<>();
+            Set<Long> written = new HashSet<>();
+            List<TransactionMessage> events = new ArrayList<>();
+            List<Applied> applied = transactionTemplate.execute(status -> apply(batch, working, written, events));
+            // Published only once committed, so a batch that rolls back and is re-applied is announced once.
+            // Not from an afterCommit callback: the stream listeners register callbacks of their own, and
+            // those would be registered too late to run
+            events.forEach(notificationService::publishTransactionEvent);
+            // Committed: the balances written are now the ones this shard owns
+            working.values().forEach(state -> wallets.put(state.walletId(), written.contains(state.walletId())
+                    ? new WalletState(state.walletId(), state.customerId(), state.walletType(), state.currency(),
+                            state.balanceMinorUnits(), state.version() + 1)
+                    : state));
+            return applied;
+        }
+
+        private List<Applied> apply(List<Command> batch, Map<Long, WalletState> working, Set<Long> written,
+                                    List<TransactionMessage> events) {
+            Set<String> seen = new HashSet<>(transactionRepository.findExistingReferenceIds(
+                    batch.stream().map(Command::referenceId).collect(Collectors.toSet())));
+            List<Applied> results = new ArrayList<>(batch.size());
+            List<WalletTransaction> transactions = new ArrayList<>();
+            List<Command> accepted = new ArrayList<>();
+            Set<Long> verified = new HashSet<>();
+
+            for (Command command : batch) {
+                if (!seen.add(command.referenceId)) {
+                    results.add(new Applied(command, null, new WalletException(
+                            "Duplicate transaction reference: " + command.referenceId, "DUPLICATE_TRANSACTION")));
+                    continue;
+                }
+                WalletState state = working.computeIfAbsent(command.walletId, this::load);
+                if (state == null) {
+                    working.remove(command.walletId);
+                    results.add(new Applied(command, null, new WalletNotFoundException(command.walletId)));
+                    continue;
+                }
+                Money amount = Money.of(command.amount, state.currency());
+                if (!amount.isPositive()) {
+                    results.add(new Applied(command, null, new WalletException("Amount must be positive", "INVALID_AMOUNT")));
+                    continue;
+                }
+                Money before = new Money(state.balanceMinorUnits(), state.currency());
+                if (command.type == WalletTransaction.TransactionType.CONSUMPTION && before.isLessThan(amount)) {
+                    if (verified.add(command.walletId)) {
+                        checkUnchanged(command.walletId);
+                    }
+                    results.add(new Applied(command, null,
+                            new InsufficientBalanceException(command.amount, before.toBigDecimal())));
+                    continue;
+                }
+                Money after = command.type == WalletTransaction.TransactionType.TOPUP ? before.plus(amount) : before.minus(amount);
+                working.put(command.walletId, state.withBalance(after.minorUnits()));
+                written.add(command.walletId);
+
+                WalletTransaction transaction = WalletTransaction.builder()
+                        .wallet(walletRepository.getReferenceById(command.walletId))
+                        .transactionType(command.type)
+                        .amount(amount.toBigDecimal())
+                        .referenceId(command.referenceId)
+                        .description(command.description)
+                        .status(WalletTransaction.TransactionStatus.PENDING)
+                        .balanceBefore(before.toBigDecimal())
+                        .balanceAfter(after.toBigDecimal())
+                        .serviceType(command.serviceType)
+                        .build();
+                transaction.markCompleted();
+                transactions.add(transaction);
+                accepted.add(command);
+            }
+
+            transactionRepository.saveAll(transactions);
+            LocalDateTime now = LocalDateTime.now();
+            for (Long walletId : written) {
+                WalletState state = working.get(walletId);
+                if (walletRepository.writeBalance(state.walletId(), Money.toDecimal(state.balanceMinorUnits()),
+                        state.version(), now) == 0) {
+                    throw new OptimisticLockingFailureException("Wallet " + state.walletId() + " changed outside its shard");
+                }
+            }
+
+            for (int i = 0; i < transactions.size(); i++) {
+                WalletTransaction transaction = transactions.get(i);
+                Command command = accepted.get(i);
+                events.add(transactionMapper.toMessage(transaction, working.get(command.walletId).customerId()));
+                results.add(new Applied(command, transactionMapper.toDTO(transaction), null));
+            }
+            return results;
+        }
+
+        /*
+         * A cached balance misses credits made outside the shard (reversal refunds, another instance) until a
+         * write trips over the version, so check the row before refusing a debit on it. If it moved on, the
+         * batch rolls back and is re-applied command by command against fresh rows.
+         */
+        private void checkUnchanged(Long walletId) {
+            WalletState cached = wallets.get(walletId);
+            if (cached != null && walletRepository.findVersionById(walletId)
+                    .filter(version -> version != cached.version()).isPresent()) {
+                throw new OptimisticLockingFailureException("Wallet " + walletId + " changed outside its shard");
+            }
+        }
+
+        // Cached balance if this shard has one, otherwise the row as committed
+        private WalletState load(Long walletId) {
+            WalletState cached = wallets.get(walletId);
+            if (cached != null) {
+                return cached;
+            }
+            return walletRepository.findById(walletId)
+                    .map(wallet -> new WalletState(wallet.getId(), wallet.getCustomer().getId(),
+                            wallet.getWalletType().name(), wallet.getCurrency(), wallet.getBalanceMinorUnits(),
+                            wallet.getVersion() != null ? wallet.getVersion() : 0L))
+                    .orElse(null);
+        }
+
+        private void complete(List<Applied> applied, String outcome) {
+            walletMetrics.recordShardBatch(outcome, applied.size());
+            for (Applied result : applied) {
+                if (result.failure() != null) {
+                    result.command().result.completeExceptionally(result.failure());
+                } else {
+                    walletMetrics.recordWalletWrite(typeOf(result.command()), WalletConcurrencyProperties.Mode.SHARDED.name(),
+                            WalletConcurrencyService.OUTCOME_COMMITTED, 1);
+                    result.command().result.complete(result.response());
+                }
+            }
+        }
+
+        private String typeOf(Command command) {
+            WalletState state = wallets.get(command.walletId);
+            return state != null ? state.walletType() : Wallet.WalletType.CREDITS.name();
+        }
+    }
+}
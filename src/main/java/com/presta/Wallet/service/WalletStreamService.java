@@ -0,0 +1,305 @@
+package com.presta.Wallet.service;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.dto.BalanceResponse;
+import com.presta.Wallet.dto.WalletStreamEvent;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes balance and transaction updates to clients subscribed to a wallet over server-sent events.
+ * Subscriptions are async servlet requests, so an idle connection holds no thread. Publishers only
+ * append to a bounded per-subscriber buffer; a small dispatcher pool writes to the sockets, so a slow
+ * client never delays a transaction. A subscriber whose buffer overflows loses its queued events and
+ * gets a {@code resync} event telling it to fetch the balance once instead.
+ * <p>
+ * With {@code wallet.stream.fanout.enabled}, events go through a RabbitMQ fanout exchange so every
+ * instance sees every wallet's events; otherwise each instance streams the events committed on it.
+ */
+@Slf4j
+@Service
+public class WalletStreamService {
+
+    public static final String EVENT_BALANCE = "balance";
+    public static final String EVENT_TRANSACTION = "transaction";
+    public static final String EVENT_RESYNC = "resync";
+
+    public static final String OUTCOME_SENT = "sent";
+    public static final String OUTCOME_DROPPED = "dropped";
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private final WalletMetrics walletMetrics;
+    private final RabbitTemplate rabbitTemplate;
+    private final boolean enabled;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final boolean fanoutEnabled;
+    private final String fanoutExchange;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService dispatcher;
+
+    public WalletStreamService(WalletMetrics walletMetrics, RabbitTemplate rabbitTemplate,
+                               @Value("${wallet.stream.enabled:true}") boolean enabled,
+                               @Value("${wallet.stream.max-subscribers:20000}") int maxSubscribers,
+                               @Value("${wallet.stream.buffer-size:64}") int bufferSize,
+                               @Value("${wallet.stream.dispatch-threads:4}") int dispatchThreads,
+                               @Value("${wallet.stream.timeout-minutes:30}") long timeoutMinutes,
+                               @Value("${wallet.stream.fanout.enabled:false}") boolean fanoutEnabled,
+                               @Value("${wallet.stream.fanout.exchange:wallet.events}") String fanoutExchange) {
+        this.walletMetrics = walletMetrics;
+        this.rabbitTemplate = rabbitTemplate;
+        this.enabled = enabled;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = Duration.ofMinutes(timeoutMinutes).toMillis();
+        this.fanoutEnabled = fanoutEnabled;
+        this.fanoutExchange = fanoutExchange;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), runnable -> {
+            Thread thread = new Thread(runnable, "wallet-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        walletMetrics.registerStreamSubscribers(subscriberCount::get);
+    }
+
+    /**
+     * Opens a stream for one wallet, starting with its current balance. Empty when the subscriber
+     * limit is reached.
+     */
+    public Optional<SseEmitter> subscribe(BalanceResponse balance) {
+        if (!enabled || !reserveSlot()) {
+            walletMetrics.recordStreamEvents(OUTCOME_REJECTED, 1);
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(balance.getWalletId(), emitter);
+        subscribers.computeIfAbsent(balance.getWalletId(), id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        subscriber.offer(SseEmitter.event().name(EVENT_BALANCE).data(WalletStreamEvent.builder()
+                .walletId(balance.getWalletId())
+                .balance(balance.getBalance())
+                .status(balance.getStatus())
+                .timestamp(LocalDateTime.now())
+                .build()));
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Counts a new subscriber only if it fits under the limit, so the count (and the gauge reading it)
+     * only ever holds accepted subscriptions; {@link Subscriber#close} gives the slot back.
+     */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = subscriberCount.get();
+            if (current >= maxSubscribers) {
+                return false;
+            }
+        } while (!subscriberCount.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Streams a transaction event to the wallet's subscribers once the surrounding transaction commits.
+     */
+    public void publish(TransactionMessage message) {
+        if (!enabled || message.getWalletId() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    route(message);
+                }
+            });
+        } else {
+            route(message);
+        }
+    }
+
+    private void route(TransactionMessage message) {
+        if (!fanoutEnabled) {
+            deliver(message);
+            return;
+        }
+        try {
+            rabbitTemplate.convertAndSend(fanoutExchange, "", message);
+        } catch (Exception e) {
+            // Local subscribers still hear about it; other instances' clients resync on their next balance read
+            log.warn("Failed to fan out wallet event for wallet {}: {}", message.getWalletId(), e.getMessage());
+            deliver(message);
+        }
+    }
+
+    /**
+     * Hands an event to this instance's subscribers for the wallet. Never blocks on a client.
+     */
+    public void deliver(TransactionMessage message) {
+        Set<Subscriber> walletSubscribers = subscribers.get(message.getWalletId());
+        if (walletSubscribers == null || walletSubscribers.isEmpty()) {
+            return;
+        }
+        WalletStreamEvent event = WalletStreamEvent.builder()
+                .walletId(message.getWalletId())
+                .transactionId(message.getTransactionId())
+                .transactionType(message.getTransactionType())
+                .status(message.getStatus())
+                .amount(message.getAmount())
+                .referenceId(message.getReferenceId())
+                .serviceType(message.getServiceType())
+                .balance(message.getBalanceAfter())
+                .timestamp(message.getTimestamp())
+                .build();
+        for (Subscriber subscriber : walletSubscribers) {
+            subscriber.offer(SseEmitter.event().name(EVENT_TRANSACTION).id(String.valueOf(message.getTransactionId()))
+                    .data(event));
+        }
+    }
+
+    // Idle proxies and load balancers close silent connections; a comment keeps them open and finds dead clients
+    @Scheduled(fixedDelayString = "${wallet.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(walletSubscribers -> walletSubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(walletSubscribers -> walletSubscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }));
+    }
+
+    private final class Subscriber {
+        private final Long walletId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private boolean lagged;
+
+        Subscriber(Long walletId, SseEmitter emitter) {
+            this.walletId = walletId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    walletMetrics.recordStreamEvents(OUTCOME_DROPPED, buffer.size());
+                    buffer.clear();
+                    lagged = true;
+                }
+                buffer.add(event);
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            synchronized (buffer) {
+                if (!buffer.isEmpty()) {
+                    return;
+                }
+                buffer.add(SseEmitter.event().comment("keepalive"));
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void flush() {
+            try {
+                while (!closed.get()) {
+                    SseEmitter.SseEventBuilder next;
+                    boolean resync;
+                    synchronized (buffer) {
+                        next = buffer.poll();
+                        resync = lagged;
+                        lagged = false;
+                    }
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name(EVENT_RESYNC).data(
+                                WalletStreamEvent.builder().walletId(walletId).timestamp(LocalDateTime.now()).build()));
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    emitter.send(next);
+                    walletMetrics.recordStreamEvents(OUTCOME_SENT, 1);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            boolean pending;
+            synchronized (buffer) {
+                pending = !buffer.isEmpty();
+            }
+            if (pending && !closed.get()) {
+                schedule();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                Set<Subscriber> walletSubscribers = subscribers.get(walletId);
+                if (walletSubscribers != null) {
+                    walletSubscribers.remove(this);
+                    subscribers.computeIfPresent(walletId, (id, set) -> set.isEmpty() ? null : set);
+                }
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+-- Converts wallet_transactions (by created_at) and external_transactions (by transaction_date) into
+-- range-partitioned tables. PostgreSQL 13 or later; run once, before enabling wallet.partitioning.
+--
+-- This is a manual DBA script, not part of db.changelog-master.xml: the service does not run any
+-- migration tool, and Hibernate (ddl-auto: update) owns the rest of the schema. Run it during a
+-- maintenance window with the service stopped:
+--
+--     psql -v ON_ERROR_STOP=1 -d walletdb -f 005-partition-transaction-tables.sql
+--
+-- Hibernate keeps re-applying the entities' unique constraints on startup. The two it cannot add to
+-- a partitioned table (reference_id, and provider_name + external_transaction_id) fail quietly;
+-- their partition-safe replacements below are a trigger and a unique index, which Hibernate's
+-- constraint updates leave alone.
+--
+-- Existing rows are not copied: each old table is renamed to *_legacy and attached as the partition
+-- for everything before the start of next month. PartitionMaintenanceService creates the partitions
+-- from then on, and archives the legacy partition once it falls out of retention like any other.
+
+BEGIN;
+
+-- ---------------------------------------------------------------------------
+-- wallet_transactions
+-- ---------------------------------------------------------------------------
+ALTER TABLE wallet_transactions RENAME TO wallet_transactions_legacy;
+ALTER TABLE wallet_transactions_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE wallet_transactions_legacy ALTER COLUMN created_at SET NOT NULL;
+
+-- Free the index names for the partitioned parent; creating the parent's indexes below attaches
+-- these instead of building new ones on the legacy partition
+ALTER INDEX IF EXISTS idx_wallet_id RENAME TO idx_wallet_id_legacy;
+ALTER INDEX IF EXISTS idx_reference_id RENAME TO idx_reference_id_legacy;
+ALTER INDEX IF EXISTS idx_transaction_type RENAME TO idx_transaction_type_legacy;
+ALTER INDEX IF EXISTS idx_created_at RENAME TO idx_created_at_legacy;
+ALTER INDEX IF EXISTS idx_wallet_txn_wallet_id_id RENAME TO idx_wallet_txn_wallet_id_id_legacy;
+
+CREATE SEQUENCE wallet_transactions_id_seq;
+SELECT setval('wallet_transactions_id_seq', COALESCE((SELECT MAX(id) FROM wallet_transactions_legacy), 0) + 1, false);
+
+CREATE TABLE wallet_transactions (LIKE wallet_transactions_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE wallet_transactions ALTER COLUMN id SET DEFAULT nextval('wallet_transactions_id_seq');
+ALTER SEQUENCE wallet_transactions_id_seq OWNED BY wallet_transactions.id;
+-- A partitioned table's keys must include the partition column
+ALTER TABLE wallet_transactions ADD PRIMARY KEY (id, created_at);
+ALTER TABLE wallet_transactions ADD CONSTRAINT fk_wallet_transactions_wallet
+    FOREIGN KEY (wallet_id) REFERENCES wallets (id);
+
+-- reference_id stays unique across all partitions, live or archived: every insert claims its
+-- reference here first, so a duplicate still fails with a unique violation. The table may already
+-- exist and hold the references of archived rows
+CREATE TABLE IF NOT EXISTS wallet_transaction_references (
+    reference_id VARCHAR(255) PRIMARY KEY
+);
+INSERT INTO wallet_transaction_references (reference_id)
+    SELECT reference_id FROM wallet_transactions_legacy
+ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION claim_wallet_transaction_reference()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO wallet_transaction_references (reference_id) VALUES (NEW.reference_id);
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER claim_wallet_transaction_reference
+    BEFORE INSERT ON wallet_transactions
+    FOR EACH ROW
+    EXECUTE FUNCTION claim_wallet_transaction_reference();
+
+-- ---------------------------------------------------------------------------
+-- external_transactions
+-- ---------------------------------------------------------------------------
+ALTER TABLE external_transactions RENAME TO external_transactions_legacy;
+ALTER TABLE external_transactions_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER INDEX IF EXISTS idx_external_transaction_id RENAME TO idx_external_transaction_id_legacy;
+ALTER INDEX IF EXISTS idx_external_transaction_date RENAME TO idx_external_transaction_date_legacy;
+ALTER INDEX IF EXISTS idx_external_reference_id RENAME TO idx_external_reference_id_legacy;
+ALTER INDEX IF EXISTS idx_external_provider_txn RENAME TO idx_external_provider_txn_legacy;
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_external_provider_txn') THEN
+        ALTER TABLE external_transactions_legacy
+            RENAME CONSTRAINT uk_external_provider_txn TO uk_external_provider_txn_legacy;
+    END IF;
+END $$;
+
+CREATE SEQUENCE external_transactions_id_seq;
+SELECT setval('external_transactions_id_seq', COALESCE((SELECT MAX(id) FROM external_transactions_legacy), 0) + 1, false);
+
+CREATE TABLE external_transactions (LIKE external_transactions_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (transaction_date);
+ALTER TABLE external_transactions ALTER COLUMN id SET DEFAULT nextval('external_transactions_id_seq');
+ALTER SEQUENCE external_transactions_id_seq OWNED BY external_transactions.id;
+ALTER TABLE external_transactions ADD PRIMARY KEY (id, transaction_date);
+
+-- ---------------------------------------------------------------------------
+-- Attach the legacy tables, add a DEFAULT partition so a row outside every range (a back-dated
+-- statement, say) is still accepted, then build the parent indexes
+-- ---------------------------------------------------------------------------
+DO $$
+DECLARE
+    cutover DATE := date_trunc('month', now()) + INTERVAL '1 month';
+BEGIN
+    EXECUTE format('ALTER TABLE wallet_transactions ATTACH PARTITION wallet_transactions_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+    EXECUTE format('ALTER TABLE external_transactions ATTACH PARTITION external_transactions_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+END $$;
+
+CREATE TABLE wallet_transactions_pdefault PARTITION OF wallet_transactions DEFAULT;
+CREATE TABLE external_transactions_pdefault PARTITION OF external_transactions DEFAULT;
+
+CREATE INDEX idx_wallet_id ON wallet_transactions (wallet_id);
+CREATE INDEX idx_reference_id ON wallet_transactions (reference_id);
+CREATE INDEX idx_transaction_type ON wallet_transactions (transaction_type);
+CREATE INDEX idx_created_at ON wallet_transactions (created_at);
+CREATE INDEX idx_wallet_txn_wallet_id_id ON wallet_transactions (wallet_id, id);
+
+CREATE INDEX idx_external_transaction_id ON external_transactions (external_transaction_id);
+CREATE INDEX idx_external_transaction_date ON external_transactions (transaction_date);
+CREATE INDEX idx_external_reference_id ON external_transactions (reference_id);
+-- A unique index on a partitioned table must include the partition column, so from here on the
+-- provider key is enforced per transaction date: a row re-sent under a different date is only
+-- caught while the ingest dedup cache still remembers its id
+CREATE UNIQUE INDEX uk_external_provider_txn
+    ON external_transactions (provider_name, external_transaction_id, transaction_date);
+
+COMMIT;
@@ -0,0 +1,99 @@
+package com.presta.Wallet.creation.microservice.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.presta.Wallet.archive.ColumnarSegment;
+
+class ColumnarSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeTo_RoundTripsEveryColumnTypeIncludingNulls() throws IOException {
+        // Given
+        LocalDateTime created = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000);
+        Path file = directory.resolve("segment.wseg");
+        ColumnarSegment.writer(3)
+                .longs("id", Arrays.asList(7L, 8L, 1_000_000L))
+                .decimals("amount", 2, Arrays.asList(new BigDecimal("10.50"), null, new BigDecimal("-3.00")))
+                .timestamps("created_at", Arrays.asList(created, created.plusSeconds(1), null))
+                .dates("transaction_date", Arrays.asList(LocalDate.of(2025, 3, 14), null, LocalDate.of(1999, 12, 31)))
+                .strings("reference_id", Arrays.asList("REF-1", null, "Référence"))
+                .writeTo(file);
+
+        // When
+        ColumnarSegment segment = ColumnarSegment.open(file);
+
+        // Then
+        assertThat(segment.getRowCount()).isEqualTo(3);
+        assertThat(segment.readLongs("id")).containsExactly(7L, 8L, 1_000_000L);
+        assertThat(segment.readDecimals("amount")).containsExactly(new BigDecimal("10.50"), null, new BigDecimal("-3.00"));
+        assertThat(segment.readTimestamps("created_at")).containsExactly(created, created.plusSeconds(1), null);
+        assertThat(segment.readDates("transaction_date"))
+                .containsExactly(LocalDate.of(2025, 3, 14), null, LocalDate.of(1999, 12, 31));
+        assertThat(segment.readStrings("reference_id")).containsExactly("REF-1", null, "Référence");
+        assertThat(directory.resolve("segment.wseg.tmp")).doesNotExist();
+    }
+
+    @Test
+    void mayContain_UsesFooterStatsToRuleSegmentsOut() throws IOException {
+        // Given
+        Path file = directory.resolve("segment.wseg");
+        ColumnarSegment.writer(2)
+                .longs("wallet_id", List.of(5L, 9L))
+                .timestamps("created_at", List.of(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 31, 12, 0)))
+                .strings("reference_id", List.of("A", "B"))
+                .writeTo(file);
+        ColumnarSegment segment = ColumnarSegment.open(file);
+
+        // When & Then
+        assertThat(segment.mayContain("wallet_id", 7L, 7L)).isTrue();
+        assertThat(segment.mayContain("wallet_id", 10L, 10L)).isFalse();
+        assertThat(segment.mayContain("created_at", LocalDateTime.of(2025, 2, 1, 0, 0), null)).isFalse();
+        assertThat(segment.mayContain("created_at", null, LocalDateTime.of(2025, 1, 1, 0, 0))).isTrue();
+        assertThat(segment.mayContain("reference_id", "Z", "Z")).isTrue();
+        assertThat(segment.mayContain("missing", 1L, 1L)).isFalse();
+    }
+
+    @Test
+    void writeTo_CompressesRepetitiveColumnsWellBelowRawSize() throws IOException {
+        // Given
+        int rows = 10_000;
+        List<Long> ids = new ArrayList<>(rows);
+        List<String> statuses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ids.add(1_000_000L + i);
+            statuses.add(i % 10 == 0 ? "FAILED" : "COMPLETED");
+        }
+        Path file = directory.resolve("segment.wseg");
+
+        // When
+        long size = ColumnarSegment.writer(rows).longs("id", ids).strings("status", statuses).writeTo(file);
+
+        // Then
+        assertThat(size).isEqualTo(Files.size(file)).isLessThan(rows * (Long.BYTES + 9L) / 20);
+        assertThat(ColumnarSegment.open(file).readStrings("status")).isEqualTo(statuses);
+    }
+
+    @Test
+    void writer_ColumnLengthMismatch_IsRejected() {
+        // When & Then
+        assertThatThrownBy(() -> ColumnarSegment.writer(2).longs("id", List.of(1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
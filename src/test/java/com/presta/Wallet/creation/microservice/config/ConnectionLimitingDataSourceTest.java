@@ -0,0 +1,113 @@
+package com.presta.Wallet.creation.microservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.presta.Wallet.config.ConnectionLimitingDataSource;
+import com.presta.Wallet.exception.ServiceOverloadedException;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource target = mock(DataSource.class);
+    private final Connection physical = mock(Connection.class);
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(target.getConnection()).thenReturn(physical);
+        // One connection for request threads at a time
+        dataSource = new ConnectionLimitingDataSource(target, new WalletMetrics(meterRegistry), 1, 50);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private CompletableFuture<Connection> openOnAnotherRequestThread() {
+        return CompletableFuture.supplyAsync(() -> {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+    }
+
+    @Test
+    void getConnection_LimitReached_RejectsAfterMaxWaitUntilClosed() throws Exception {
+        // Given
+        Connection held = dataSource.getConnection();
+
+        // When / Then
+        assertThatThrownBy(() -> openOnAnotherRequestThread().join())
+                .hasRootCauseInstanceOf(ServiceOverloadedException.class);
+        assertThat(meterRegistry.get("wallet.execution.limiter.wait").tag("outcome", "rejected").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.execution.limiter.in_flight").gauge().value()).isEqualTo(1.0);
+
+        held.close();
+        held.close();
+        verify(physical, times(2)).close();
+        assertThat(meterRegistry.get("wallet.execution.limiter.in_flight").gauge().value()).isEqualTo(0.0);
+        assertThat(openOnAnotherRequestThread().get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void getConnection_NestedOnTheSameThread_RidesOnTheHeldPermit() throws Exception {
+        // Given
+        Connection outer = dataSource.getConnection();
+
+        // When: a REQUIRES_NEW transaction inside the outer one
+        Connection inner = dataSource.getConnection();
+        inner.close();
+
+        // Then
+        assertThat(meterRegistry.get("wallet.execution.limiter.in_flight").gauge().value()).isEqualTo(1.0);
+        outer.close();
+        assertThat(meterRegistry.get("wallet.execution.limiter.in_flight").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void getConnection_OutsideARequest_IsNeverLimited() throws Exception {
+        // Given
+        Connection held = dataSource.getConnection();
+
+        // When: a scheduled job or worker thread
+        Connection background = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(background).isSameAs(physical);
+        held.close();
+    }
+}
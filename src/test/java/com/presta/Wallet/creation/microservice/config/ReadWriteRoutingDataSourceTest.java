@@ -0,0 +1,114 @@
+package com.presta.Wallet.creation.microservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.presta.Wallet.config.ReadWriteRoutingDataSource;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + System.nanoTime())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        jdbc.execute("CREATE TABLE replication_status (lag_ms BIGINT)");
+        jdbc.update("INSERT INTO replication_status VALUES (0)");
+        return database;
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routingDataSource = new ReadWriteRoutingDataSource(primary,
+                List.of(new ReadWriteRoutingDataSource.Replica("replica-0", replica)),
+                1_000, 0, "SELECT lag_ms FROM replication_status", new WalletMetrics(meterRegistry));
+        routingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.destroy();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private String node(TransactionTemplate template) {
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    void readOnlyTransactions_GoToReplica_WritesStayOnPrimary() {
+        // When & Then
+        assertThat(node(readOnly)).isEqualTo("replica");
+        assertThat(node(readWrite)).isEqualTo("primary");
+        assertThat(meterRegistry.get("wallet.datasource.routed").tags("target", "replica-0", "route", "read")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void replicaBehindMaxLag_ReadsFallBackToPrimaryUntilItCatchesUp() {
+        // Given
+        new JdbcTemplate(replica).update("UPDATE replication_status SET lag_ms = 5000");
+        routingDataSource.checkReplicas();
+
+        // When
+        String whileLagging = node(readOnly);
+        new JdbcTemplate(replica).update("UPDATE replication_status SET lag_ms = 10");
+        routingDataSource.checkReplicas();
+
+        // Then
+        assertThat(whileLagging).isEqualTo("primary");
+        assertThat(node(readOnly)).isEqualTo("replica");
+        assertThat(meterRegistry.get("wallet.datasource.routed").tags("target", "primary", "route", "read_fallback")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.datasource.replica.lag").tag("replica", "replica-0").gauge().value())
+                .isEqualTo(10.0);
+    }
+
+    @Test
+    void replicaUnreachable_IsTakenOutOfRotation() {
+        // Given
+        replica.shutdown();
+
+        // When
+        routingDataSource.checkReplicas();
+
+        // Then
+        assertThat(routingDataSource.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(node(readOnly)).isEqualTo("primary");
+    }
+}
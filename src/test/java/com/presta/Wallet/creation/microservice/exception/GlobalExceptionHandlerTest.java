@@ -0,0 +1,32 @@
+package com.presta.Wallet.creation.microservice.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.exception.GlobalExceptionHandler;
+import com.presta.Wallet.exception.TransactionPendingException;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new WalletMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void handleTransactionPending_AcceptedWithTheReferenceToLookUp() {
+        // When
+        ResponseEntity<ApiResponse<Object>> response = handler.handleTransactionPending(new TransactionPendingException("TOP-1"));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders().getLocation()).hasToString("/wallets/transactions/reference/TOP-1");
+        assertThat(response.getBody().getErrorCode()).isEqualTo("TRANSACTION_PENDING");
+        assertThat(response.getBody().getData()).isEqualTo(Map.of("referenceId", "TOP-1"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.presta.Wallet.creation.microservice.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.presta.Wallet.metrics.DbStatementMetricsFilter;
+import com.presta.Wallet.metrics.StatementCountingInspector;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+class DbStatementMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DbStatementMetricsFilter filter = new DbStatementMetricsFilter(new WalletMetrics(meterRegistry));
+    private final StatementCountingInspector inspector = new StatementCountingInspector();
+
+    @Test
+    void doFilter_RecordsStatementsOfTheRequestUnderItsUriTemplate() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/wallets/42/balance");
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inspector.inspect("select w from wallets w where w.id=?");
+            inspector.inspect("select t from wallet_transactions t where t.wallet_id=?");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/wallets/{walletId}/balance");
+        });
+
+        // Then
+        DistributionSummary statements = meterRegistry.get("wallet.http.db.statements")
+                .tags("method", "GET", "uri", "/wallets/{walletId}/balance")
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(2.0);
+        assertThat(statements.getId().getBaseUnit()).isEqualTo("statements");
+    }
+
+    @Test
+    void doFilter_UnmatchedRequest_IsTaggedUnknown_AndLaterStatementsAreNotCounted() throws Exception {
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/nowhere"), new MockHttpServletResponse(),
+                (req, res) -> inspector.inspect("select 1"));
+        String passedThrough = inspector.inspect("select 2");
+
+        // Then
+        assertThat(passedThrough).isEqualTo("select 2");
+        assertThat(meterRegistry.get("wallet.http.db.statements").tags("method", "POST", "uri", "UNKNOWN")
+                .summary().totalAmount()).isEqualTo(1.0);
+    }
+}
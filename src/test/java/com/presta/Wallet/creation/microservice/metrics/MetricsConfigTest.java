@@ -0,0 +1,68 @@
+package com.presta.Wallet.creation.microservice.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.presta.Wallet.metrics.MetricsConfig;
+import com.presta.Wallet.metrics.StatementCountingInspector;
+
+class MetricsConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MetricsConfig metricsConfig = new MetricsConfig();
+
+    static class Operations {
+
+        @Timed(value = "wallet.transaction", extraTags = {"operation", "topup"})
+        public String topup(boolean fail) {
+            if (fail) {
+                throw new IllegalStateException("rejected");
+            }
+            return "ok";
+        }
+    }
+
+    private Operations timedOperations() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Operations());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(metricsConfig.timedAspect(meterRegistry));
+        return factory.getProxy();
+    }
+
+    @Test
+    void timedAspect_RecordsAnnotatedOperationsWithTheirTagsAndException() {
+        // Given
+        Operations operations = timedOperations();
+
+        // When
+        operations.topup(false);
+        assertThatThrownBy(() -> operations.topup(true)).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(meterRegistry.get("wallet.transaction").tags("operation", "topup", "exception", "none")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.transaction").tags("operation", "topup", "exception", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void statementCountingCustomizer_InstallsTheStatementInspector() {
+        // Given
+        Map<String, Object> properties = new HashMap<>();
+
+        // When
+        metricsConfig.statementCountingCustomizer().customize(properties);
+
+        // Then
+        assertThat(properties.get(AvailableSettings.STATEMENT_INSPECTOR)).isInstanceOf(StatementCountingInspector.class);
+    }
+}
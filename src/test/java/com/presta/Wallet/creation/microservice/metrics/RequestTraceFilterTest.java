@@ -0,0 +1,129 @@
+package com.presta.Wallet.creation.microservice.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.presta.Wallet.dto.ApiResponse;
+import com.presta.Wallet.metrics.RequestTrace;
+import com.presta.Wallet.metrics.RequestTraceFilter;
+import com.presta.Wallet.metrics.RequestTraceResponseAdvice;
+
+class RequestTraceFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestTraceResponseAdvice advice = new RequestTraceResponseAdvice();
+    private RequestTraceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        filter = new RequestTraceFilter(observationRegistry);
+    }
+
+    private static MockHttpServletRequest request(String traceHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/reconciliation/reconcile");
+        if (traceHeader != null) {
+            request.addHeader(RequestTrace.HEADER, traceHeader);
+        }
+        return request;
+    }
+
+    private ApiResponse<String> writeBody(ApiResponse<String> body) {
+        advice.beforeBodyWrite(body, null, null, null, null, null);
+        return body;
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.find("wallet.request.stage").tag("stage", stage).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tracedRequest_ReportsStagesInHeaderBodyAndObservations() throws Exception {
+        // Given: a controller that passes two service stages and returns a body with metadata of its own
+        AtomicReference<ApiResponse<String>> written = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            RequestTrace.mark("load-internal");
+            RequestTrace.mark("matching");
+            ApiResponse<String> body = ApiResponse.success("done", "report");
+            body.setMetadata(Map.of("source", "cache"));
+            written.set(writeBody(body));
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request("true"), response, chain);
+
+        // Then
+        String requestId = response.getHeader(RequestTrace.HEADER + "-Id");
+        assertThat(requestId).isNotBlank();
+
+        Map<String, Object> metadata = written.get().getMetadata();
+        assertThat(metadata).containsEntry("source", "cache");
+        Map<String, Object> timing = (Map<String, Object>) metadata.get("stageTiming");
+        assertThat(timing).containsEntry("requestId", requestId).containsKey("totalMs");
+        assertThat((List<Map<String, Object>>) timing.get("stages"))
+                .extracting(stage -> stage.get("stage"))
+                .containsExactly("load-internal", "matching", "commit-and-response");
+
+        assertThat(stageCount("load-internal")).isEqualTo(1);
+        assertThat(stageCount("matching")).isEqualTo(1);
+        assertThat(stageCount("commit-and-response")).isEqualTo(1);
+        assertThat(stageCount("response-write")).isEqualTo(1);
+    }
+
+    @Test
+    void tracedRequest_TraceIsDetachedOnceTheRequestEnds_EvenWhenTheChainFails() {
+        // Given
+        FilterChain chain = (req, res) -> {
+            RequestTrace.mark("load-internal");
+            throw new IllegalStateException("controller failed");
+        };
+
+        // When
+        assertThatThrownBy(() -> filter.doFilter(request("true"), new MockHttpServletResponse(), chain))
+                .hasMessage("controller failed");
+        RequestTrace.mark("after-request");
+        ApiResponse<String> laterBody = writeBody(ApiResponse.success("done", "next"));
+
+        // Then: the trailing stage was closed and nothing leaks into later work on this thread
+        assertThat(stageCount("response-write")).isEqualTo(1);
+        assertThat(stageCount("after-request")).isZero();
+        assertThat(laterBody.getMetadata()).isNull();
+    }
+
+    @Test
+    void untracedRequest_IsLeftAlone() throws Exception {
+        // Given
+        AtomicReference<ApiResponse<String>> written = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            RequestTrace.mark("load-internal");
+            written.set(writeBody(ApiResponse.success("done", "report")));
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request("false"), response, chain);
+
+        // Then
+        assertThat(response.getHeader(RequestTrace.HEADER + "-Id")).isNull();
+        assertThat(written.get().getMetadata()).isNull();
+        assertThat(meterRegistry.find("wallet.request.stage").timers()).isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package com.presta.Wallet.creation.microservice.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.metrics.WalletMetrics;
+
+class WalletMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletMetrics walletMetrics = new WalletMetrics(meterRegistry);
+
+    private static ReconciliationItem item(ReconciliationItem.MatchType matchType) {
+        return ReconciliationItem.builder().matchType(matchType).build();
+    }
+
+    @Test
+    void recordMatching_RecordsDurationRowsThroughputAndItemsPerMatchType() {
+        // When
+        walletMetrics.recordMatching(TimeUnit.MILLISECONDS.toNanos(500), 1000, List.of(
+                item(ReconciliationItem.MatchType.PERFECT_MATCH),
+                item(ReconciliationItem.MatchType.PERFECT_MATCH),
+                item(ReconciliationItem.MatchType.NO_MATCH)));
+
+        // Then
+        assertThat(meterRegistry.get("wallet.reconciliation.matching.duration").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(500.0);
+        assertThat(meterRegistry.get("wallet.reconciliation.matching.rows").counter().count()).isEqualTo(1000.0);
+        assertThat(meterRegistry.get("wallet.reconciliation.matching.throughput").summary().totalAmount())
+                .isEqualTo(2000.0);
+        assertThat(meterRegistry.get("wallet.reconciliation.items").tag("match_type", "PERFECT_MATCH").counter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("wallet.reconciliation.items").tag("match_type", "NO_MATCH")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.find("wallet.reconciliation.items").tag("match_type", "AMOUNT_MATCH").counter())
+                .isNull();
+    }
+
+    @Test
+    void recordIngest_TagsRowsByPathAndOutcome() {
+        // When
+        walletMetrics.recordIngest("upload", walletMetrics.startTimer(), 7, 2, 1);
+        walletMetrics.recordIngestFailure("mapped", walletMetrics.startTimer());
+
+        // Then
+        assertThat(meterRegistry.get("wallet.ingest.duration").tags("path", "upload", "outcome", WalletMetrics.OUTCOME_SUCCESS)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.ingest.duration").tags("path", "mapped", "outcome", WalletMetrics.OUTCOME_FAILURE)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.ingest.rows").tags("path", "upload", "outcome", "accepted").counter().count())
+                .isEqualTo(7.0);
+        assertThat(meterRegistry.get("wallet.ingest.rows").tags("path", "upload", "outcome", "duplicate").counter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("wallet.ingest.rows").tags("path", "upload", "outcome", "rejected").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.ingest.throughput").tag("path", "upload").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("wallet.ingest.rows").tag("path", "mapped").counters()).isEmpty();
+    }
+
+    @Test
+    void recordIngest_EmptyFile_SkipsThroughput() {
+        // When
+        walletMetrics.recordIngest("stream", walletMetrics.startTimer(), 0, 0, 0);
+
+        // Then
+        assertThat(meterRegistry.get("wallet.ingest.duration").tag("path", "stream").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("wallet.ingest.throughput").summaries()).isEmpty();
+    }
+
+    @Test
+    void recordPublish_CountsFailuresNextToTheLatency() {
+        // When
+        Timer.Sample ok = walletMetrics.startTimer();
+        walletMetrics.recordPublish(ok, true);
+        Timer.Sample failed = walletMetrics.startTimer();
+        walletMetrics.recordPublish(failed, false);
+
+        // Then
+        assertThat(meterRegistry.get("wallet.notification.publish.duration").tag("outcome", WalletMetrics.OUTCOME_SUCCESS)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.notification.publish.duration").tag("outcome", WalletMetrics.OUTCOME_FAILURE)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.notification.publish.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void recordOptimisticLockConflict_IncrementsTheConflictCounter() {
+        // When
+        walletMetrics.recordOptimisticLockConflict();
+        walletMetrics.recordOptimisticLockConflict();
+
+        // Then
+        assertThat(meterRegistry.get("wallet.transaction.optimistic.lock.conflicts").counter().count()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.presta.Wallet.creation.microservice.money;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.money.Money;
+
+class MoneyTest {
+
+    @Test
+    void of_DecimalAmount_ConvertsToMinorUnitsAndBack() {
+        // When
+        Money money = Money.of(new BigDecimal("12.5"), "KSH");
+
+        // Then
+        assertThat(money.minorUnits()).isEqualTo(1250L);
+        assertThat(money.toBigDecimal()).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    void toMinorUnits_FractionOfMinorUnit_ThrowsException() {
+        // When & Then
+        assertThatThrownBy(() -> Money.toMinorUnits(new BigDecimal("10.005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("decimal places");
+    }
+
+    @Test
+    void plus_DifferentCurrency_ThrowsException() {
+        // When & Then
+        assertThatThrownBy(() -> new Money(100, "KSH").plus(new Money(100, "USD")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Currency mismatch");
+    }
+
+    @Test
+    void walletDebitAndCredit_UpdateBalanceInMinorUnits() {
+        // Given
+        Wallet wallet = Wallet.builder().balance(new BigDecimal("100.00")).currency("KSH").build();
+
+        // When
+        wallet.debit(Money.of(new BigDecimal("30.25"), "KSH"));
+        wallet.credit(Money.of(new BigDecimal("0.50"), "KSH"));
+
+        // Then
+        assertThat(wallet.getBalanceMinorUnits()).isEqualTo(70_25L);
+        assertThat(wallet.getBalance()).isEqualTo(new BigDecimal("70.25"));
+        assertThat(wallet.hasSufficientBalance(Money.of(new BigDecimal("70.26"), "KSH"))).isFalse();
+    }
+}
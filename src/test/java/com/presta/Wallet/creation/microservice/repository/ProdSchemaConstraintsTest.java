@@ -0,0 +1,115 @@
+package com.presta.Wallet.creation.microservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.IngestedFile;
+import com.presta.Wallet.entity.WalletDailyAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+import com.presta.Wallet.repository.WalletDailyAggregateRepository;
+import com.presta.Wallet.service.IngestDeduplicationService;
+
+/**
+ * Builds the schema the way the prod profile does (ddl-auto: update plus its Hibernate properties),
+ * only on an embedded database, and checks the unique keys the ingest and rollup code rely on exist.
+ */
+@DataJpaTest
+@ActiveProfiles({"test", "prod"})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ProdSchemaConstraintsTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Autowired
+    private IngestedFileRepository ingestedFileRepository;
+
+    @Autowired
+    private WalletDailyAggregateRepository aggregateRepository;
+
+    private static ExternalTransaction external(String providerName, String externalTransactionId) {
+        return ExternalTransaction.builder()
+                .externalTransactionId(externalTransactionId)
+                .transactionDate(LocalDate.of(2024, 1, 15))
+                .amount(new BigDecimal("50.00"))
+                .providerName(providerName)
+                .status(ExternalTransaction.ProcessingStatus.PENDING)
+                .build();
+    }
+
+    @Test
+    void externalTransactions_ReplayedProviderRowEvictedFromTheCache_IsRejectedAndFoundAsStored() {
+        // Given: the row was stored earlier; a fresh dedup service has no memory of it
+        externalTransactionRepository.saveAndFlush(external("PROVIDER", "EXT001"));
+        IngestDeduplicationService dedup =
+                new IngestDeduplicationService(ingestedFileRepository, externalTransactionRepository);
+        assertThat(dedup.claimRow("PROVIDER", "EXT001")).isTrue();
+
+        // When / Then
+        assertThatThrownBy(() -> externalTransactionRepository.saveAndFlush(external("PROVIDER", "EXT001")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        entityManager.clear();
+        assertThat(dedup.findStoredRows("PROVIDER", List.of("EXT001", "EXT002"))).containsExactly("EXT001");
+    }
+
+    @Test
+    void externalTransactions_SameIdFromAnotherProvider_IsAccepted() {
+        // When
+        externalTransactionRepository.saveAndFlush(external("PROVIDER", "EXT001"));
+        externalTransactionRepository.saveAndFlush(external("OTHER_PROVIDER", "EXT001"));
+
+        // Then
+        assertThat(externalTransactionRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void ingestedFiles_SameHashFromTheSameProvider_IsRejected() {
+        // Given
+        ingestedFileRepository.saveAndFlush(IngestedFile.builder().providerName("PROVIDER").contentHash("abc").build());
+        ingestedFileRepository.saveAndFlush(IngestedFile.builder().providerName("OTHER_PROVIDER").contentHash("abc").build());
+
+        // When / Then
+        assertThatThrownBy(() -> ingestedFileRepository.saveAndFlush(
+                IngestedFile.builder().providerName("PROVIDER").contentHash("abc").build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void dailyAggregates_SecondRowForTheSameKey_IsRejected() {
+        // Given
+        aggregateRepository.saveAndFlush(aggregate());
+
+        // When / Then
+        assertThatThrownBy(() -> aggregateRepository.saveAndFlush(aggregate()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static WalletDailyAggregate aggregate() {
+        return WalletDailyAggregate.builder()
+                .activityDate(LocalDate.of(2024, 1, 15))
+                .walletId(1L)
+                .serviceType("KYC")
+                .transactionType(WalletTransaction.TransactionType.CONSUMPTION)
+                .transactionCount(1)
+                .totalAmount(new BigDecimal("10.00"))
+                .build();
+    }
+}
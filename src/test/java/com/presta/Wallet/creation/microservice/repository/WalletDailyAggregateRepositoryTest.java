@@ -0,0 +1,87 @@
+package com.presta.Wallet.creation.microservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.presta.Wallet.entity.AggregateWatermark;
+import com.presta.Wallet.entity.WalletDailyAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.repository.AggregateWatermarkRepository;
+import com.presta.Wallet.repository.WalletDailyAggregateRepository;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class WalletDailyAggregateRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    @Autowired
+    private WalletDailyAggregateRepository aggregateRepository;
+
+    @Autowired
+    private AggregateWatermarkRepository watermarkRepository;
+
+    @BeforeEach
+    void setUp() {
+        aggregateRepository.deleteAll();
+        aggregateRepository.saveAll(List.of(
+                aggregate(DAY, 1L, "KYC", WalletTransaction.TransactionType.CONSUMPTION),
+                aggregate(DAY, 1L, "NONE", WalletTransaction.TransactionType.TOPUP),
+                aggregate(DAY, 2L, "KYC", WalletTransaction.TransactionType.CONSUMPTION),
+                aggregate(DAY.plusDays(1), 1L, "CRB", WalletTransaction.TransactionType.CONSUMPTION),
+                aggregate(DAY.plusDays(5), 1L, "KYC", WalletTransaction.TransactionType.CONSUMPTION)));
+    }
+
+    private static WalletDailyAggregate aggregate(LocalDate day, Long walletId, String serviceType,
+                                                  WalletTransaction.TransactionType type) {
+        return WalletDailyAggregate.builder()
+                .activityDate(day)
+                .walletId(walletId)
+                .serviceType(serviceType)
+                .transactionType(type)
+                .transactionCount(2)
+                .totalAmount(new BigDecimal("100.00"))
+                .build();
+    }
+
+    @Test
+    void findInRange_NullFiltersMatchEverything_AndDatesAreInclusive() {
+        // When
+        List<WalletDailyAggregate> all = aggregateRepository.findInRange(DAY, DAY.plusDays(1), null, null, null);
+        List<WalletDailyAggregate> walletKyc = aggregateRepository.findInRange(DAY, DAY.plusDays(5), 1L, "KYC", null);
+        List<WalletDailyAggregate> topups = aggregateRepository.findInRange(DAY, DAY, null, null,
+                WalletTransaction.TransactionType.TOPUP);
+
+        // Then
+        assertThat(all).hasSize(4);
+        assertThat(walletKyc).extracting(WalletDailyAggregate::getActivityDate)
+                .containsExactlyInAnyOrder(DAY, DAY.plusDays(5));
+        assertThat(topups).singleElement()
+                .extracting(WalletDailyAggregate::getServiceType).isEqualTo("NONE");
+    }
+
+    @Test
+    void advance_OnlyMovesWatermarkFromTheExpectedValue() {
+        // Given
+        watermarkRepository.saveAndFlush(AggregateWatermark.builder()
+                .name("test").lastTransactionId(10L).updatedAt(LocalDateTime.now()).build());
+
+        // When
+        int stale = watermarkRepository.advance("test", 5L, 20L, LocalDateTime.now());
+        int moved = watermarkRepository.advance("test", 10L, 20L, LocalDateTime.now());
+
+        // Then
+        assertThat(stale).isZero();
+        assertThat(moved).isEqualTo(1);
+    }
+}
@@ -3,13 +3,16 @@ package com.presta.Wallet.creation.microservice.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.presta.Wallet.entity.Customer;
@@ -27,6 +30,9 @@ class WalletRepositoryTest {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Customer customer;
     private Wallet creditsWallet;
     private Wallet cashWallet;
@@ -95,7 +101,7 @@ class WalletRepositoryTest {
         // Then
         assertThat(wallet).isPresent();
         assertThat(wallet.get().getWalletType()).isEqualTo(Wallet.WalletType.CREDITS);
-        assertThat(wallet.get().getBalance()).isEqualTo(BigDecimal.valueOf(100.00));
+        assertThat(wallet.get().getBalance()).isEqualTo(new BigDecimal("100.00"));
     }
 
     @Test
@@ -138,4 +144,46 @@ class WalletRepositoryTest {
         assertThat(saved.getCreatedAt()).isNotNull();
         assertThat(saved.getUpdatedAt()).isNotNull();
     }
+
+    @Test
+    void adjustBalance_WouldGoNegative_LeavesBalanceUntouched() {
+        // When
+        int refunded = walletRepository.adjustBalance(cashWallet.getId(), new BigDecimal("25.00"), LocalDateTime.now());
+        int overdrawn = walletRepository.adjustBalance(cashWallet.getId(), new BigDecimal("-100.00"), LocalDateTime.now());
+
+        // Then
+        assertThat(refunded).isEqualTo(1);
+        assertThat(overdrawn).isZero();
+        assertThat(walletRepository.findBalanceViewById(cashWallet.getId()).getBalance())
+                .isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    void findAllWithCustomer_FetchesCustomerInTheSameQuery() {
+        // Given
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        List<Wallet> wallets = walletRepository.findAllWithCustomer();
+
+        // Then
+        assertThat(wallets).hasSize(2)
+                .allSatisfy(wallet -> assertThat(Hibernate.isInitialized(wallet.getCustomer())).isTrue());
+    }
+
+    @Test
+    void findByIdForUpdate_LocksAndReturnsTheWallet() {
+        // Given
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<Wallet> locked = walletRepository.findByIdForUpdate(cashWallet.getId());
+
+        // Then
+        assertThat(locked).get().extracting(Wallet::getBalance).isEqualTo(new BigDecimal("50.00"));
+        assertThat(walletRepository.findWalletTypeById(cashWallet.getId())).contains(Wallet.WalletType.CASH);
+        assertThat(walletRepository.findWalletTypeById(-1L)).isEmpty();
+    }
 }
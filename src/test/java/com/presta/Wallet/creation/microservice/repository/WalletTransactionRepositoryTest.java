@@ -3,9 +3,12 @@ package com.presta.Wallet.creation.microservice.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,9 +20,12 @@ import org.springframework.test.context.ActiveProfiles;
 
 import com.presta.Wallet.entity.Customer;
 import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.entity.WalletBalanceSnapshot;
 import com.presta.Wallet.entity.WalletTransaction;
 import com.presta.Wallet.repository.CustomerRepository;
+import com.presta.Wallet.repository.WalletBalanceSnapshotRepository;
 import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionReferenceRepository;
 import com.presta.Wallet.repository.WalletTransactionRepository;
 
 @DataJpaTest
@@ -35,6 +41,12 @@ class WalletTransactionRepositoryTest {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private WalletBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private WalletTransactionReferenceRepository referenceRepository;
+
     private Wallet wallet;
     private WalletTransaction transaction1;
     private WalletTransaction transaction2;
@@ -116,6 +128,21 @@ class WalletTransactionRepositoryTest {
         assertThat(exists).isFalse();
     }
 
+    @Test
+    void existsByReferenceId_ArchivedReference_StaysClaimed() {
+        // Given: REF001 archived out of the hot table
+        assertThat(referenceRepository.claimForArchive(List.of(transaction1.getId()))).isEqualTo(1);
+        // Claiming again, as a run after a rolled-back delete would, does not clash
+        assertThat(referenceRepository.claimForArchive(List.of(transaction1.getId()))).isZero();
+        transactionRepository.deleteAllByIdInBatch(List.of(transaction1.getId()));
+
+        // When / Then
+        assertThat(transactionRepository.findByReferenceId("REF001")).isEmpty();
+        assertThat(transactionRepository.existsByReferenceId("REF001")).isTrue();
+        assertThat(transactionRepository.findExistingReferenceIds(List.of("REF001", "REF002", "REF404")))
+                .containsExactlyInAnyOrder("REF001", "REF002");
+    }
+
     @Test
     void findByWalletIdOrderByCreatedAtDesc_ReturnsTransactionsInDescOrder() {
         // When
@@ -154,6 +181,43 @@ class WalletTransactionRepositoryTest {
         assertThat(transactions).hasSize(2);
     }
 
+    @Test
+    void findByCreatedAtRange_EndIsExclusive_ReturnsAllWalletsTransactionsInRange() {
+        // Given
+        LocalDateTime createdAt = transactionRepository.findById(transaction1.getId()).orElseThrow().getCreatedAt();
+
+        // When
+        List<WalletTransaction> inRange = transactionRepository
+                .findByCreatedAtRange(createdAt.minusHours(1), createdAt.plusHours(1));
+        List<WalletTransaction> endingAtCreation = transactionRepository
+                .findByCreatedAtRange(createdAt.minusHours(1), createdAt);
+
+        // Then
+        assertThat(inRange).hasSize(2);
+        assertThat(endingAtCreation).extracting(WalletTransaction::getReferenceId).doesNotContain("REF001");
+    }
+
+    @Test
+    void findArchivableViews_OnlyReturnsTransactionsCoveredByALatestSnapshot() {
+        // Given
+        snapshotRepository.save(WalletBalanceSnapshot.builder()
+                .walletId(wallet.getId())
+                .balance(BigDecimal.valueOf(50.00))
+                .lastTransactionId(transaction1.getId())
+                .build());
+
+        // When
+        List<WalletTransactionRepository.TransactionView> archivable = transactionRepository
+                .findArchivableViews(LocalDateTime.now().plusDays(1), 0L, PageRequest.of(0, 10));
+        List<WalletTransactionRepository.TransactionView> tooRecent = transactionRepository
+                .findArchivableViews(LocalDateTime.now().minusDays(1), 0L, PageRequest.of(0, 10));
+
+        // Then
+        assertThat(archivable).extracting(WalletTransactionRepository.TransactionView::getReferenceId)
+                .containsExactly("REF001");
+        assertThat(tooRecent).isEmpty();
+    }
+
     @Test
     void findByStatus_CompletedStatus_ReturnsCompletedTransactions() {
         // When
@@ -195,4 +259,62 @@ class WalletTransactionRepositoryTest {
         assertThat(saved.getCreatedAt()).isNotNull();
         assertThat(saved.getReferenceId()).isEqualTo("REF003");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findViewsByWalletId_ReturnsPageOfRowsWithoutLoadingWallet() {
+        // When
+        List<WalletTransactionRepository.TransactionView> views =
+                transactionRepository.findViewsByWalletId(wallet.getId(), PageRequest.of(0, 1));
+
+        // Then
+        assertThat(views).singleElement().satisfies(view -> {
+            assertThat(view.getWalletId()).isEqualTo(wallet.getId());
+            assertThat(view.getTransactionType()).isNotNull();
+            assertThat(view.getStatus()).isEqualTo(WalletTransaction.TransactionStatus.COMPLETED);
+        });
+        assertThat(transactionRepository.findViewByReferenceId("REF002"))
+                .hasValueSatisfying(view -> assertThat(view.getAmount()).isEqualByComparingTo("25.00"));
+    }
+
+    @Test
+    void sumDailyAfterId_GroupsPostedRowsPastTheWatermark_WithFilters() {
+        // Given: a second KYC consumption, a failed one and one of another service, all after transaction1
+        LocalDate today = transactionRepository.findById(transaction1.getId()).orElseThrow().getCreatedAt().toLocalDate();
+        transactionRepository.save(WalletTransaction.builder().wallet(wallet)
+                .transactionType(WalletTransaction.TransactionType.CONSUMPTION).amount(BigDecimal.valueOf(5.00))
+                .referenceId("REF003").status(WalletTransaction.TransactionStatus.COMPLETED).serviceType("CRB").build());
+        transactionRepository.save(WalletTransaction.builder().wallet(wallet)
+                .transactionType(WalletTransaction.TransactionType.CONSUMPTION).amount(BigDecimal.valueOf(9.00))
+                .referenceId("REF004").status(WalletTransaction.TransactionStatus.FAILED).serviceType("CRB").build());
+        transactionRepository.save(WalletTransaction.builder().wallet(wallet)
+                .transactionType(WalletTransaction.TransactionType.ADJUSTMENT).amount(BigDecimal.valueOf(1.00))
+                .referenceId("REF005").status(WalletTransaction.TransactionStatus.COMPLETED).build());
+        Set<WalletTransaction.TransactionStatus> posted =
+                EnumSet.of(WalletTransaction.TransactionStatus.COMPLETED, WalletTransaction.TransactionStatus.REVERSED);
+
+        // When
+        List<WalletTransactionRepository.DailyActivityView> all = transactionRepository.sumDailyAfterId(
+                transaction1.getId(), posted, today.atStartOfDay(), today.plusDays(1).atStartOfDay(),
+                null, null, "NONE", null);
+        List<WalletTransactionRepository.DailyActivityView> noService = transactionRepository.sumDailyAfterId(
+                transaction1.getId(), posted, today.atStartOfDay(), today.plusDays(1).atStartOfDay(),
+                wallet.getId(), "NONE", "NONE", null);
+        List<WalletTransactionRepository.DailyActivityView> tomorrow = transactionRepository.sumDailyAfterId(
+                transaction1.getId(), posted, today.plusDays(1).atStartOfDay(), today.plusDays(2).atStartOfDay(),
+                null, null, "NONE", null);
+
+        // Then
+        assertThat(all).hasSize(2);
+        assertThat(all).filteredOn(view -> "CRB".equals(view.getServiceType())).singleElement().satisfies(view -> {
+            assertThat(view.getActivityDate()).isEqualTo(today);
+            assertThat(view.getWalletId()).isEqualTo(wallet.getId());
+            assertThat(view.getTransactionCount()).isEqualTo(2L);
+            assertThat(view.getTotalAmount()).isEqualByComparingTo("30.00");
+        });
+        assertThat(noService).singleElement().satisfies(view -> {
+            assertThat(view.getServiceType()).isNull();
+            assertThat(view.getTransactionType()).isEqualTo(WalletTransaction.TransactionType.ADJUSTMENT);
+        });
+        assertThat(tomorrow).isEmpty();
+    }
+}
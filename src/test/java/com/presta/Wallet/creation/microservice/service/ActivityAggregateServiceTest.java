@@ -0,0 +1,214 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.presta.Wallet.dto.DailyActivityAggregate;
+import com.presta.Wallet.entity.AggregateWatermark;
+import com.presta.Wallet.entity.WalletDailyAggregate;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.AggregateWatermarkRepository;
+import com.presta.Wallet.repository.WalletDailyAggregateRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.ActivityAggregateService;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityAggregateServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final LocalDateTime MORNING = DAY.atTime(9, 0);
+
+    @Mock
+    private WalletTransactionRepository transactionRepository;
+
+    @Mock
+    private WalletDailyAggregateRepository aggregateRepository;
+
+    @Mock
+    private AggregateWatermarkRepository watermarkRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ActivityAggregateService activityAggregateService;
+
+    @Value
+    private static class View implements WalletTransactionRepository.TransactionView {
+        Long id;
+        Long walletId;
+        WalletTransaction.TransactionType transactionType;
+        BigDecimal amount;
+        String referenceId;
+        String description;
+        WalletTransaction.TransactionStatus status;
+        BigDecimal balanceBefore;
+        BigDecimal balanceAfter;
+        String serviceType;
+        LocalDateTime createdAt;
+        LocalDateTime processedAt;
+    }
+
+    @Value
+    private static class DailyView implements WalletTransactionRepository.DailyActivityView {
+        LocalDate activityDate;
+        Long walletId;
+        String serviceType;
+        WalletTransaction.TransactionType transactionType;
+        Long transactionCount;
+        BigDecimal totalAmount;
+    }
+
+    private static View view(long id, long walletId, WalletTransaction.TransactionType type, String serviceType,
+                             String amount, WalletTransaction.TransactionStatus status, LocalDateTime createdAt) {
+        return new View(id, walletId, type, new BigDecimal(amount), "REF-" + id, null, status, BigDecimal.ZERO,
+                BigDecimal.ZERO, serviceType, createdAt, createdAt);
+    }
+
+    private static View completed(long id, long walletId, WalletTransaction.TransactionType type, String serviceType,
+                                  String amount, LocalDateTime createdAt) {
+        return view(id, walletId, type, serviceType, amount, WalletTransaction.TransactionStatus.COMPLETED, createdAt);
+    }
+
+    private void givenWatermark(long lastTransactionId) {
+        lenient().when(watermarkRepository.findById(ActivityAggregateService.WATERMARK)).thenReturn(Optional.of(
+                AggregateWatermark.builder().name(ActivityAggregateService.WATERMARK)
+                        .lastTransactionId(lastTransactionId).build()));
+    }
+
+    @BeforeEach
+    void setUp() {
+        activityAggregateService = new ActivityAggregateService(transactionRepository, aggregateRepository,
+                watermarkRepository, transactionManager, new WalletMetrics(meterRegistry));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollUp_FoldsSettledPostedTransactionsIntoExistingAndNewRows_AndAdvancesWatermark() {
+        // Given
+        givenWatermark(10L);
+        WalletDailyAggregate existing = WalletDailyAggregate.builder().id(1L).activityDate(DAY).walletId(1L)
+                .serviceType("KYC").transactionType(WalletTransaction.TransactionType.CONSUMPTION)
+                .transactionCount(4).totalAmount(new BigDecimal("200.00")).build();
+        when(transactionRepository.findViewsAfterId(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                completed(11, 1, WalletTransaction.TransactionType.CONSUMPTION, "KYC", "50.00", MORNING),
+                completed(12, 1, WalletTransaction.TransactionType.TOPUP, null, "500.00", MORNING.plusHours(1)),
+                view(13, 1, WalletTransaction.TransactionType.CONSUMPTION, "KYC", "75.00",
+                        WalletTransaction.TransactionStatus.FAILED, MORNING.plusHours(2)),
+                completed(14, 1, WalletTransaction.TransactionType.CONSUMPTION, "KYC", "25.00", MORNING.plusHours(3))));
+        when(aggregateRepository.findByActivityDateInAndWalletIdIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(existing));
+        when(watermarkRepository.advance(eq(ActivityAggregateService.WATERMARK), eq(10L), eq(14L),
+                any(LocalDateTime.class))).thenReturn(1);
+
+        // When
+        int folded = activityAggregateService.rollUp();
+
+        // Then
+        assertThat(folded).isEqualTo(4);
+        ArgumentCaptor<List<WalletDailyAggregate>> saved = ArgumentCaptor.forClass(List.class);
+        verify(aggregateRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).hasSize(2);
+        assertThat(existing.getTransactionCount()).isEqualTo(6);
+        assertThat(existing.getTotalAmount()).isEqualByComparingTo("275.00");
+        WalletDailyAggregate topups = saved.getValue().stream()
+                .filter(row -> row.getTransactionType() == WalletTransaction.TransactionType.TOPUP)
+                .findFirst().orElseThrow();
+        assertThat(topups.getServiceType()).isEqualTo(ActivityAggregateService.NO_SERVICE);
+        assertThat(topups.getTransactionCount()).isEqualTo(1);
+        assertThat(topups.getTotalAmount()).isEqualByComparingTo("500.00");
+        assertThat(meterRegistry.counter("wallet.aggregates.rollup.transactions").count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void rollUp_StopsAtFirstUnsettledTransaction() {
+        // Given
+        givenWatermark(10L);
+        when(transactionRepository.findViewsAfterId(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                completed(11, 1, WalletTransaction.TransactionType.TOPUP, null, "10.00", MORNING),
+                completed(12, 1, WalletTransaction.TransactionType.TOPUP, null, "10.00", LocalDateTime.now()),
+                completed(13, 1, WalletTransaction.TransactionType.TOPUP, null, "10.00", MORNING)));
+        when(watermarkRepository.advance(eq(ActivityAggregateService.WATERMARK), eq(10L), eq(11L),
+                any(LocalDateTime.class))).thenReturn(1);
+
+        // When
+        int folded = activityAggregateService.rollUp();
+
+        // Then
+        assertThat(folded).isEqualTo(1);
+    }
+
+    @Test
+    void rollUp_WatermarkMovedByAnotherInstance_FailsTheBatch() {
+        // Given
+        givenWatermark(10L);
+        when(transactionRepository.findViewsAfterId(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                completed(11, 1, WalletTransaction.TransactionType.TOPUP, null, "10.00", MORNING)));
+        when(watermarkRepository.advance(eq(ActivityAggregateService.WATERMARK), eq(10L), eq(11L),
+                any(LocalDateTime.class))).thenReturn(0);
+
+        // When & Then
+        assertThatThrownBy(() -> activityAggregateService.rollUp())
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(meterRegistry.counter("wallet.aggregates.rollup.transactions").count()).isZero();
+    }
+
+    @Test
+    void findDaily_AddsTransactionsPastTheWatermark_AndAppliesFilters() {
+        // Given
+        givenWatermark(20L);
+        when(aggregateRepository.findInRange(DAY, DAY.plusDays(1), 1L, null, null)).thenReturn(List.of(
+                WalletDailyAggregate.builder().activityDate(DAY).walletId(1L).serviceType("KYC")
+                        .transactionType(WalletTransaction.TransactionType.CONSUMPTION)
+                        .transactionCount(3).totalAmount(new BigDecimal("150.00")).build()));
+        when(transactionRepository.sumDailyAfterId(eq(20L), anyCollection(), eq(DAY.atStartOfDay()),
+                eq(DAY.plusDays(2).atStartOfDay()), eq(1L), isNull(), eq(ActivityAggregateService.NO_SERVICE), isNull()))
+                .thenReturn(List.of(
+                        new DailyView(DAY, 1L, "KYC", WalletTransaction.TransactionType.CONSUMPTION, 1L, new BigDecimal("50.00")),
+                        new DailyView(DAY.plusDays(1), 1L, null, WalletTransaction.TransactionType.ADJUSTMENT, 1L,
+                                new BigDecimal("80.00"))));
+
+        // When
+        List<DailyActivityAggregate> activity = activityAggregateService.findDaily(DAY, DAY.plusDays(1),
+                new ActivityAggregateService.Filter(1L, null, null));
+
+        // Then
+        assertThat(activity).extracting(DailyActivityAggregate::getActivityDate, DailyActivityAggregate::getServiceType,
+                        DailyActivityAggregate::getTransactionCount)
+                .containsExactly(
+                        tuple(DAY, "KYC", 4L),
+                        tuple(DAY.plusDays(1), ActivityAggregateService.NO_SERVICE, 1L));
+        assertThat(activity.get(0).getTotalAmount()).isEqualByComparingTo("200.00");
+        verify(transactionRepository, never()).findViewsAfterId(any(), any(Pageable.class));
+        verify(aggregateRepository, never()).saveAll(anyList());
+    }
+}
@@ -0,0 +1,188 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.presta.Wallet.config.ArchiveProperties;
+import com.presta.Wallet.dto.ArchiveRunReport;
+import com.presta.Wallet.dto.ReconciliationItemResponse;
+import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.WalletTransactionReferenceRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.ArchiveService;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final LocalDateTime OLD = LocalDateTime.of(2025, 1, 10, 8, 30);
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Mock
+    private WalletTransactionReferenceRepository walletTransactionReferenceRepository;
+
+    @Mock
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Mock
+    private ReconciliationItemRepository reconciliationItemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ArchiveService archiveService;
+
+    @Value
+    private static class View implements WalletTransactionRepository.TransactionView {
+        Long id;
+        Long walletId;
+        WalletTransaction.TransactionType transactionType;
+        BigDecimal amount;
+        String referenceId;
+        String description;
+        WalletTransaction.TransactionStatus status;
+        BigDecimal balanceBefore;
+        BigDecimal balanceAfter;
+        String serviceType;
+        LocalDateTime createdAt;
+        LocalDateTime processedAt;
+    }
+
+    private static View view(long id, long walletId, String referenceId, LocalDateTime createdAt) {
+        return new View(id, walletId, WalletTransaction.TransactionType.TOPUP, new BigDecimal("25.00"), referenceId,
+                "Wallet top-up", WalletTransaction.TransactionStatus.COMPLETED, new BigDecimal("100.00"),
+                new BigDecimal("125.00"), null, createdAt, createdAt.plusSeconds(1));
+    }
+
+    @BeforeEach
+    void setUp() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBatchSize(2);
+        archiveService = new ArchiveService(properties, walletTransactionRepository, walletTransactionReferenceRepository,
+                externalTransactionRepository, reconciliationItemRepository, transactionManager,
+                new WalletMetrics(meterRegistry));
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wseg")).count();
+        }
+    }
+
+    @Test
+    void archiveAll_MovesOldTransactionsToSegments_AndServesThemBack() throws IOException {
+        // Given
+        when(walletTransactionRepository.findArchivableViews(eq(TODAY.minusDays(365).atStartOfDay()), eq(0L), any()))
+                .thenReturn(List.of(view(1, 10, "REF-1", OLD), view(2, 11, "REF-2", OLD.plusHours(1))));
+        when(walletTransactionRepository.findArchivableViews(any(), eq(2L), any()))
+                .thenReturn(List.of(view(3, 10, "REF-3", OLD.plusDays(1))));
+
+        // When
+        ArchiveRunReport report = archiveService.archiveAll(TODAY);
+
+        // Then
+        InOrder claimThenDelete = inOrder(walletTransactionReferenceRepository, walletTransactionRepository);
+        claimThenDelete.verify(walletTransactionReferenceRepository).claimForArchive(List.of(1L, 2L));
+        claimThenDelete.verify(walletTransactionRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(walletTransactionRepository).deleteAllByIdInBatch(List.of(3L));
+        assertThat(report.getRowsArchived()).containsEntry(ArchiveService.WALLET_TRANSACTIONS, 3L);
+        assertThat(report.getSegmentsWritten()).isEqualTo(2);
+        assertThat(segmentFiles()).isEqualTo(2);
+        assertThat(meterRegistry.get("wallet.archive.rows").tag("dataset", "wallet_transactions").counter().count())
+                .isEqualTo(3.0);
+
+        List<TransactionResponse> history = archiveService.findWalletTransactions(10L, null, null);
+        assertThat(history).extracting(TransactionResponse::getReferenceId).containsExactly("REF-3", "REF-1");
+        assertThat(history.get(1).getAmount()).isEqualByComparingTo("25.00");
+        assertThat(history.get(1).getCreatedAt()).isEqualTo(OLD);
+        assertThat(history.get(1).getStatus()).isEqualTo("COMPLETED");
+        assertThat(archiveService.findWalletTransactions(10L, OLD.plusMinutes(1), OLD.plusHours(2))).isEmpty();
+        assertThat(archiveService.findWalletTransactionByReference("REF-2"))
+                .hasValueSatisfying(transaction -> assertThat(transaction.getWalletId()).isEqualTo(11L));
+        assertThat(archiveService.findWalletTransactionByReference("REF-9")).isEmpty();
+    }
+
+    @Test
+    void archiveAll_DeleteFails_RemovesTheSegmentSoRowsStayOnlyInTheHotTable() throws IOException {
+        // Given
+        when(walletTransactionRepository.findArchivableViews(any(), eq(0L), any()))
+                .thenReturn(List.of(view(1, 10, "REF-1", OLD)));
+        doThrow(new DataIntegrityViolationException("locked")).when(walletTransactionRepository).deleteAllByIdInBatch(anyList());
+
+        // When & Then
+        assertThatThrownBy(() -> archiveService.archiveAll(TODAY)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(segmentFiles()).isZero();
+        assertThat(archiveService.findWalletTransactionByReference("REF-1")).isEmpty();
+    }
+
+    @Test
+    void archiveAll_ReconciliationItems_AreFoundByTheirReportDate() {
+        // Given
+        ReconciliationReport report = ReconciliationReport.builder().id(4L).reconciliationDate(LocalDate.of(2025, 2, 1)).build();
+        ReconciliationItem item = ReconciliationItem.builder()
+                .id(40L)
+                .reconciliationReport(report)
+                .referenceId("REF-1")
+                .matchType(ReconciliationItem.MatchType.REFERENCE_MATCH)
+                .discrepancyType(ReconciliationItem.DiscrepancyType.AMOUNT_DIFFERENCE)
+                .internalAmount(new BigDecimal("100.00"))
+                .externalAmount(new BigDecimal("250.00"))
+                .amountDifference(new BigDecimal("-150.00"))
+                .build();
+        when(reconciliationItemRepository.findArchivable(eq(TODAY.minusDays(365)), eq(0L), any())).thenReturn(List.of(item));
+
+        // When
+        archiveService.archiveAll(TODAY);
+
+        // Then
+        verify(reconciliationItemRepository).deleteAllByIdInBatch(List.of(40L));
+        List<ReconciliationItemResponse> items = archiveService.findReconciliationItems(LocalDate.of(2025, 2, 1));
+        assertThat(items).singleElement().satisfies(archived -> {
+            assertThat(archived.getItemId()).isEqualTo(40L);
+            assertThat(archived.getDiscrepancyType()).isEqualTo("AMOUNT_DIFFERENCE");
+            assertThat(archived.getSeverity()).isEqualTo("HIGH");
+        });
+        assertThat(archiveService.findReconciliationItems(LocalDate.of(2025, 2, 2))).isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.presta.Wallet.dto.BalanceVerificationReport;
+import com.presta.Wallet.dto.BalanceVerificationResult;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.entity.WalletBalanceSnapshot;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.WalletBalanceSnapshotRepository;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.BalanceVerificationService;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceVerificationServiceTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletTransactionRepository transactionRepository;
+
+    @Mock
+    private WalletBalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BalanceVerificationService balanceVerificationService;
+
+    @BeforeEach
+    void setUp() {
+        balanceVerificationService = new BalanceVerificationService(walletRepository, transactionRepository,
+                snapshotRepository, transactionManager, new WalletMetrics(meterRegistry));
+        ReflectionTestUtils.setField(balanceVerificationService, "parallelism", 2);
+        ReflectionTestUtils.setField(balanceVerificationService, "chunkSize", 1);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    private static Wallet wallet(long id, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setBalance(new BigDecimal(balance));
+        return wallet;
+    }
+
+    private static WalletTransactionRepository.LedgerDelta delta(String amount, long count, Long lastId) {
+        return new WalletTransactionRepository.LedgerDelta() {
+            public BigDecimal getDelta() { return new BigDecimal(amount); }
+            public Long getTransactionCount() { return count; }
+            public Long getLastTransactionId() { return lastId; }
+        };
+    }
+
+    @Test
+    void verifyWallet_ReplaysOnlyTransactionsAfterSnapshot() {
+        // Given
+        WalletBalanceSnapshot snapshot = WalletBalanceSnapshot.builder()
+                .walletId(1L).balance(new BigDecimal("100.00")).lastTransactionId(40L).build();
+        when(walletRepository.findAllById(List.of(1L))).thenReturn(List.of(wallet(1L, "130.00")));
+        when(snapshotRepository.findLatestByWalletIdIn(List.of(1L))).thenReturn(List.of(snapshot));
+        when(transactionRepository.sumLedgerSince(eq(1L), eq(40L), any(), any(), any(), any()))
+                .thenReturn(delta("30.00", 3, 43L));
+
+        // When
+        BalanceVerificationResult result = balanceVerificationService.verifyWallet(1L);
+
+        // Then
+        assertThat(result.isConsistent()).isTrue();
+        assertThat(result.getLedgerBalance()).isEqualByComparingTo("130.00");
+        assertThat(result.getTransactionsReplayed()).isEqualTo(3);
+        assertThat(result.getSnapshotTransactionId()).isEqualTo(40L);
+    }
+
+    @Test
+    void verifyAll_WalletOutOfStepWithLedger_IsReportedAsDrift() {
+        // Given
+        when(walletRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(walletRepository.findAllById(List.of(1L))).thenReturn(List.of(wallet(1L, "50.00")));
+        when(walletRepository.findAllById(List.of(2L))).thenReturn(List.of(wallet(2L, "75.00")));
+        when(snapshotRepository.findLatestByWalletIdIn(anyList())).thenReturn(List.of());
+        when(transactionRepository.sumLedgerSince(eq(1L), eq(0L), any(), any(), any(), any()))
+                .thenReturn(delta("50.00", 2, 2L));
+        when(transactionRepository.sumLedgerSince(eq(2L), eq(0L), any(), any(), any(), any()))
+                .thenReturn(delta("70.00", 1, 3L));
+
+        // When
+        BalanceVerificationReport report = balanceVerificationService.verifyAll();
+
+        // Then
+        assertThat(report.getWalletsChecked()).isEqualTo(2);
+        assertThat(report.getWalletsWithDrift()).isEqualTo(1);
+        assertThat(report.getDrifted()).singleElement().satisfies(drifted -> {
+            assertThat(drifted.getWalletId()).isEqualTo(2L);
+            assertThat(drifted.getDrift()).isEqualByComparingTo("5.00");
+        });
+        assertThat(meterRegistry.get("wallet.balance.drift.detected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void snapshotAll_WritesLedgerBalanceOnlyForWalletsWithNewTransactions() {
+        // Given
+        List<WalletBalanceSnapshot> saved = new ArrayList<>();
+        when(walletRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(snapshotRepository.findLatestByWalletIdIn(anyList())).thenReturn(List.of());
+        when(transactionRepository.sumLedgerSince(eq(1L), anyLong(), any(), any(), any(), any()))
+                .thenReturn(delta("20.00", 2, 9L));
+        when(transactionRepository.sumLedgerSince(eq(2L), anyLong(), any(), any(), any(), any()))
+                .thenReturn(delta("0", 0, null));
+        when(snapshotRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<WalletBalanceSnapshot> batch = invocation.getArgument(0);
+            synchronized (saved) {
+                saved.addAll(batch);
+            }
+            return batch;
+        });
+
+        // When
+        int written = balanceVerificationService.snapshotAll();
+
+        // Then
+        assertThat(written).isEqualTo(1);
+        assertThat(saved).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.getWalletId()).isEqualTo(1L);
+            assertThat(snapshot.getBalance()).isEqualByComparingTo("20.00");
+            assertThat(snapshot.getLastTransactionId()).isEqualTo(9L);
+        });
+    }
+}
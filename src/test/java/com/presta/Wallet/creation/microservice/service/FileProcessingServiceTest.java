@@ -0,0 +1,210 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+import com.presta.Wallet.service.FileProcessingService;
+import com.presta.Wallet.service.IngestDeduplicationService;
+import com.presta.Wallet.service.StreamingReconciliationService;
+
+@ExtendWith(MockitoExtension.class)
+class FileProcessingServiceTest {
+
+    @Mock
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Mock
+    private StreamingReconciliationService streamingReconciliationService;
+
+    @Mock
+    private IngestedFileRepository ingestedFileRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletMetrics walletMetrics = new WalletMetrics(meterRegistry);
+    private FileProcessingService fileProcessingService;
+
+    private final LocalDate reportDate = LocalDate.of(2024, 1, 15);
+    private List<ExternalTransaction> saved;
+
+    @BeforeEach
+    void setUp() {
+        saved = new ArrayList<>();
+        fileProcessingService = new FileProcessingService(externalTransactionRepository,
+                new IngestDeduplicationService(ingestedFileRepository, externalTransactionRepository), walletMetrics,
+                streamingReconciliationService);
+        ReflectionTestUtils.setField(fileProcessingService, "batchSize", 2);
+    }
+
+    private void captureSaves() {
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ExternalTransaction> batch = new ArrayList<>(invocation.getArgument(0));
+            saved.addAll(batch);
+            return batch;
+        });
+    }
+
+    @Test
+    void ingestJsonStream_JsonArray_FlushesInBatches() throws Exception {
+        // Given
+        captureSaves();
+        String json = """
+            [
+              {"transactionId": "EXT001", "transactionDate": "2024-01-15", "amount": 50.00, "referenceId": "REF001"},
+              {"transactionId": "EXT002", "amount": 25.00, "referenceId": "REF002"},
+              {"transactionId": "EXT003", "amount": 10.00, "referenceId": "REF003"}
+            ]
+            """;
+
+        // When
+        int count = fileProcessingService.ingestJsonStream(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "PROVIDER", "drop.json", reportDate);
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        verify(externalTransactionRepository, times(2)).saveAll(anyList());
+        assertThat(saved).extracting(ExternalTransaction::getReferenceId).containsExactly("REF001", "REF002", "REF003");
+        assertThat(saved.get(1).getTransactionDate()).isEqualTo(reportDate);
+        assertThat(saved.get(0).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
+        assertThat(meterRegistry.get("wallet.ingest.rows").tags("path", "stream", "outcome", "accepted")
+                .counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void ingestJsonStream_Ndjson_ReadsEveryLine() throws Exception {
+        // Given
+        captureSaves();
+        String ndjson = "{\"transactionId\": \"EXT001\", \"amount\": 50.00, \"referenceId\": \"REF001\"}\n"
+                + "{\"transactionId\": \"EXT002\", \"amount\": 25.00, \"referenceId\": \"REF002\"}\n";
+        MockMultipartFile file = new MockMultipartFile("file", "drop.ndjson", "application/x-ndjson",
+                ndjson.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        int count = fileProcessingService.ingestJsonStream(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(count).isEqualTo(2);
+        assertThat(saved).allMatch(t -> "drop.ndjson".equals(t.getFileName()));
+    }
+
+    @Test
+    void ingestJsonStream_CsvFile_ThrowsException() {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", "id\n1".getBytes());
+
+        // When & Then
+        assertThatThrownBy(() -> fileProcessingService.ingestJsonStream(file, "PROVIDER", reportDate))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Streaming ingest");
+    }
+
+    @Test
+    void processFile_CsvWithDayFirstDates_LocksInDayMonthLayout() {
+        // Given
+        captureSaves();
+        String csv = """
+            transaction_id,transaction_date,amount,reference_id
+            EXT001,01/02/2024,50.00,REF001
+            EXT002,13/02/2024,25.00,REF002
+            EXT003,29/02/2024,10.00,REF003
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        List<ExternalTransaction> result = fileProcessingService.processFile(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result).extracting(ExternalTransaction::getTransactionDate).containsExactly(
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 13), LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    void processFile_CsvWithUnparseableDate_FallsBackToReportDate() {
+        // Given
+        captureSaves();
+        String csv = """
+            transaction_id,date,amount,reference_id
+            EXT001,2024-01-10,50.00,REF001
+            EXT002,not-a-date,25.00,REF002
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        List<ExternalTransaction> result = fileProcessingService.processFile(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result).extracting(ExternalTransaction::getTransactionDate)
+                .containsExactly(LocalDate.of(2024, 1, 10), reportDate);
+    }
+
+    @Test
+    void processFile_RowsAlreadyIngestedForProvider_AreSkipped() {
+        // Given: EXT001 is stored but no longer cached, so only the unique key catches it
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ExternalTransaction> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(t -> "EXT001".equals(t.getExternalTransactionId()))) {
+                throw new DataIntegrityViolationException("uk_external_provider_txn");
+            }
+            saved.addAll(batch);
+            return new ArrayList<>(batch);
+        });
+        when(externalTransactionRepository.findStoredExternalTransactionIds(eq("PROVIDER"), anyCollection()))
+                .thenReturn(List.of("EXT001"));
+        String csv = """
+            transaction_id,amount,reference_id
+            EXT001,50.00,REF001
+            EXT002,25.00,REF002
+            EXT002,25.00,REF002
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        List<ExternalTransaction> result = fileProcessingService.processFile(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result).extracting(ExternalTransaction::getExternalTransactionId).containsExactly("EXT002");
+        assertThat(meterRegistry.get("wallet.ingest.rows").tag("outcome", "duplicate").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void processFile_IntegrityViolationOnNewRows_FailsTheUpload() {
+        // Given
+        when(externalTransactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("value too long"));
+        String csv = """
+            transaction_id,amount,reference_id
+            EXT001,50.00,REF001
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When / Then
+        assertThatThrownBy(() -> fileProcessingService.processFile(file, "PROVIDER", reportDate))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("value too long");
+    }
+}
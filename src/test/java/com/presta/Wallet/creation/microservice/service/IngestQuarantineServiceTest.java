@@ -0,0 +1,240 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.presta.Wallet.dto.IngestResult;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.IngestQuarantineRow;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestQuarantineRowRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+import com.presta.Wallet.service.FileProcessingService;
+import com.presta.Wallet.service.IngestDeduplicationService;
+import com.presta.Wallet.service.IngestQuarantineService;
+import com.presta.Wallet.service.StreamingReconciliationService;
+
+@ExtendWith(MockitoExtension.class)
+class IngestQuarantineServiceTest {
+
+    @Mock
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Mock
+    private StreamingReconciliationService streamingReconciliationService;
+
+    @Mock
+    private IngestQuarantineRowRepository quarantineRepository;
+
+    @Mock
+    private IngestedFileRepository ingestedFileRepository;
+
+    private final WalletMetrics walletMetrics = new WalletMetrics(new SimpleMeterRegistry());
+    private IngestQuarantineService ingestQuarantineService;
+    private final LocalDate reportDate = LocalDate.of(2024, 1, 15);
+    private final List<IngestQuarantineRow> quarantined = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        IngestDeduplicationService ingestDeduplicationService =
+                new IngestDeduplicationService(ingestedFileRepository, externalTransactionRepository);
+        ingestQuarantineService = new IngestQuarantineService(
+                new FileProcessingService(externalTransactionRepository, ingestDeduplicationService, walletMetrics,
+                        streamingReconciliationService),
+                externalTransactionRepository, quarantineRepository, ingestDeduplicationService, walletMetrics,
+                streamingReconciliationService);
+        ReflectionTestUtils.setField(ingestQuarantineService, "batchSize", 2);
+    }
+
+    private void captureQuarantine() {
+        when(quarantineRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<IngestQuarantineRow> batch = new ArrayList<>(invocation.getArgument(0));
+            quarantined.addAll(batch);
+            return batch;
+        });
+    }
+
+    @Test
+    void ingestCsv_InvalidRows_AreQuarantinedWithLineNumbers() {
+        // Given
+        captureQuarantine();
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        String csv = """
+            transaction_id,transaction_date,amount,reference_id
+            EXT001,2024-01-15,50.00,REF001
+            EXT002,2024-01-15,abc,REF002
+            EXT003,2024-01-15
+            EXT004,2024-01-15,10.00,REF004
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        IngestResult result = ingestQuarantineService.ingestCsv(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getQuarantined()).isEqualTo(2);
+        assertThat(result.getChunksCommitted()).isEqualTo(1);
+        assertThat(quarantined).extracting(IngestQuarantineRow::getLineNumber).containsExactly(3, 4);
+        assertThat(quarantined.get(0).getReason()).contains("Invalid amount");
+        assertThat(quarantined.get(1).getReason()).contains("columns");
+        assertThat(quarantined.get(1).getRawText()).isEqualTo("EXT003,2024-01-15");
+    }
+
+    @Test
+    void ingestCsv_ChunkFailsToPersist_OnlyFailingRowIsQuarantined() {
+        // Given
+        captureQuarantine();
+        when(externalTransactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("chunk"));
+        when(externalTransactionRepository.save(any(ExternalTransaction.class))).thenAnswer(invocation -> {
+            ExternalTransaction transaction = invocation.getArgument(0);
+            if ("REF002".equals(transaction.getReferenceId())) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return transaction;
+        });
+        String csv = """
+            transaction_id,amount,reference_id
+            EXT001,50.00,REF001
+            EXT002,25.00,REF002
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        IngestResult result = ingestQuarantineService.ingestCsv(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getQuarantined()).isEqualTo(1);
+        assertThat(quarantined).singleElement().satisfies(row -> {
+            assertThat(row.getLineNumber()).isEqualTo(3);
+            assertThat(row.getReason()).startsWith("Persistence failed");
+        });
+    }
+
+    @Test
+    void ingestCsv_RowAlreadyStored_CountedAsDuplicateNotQuarantined() {
+        // Given: EXT001 was ingested before the dedup cache last saw it, so the unique key rejects the chunk
+        when(externalTransactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_external_provider_txn"));
+        when(externalTransactionRepository.findStoredExternalTransactionIds(eq("PROVIDER"), anyCollection()))
+                .thenReturn(List.of("EXT001"));
+        when(externalTransactionRepository.save(any(ExternalTransaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String csv = """
+            transaction_id,amount,reference_id
+            EXT001,50.00,REF001
+            EXT002,25.00,REF002
+            """;
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        IngestResult result = ingestQuarantineService.ingestCsv(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getDuplicatesSkipped()).isEqualTo(1);
+        assertThat(result.getQuarantined()).isZero();
+        verify(quarantineRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void reprocessQuarantined_FixedRow_IsIngestedAndMarkedReprocessed() {
+        // Given
+        captureQuarantine();
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        IngestQuarantineRow row = IngestQuarantineRow.builder()
+                .fileName("drop.csv")
+                .providerName("PROVIDER")
+                .reportDate(reportDate)
+                .lineNumber(2)
+                .headerLine("transaction_id,amount,reference_id")
+                .rawText("EXT001,50.00,REF001")
+                .reason("Persistence failed: connection reset")
+                .build();
+        when(quarantineRepository.findForReprocessing("drop.csv", null, null,
+                IngestQuarantineRow.QuarantineStatus.QUARANTINED)).thenReturn(List.of(row));
+
+        // When
+        IngestResult result = ingestQuarantineService.reprocessQuarantined("drop.csv", null, null);
+
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getQuarantined()).isZero();
+        assertThat(row.getStatus()).isEqualTo(IngestQuarantineRow.QuarantineStatus.REPROCESSED);
+        assertThat(quarantined).containsExactly(row);
+    }
+
+    @Test
+    void reprocessQuarantined_SameFileNameFromTwoProviders_EachGroupUsesItsOwnProviderAndHeader() {
+        // Given: two providers both send "drop.csv", with different column orders
+        captureQuarantine();
+        List<ExternalTransaction> saved = new ArrayList<>();
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ExternalTransaction> chunk = invocation.getArgument(0);
+            saved.addAll(chunk);
+            return chunk;
+        });
+        IngestQuarantineRow first = IngestQuarantineRow.builder()
+                .fileName("drop.csv").providerName("ALPHA").reportDate(reportDate).lineNumber(2)
+                .headerLine("transaction_id,amount,reference_id")
+                .rawText("EXT001,50.00,REF001")
+                .build();
+        IngestQuarantineRow second = IngestQuarantineRow.builder()
+                .fileName("drop.csv").providerName("BETA").reportDate(reportDate.plusDays(1)).lineNumber(2)
+                .headerLine("amount,transaction_id,reference_id")
+                .rawText("75.00,EXT002,REF002")
+                .build();
+        when(quarantineRepository.findForReprocessing("drop.csv", null, null,
+                IngestQuarantineRow.QuarantineStatus.QUARANTINED)).thenReturn(List.of(first, second));
+
+        // When
+        IngestResult result = ingestQuarantineService.reprocessQuarantined("drop.csv", null, null);
+
+        // Then
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getProviderName()).isNull();
+        assertThat(saved).extracting(ExternalTransaction::getProviderName, ExternalTransaction::getExternalTransactionId,
+                        ExternalTransaction::getTransactionDate)
+                .containsExactly(tuple("ALPHA", "EXT001", reportDate), tuple("BETA", "EXT002", reportDate.plusDays(1)));
+        assertThat(saved.get(1).getAmount()).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    void ingestCsv_LongRow_IsQuarantinedWhole() {
+        // Given
+        captureQuarantine();
+        String longReference = "R".repeat(5000);
+        String csv = "transaction_id,transaction_date,amount,reference_id\n"
+                + "EXT001,2024-01-15,abc," + longReference + "\n";
+        MockMultipartFile file = new MockMultipartFile("file", "drop.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        ingestQuarantineService.ingestCsv(file, "PROVIDER", reportDate);
+
+        // Then
+        assertThat(quarantined).singleElement()
+                .satisfies(row -> assertThat(row.getRawText()).isEqualTo("EXT001,2024-01-15,abc," + longReference));
+    }
+}
@@ -0,0 +1,243 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.IngestedFile;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.IngestedFileRepository;
+import com.presta.Wallet.service.FileProcessingService;
+import com.presta.Wallet.service.IngestDeduplicationService;
+import com.presta.Wallet.service.MappedFileIngestService;
+import com.presta.Wallet.service.StreamingReconciliationService;
+
+@ExtendWith(MockitoExtension.class)
+class MappedFileIngestServiceTest {
+
+    @Mock
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Mock
+    private StreamingReconciliationService streamingReconciliationService;
+
+    @Mock
+    private IngestedFileRepository ingestedFileRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletMetrics walletMetrics = new WalletMetrics(meterRegistry);
+    private MappedFileIngestService mappedFileIngestService;
+    private List<ExternalTransaction> saved;
+
+    @BeforeEach
+    void setUp() {
+        IngestDeduplicationService ingestDeduplicationService =
+                new IngestDeduplicationService(ingestedFileRepository, externalTransactionRepository);
+        mappedFileIngestService = new MappedFileIngestService(
+                new FileProcessingService(externalTransactionRepository, ingestDeduplicationService, walletMetrics,
+                        streamingReconciliationService),
+                ingestDeduplicationService, walletMetrics);
+        ReflectionTestUtils.setField(mappedFileIngestService, "parallelism", 4);
+        ReflectionTestUtils.setField(mappedFileIngestService, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(mappedFileIngestService, "batchSize", 50);
+
+        saved = Collections.synchronizedList(new ArrayList<>());
+        lenient().when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ExternalTransaction> batch = new ArrayList<>(invocation.getArgument(0));
+            saved.addAll(batch);
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(mappedFileIngestService, "shutdown");
+    }
+
+    private Path thousandRowFile() throws Exception {
+        StringBuilder csv = new StringBuilder("transaction_id,transaction_date,amount,reference_id\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append("EXT_").append(i).append(",2024-01-15,").append(i).append(".50,REF_").append(i).append("\n");
+        }
+        Path file = tempDir.resolve("PROVIDER_2024-01-15.csv");
+        Files.writeString(file, csv.toString());
+        return file;
+    }
+
+    @Test
+    void ingest_SplitsFileOnLineBoundaries_SavesEveryRow() throws Exception {
+        // Given
+        StringBuilder csv = new StringBuilder("transaction_id,transaction_date,amount,reference_id\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append("EXT_").append(i).append(",2024-01-15,").append(i).append(".50,REF_").append(i).append("\r\n");
+        }
+        Path file = tempDir.resolve("PROVIDER_2024-01-15.csv");
+        Files.writeString(file, csv.toString());
+
+        // When
+        int ingested = mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15));
+
+        // Then
+        assertThat(ingested).isEqualTo(1000);
+        assertThat(saved).hasSize(1000);
+        assertThat(saved).extracting(ExternalTransaction::getReferenceId).doesNotHaveDuplicates();
+        assertThat(saved).anyMatch(t -> "REF_1000".equals(t.getReferenceId())
+                && new BigDecimal("1000.50").compareTo(t.getAmount()) == 0);
+        assertThat(saved).allMatch(t -> "PROVIDER".equals(t.getProviderName()));
+    }
+
+    @Test
+    void ingest_LastLineWithoutNewline_IsStillIngested() throws Exception {
+        // Given
+        Path file = tempDir.resolve("drop.csv");
+        Files.writeString(file, "id,amount,reference\nEXT_1,10.00,REF_1\nEXT_2,20.00,REF_2");
+
+        // When
+        int ingested = mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15));
+
+        // Then
+        assertThat(ingested).isEqualTo(2);
+        assertThat(saved).extracting(ExternalTransaction::getReferenceId).containsExactlyInAnyOrder("REF_1", "REF_2");
+    }
+
+    @Test
+    void ingest_NoLineBreakWithinTheHeaderCap_IsRejectedWithoutReadingTheFile() throws Exception {
+        // Given: 1 MiB without a single newline
+        Path file = tempDir.resolve("blob.csv");
+        Files.write(file, "x".repeat(1024 * 1024).getBytes(StandardCharsets.UTF_8));
+
+        // When / Then
+        assertThatThrownBy(() -> mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No line break in the first 64 KiB");
+        verify(externalTransactionRepository, never()).saveAll(anyList());
+        assertThat(meterRegistry.get("wallet.ingest.duration").tags("path", "mapped", "outcome", "failure")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void ingest_HeaderOnlyWithoutTrailingNewline_IngestsNothing() throws Exception {
+        // Given
+        Path file = tempDir.resolve("empty-day.csv");
+        Files.writeString(file, "id,amount,reference");
+
+        // When
+        int ingested = mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15));
+
+        // Then
+        assertThat(ingested).isZero();
+        assertThat(saved).isEmpty();
+    }
+
+    @Test
+    void ingest_FileWithKnownContentHash_IsSkipped() throws Exception {
+        // Given
+        Path file = tempDir.resolve("drop.csv");
+        Files.writeString(file, "id,amount,reference\nEXT_1,10.00,REF_1\n");
+        when(ingestedFileRepository.findByProviderNameAndContentHash(eq("PROVIDER"), anyString()))
+                .thenReturn(Optional.of(IngestedFile.builder().fileName("drop.csv").build()));
+
+        // When
+        int ingested = mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15));
+
+        // Then
+        assertThat(ingested).isZero();
+        verify(externalTransactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void ingest_SameContentFromAnotherProvider_IsIngested() throws Exception {
+        // Given
+        Path file = tempDir.resolve("drop.csv");
+        Files.writeString(file, "id,amount,reference\nEXT_1,10.00,REF_1\n");
+        lenient().when(ingestedFileRepository.findByProviderNameAndContentHash(eq("PROVIDER"), anyString()))
+                .thenReturn(Optional.of(IngestedFile.builder().fileName("drop.csv").build()));
+
+        // When
+        int ingested = mappedFileIngestService.ingest(file, "OTHER_PROVIDER", LocalDate.of(2024, 1, 15));
+
+        // Then
+        assertThat(ingested).isEqualTo(1);
+        assertThat(saved).singleElement().extracting(ExternalTransaction::getProviderName).isEqualTo("OTHER_PROVIDER");
+    }
+
+    @Test
+    void ingest_OneSegmentFails_ReportsTheRowsTheOthersCommittedAndDoesNotRecordTheFile() throws Exception {
+        // Given: the batch holding EXT_990 cannot be written
+        Path file = thousandRowFile();
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ExternalTransaction> batch = new ArrayList<>(invocation.getArgument(0));
+            if (batch.stream().anyMatch(t -> "EXT_990".equals(t.getExternalTransactionId()))) {
+                throw new IllegalStateException("disk full");
+            }
+            saved.addAll(batch);
+            return batch;
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> mappedFileIngestService.ingest(file, "PROVIDER", LocalDate.of(2024, 1, 15)))
+                .hasMessageContaining("after committing " + saved.size() + " rows")
+                .hasMessageContaining("disk full");
+        assertThat(saved).isNotEmpty();
+        verify(ingestedFileRepository, never()).save(any(IngestedFile.class));
+        assertThat(meterRegistry.get("wallet.ingest.duration").tags("path", "mapped", "outcome", WalletMetrics.OUTCOME_FAILURE)
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void ingest_FilesShareOneBoundedWorkerPool_StoppedOnShutdown() throws Exception {
+        // Given
+        Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+        when(externalTransactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writerThreads.add(Thread.currentThread().getName());
+            return new ArrayList<>(invocation.<List<ExternalTransaction>>getArgument(0));
+        });
+        Path other = tempDir.resolve("other.csv");
+        Files.writeString(other, "id,amount,reference\nEXT_1,10.00,REF_1\n");
+
+        // When
+        mappedFileIngestService.ingest(thousandRowFile(), "PROVIDER", LocalDate.of(2024, 1, 15));
+        mappedFileIngestService.ingest(other, "OTHER_PROVIDER", LocalDate.of(2024, 1, 15));
+        ExecutorService workers = (ExecutorService) ReflectionTestUtils.getField(mappedFileIngestService, "workers");
+        ReflectionTestUtils.invokeMethod(mappedFileIngestService, "shutdown");
+
+        // Then
+        assertThat(writerThreads).isNotEmpty().hasSizeLessThanOrEqualTo(4).allMatch(name -> name.startsWith("mapped-ingest-"));
+        assertThat(workers.isShutdown()).isTrue();
+    }
+}
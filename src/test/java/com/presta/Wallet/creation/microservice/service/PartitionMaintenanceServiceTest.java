@@ -0,0 +1,122 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.presta.Wallet.config.PartitioningProperties;
+import com.presta.Wallet.service.PartitionMaintenanceService;
+import com.presta.Wallet.service.PartitionMaintenanceService.Partition;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    @BeforeEach
+    void setUp() {
+        PartitioningProperties properties = new PartitioningProperties();
+        properties.getDefaults().setCreateAhead(2);
+        properties.getDefaults().setRetainPartitions(12);
+        PartitioningProperties.Table walletTransactions = new PartitioningProperties.Table();
+        walletTransactions.setGranularity(PartitioningProperties.Granularity.DAY);
+        walletTransactions.setCreateAhead(1);
+        walletTransactions.setRetainPartitions(30);
+        properties.getTables().put("wallet-transactions", walletTransactions);
+
+        lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), anyString())).thenReturn(1);
+        partitionMaintenanceService = new PartitionMaintenanceService(jdbcTemplate, transactionManager, properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPartitions(String table, Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(table))).thenReturn(List.of(partitions));
+    }
+
+    @Test
+    void parseBound_ReadsTimestampDateAndOpenBounds_IgnoresDefault() {
+        // When & Then
+        assertThat(PartitionMaintenanceService.parseBound("wallet_transactions_p20261019",
+                "FOR VALUES FROM ('2026-10-19 00:00:00') TO ('2026-10-20 00:00:00')"))
+                .isEqualTo(new Partition("wallet_transactions_p20261019", TODAY, TODAY.plusDays(1)));
+        assertThat(PartitionMaintenanceService.parseBound("external_transactions_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-11-01')"))
+                .isEqualTo(new Partition("external_transactions_legacy", null, LocalDate.of(2026, 11, 1)));
+        assertThat(PartitionMaintenanceService.parseBound("wallet_transactions_pdefault", "DEFAULT")).isNull();
+    }
+
+    @Test
+    void maintain_CreatesMissingPartitionsAhead_SkippingRangesAlreadyCovered() {
+        // Given
+        givenPartitions("wallet_transactions",
+                new Partition("wallet_transactions_p20261019", TODAY, TODAY.plusDays(1)));
+        givenPartitions("external_transactions",
+                new Partition("external_transactions_legacy", null, LocalDate.of(2026, 11, 1)));
+
+        // When
+        PartitionMaintenanceService.MaintenanceResult result = partitionMaintenanceService.maintain(TODAY);
+
+        // Then
+        assertThat(result.created()).containsExactly(
+                "wallet_transactions_p20261020", "external_transactions_p202611", "external_transactions_p202612");
+        assertThat(result.archived()).isEmpty();
+        verify(jdbcTemplate).execute("CREATE TABLE \"wallet_transactions_p20261020\" PARTITION OF "
+                + "\"wallet_transactions\" FOR VALUES FROM ('2026-10-20') TO ('2026-10-21')");
+        verify(jdbcTemplate).execute("CREATE TABLE \"external_transactions_p202612\" PARTITION OF "
+                + "\"external_transactions\" FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+    }
+
+    @Test
+    void maintain_PartitionsPastRetention_AreDetachedIntoArchiveSchema() {
+        // Given
+        givenPartitions("wallet_transactions",
+                new Partition("wallet_transactions_legacy", null, LocalDate.of(2026, 9, 1)),
+                new Partition("wallet_transactions_p20260918", LocalDate.of(2026, 9, 18), LocalDate.of(2026, 9, 19)),
+                new Partition("wallet_transactions_p20260919", LocalDate.of(2026, 9, 19), LocalDate.of(2026, 9, 20)),
+                new Partition("wallet_transactions_p20261019", TODAY, TODAY.plusDays(1)),
+                new Partition("wallet_transactions_p20261020", TODAY.plusDays(1), TODAY.plusDays(2)));
+        givenPartitions("external_transactions",
+                new Partition("external_transactions_p202509", LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1)),
+                new Partition("external_transactions_p202510", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 1)),
+                new Partition("external_transactions_p202610", LocalDate.of(2026, 10, 1), LocalDate.of(2026, 11, 1)),
+                new Partition("external_transactions_p202611", LocalDate.of(2026, 11, 1), LocalDate.of(2026, 12, 1)),
+                new Partition("external_transactions_p202612", LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1)));
+
+        // When
+        PartitionMaintenanceService.MaintenanceResult result = partitionMaintenanceService.maintain(TODAY);
+
+        // Then
+        assertThat(result.created()).isEmpty();
+        assertThat(result.archived()).containsExactly(
+                "wallet_transactions_legacy", "wallet_transactions_p20260918", "external_transactions_p202509");
+        verify(jdbcTemplate).execute("ALTER TABLE \"wallet_transactions\" DETACH PARTITION \"wallet_transactions_legacy\"");
+        verify(jdbcTemplate).execute("ALTER TABLE \"wallet_transactions_legacy\" SET SCHEMA \"archive\"");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE \"wallet_transactions\" DETACH PARTITION "
+                + "\"wallet_transactions_p20260919\"");
+    }
+}
@@ -0,0 +1,138 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.presta.Wallet.config.ProviderResilienceProperties;
+import com.presta.Wallet.dto.ServiceResponse;
+import com.presta.Wallet.exception.ProviderUnavailableException;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.service.ProviderGateway;
+
+class ProviderGatewayTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProviderGateway providerGateway;
+
+    @BeforeEach
+    void setUp() {
+        ProviderResilienceProperties properties = new ProviderResilienceProperties();
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setOpenDurationMs(60_000);
+
+        ProviderResilienceProperties.Provider crb = new ProviderResilienceProperties.Provider();
+        crb.setMaxConcurrentCalls(1);
+        crb.setQueueCapacity(1);
+        crb.setTimeoutMs(200);
+        crb.setSlowCallMs(200);
+        properties.getProviders().put("crb", crb);
+
+        providerGateway = new ProviderGateway(properties, meterRegistry, new WalletMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(providerGateway, "shutdown");
+    }
+
+    private static ServiceResponse response(String serviceType, String status) {
+        return ServiceResponse.builder().serviceType(serviceType).status(status).build();
+    }
+
+    @Test
+    void call_ProviderSlowerThanTimeout_FailsFast() {
+        // Given
+        long started = System.nanoTime();
+
+        // When
+        ServiceResponse result = providerGateway.call("CRB", () -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response("CRB", "SUCCESS");
+        });
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo("FAILED");
+        assertThat(result.getMessage()).contains("did not respond in time");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(2_000);
+        assertThat(meterRegistry.get("wallet.provider.call").tags("service", "CRB", "outcome", "timeout")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void call_RepeatedProviderFailures_OpenCircuitAndStopCalling() {
+        // Given
+        AtomicInteger invocations = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            providerGateway.call("KYC", () -> {
+                invocations.incrementAndGet();
+                return response("KYC", "FAILED");
+            });
+        }
+
+        // When
+        ServiceResponse result = providerGateway.call("KYC", () -> {
+            invocations.incrementAndGet();
+            return response("KYC", "SUCCESS");
+        });
+
+        // Then
+        assertThat(providerGateway.circuitState("KYC")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(result.getStatus()).isEqualTo("FAILED");
+        assertThat(invocations).hasValue(4);
+        assertThatThrownBy(() -> providerGateway.ensureAvailable("KYC"))
+                .isInstanceOf(ProviderUnavailableException.class);
+        providerGateway.ensureAvailable("CRB");
+    }
+
+    @Test
+    void call_SaturatedProvider_DoesNotStarveOtherProviders() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        List<CompletableFuture<ServiceResponse>> crbCalls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            crbCalls.add(CompletableFuture.supplyAsync(() -> providerGateway.call("CRB", () -> {
+                try {
+                    release.await(150, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response("CRB", "SUCCESS");
+            }), callers));
+        }
+        // One worker and one queue slot: the third CRB call is turned away straight away
+        ServiceResponse rejected = (ServiceResponse) CompletableFuture.anyOf(crbCalls.toArray(CompletableFuture[]::new))
+                .get(5, TimeUnit.SECONDS);
+
+        // When
+        ServiceResponse kyc = providerGateway.call("KYC", () -> response("KYC", "SUCCESS"));
+        release.countDown();
+
+        // Then
+        assertThat(rejected.getMessage()).contains("at capacity");
+        assertThat(kyc.getStatus()).isEqualTo("SUCCESS");
+        callers.shutdown();
+        assertThat(callers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.presta.Wallet.config.ProviderCacheProperties;
+import com.presta.Wallet.dto.ServiceResponse;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.service.ProviderResultCache;
+
+class ProviderResultCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private ProviderResultCache providerResultCache;
+
+    @BeforeEach
+    void setUp() {
+        ProviderCacheProperties properties = new ProviderCacheProperties();
+        ProviderCacheProperties.Provider kyc = new ProviderCacheProperties.Provider();
+        kyc.setTtlSeconds(60);
+        kyc.setCachedChargePercent(20);
+        properties.getProviders().put("kyc", kyc);
+        ProviderCacheProperties.Provider crb = new ProviderCacheProperties.Provider();
+        crb.setTtlSeconds(0);
+        properties.getProviders().put("crb", crb);
+
+        providerResultCache = new ProviderResultCache(properties, meterRegistry, new WalletMetrics(meterRegistry), nanos::get);
+    }
+
+    private static ServiceResponse response(String status) {
+        return ServiceResponse.builder().serviceType("KYC").status(status).message("KYC verification completed").build();
+    }
+
+    @Test
+    void lookup_RepeatWithinTtl_IsServedFromCacheUntilItExpires() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        providerResultCache.lookup("KYC", "12345678", () -> {
+            calls.incrementAndGet();
+            return response("SUCCESS");
+        });
+
+        // When
+        ServiceResponse fresh = providerResultCache.getIfFresh("KYC", "12345678").orElseThrow();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        // Then
+        assertThat(fresh.getStatus()).isEqualTo("SUCCESS");
+        assertThat(calls).hasValue(1);
+        assertThat(providerResultCache.getIfFresh("KYC", "12345678")).isEmpty();
+        assertThat(providerResultCache.getIfFresh("KYC", "87654321")).isEmpty();
+    }
+
+    @Test
+    void lookup_FailedResultOrUncachedProvider_IsNotKept() {
+        // Given
+        providerResultCache.lookup("KYC", "12345678", () -> response("FAILED"));
+        providerResultCache.lookup("CRB", "CUST_1", () -> response("SUCCESS"));
+
+        // When & Then
+        assertThat(providerResultCache.getIfFresh("KYC", "12345678")).isEmpty();
+        assertThat(providerResultCache.getIfFresh("CRB", "CUST_1")).isEmpty();
+    }
+
+    @Test
+    void lookup_ConcurrentCallsForSameSubject_ShareOneProviderCall() throws Exception {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CompletableFuture<ServiceResponse> leader = CompletableFuture.supplyAsync(() ->
+                providerResultCache.lookup("KYC", "12345678", () -> {
+                    calls.incrementAndGet();
+                    inFlight.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return response("SUCCESS");
+                }), callers);
+        assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<ServiceResponse> follower = CompletableFuture.supplyAsync(() ->
+                providerResultCache.lookup("KYC", "12345678", () -> {
+                    calls.incrementAndGet();
+                    return response("SUCCESS");
+                }), callers);
+        while (meterRegistry.find("wallet.provider.cache.lookups").tag("outcome", "coalesced").counter() == null) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo("SUCCESS");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isNotSameAs(leader.get()).isEqualTo(leader.get());
+        assertThat(calls).hasValue(1);
+        callers.shutdown();
+    }
+
+    @Test
+    void cachedCharge_AppliesPerServicePercentage() {
+        // When & Then
+        assertThat(providerResultCache.cachedCharge("KYC", new BigDecimal("25.00"))).isEqualByComparingTo("5.00");
+        assertThat(providerResultCache.cachedCharge("CREDIT_SCORING", new BigDecimal("75.00"))).isEqualByComparingTo("75.00");
+    }
+}
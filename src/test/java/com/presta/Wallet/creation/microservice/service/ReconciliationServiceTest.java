@@ -0,0 +1,116 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.presta.Wallet.dto.ReconciliationReportResponse;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ExternalTransactionRepository;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.ReconciliationService;
+import com.presta.Wallet.service.StreamingReconciliationService;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 19);
+
+    @Mock
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Mock
+    private ExternalTransactionRepository externalTransactionRepository;
+
+    @Mock
+    private ReconciliationReportRepository reconciliationReportRepository;
+
+    @Mock
+    private ReconciliationItemRepository reconciliationItemRepository;
+
+    @Mock
+    private StreamingReconciliationService streamingReconciliationService;
+
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new ReconciliationService(walletTransactionRepository, externalTransactionRepository,
+                reconciliationReportRepository, reconciliationItemRepository,
+                new WalletMetrics(new SimpleMeterRegistry()), streamingReconciliationService);
+    }
+
+    private static WalletTransaction internal(long id, String referenceId, String amount) {
+        return WalletTransaction.builder().id(id).referenceId(referenceId).amount(new BigDecimal(amount)).build();
+    }
+
+    @Test
+    void performReconciliation_StreamedReport_OnlyRematchesLeftoversAndCompletesIt() {
+        // Given: the stream matched REF-1 and timed out REF-2 before its external row arrived
+        ReconciliationReport report = ReconciliationReport.builder()
+                .id(7L).reconciliationDate(DAY)
+                .totalInternalTransactions(2).totalExternalTransactions(1)
+                .matchedTransactions(1).unmatchedInternal(1).unmatchedExternal(0).amountDifferences(0)
+                .totalInternalAmount(new BigDecimal("140.00")).totalExternalAmount(new BigDecimal("100.00"))
+                .differenceAmount(new BigDecimal("40.00"))
+                .status(ReconciliationReport.ReconciliationStatus.IN_PROGRESS)
+                .build();
+        ReconciliationItem open = ReconciliationItem.builder()
+                .id(21L).reconciliationReport(report).referenceId("REF-2")
+                .matchType(ReconciliationItem.MatchType.NO_MATCH)
+                .discrepancyType(ReconciliationItem.DiscrepancyType.MISSING_EXTERNAL)
+                .internalTransactionId(2L).internalAmount(new BigDecimal("40.00"))
+                .build();
+        when(reconciliationReportRepository.findByReconciliationDate(DAY)).thenReturn(Optional.of(report));
+        when(reconciliationItemRepository.findInternalTransactionIds(7L)).thenReturn(List.of(1L, 2L));
+        when(reconciliationItemRepository.findExternalTransactionIds(7L)).thenReturn(List.of(11L));
+        when(reconciliationItemRepository.findByReconciliationReportIdAndMatchType(7L, ReconciliationItem.MatchType.NO_MATCH))
+                .thenReturn(List.of(open));
+        when(walletTransactionRepository.findIdsByCreatedAtRange(DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(externalTransactionRepository.findIdsByTransactionDate(DAY)).thenReturn(List.of(11L, 12L));
+        when(walletTransactionRepository.findAllById(Set.of(2L, 3L)))
+                .thenReturn(List.of(internal(2, "REF-2", "40.00"), internal(3, "REF-3", "15.00")));
+        when(externalTransactionRepository.findAllById(Set.of(12L))).thenReturn(List.of(ExternalTransaction.builder()
+                .id(12L).referenceId("REF-2").amount(new BigDecimal("40.00")).transactionDate(DAY).build()));
+        when(reconciliationItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ReconciliationReportResponse response = reconciliationService.performReconciliation(DAY);
+
+        // Then
+        verify(streamingReconciliationService).closeDate(DAY);
+        verify(reconciliationItemRepository).deleteAllInBatch(List.of(open));
+        verify(walletTransactionRepository, never()).findByCreatedAtRange(any(), any());
+        assertThat(response.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getMatchedTransactions()).isEqualTo(2);
+        assertThat(report.getUnmatchedInternal()).isEqualTo(1);
+        assertThat(report.getUnmatchedExternal()).isZero();
+        assertThat(report.getTotalInternalTransactions()).isEqualTo(3);
+        assertThat(report.getTotalExternalTransactions()).isEqualTo(2);
+        assertThat(report.getTotalInternalAmount()).isEqualByComparingTo("155.00");
+        assertThat(report.getDifferenceAmount()).isEqualByComparingTo("15.00");
+    }
+}
@@ -0,0 +1,196 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.dto.ReversalResult;
+import com.presta.Wallet.entity.ReversalRequest;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.entity.WalletTransaction;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ReversalRequestRepository;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.NotificationService;
+import com.presta.Wallet.service.ReversalService;
+
+@ExtendWith(MockitoExtension.class)
+class ReversalServiceTest {
+
+    @Mock
+    private WalletTransactionRepository transactionRepository;
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private ReversalRequestRepository reversalRequestRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReversalService reversalService;
+    private final Wallet wallet = Wallet.builder().id(1L).build();
+
+    @BeforeEach
+    void setUp() {
+        reversalService = new ReversalService(transactionRepository, walletRepository, reversalRequestRepository,
+                notificationService, transactionManager, new WalletMetrics(meterRegistry));
+        ReflectionTestUtils.setField(reversalService, "parallelism", 1);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(walletRepository.getReferenceById(1L)).thenReturn(wallet);
+    }
+
+    private WalletTransaction completed(String referenceId, WalletTransaction.TransactionType type, String amount) {
+        return WalletTransaction.builder()
+                .id(10L)
+                .wallet(wallet)
+                .transactionType(type)
+                .amount(new BigDecimal(amount))
+                .referenceId(referenceId)
+                .status(WalletTransaction.TransactionStatus.COMPLETED)
+                .serviceType("KYC")
+                .build();
+    }
+
+    private static WalletRepository.BalanceView balanceView(String balance) {
+        return new WalletRepository.BalanceView() {
+            public BigDecimal getBalance() { return new BigDecimal(balance); }
+            public Long getCustomerId() { return 7L; }
+        };
+    }
+
+    @Test
+    void reverse_CompletedConsumption_RefundsWalletWithCompensatingEntry() {
+        // Given
+        when(transactionRepository.findByReferenceId("REF001"))
+                .thenReturn(Optional.of(completed("REF001", WalletTransaction.TransactionType.CONSUMPTION, "25.00")));
+        when(transactionRepository.claimForReversal(eq(10L), any(), any(), any())).thenReturn(1);
+        when(walletRepository.adjustBalance(eq(1L), eq(new BigDecimal("25.00")), any())).thenReturn(1);
+        when(walletRepository.findBalanceViewById(1L)).thenReturn(balanceView("125.00"));
+        when(transactionRepository.save(any(WalletTransaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ReversalResult result = reversalService.reverse("REF001", null);
+
+        // Then
+        assertThat(result.getOutcome()).isEqualTo(ReversalResult.Outcome.REVERSED);
+        ArgumentCaptor<WalletTransaction> saved = ArgumentCaptor.forClass(WalletTransaction.class);
+        verify(transactionRepository).save(saved.capture());
+        assertThat(saved.getValue().getTransactionType()).isEqualTo(WalletTransaction.TransactionType.REVERSAL);
+        assertThat(saved.getValue().getReferenceId()).isEqualTo("REV-REF001");
+        assertThat(saved.getValue().getBalanceBefore()).isEqualByComparingTo("100.00");
+        assertThat(saved.getValue().getBalanceAfter()).isEqualByComparingTo("125.00");
+        verify(notificationService).publishTransactionEvent(any(TransactionMessage.class));
+    }
+
+    @Test
+    void reverse_ClaimLostToConcurrentReversal_ReportsAlreadyReversed() {
+        // Given
+        when(transactionRepository.findByReferenceId("REF001"))
+                .thenReturn(Optional.of(completed("REF001", WalletTransaction.TransactionType.CONSUMPTION, "25.00")));
+        when(transactionRepository.claimForReversal(eq(10L), any(), any(), any())).thenReturn(0);
+
+        // When
+        ReversalResult result = reversalService.reverse("REF001", null);
+
+        // Then
+        assertThat(result.getOutcome()).isEqualTo(ReversalResult.Outcome.ALREADY_REVERSED);
+        verify(walletRepository, never()).adjustBalance(anyLong(), any(), any());
+    }
+
+    @Test
+    void reverse_TopupAlreadySpent_ReportsInsufficientBalanceAndRollsBack() {
+        // Given
+        when(transactionRepository.findByReferenceId("TOP001"))
+                .thenReturn(Optional.of(completed("TOP001", WalletTransaction.TransactionType.TOPUP, "50.00")));
+        when(transactionRepository.claimForReversal(eq(10L), any(), any(), any())).thenReturn(1);
+        when(walletRepository.adjustBalance(eq(1L), eq(new BigDecimal("-50.00")), any())).thenReturn(0);
+
+        // When
+        ReversalResult result = reversalService.reverse("TOP001", null);
+
+        // Then
+        assertThat(result.getOutcome()).isEqualTo(ReversalResult.Outcome.INSUFFICIENT_BALANCE);
+        ArgumentCaptor<TransactionStatus> status = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager).commit(status.capture());
+        assertThat(status.getValue().isRollbackOnly()).isTrue();
+        verify(transactionRepository, never()).save(any(WalletTransaction.class));
+    }
+
+    @Test
+    void processQueue_MarksEachRequestByOutcome() {
+        // Given
+        ReversalRequest missing = ReversalRequest.builder().id(1L).referenceId("MISSING").build();
+        ReversalRequest reversed = ReversalRequest.builder().id(2L).referenceId("DONE").build();
+        WalletTransaction alreadyReversed = completed("DONE", WalletTransaction.TransactionType.CONSUMPTION, "5.00");
+        alreadyReversed.setStatus(WalletTransaction.TransactionStatus.REVERSED);
+        when(reversalRequestRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                eq(ReversalRequest.RequestStatus.PENDING), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(missing, reversed));
+        when(transactionRepository.findByReferenceId("MISSING")).thenReturn(Optional.empty());
+        when(transactionRepository.findByReferenceId("DONE")).thenReturn(Optional.of(alreadyReversed));
+
+        // When
+        int processed = reversalService.processQueue();
+
+        // Then
+        assertThat(processed).isEqualTo(2);
+        assertThat(missing.getStatus()).isEqualTo(ReversalRequest.RequestStatus.SKIPPED);
+        assertThat(reversed.getStatus()).isEqualTo(ReversalRequest.RequestStatus.COMPLETED);
+        assertThat(meterRegistry.get("wallet.reversals").tags("source", "queue", "outcome", "not_found")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void processQueue_FailedRequestsStayPending_AndAreNotRefetchedInTheSameRun() {
+        // Given: a full batch that fails to reverse, then nothing after it
+        ReflectionTestUtils.setField(reversalService, "batchSize", 2);
+        ReversalRequest first = ReversalRequest.builder().id(1L).referenceId("R-1").build();
+        ReversalRequest second = ReversalRequest.builder().id(2L).referenceId("R-2").build();
+        when(reversalRequestRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                eq(ReversalRequest.RequestStatus.PENDING), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(reversalRequestRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                eq(ReversalRequest.RequestStatus.PENDING), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(transactionRepository.findByReferenceId(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        // When
+        int processed = reversalService.processQueue();
+
+        // Then
+        assertThat(processed).isEqualTo(2);
+        assertThat(first.getStatus()).isEqualTo(ReversalRequest.RequestStatus.PENDING);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(second.getAttempts()).isEqualTo(1);
+    }
+}
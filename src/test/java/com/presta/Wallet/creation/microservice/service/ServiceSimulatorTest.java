@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.presta.Wallet.ServiceSimulator;
+import com.presta.Wallet.config.SimulatorProperties;
 import com.presta.Wallet.dto.ServiceResponse;
 
 @ExtendWith(MockitoExtension.class)
@@ -100,4 +103,66 @@ class ServiceSimulatorTest {
         assertThat(serviceSimulator.isServiceEnabled("KYC")).isTrue();
         assertThat(serviceSimulator.isServiceEnabled("CREDIT_SCORING")).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void isServiceEnabled_DisabledInConfig_FailsWithoutCallingOut() {
+        // Given
+        ServiceSimulator serviceSimulator = new ServiceSimulator();
+        ReflectionTestUtils.setField(serviceSimulator, "kycEnabled", false);
+
+        // When
+        ServiceResponse response = serviceSimulator.callKYCService("12345678", "+254700000000", "REF126");
+
+        // Then
+        assertThat(serviceSimulator.isServiceEnabled("KYC")).isFalse();
+        assertThat(response.getStatus()).isEqualTo("FAILED");
+        assertThat(response.getMessage()).contains("disabled");
+    }
+
+    @Test
+    void seededProfile_SameSeedAndReferences_ReplaysSameOutcomes() {
+        // Given
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setSeed(42L);
+        SimulatorProperties.Profile kyc = new SimulatorProperties.Profile();
+        kyc.setDistribution(SimulatorProperties.Distribution.FIXED);
+        kyc.setFixedMs(0);
+        kyc.setErrorRate(0.5);
+        properties.getProfiles().put("kyc", kyc);
+
+        // When
+        List<String> firstRun = run(new ServiceSimulator(properties));
+        List<String> secondRun = run(new ServiceSimulator(properties));
+
+        // Then
+        assertThat(firstRun).isEqualTo(secondRun);
+        assertThat(firstRun).contains("SUCCESS", "FAILED");
+    }
+
+    @Test
+    void histogramProfile_DelaysWithinRecordedBuckets() {
+        // Given
+        SimulatorProperties properties = new SimulatorProperties();
+        SimulatorProperties.Profile crb = new SimulatorProperties.Profile();
+        crb.setDistribution(SimulatorProperties.Distribution.HISTOGRAM);
+        crb.setHistogram(List.of(new SimulatorProperties.HistogramBucket(50, 0), new SimulatorProperties.HistogramBucket(80, 1)));
+        crb.setErrorRate(0);
+        properties.getProfiles().put("crb", crb);
+        ServiceSimulator serviceSimulator = new ServiceSimulator(properties);
+
+        // When
+        long started = System.nanoTime();
+        ServiceResponse response = serviceSimulator.callCRBService("CUST_1", "+254700000000", "REF127");
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo("SUCCESS");
+        assertThat(elapsedMs).isBetween(50L, 299L);
+    }
+
+    private static List<String> run(ServiceSimulator serviceSimulator) {
+        return IntStream.range(0, 20)
+                .mapToObj(i -> serviceSimulator.callKYCService("12345678", "+254700000000", "REF-" + i).getStatus())
+                .toList();
+    }
+}
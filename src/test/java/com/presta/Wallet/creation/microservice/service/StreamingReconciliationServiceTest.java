@@ -0,0 +1,248 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.entity.ExternalTransaction;
+import com.presta.Wallet.entity.ReconciliationItem;
+import com.presta.Wallet.entity.ReconciliationReport;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.ReconciliationItemRepository;
+import com.presta.Wallet.repository.ReconciliationReportRepository;
+import com.presta.Wallet.service.StreamingReconciliationService;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingReconciliationServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 19);
+    private static final long HOUR = 3_600_000L;
+
+    @Mock
+    private ReconciliationReportRepository reconciliationReportRepository;
+
+    @Mock
+    private ReconciliationItemRepository reconciliationItemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ReconciliationItem> savedItems = new ArrayList<>();
+    private final long[] now = {0};
+    private StreamingReconciliationService streamingReconciliationService;
+    private ReconciliationReport report;
+
+    @BeforeEach
+    void setUp() {
+        streamingReconciliationService = new StreamingReconciliationService(reconciliationReportRepository,
+                reconciliationItemRepository, transactionManager, new WalletMetrics(meterRegistry));
+        ReflectionTestUtils.setField(streamingReconciliationService, "clock", (LongSupplier) () -> now[0]);
+
+        lenient().when(reconciliationReportRepository.findByReconciliationDate(DAY))
+                .thenAnswer(invocation -> Optional.ofNullable(report));
+        lenient().when(reconciliationReportRepository.save(any(ReconciliationReport.class))).thenAnswer(invocation -> {
+            report = invocation.getArgument(0);
+            report.setId(7L);
+            return report;
+        });
+        lenient().when(reconciliationItemRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            savedItems.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+    }
+
+    private static TransactionMessage internal(long id, String referenceId, String amount) {
+        return TransactionMessage.builder()
+                .transactionId(id)
+                .referenceId(referenceId)
+                .amount(new BigDecimal(amount))
+                .status("COMPLETED")
+                .timestamp(DAY.atTime(10, 0))
+                .build();
+    }
+
+    private static ExternalTransaction external(long id, String referenceId, String amount) {
+        return ExternalTransaction.builder()
+                .id(id)
+                .referenceId(referenceId)
+                .amount(new BigDecimal(amount))
+                .transactionDate(DAY)
+                .build();
+    }
+
+    @Test
+    void drain_PairsInternalAndExternalOnReference_IntoTheDaysOpenReport() {
+        // Given
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "100.00"));
+        streamingReconciliationService.submitInternal(internal(2, "REF-2", "40.00"));
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "100.00")));
+
+        // When
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat(savedItems).singleElement().satisfies(item -> {
+            assertThat(item.getMatchType()).isEqualTo(ReconciliationItem.MatchType.PERFECT_MATCH);
+            assertThat(item.getInternalTransactionId()).isEqualTo(1L);
+            assertThat(item.getExternalTransactionId()).isEqualTo(11L);
+        });
+        assertThat(report.getStatus()).isEqualTo(ReconciliationReport.ReconciliationStatus.IN_PROGRESS);
+        assertThat(report.getMatchedTransactions()).isEqualTo(1);
+        assertThat(report.getTotalInternalAmount()).isEqualByComparingTo("100.00");
+        assertThat(meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", "matched").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void drain_SideAloneAfterTheWindow_IsWrittenAsNoMatch_AndUpgradedWhenThePartnerArrives() {
+        // Given
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "100.00"));
+        streamingReconciliationService.drain();
+        now[0] += 2 * HOUR;
+        streamingReconciliationService.drain();
+        ReconciliationItem timedOut = savedItems.get(0);
+        assertThat(timedOut.getDiscrepancyType()).isEqualTo(ReconciliationItem.DiscrepancyType.MISSING_EXTERNAL);
+        assertThat(report.getUnmatchedInternal()).isEqualTo(1);
+        when(reconciliationItemRepository.findOpenMissingExternal(7L, "REF-1")).thenReturn(Optional.of(timedOut));
+
+        // When
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "90.00")));
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat(timedOut.getMatchType()).isEqualTo(ReconciliationItem.MatchType.REFERENCE_MATCH);
+        assertThat(timedOut.getExternalTransactionId()).isEqualTo(11L);
+        assertThat(timedOut.getAmountDifference()).isEqualByComparingTo("10.00");
+        assertThat(report.getUnmatchedInternal()).isZero();
+        assertThat(report.getAmountDifferences()).isEqualTo(1);
+        assertThat(report.getTotalInternalTransactions()).isEqualTo(1);
+        assertThat(report.getTotalExternalTransactions()).isEqualTo(1);
+        assertThat(report.getDifferenceAmount()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void closeDate_FlushesPendingAsNoMatch_AndIgnoresLaterEventsForThatDate() {
+        // Given
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-9", "25.00")));
+
+        // When
+        streamingReconciliationService.closeDate(DAY);
+        streamingReconciliationService.submitInternal(internal(1, "REF-9", "25.00"));
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat(savedItems).singleElement().satisfies(item ->
+                assertThat(item.getDiscrepancyType()).isEqualTo(ReconciliationItem.DiscrepancyType.MISSING_INTERNAL));
+        assertThat(meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", "closed").count())
+                .isEqualTo(1.0);
+        verify(reconciliationReportRepository, atLeastOnce()).save(eq(report));
+    }
+
+    @Test
+    void drain_ExternalAmountWithExtraDecimals_IsMatchedAtTheStoredScale() {
+        // Given: the parser keeps every digit; the column rounds 10.005 to 10.01
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "10.01"));
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "10.005")));
+
+        // When
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat(savedItems).singleElement().satisfies(item -> {
+            assertThat(item.getMatchType()).isEqualTo(ReconciliationItem.MatchType.PERFECT_MATCH);
+            assertThat(item.getExternalAmount()).isEqualByComparingTo("10.01");
+        });
+    }
+
+    @Test
+    void drain_RolledBack_LeavesTheWindowAsItWas() {
+        // Given
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "100.00"));
+        streamingReconciliationService.drain();
+        when(reconciliationItemRepository.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> {
+                    savedItems.addAll(invocation.getArgument(0));
+                    return invocation.getArgument(0);
+                });
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "100.00")));
+        assertThatThrownBy(streamingReconciliationService::drain).isInstanceOf(IllegalStateException.class);
+
+        // When
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "100.00")));
+        streamingReconciliationService.drain();
+
+        // Then: the internal side is still waiting and pairs with the redelivered row
+        assertThat(savedItems).singleElement().satisfies(item ->
+                assertThat(item.getMatchType()).isEqualTo(ReconciliationItem.MatchType.PERFECT_MATCH));
+        assertThat(meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", "dropped").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void submit_BeyondTheQueueCapacity_IsDroppedInsteadOfQueued() {
+        // Given
+        ReflectionTestUtils.setField(streamingReconciliationService, "queueCapacity", 2);
+
+        // When
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "10.00"));
+        streamingReconciliationService.submitInternal(internal(2, "REF-2", "20.00"));
+        streamingReconciliationService.submitInternal(internal(3, "REF-3", "30.00"));
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat(meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", "dropped").count())
+                .isEqualTo(1.0);
+        assertThat(ReflectionTestUtils.<Integer>invokeMethod(streamingReconciliationService, "pendingCount")).isEqualTo(2);
+    }
+
+    @Test
+    void drain_PastTheRetentionWindow_EvictsTheDatesStateAndTreatsItAsClosed() {
+        // Given: REF-1 timed out on DAY, and the next day was closed
+        streamingReconciliationService.submitInternal(internal(1, "REF-1", "100.00"));
+        streamingReconciliationService.drain();
+        now[0] += 2 * HOUR;
+        streamingReconciliationService.drain();
+        streamingReconciliationService.closeDate(DAY.plusDays(1));
+
+        // When: nine days on, both dates are past the seven-day retention
+        now[0] = DAY.plusDays(9).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        streamingReconciliationService.submitExternal(List.of(external(11, "REF-1", "100.00")));
+        streamingReconciliationService.drain();
+
+        // Then
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(streamingReconciliationService, "timedOut")).isEmpty();
+        assertThat((Set<?>) ReflectionTestUtils.getField(streamingReconciliationService, "closedDates")).isEmpty();
+        assertThat(meterRegistry.counter("wallet.reconciliation.streaming.events", "outcome", "closed").count())
+                .isEqualTo(1.0);
+        verify(reconciliationItemRepository, never()).findOpenMissingExternal(any(), any());
+    }
+}
@@ -0,0 +1,147 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.presta.Wallet.config.WalletConcurrencyProperties;
+import com.presta.Wallet.config.WalletConcurrencyProperties.Mode;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.service.WalletConcurrencyService;
+
+@ExtendWith(MockitoExtension.class)
+class WalletConcurrencyServiceTest {
+
+    private static final long CREDITS_WALLET = 1L;
+    private static final long CASH_WALLET = 2L;
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WalletConcurrencyProperties properties = new WalletConcurrencyProperties();
+    private WalletConcurrencyService walletConcurrencyService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBackoffMs(0);
+        properties.getModes().put(Wallet.WalletType.CASH, Mode.PESSIMISTIC);
+        walletConcurrencyService = new WalletConcurrencyService(properties, walletRepository, new WalletMetrics(meterRegistry));
+
+        lenient().when(walletRepository.findWalletTypeById(CREDITS_WALLET)).thenReturn(Optional.of(Wallet.WalletType.CREDITS));
+        lenient().when(walletRepository.findWalletTypeById(CASH_WALLET)).thenReturn(Optional.of(Wallet.WalletType.CASH));
+    }
+
+    private double operations(String mode, String outcome) {
+        return meterRegistry.counter("wallet.concurrency.operations",
+                "wallet_type", "CREDITS", "mode", mode, "outcome", outcome).count();
+    }
+
+    @Test
+    void execute_Optimistic_RetriesVersionConflictsInAFreshAttempt() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = walletConcurrencyService.execute(CREDITS_WALLET, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale wallet");
+            }
+            return "done";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("done");
+        assertThat(meterRegistry.counter("wallet.concurrency.conflicts", "wallet_type", "CREDITS", "mode", "OPTIMISTIC")
+                .count()).isEqualTo(2.0);
+        assertThat(operations("OPTIMISTIC", WalletConcurrencyService.OUTCOME_COMMITTED)).isEqualTo(1.0);
+        assertThat(meterRegistry.get("wallet.concurrency.attempts").summary().totalAmount()).isEqualTo(3.0);
+    }
+
+    @Test
+    void execute_Optimistic_GivesUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+
+        // When / Then
+        assertThatThrownBy(() -> walletConcurrencyService.execute(CREDITS_WALLET, () -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale wallet");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(calls).hasValue(3);
+        assertThat(operations("OPTIMISTIC", WalletConcurrencyService.OUTCOME_CONFLICT)).isEqualTo(1.0);
+    }
+
+    @Test
+    void loadForWrite_LocksTheRowOnlyForPessimisticWalletTypes() {
+        // Given
+        Wallet cash = Wallet.builder().id(CASH_WALLET).walletType(Wallet.WalletType.CASH).build();
+        Wallet credits = Wallet.builder().id(CREDITS_WALLET).walletType(Wallet.WalletType.CREDITS).build();
+        when(walletRepository.findByIdForUpdate(CASH_WALLET)).thenReturn(Optional.of(cash));
+        when(walletRepository.findById(CREDITS_WALLET)).thenReturn(Optional.of(credits));
+
+        // When
+        Wallet lockedCash = walletConcurrencyService.loadForWrite(CASH_WALLET);
+        Wallet plainCredits = walletConcurrencyService.loadForWrite(CREDITS_WALLET);
+
+        // Then
+        assertThat(lockedCash).isSameAs(cash);
+        assertThat(plainCredits).isSameAs(credits);
+        verify(walletRepository, never()).findById(CASH_WALLET);
+        verify(walletRepository, never()).findByIdForUpdate(CREDITS_WALLET);
+        assertThat(meterRegistry.get("wallet.concurrency.wait").tag("mode", "PESSIMISTIC").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_Queued_RunsOneRequestPerWalletAtATime() throws Exception {
+        // Given
+        properties.getModes().put(Wallet.WalletType.CREDITS, Mode.QUEUED);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(() -> walletConcurrencyService.execute(CREDITS_WALLET, () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return inside.decrementAndGet();
+            })));
+        }
+        for (Future<Integer> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        // Then
+        assertThat(maxInside).hasValue(1);
+        assertThat(operations("QUEUED", WalletConcurrencyService.OUTCOME_COMMITTED)).isEqualTo(16.0);
+    }
+}
@@ -130,7 +130,7 @@ class WalletServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getWalletId()).isEqualTo(1L);
-        assertThat(result.getBalance()).isEqualTo(BigDecimal.valueOf(100.00));
+        assertThat(result.getBalance()).isEqualTo(new BigDecimal("100.00"));
         assertThat(result.getCurrency()).isEqualTo("USD");
         assertThat(result.getStatus()).isEqualTo("ACTIVE");
     }
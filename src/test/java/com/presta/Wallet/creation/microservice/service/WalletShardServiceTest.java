@@ -0,0 +1,237 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.presta.Wallet.config.WalletConcurrencyProperties;
+import com.presta.Wallet.dto.ConsumeRequest;
+import com.presta.Wallet.dto.TopupRequest;
+import com.presta.Wallet.dto.TransactionResponse;
+import com.presta.Wallet.entity.Customer;
+import com.presta.Wallet.entity.Wallet;
+import com.presta.Wallet.exception.InsufficientBalanceException;
+import com.presta.Wallet.exception.TransactionPendingException;
+import com.presta.Wallet.exception.WalletException;
+import com.presta.Wallet.mapper.WalletTransactionMapper;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.repository.WalletRepository;
+import com.presta.Wallet.repository.WalletTransactionRepository;
+import com.presta.Wallet.service.NotificationService;
+import com.presta.Wallet.service.WalletShardService;
+
+@ExtendWith(MockitoExtension.class)
+class WalletShardServiceTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletTransactionRepository transactionRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WalletShardService walletShardService;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletShardService = shardService(5_000);
+
+        wallet = Wallet.builder()
+                .id(1L)
+                .customer(Customer.builder().id(7L).build())
+                .balance(new BigDecimal("100.00"))
+                .version(3L)
+                .build();
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet));
+        lenient().when(walletRepository.getReferenceById(1L)).thenReturn(wallet);
+        lenient().when(transactionRepository.findExistingReferenceIds(anyCollection())).thenReturn(List.of());
+        lenient().when(walletRepository.writeBalance(eq(1L), any(), anyLong(), any())).thenReturn(1);
+    }
+
+    private WalletShardService shardService(long responseTimeoutMs) {
+        WalletConcurrencyProperties properties = new WalletConcurrencyProperties();
+        properties.setDefaultMode(WalletConcurrencyProperties.Mode.SHARDED);
+        properties.getShards().setCount(1);
+        properties.getShards().setResponseTimeoutMs(responseTimeoutMs);
+        return new WalletShardService(properties, walletRepository, transactionRepository,
+                new WalletTransactionMapper(), notificationService, new WalletMetrics(meterRegistry), transactionManager);
+    }
+
+    private static TopupRequest topup(String referenceId, String amount) {
+        return TopupRequest.builder().referenceId(referenceId).amount(new BigDecimal(amount)).source("MPESA").build();
+    }
+
+    private static ConsumeRequest consume(String referenceId, String amount) {
+        return ConsumeRequest.builder().referenceId(referenceId).amount(new BigDecimal(amount)).serviceType("KYC").build();
+    }
+
+    @Test
+    void commands_AppliedInOrderAgainstTheCachedBalance() {
+        // When
+        TransactionResponse first = walletShardService.topup(1L, topup("TOP-1", "50.00"));
+        TransactionResponse second = walletShardService.consume(1L, consume("USE-1", "120.00"));
+
+        // Then
+        assertThat(first.getBalanceAfter()).isEqualByComparingTo("150.00");
+        assertThat(second.getBalanceBefore()).isEqualByComparingTo("150.00");
+        assertThat(second.getBalanceAfter()).isEqualByComparingTo("30.00");
+        assertThat(second.getStatus()).isEqualTo("COMPLETED");
+        // Loaded once; the second command runs on the balance the first one committed, at the bumped version
+        verify(walletRepository, times(1)).findById(1L);
+        verify(walletRepository).writeBalance(eq(1L), eq(new BigDecimal("150.00")), eq(3L), any());
+        verify(walletRepository).writeBalance(eq(1L), eq(new BigDecimal("30.00")), eq(4L), any());
+        verify(notificationService, times(2)).publishTransactionEvent(any());
+    }
+
+    @Test
+    void consume_InsufficientBalance_FailsOnlyThatCommand() {
+        // When / Then
+        assertThatThrownBy(() -> walletShardService.consume(1L, consume("USE-1", "100.01")))
+                .isInstanceOf(InsufficientBalanceException.class);
+        TransactionResponse next = walletShardService.consume(1L, consume("USE-2", "100.00"));
+
+        assertThat(next.getBalanceAfter()).isEqualByComparingTo("0.00");
+        verify(walletRepository, never()).writeBalance(eq(1L), any(), eq(4L), any());
+    }
+
+    @Test
+    void topup_DuplicateReference_RejectedWithoutWriting() {
+        // Given
+        when(transactionRepository.findExistingReferenceIds(Set.of("TOP-1"))).thenReturn(List.of("TOP-1"));
+
+        // When / Then
+        assertThatThrownBy(() -> walletShardService.topup(1L, topup("TOP-1", "10.00")))
+                .isInstanceOf(WalletException.class)
+                .extracting("errorCode").isEqualTo("DUPLICATE_TRANSACTION");
+        verify(transactionRepository, never()).saveAll(argThat(list -> list.iterator().hasNext()));
+        verify(walletRepository, never()).writeBalance(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    void topup_WalletChangedOutsideShard_ReappliedAgainstFreshRow() {
+        // Given: the first write finds the version moved on; the reload sees the other writer's balance
+        Wallet changed = Wallet.builder()
+                .id(1L)
+                .customer(wallet.getCustomer())
+                .balance(new BigDecimal("80.00"))
+                .version(4L)
+                .build();
+        when(walletRepository.findById(1L)).thenReturn(Optional.of(wallet)).thenReturn(Optional.of(changed));
+        when(walletRepository.writeBalance(eq(1L), any(), eq(3L), any())).thenReturn(0);
+
+        // When
+        TransactionResponse response = walletShardService.topup(1L, topup("TOP-1", "20.00"));
+
+        // Then
+        assertThat(response.getBalanceBefore()).isEqualByComparingTo("80.00");
+        assertThat(response.getBalanceAfter()).isEqualByComparingTo("100.00");
+        verify(walletRepository).writeBalance(eq(1L), eq(new BigDecimal("100.00")), eq(4L), any());
+        verify(notificationService, times(1)).publishTransactionEvent(any());
+        assertThat(meterRegistry.get("wallet.shards.batch.size").tag("outcome", WalletShardService.BATCH_SPLIT)
+                .summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void topup_BatchCommitFailsAndIsReapplied_EventPublishedOnlyForTheCommittedAttempt() {
+        // Given
+        doThrow(new TransactionSystemException("commit failed")).doNothing().when(transactionManager).commit(any());
+
+        // When
+        TransactionResponse response = walletShardService.topup(1L, topup("TOP-1", "20.00"));
+
+        // Then
+        assertThat(response.getBalanceAfter()).isEqualByComparingTo("120.00");
+        verify(transactionManager, times(2)).commit(any());
+        verify(notificationService, times(1)).publishTransactionEvent(any());
+    }
+
+    @Test
+    void consume_CachedBalanceTooLowAfterOutsideCredit_ReloadedInsteadOfRejected() {
+        // Given: the shard drains the wallet, then a reversal refunds 50.00 to the row behind its back
+        walletShardService.consume(1L, consume("USE-1", "100.00"));
+        Wallet refunded = Wallet.builder()
+                .id(1L)
+                .customer(wallet.getCustomer())
+                .balance(new BigDecimal("50.00"))
+                .version(5L)
+                .build();
+        when(walletRepository.findVersionById(1L)).thenReturn(Optional.of(5L));
+        when(walletRepository.findById(1L)).thenReturn(Optional.of(refunded));
+        when(walletRepository.writeBalance(eq(1L), any(), eq(5L), any())).thenReturn(1);
+
+        // When
+        TransactionResponse response = walletShardService.consume(1L, consume("USE-2", "30.00"));
+
+        // Then
+        assertThat(response.getBalanceBefore()).isEqualByComparingTo("50.00");
+        assertThat(response.getBalanceAfter()).isEqualByComparingTo("20.00");
+        verify(walletRepository).writeBalance(eq(1L), eq(new BigDecimal("20.00")), eq(5L), any());
+    }
+
+    @Test
+    void consume_CachedBalanceStillCurrent_RejectedWithoutReload() {
+        // Given
+        walletShardService.consume(1L, consume("USE-1", "100.00"));
+        when(walletRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        // When / Then
+        assertThatThrownBy(() -> walletShardService.consume(1L, consume("USE-2", "0.01")))
+                .isInstanceOf(InsufficientBalanceException.class);
+        verify(walletRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void topup_WorkerSlowerThanTheResponseTimeout_ReportedAsPendingWithItsReference() throws Exception {
+        // Given: the shard is still busy with the command when the caller stops waiting
+        WalletShardService slowShards = shardService(50);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionRepository.findExistingReferenceIds(anyCollection())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        try {
+            // When / Then
+            assertThatThrownBy(() -> slowShards.topup(1L, topup("TOP-1", "10.00")))
+                    .isInstanceOf(TransactionPendingException.class)
+                    .extracting("referenceId").isEqualTo("TOP-1");
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.presta.Wallet.creation.microservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.presta.Wallet.config.TransactionMessage;
+import com.presta.Wallet.dto.BalanceResponse;
+import com.presta.Wallet.metrics.WalletMetrics;
+import com.presta.Wallet.service.WalletStreamService;
+
+@ExtendWith(MockitoExtension.class)
+class WalletStreamServiceTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WalletStreamService service(int maxSubscribers, int bufferSize, boolean fanout) {
+        return new WalletStreamService(new WalletMetrics(meterRegistry), rabbitTemplate,
+                true, maxSubscribers, bufferSize, 1, 30, fanout, "wallet.events");
+    }
+
+    private static BalanceResponse balance(long walletId) {
+        return BalanceResponse.builder().walletId(walletId).balance(new BigDecimal("100.00")).status("ACTIVE").build();
+    }
+
+    private static TransactionMessage message(long transactionId, long walletId) {
+        return TransactionMessage.builder()
+                .transactionId(transactionId)
+                .walletId(walletId)
+                .transactionType("TOPUP")
+                .status("COMPLETED")
+                .amount(new BigDecimal("10.00"))
+                .balanceAfter(new BigDecimal("110.00"))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static void awaitDispatch(WalletStreamService service) throws Exception {
+        ExecutorService dispatcher = (ExecutorService) ReflectionTestUtils.getField(service, "dispatcher");
+        dispatcher.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private double events(String outcome) {
+        return meterRegistry.counter("wallet.stream.events", "outcome", outcome).count();
+    }
+
+    @Test
+    void publish_DeliversOnlyToSubscribersOfThatWallet() throws Exception {
+        // Given
+        WalletStreamService service = service(10, 8, false);
+        service.subscribe(balance(1L));
+        service.subscribe(balance(1L));
+        service.subscribe(balance(2L));
+        awaitDispatch(service);
+
+        // When
+        service.publish(message(50L, 1L));
+        awaitDispatch(service);
+
+        // Then: three initial balances plus the transaction for each of wallet 1's subscribers
+        assertThat(events(WalletStreamService.OUTCOME_SENT)).isEqualTo(5.0);
+        assertThat(meterRegistry.get("wallet.stream.subscribers").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void publish_SlowSubscriber_DropsItsBufferInsteadOfQueueingWithoutBound() throws Exception {
+        // Given: the only dispatcher thread is busy, so nothing drains
+        WalletStreamService service = service(10, 4, false);
+        ExecutorService dispatcher = (ExecutorService) ReflectionTestUtils.getField(service, "dispatcher");
+        CountDownLatch busy = new CountDownLatch(1);
+        dispatcher.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        service.subscribe(balance(1L));
+
+        // When: five more events arrive for a buffer of four
+        for (long id = 1; id <= 5; id++) {
+            service.publish(message(id, 1L));
+        }
+        busy.countDown();
+        awaitDispatch(service);
+
+        // Then: the balance and first three transactions were dropped; after the resync only the last two go out
+        assertThat(events(WalletStreamService.OUTCOME_DROPPED)).isEqualTo(4.0);
+        assertThat(events(WalletStreamService.OUTCOME_SENT)).isEqualTo(2.0);
+    }
+
+    @Test
+    void subscribe_BeyondTheLimit_IsRejected() {
+        // Given
+        WalletStreamService service = service(1, 8, false);
+        assertThat(service.subscribe(balance(1L))).isPresent();
+
+        // When / Then
+        assertThat(service.subscribe(balance(2L))).isEmpty();
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+        assertThat(events(WalletStreamService.OUTCOME_REJECTED)).isEqualTo(1.0);
+    }
+
+    @Test
+    void subscribe_WhenDisabled_IsRejectedWithoutTouchingTheSubscriberGauge() {
+        // Given
+        WalletStreamService service = new WalletStreamService(new WalletMetrics(meterRegistry), rabbitTemplate,
+                false, 10, 8, 1, 30, false, "wallet.events");
+
+        // When
+        Optional<SseEmitter> first = service.subscribe(balance(1L));
+        Optional<SseEmitter> second = service.subscribe(balance(1L));
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(service.getSubscriberCount()).isZero();
+        assertThat(meterRegistry.get("wallet.stream.subscribers").gauge().value()).isZero();
+        assertThat(events(WalletStreamService.OUTCOME_REJECTED)).isEqualTo(2.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void subscribe_RejectedAtTheLimit_LeavesRoomOnceASubscriberCloses() {
+        // Given
+        WalletStreamService service = service(1, 8, false);
+        assertThat(service.subscribe(balance(1L))).isPresent();
+        assertThat(service.subscribe(balance(2L))).isEmpty();
+        Map<Long, Set<?>> subscribers = (Map<Long, Set<?>>) ReflectionTestUtils.getField(service, "subscribers");
+        Object subscriber = subscribers.get(1L).iterator().next();
+
+        // When: the container may report completion and an error for the same stream
+        ReflectionTestUtils.invokeMethod(subscriber, "close");
+        ReflectionTestUtils.invokeMethod(subscriber, "close");
+
+        // Then
+        assertThat(meterRegistry.get("wallet.stream.subscribers").gauge().value()).isZero();
+        assertThat(service.subscribe(balance(2L))).isPresent();
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void publish_WithFanout_GoesThroughTheExchangeInsteadOfLocalDelivery() throws Exception {
+        // Given
+        WalletStreamService service = service(10, 8, true);
+        service.subscribe(balance(1L));
+        awaitDispatch(service);
+        TransactionMessage message = message(50L, 1L);
+
+        // When
+        service.publish(message);
+        awaitDispatch(service);
+
+        // Then: only the initial balance went out locally; the listener delivers the rest
+        verify(rabbitTemplate).convertAndSend("wallet.events", "", message);
+        assertThat(events(WalletStreamService.OUTCOME_SENT)).isEqualTo(1.0);
+    }
+}